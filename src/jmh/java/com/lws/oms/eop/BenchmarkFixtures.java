@@ -0,0 +1,109 @@
+package com.lws.oms.eop;
+
+import com.lws.oms.eop.model.RepositoryInfo;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic but realistically shaped inputs for the benchmarks: POMs, Bitbucket listings.
+ */
+public final class BenchmarkFixtures {
+
+  public static final String TARGET_DEPENDENCY = "target-lib";
+
+  private BenchmarkFixtures() {
+  }
+
+  /**
+   * A POM of roughly {@code lines} lines whose dependency block ends with {@link #TARGET_DEPENDENCY},
+   * so updating it scans the whole file.
+   */
+  public static List<String> pom(int lines) {
+    List<String> pom = new ArrayList<>(lines + 16);
+    pom.add("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+    pom.add("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">");
+    pom.add("    <modelVersion>4.0.0</modelVersion>");
+    pom.add("    <groupId>com.example</groupId>");
+    pom.add("    <artifactId>service</artifactId>");
+    pom.add("    <version>1.0.0</version>");
+    pom.add("    <dependencies>");
+    int dependency = 0;
+    while (pom.size() + 8 < lines) {
+      addDependency(pom, "lib-" + dependency++, "1." + dependency + ".0");
+    }
+    addDependency(pom, TARGET_DEPENDENCY, "1.0.0");
+    pom.add("    </dependencies>");
+    pom.add("</project>");
+    return pom;
+  }
+
+  public static String text(List<String> lines, String eol) {
+    return String.join(eol, lines) + eol;
+  }
+
+  public static RepositoryInfo repository(String slug) {
+    RepositoryInfo repository = new RepositoryInfo();
+    repository.setProjectName("SHRSU");
+    repository.setRepoSlug(slug);
+    return repository;
+  }
+
+  public static byte[] branchListing(int branches) {
+    StringBuilder json = new StringBuilder(branches * 700).append("{\"pagelen\":").append(branches).append(",\"values\":[");
+    for (int i = 0; i < branches; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      String hash = hash(i);
+      json.append("{\"name\":\"feature/JIRA-").append(i).append("-some-change\",\"type\":\"branch\",")
+          .append("\"target\":{\"hash\":\"").append(hash).append("\",\"type\":\"commit\",")
+          .append("\"date\":\"2025-06-0").append(i % 9 + 1).append("T10:15:30+00:00\",")
+          .append("\"author\":{\"type\":\"author\",\"raw\":\"Dev ").append(i).append(" <dev").append(i)
+          .append("@example.com>\"},\"message\":\"Change number ").append(i).append("\\n\",")
+          .append("\"links\":{\"self\":{\"href\":\"https://api.bitbucket.org/2.0/repositories/shrsu/repo/commit/")
+          .append(hash).append("\"}},\"parents\":[{\"hash\":\"").append(hash(i + 1)).append("\",\"type\":\"commit\"}]},")
+          .append("\"links\":{\"self\":{\"href\":\"https://api.bitbucket.org/2.0/repositories/shrsu/repo/refs/branches/feature/JIRA-")
+          .append(i).append("\"},\"commits\":{\"href\":\"https://api.bitbucket.org/2.0/repositories/shrsu/repo/commits/feature/JIRA-")
+          .append(i).append("\"}},\"merge_strategies\":[\"merge_commit\",\"squash\",\"fast_forward\"],")
+          .append("\"default_merge_strategy\":\"merge_commit\"}");
+    }
+    return json.append("],\"page\":1,\"size\":").append(branches).append('}').toString()
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  public static byte[] repositoryListing(int repositories) {
+    StringBuilder json = new StringBuilder(repositories * 800).append("{\"pagelen\":").append(repositories).append(",\"values\":[");
+    for (int i = 0; i < repositories; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("{\"type\":\"repository\",\"full_name\":\"shrsu/service-").append(i).append("\",")
+          .append("\"name\":\"service-").append(i).append("\",\"slug\":\"service-").append(i).append("\",")
+          .append("\"uuid\":\"{").append(hash(i), 0, 32).append("}\",\"is_private\":true,\"language\":\"java\",")
+          .append("\"size\":").append(1_000_000 + i).append(",\"has_issues\":false,\"has_wiki\":false,")
+          .append("\"created_on\":\"2023-01-01T00:00:00+00:00\",\"updated_on\":\"2025-06-01T00:00:00+00:00\",")
+          .append("\"mainbranch\":{\"name\":\"main\",\"type\":\"branch\"},")
+          .append("\"project\":{\"type\":\"project\",\"key\":\"SHRSU\",\"name\":\"SHRSU\"},")
+          .append("\"links\":{\"self\":{\"href\":\"https://api.bitbucket.org/2.0/repositories/shrsu/service-").append(i)
+          .append("\"},\"html\":{\"href\":\"https://bitbucket.org/shrsu/service-").append(i)
+          .append("\"},\"clone\":[{\"name\":\"https\",\"href\":\"https://bitbucket.org/shrsu/service-").append(i)
+          .append(".git\"},{\"name\":\"ssh\",\"href\":\"git@bitbucket.org:shrsu/service-").append(i).append(".git\"}]}}");
+    }
+    return json.append("],\"page\":1,\"size\":").append(repositories).append('}').toString()
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String hash(int seed) {
+    return String.format("%040x", (long) seed * 0x9E3779B97F4A7C15L & Long.MAX_VALUE);
+  }
+
+  private static void addDependency(List<String> pom, String artifactId, String version) {
+    pom.add("        <dependency>");
+    pom.add("            <groupId>com.example</groupId>");
+    pom.add("            <artifactId>" + artifactId + "</artifactId>");
+    pom.add("            <version>" + version + "</version>");
+    pom.add("        </dependency>");
+  }
+
+}
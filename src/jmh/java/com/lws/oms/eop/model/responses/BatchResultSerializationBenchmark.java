@@ -0,0 +1,94 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.lws.oms.eop.BenchmarkFixtures;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Serializing a {@code /getFileContents} response: the typed {@link BatchResult} of
+ * {@link FileContentResult}s, with and without Blackbird, against the {@code HashMap} per file
+ * that the endpoint built before the typed model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BatchResultSerializationBenchmark {
+
+  @Param({"10", "200", "2000"})
+  private int files;
+
+  private ObjectMapper blackbird;
+  private ObjectMapper reflective;
+  private BatchResult<FileContentResult> typed;
+  private Map<String, Object> mapBased;
+
+  @Setup
+  public void createResponses() {
+    blackbird = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build();
+    reflective = Jackson2ObjectMapperBuilder.json().build();
+
+    List<String> content = BenchmarkFixtures.pom(60);
+    List<FileContentResult> results = new ArrayList<>(files);
+    List<Map<String, Object>> fileContents = new ArrayList<>(files);
+    for (int i = 0; i < files; i++) {
+      String slug = "service-" + i;
+      results.add(FileContentResult.builder()
+          .projectName("SHRSU")
+          .repoSlug(slug)
+          .file("pom.xml")
+          .status(ResultStatus.SUCCESS)
+          .content(content)
+          .build());
+
+      Map<String, Object> fileResponse = new HashMap<>();
+      fileResponse.put("projectName", "SHRSU");
+      fileResponse.put("repo", slug);
+      fileResponse.put("file", "pom.xml");
+      fileResponse.put("module", null);
+      fileResponse.put("searchPath", null);
+      fileResponse.put("status", "success");
+      fileResponse.put("content", content);
+      fileContents.add(fileResponse);
+    }
+    typed = BatchResult.of(results);
+    mapBased = new HashMap<>();
+    mapBased.put("fileContents", fileContents);
+  }
+
+  @Benchmark
+  public byte[] typedBlackbird() throws JsonProcessingException {
+    return blackbird.writeValueAsBytes(typed);
+  }
+
+  @Benchmark
+  public byte[] typedReflective() throws JsonProcessingException {
+    return reflective.writeValueAsBytes(typed);
+  }
+
+  @Benchmark
+  public byte[] mapBased() throws JsonProcessingException {
+    return reflective.writeValueAsBytes(mapBased);
+  }
+
+}
@@ -0,0 +1,55 @@
+package com.lws.oms.eop.model.responses;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Counting build states over decoded status listings, as returned for busy pull requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BuildMetricsBenchmark {
+
+  private static final String[] STATES = {"SUCCESSFUL", "FAILED", "INPROGRESS", "STOPPED", "successful", "UNKNOWN"};
+
+  @Param({"100", "1000", "10000"})
+  private int statuses;
+
+  private Map<String, Object> response;
+
+  @Setup
+  public void createStatuses() {
+    List<Object> values = new ArrayList<>(statuses);
+    for (int i = 0; i < statuses; i++) {
+      values.add(Map.of(
+          "key", "build-" + i,
+          "state", STATES[i % STATES.length],
+          "name", "Pipeline #" + i,
+          "url", "https://ci.example.com/builds/" + i));
+    }
+    response = Map.of("values", values, "size", statuses);
+  }
+
+  @Benchmark
+  public BuildMetrics fromStatuses() {
+    return BuildMetrics.fromStatuses(response);
+  }
+
+}
@@ -0,0 +1,128 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.lws.oms.eop.BenchmarkFixtures;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Encoding and decoding a {@code /getFileContents} response of realistic POMs in each format the
+ * bulk endpoints negotiate: JSON, gzip-compressed JSON (as the connector compresses it), Smile and
+ * CBOR. The payload size of each format is printed when its trial starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ResponseFormatBenchmark {
+
+  private static final TypeReference<BatchResult<FileContentResult>> RESPONSE = new TypeReference<>() {
+  };
+
+  @Param({"json", "json-gzip", "smile", "cbor"})
+  private String format;
+
+  @Param({"20", "200"})
+  private int files;
+
+  private ObjectMapper objectMapper;
+  private boolean gzip;
+  private BatchResult<FileContentResult> response;
+  private byte[] encoded;
+
+  @Setup
+  public void createResponse() throws IOException {
+    Jackson2ObjectMapperBuilder builder = switch (format) {
+      case "smile" -> Jackson2ObjectMapperBuilder.smile();
+      case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+      default -> Jackson2ObjectMapperBuilder.json();
+    };
+    objectMapper = builder.modulesToInstall(new BlackbirdModule()).build();
+    gzip = format.endsWith("-gzip");
+
+    Random random = new Random(42);
+    List<FileContentResult> results = new ArrayList<>(files);
+    for (int i = 0; i < files; i++) {
+      results.add(FileContentResult.builder()
+          .projectName("SHRSU")
+          .repoSlug("service-" + i)
+          .file("pom.xml")
+          .status(ResultStatus.SUCCESS)
+          .content(vary(BenchmarkFixtures.pom(150 + i % 7 * 50), random))
+          .build());
+    }
+    response = BatchResult.of(results);
+    encoded = encode(response);
+    System.out.printf("%n%s, %d files: %d bytes%n", format, files, encoded.length);
+  }
+
+  @Benchmark
+  public byte[] encode() throws IOException {
+    return encode(response);
+  }
+
+  @Benchmark
+  public BatchResult<FileContentResult> decode() throws IOException {
+    if (!gzip) {
+      return objectMapper.readValue(encoded, RESPONSE);
+    }
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+      return objectMapper.readValue(in, RESPONSE);
+    }
+  }
+
+  /**
+   * Gives every dependency of the fixture its own name and version, so the POMs of different
+   * repositories differ as real ones do and gzip cannot simply reuse one file for the next.
+   */
+  private static List<String> vary(List<String> pom, Random random) {
+    List<String> varied = new ArrayList<>(pom.size());
+    for (String line : pom) {
+      if (line.contains("<artifactId>lib-")) {
+        line = line.replace("lib-", "lib-" + Integer.toString(random.nextInt(1 << 20), 36) + "-");
+      } else if (line.contains("<version>")) {
+        String version = random.nextInt(10) + "." + random.nextInt(40) + "." + random.nextInt(20);
+        line = line.replaceAll(">[^<]*<", ">" + version + "<");
+      }
+      varied.add(line);
+    }
+    return varied;
+  }
+
+  private byte[] encode(BatchResult<FileContentResult> value) throws IOException {
+    if (!gzip) {
+      return objectMapper.writeValueAsBytes(value);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = new GZIPOutputStream(bytes)) {
+      objectMapper.writeValue(out, value);
+    }
+    return bytes.toByteArray();
+  }
+
+}
@@ -0,0 +1,69 @@
+package com.lws.oms.eop.service;
+
+import com.lws.oms.eop.BenchmarkFixtures;
+import com.lws.oms.eop.cache.CacheProvider;
+import com.lws.oms.eop.cache.FileContentCache;
+import com.lws.oms.eop.cache.LocalCacheProvider;
+import com.lws.oms.eop.cache.NotFoundCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.lws.oms.eop.feign.BitbucketFeignClient;
+import com.lws.oms.eop.model.RepositoryInfo;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Splitting fetched file content into lines and detecting its line ending, with the Feign client
+ * replaced by one that returns the content immediately.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FileContentSplitBenchmark {
+
+  @Param({"50", "1000", "20000"})
+  private int lines;
+
+  @Param({"LF", "CRLF"})
+  private String lineEnding;
+
+  private BitbucketApiService bitbucketApiService;
+  private RepositoryInfo repository;
+
+  @Setup
+  public void createService() {
+    String content = BenchmarkFixtures.text(BenchmarkFixtures.pom(lines), "CRLF".equals(lineEnding) ? "\r\n" : "\n");
+    BitbucketFeignClient client = (BitbucketFeignClient) Proxy.newProxyInstance(
+        BitbucketFeignClient.class.getClassLoader(),
+        new Class<?>[] {BitbucketFeignClient.class},
+        (proxy, method, args) -> content);
+    // Not a full commit hash, so every call loads and splits the content again.
+    CacheProvider cacheProvider = new LocalCacheProvider(new SimpleMeterRegistry());
+    FileContentCache cache = new FileContentCache(cacheProvider, DataSize.ofMegabytes(1), false, null, null, null, 0);
+    NotFoundCache notFoundCache = new NotFoundCache(cacheProvider, Duration.ofMinutes(1));
+    bitbucketApiService = new BitbucketApiService(client, null, cache, cacheProvider, notFoundCache, null, "shrsu",
+        Duration.ofSeconds(30));
+    repository = BenchmarkFixtures.repository("service");
+  }
+
+  @Benchmark
+  public BitbucketApiService.FileContentWithEol getFileContentWithEol() {
+    return bitbucketApiService.getFileContentWithEol(repository, "0a1b2c3d", "pom.xml", "Basic token");
+  }
+
+}
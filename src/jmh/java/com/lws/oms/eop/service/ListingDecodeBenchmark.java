@@ -0,0 +1,62 @@
+package com.lws.oms.eop.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.lws.oms.eop.BenchmarkFixtures;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Decoding Bitbucket branch and repository listings into the {@code Map<String, Object>} the Feign
+ * clients return, with a mapper configured like the application's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ListingDecodeBenchmark {
+
+  private static final TypeReference<Map<String, Object>> LISTING = new TypeReference<>() {
+  };
+
+  @Param({"100", "1000", "10000"})
+  private int entries;
+
+  private ObjectMapper objectMapper;
+  private byte[] branches;
+  private byte[] repositories;
+
+  @Setup
+  public void createListings() {
+    objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build();
+    branches = BenchmarkFixtures.branchListing(entries);
+    repositories = BenchmarkFixtures.repositoryListing(entries);
+  }
+
+  @Benchmark
+  public Map<String, Object> decodeBranchListing() throws IOException {
+    return objectMapper.readValue(branches, LISTING);
+  }
+
+  @Benchmark
+  public Map<String, Object> decodeRepositoryListing() throws IOException {
+    return objectMapper.readValue(repositories, LISTING);
+  }
+
+}
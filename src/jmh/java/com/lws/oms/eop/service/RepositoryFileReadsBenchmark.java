@@ -0,0 +1,123 @@
+package com.lws.oms.eop.service;
+
+import com.lws.oms.eop.BenchmarkFixtures;
+import com.lws.oms.eop.cache.LocalCacheProvider;
+import com.lws.oms.eop.cache.RepositoryTree;
+import com.lws.oms.eop.model.FileInfo;
+import com.lws.oms.eop.model.RepositoryInfo;
+import com.lws.oms.eop.model.responses.FileContentResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of reading several files from one repository against an upstream that answers every call
+ * after a fixed delay. {@code perFileSequential} is the flow before repository grouping (head and
+ * content per file, one after another); {@code repositoryScoped} is the current one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RepositoryFileReadsBenchmark {
+
+  @Param({"4", "16"})
+  private int files;
+
+  @Param({"20"})
+  private int upstreamLatencyMillis;
+
+  private BitbucketApiService bitbucketApiService;
+  private BitBucketIntegrationService bitBucketIntegrationService;
+  private List<FileInfo> fileInfos;
+
+  @Setup
+  public void createServices() {
+    bitbucketApiService = new DelayedBitbucketApiService(Duration.ofMillis(upstreamLatencyMillis));
+    bitBucketIntegrationService = new BitBucketIntegrationService(
+        bitbucketApiService, new PatchedContentStore(Duration.ofMinutes(1), 100));
+    RepositoryInfo repository = BenchmarkFixtures.repository("service");
+    fileInfos = new ArrayList<>(files);
+    for (int i = 0; i < files; i++) {
+      FileInfo fileInfo = new FileInfo();
+      fileInfo.setRepositoryInfo(repository);
+      fileInfo.setFileName("module-" + i + "/pom.xml");
+      fileInfos.add(fileInfo);
+    }
+  }
+
+  @Benchmark
+  public List<FileContentResult> repositoryScoped() {
+    return bitBucketIntegrationService.getFileContentsAsync(fileInfos, "main", "Basic token").join();
+  }
+
+  @Benchmark
+  public List<List<String>> perFileSequential() {
+    List<List<String>> contents = new ArrayList<>(files);
+    for (FileInfo fileInfo : fileInfos) {
+      RepositoryInfo repository = fileInfo.getRepositoryInfo();
+      String head = bitbucketApiService.getLatestCommit(repository, "main", "Basic token");
+      String path = bitbucketApiService.findFilePathByName(repository, head, fileInfo.getFileName(), "Basic token", "", "");
+      contents.add(bitbucketApiService.getFileContent(repository, head, path, "Basic token"));
+    }
+    return contents;
+  }
+
+  private static final class DelayedBitbucketApiService extends BitbucketApiService {
+
+    private static final List<String> CONTENT = BenchmarkFixtures.pom(200);
+    private static final RepositoryTree TREE = new RepositoryTree(
+        IntStream.range(0, 16).mapToObj(i -> "module-" + i + "/pom.xml").toList());
+
+    private final Duration latency;
+
+    private DelayedBitbucketApiService(Duration latency) {
+      super(null, null, null, new LocalCacheProvider(new SimpleMeterRegistry()), null, null, "shrsu",
+          Duration.ofSeconds(30));
+      this.latency = latency;
+    }
+
+    @Override
+    public String getLatestCommit(RepositoryInfo repositoryInfo, String branchName, String authHeader) {
+      upstreamCall();
+      return "0a1b2c3d";
+    }
+
+    @Override
+    public RepositoryTree getRepositoryTree(RepositoryInfo repositoryInfo, String commit, String authHeader) {
+      // Indexed once per commit and cached, so it adds nothing per read.
+      return TREE;
+    }
+
+    @Override
+    public List<String> getFileContent(RepositoryInfo repositoryInfo, String commit, String filePath, String authHeader) {
+      upstreamCall();
+      return CONTENT;
+    }
+
+    private void upstreamCall() {
+      try {
+        Thread.sleep(latency);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+}
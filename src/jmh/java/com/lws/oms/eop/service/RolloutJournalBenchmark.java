@@ -0,0 +1,90 @@
+package com.lws.oms.eop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lws.oms.eop.BenchmarkFixtures;
+import com.lws.oms.eop.model.RepositoryInfo;
+import com.lws.oms.eop.model.requests.RolloutRequest;
+import com.lws.oms.eop.model.responses.RolloutStage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Rollout steps journaled by many repositories at once, each waiting until its step is synced to
+ * disk. With {@code maxBatch=1} every entry gets its own fsync; with the default 512 the writer
+ * syncs whatever has accumulated at once (group commit).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RolloutJournalBenchmark {
+
+  @Param({"1", "512"})
+  private int maxBatch;
+
+  private Path directory;
+  private RolloutJournal journal;
+  private RepositoryInfo repository;
+
+  @Setup(Level.Trial)
+  public void openJournal() throws IOException {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    directory = Files.createTempDirectory("rollout-journal-benchmark");
+    journal = new RolloutJournal(objectMapper, directory.resolve("rollouts.jsonl"), maxBatch, Duration.ofDays(7),
+        Duration.ofDays(2));
+    journal.open();
+
+    repository = BenchmarkFixtures.repository("service");
+    RolloutRequest request = new RolloutRequest();
+    request.setRolloutId("benchmark");
+    request.setRepoList(List.of(repository));
+    request.setBaseBranch("main");
+    request.setBranchName("bump");
+    request.setDependency("spring-kafka");
+    request.setVersion("3.2.0");
+    request.setCommitMessage("Bump spring-kafka");
+    request.setPrTitle("Bump spring-kafka");
+    journal.recordJob(request);
+  }
+
+  @TearDown(Level.Trial)
+  public void closeJournal() throws Exception {
+    journal.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public boolean recordStepDurably() throws InterruptedException {
+    journal.recordStep("benchmark", repository, RolloutStage.BRANCH, "base", "pom.xml", false, null);
+    return journal.awaitWritten(Duration.ofSeconds(10));
+  }
+
+}
@@ -0,0 +1,68 @@
+package com.lws.oms.eop.utils;
+
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Turning an upstream error into the message shown per item. Every failed item of a batch goes
+ * through this, so a Bitbucket outage runs it once per repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ErrorMessageBenchmark {
+
+  private FeignException bitbucketError;
+  private FeignException gatewayPage;
+
+  @Setup
+  public void createErrors() {
+    bitbucketError = error(404, """
+        {"type": "error", "error": {"message": "Repository shrsu/missing not found", \
+        "detail": "There is no repository with that name in this workspace."}}""");
+    gatewayPage = error(503, "<html><head><title>503 Service Unavailable</title></head>"
+        + "<body><h1>Service Unavailable</h1>" + "<p>Please try again later.</p>".repeat(20) + "</body></html>");
+  }
+
+  @Benchmark
+  public String bitbucketJsonError() {
+    return ErrorUtils.extractMeaningfulErrorMessage(bitbucketError);
+  }
+
+  @Benchmark
+  public String htmlGatewayError() {
+    return ErrorUtils.extractMeaningfulErrorMessage(gatewayPage);
+  }
+
+  private static FeignException error(int status, String body) {
+    Request request = Request.create(Request.HttpMethod.GET,
+        "https://api.bitbucket.org/2.0/repositories/shrsu/missing/refs/branches",
+        Map.of(), null, StandardCharsets.UTF_8, null);
+    Response response = Response.builder()
+        .status(status)
+        .reason("error")
+        .request(request)
+        .headers(Map.of())
+        .body(body, StandardCharsets.UTF_8)
+        .build();
+    return FeignException.errorStatus("BitbucketFeignClient#getBranches(String,String,String)", response);
+  }
+
+}
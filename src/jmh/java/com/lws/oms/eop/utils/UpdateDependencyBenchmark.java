@@ -0,0 +1,47 @@
+package com.lws.oms.eop.utils;
+
+import com.lws.oms.eop.BenchmarkFixtures;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rewriting a dependency version in POMs from small modules to generated aggregator files. The POM
+ * is copied per invocation because the update edits the list in place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UpdateDependencyBenchmark {
+
+  @Param({"50", "1000", "20000"})
+  private int lines;
+
+  private List<String> pom;
+
+  @Setup
+  public void generatePom() {
+    pom = BenchmarkFixtures.pom(lines);
+  }
+
+  @Benchmark
+  public UpdateDependencyUtil.UpdateOutcome updateLastDependency() {
+    return UpdateDependencyUtil.updateDependencyVersionInPom(
+        new ArrayList<>(pom), BenchmarkFixtures.TARGET_DEPENDENCY, "2.0.0");
+  }
+
+}
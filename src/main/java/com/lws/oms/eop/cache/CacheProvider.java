@@ -0,0 +1,24 @@
+package com.lws.oms.eop.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+/**
+ * Creates the service-level caches: {@link LocalCacheProvider} keeps them per replica,
+ * {@link ClusterCacheProvider} shares them across replicas. Selected with {@code cache.provider}.
+ * The value type is what a provider that moves values between replicas encodes them as.
+ */
+public interface CacheProvider {
+
+  <V> ServiceCache<V> create(String name, JavaType type, CacheSpec<V> spec);
+
+  default <V> ServiceCache<V> create(String name, Class<V> type, CacheSpec<V> spec) {
+    return create(name, TypeFactory.defaultInstance().constructType(type), spec);
+  }
+
+  default <V> ServiceCache<V> create(String name, TypeReference<V> type, CacheSpec<V> spec) {
+    return create(name, TypeFactory.defaultInstance().constructType(type), spec);
+  }
+
+}
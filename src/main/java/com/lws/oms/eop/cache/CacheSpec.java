@@ -0,0 +1,25 @@
+package com.lws.oms.eop.cache;
+
+import java.time.Duration;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounds of one cache: entries expire {@code expireAfterWrite} after they were stored (never if
+ * null), and the total weight of the entries is kept under {@code maximumWeight}.
+ */
+public record CacheSpec<V>(Duration expireAfterWrite, long maximumWeight, ToIntFunction<V> weigher) {
+
+  public static <V> CacheSpec<V> entries(long maximumEntries, Duration expireAfterWrite) {
+    return new CacheSpec<>(expireAfterWrite, maximumEntries, value -> 1);
+  }
+
+  public static <V> CacheSpec<V> weighted(long maximumWeight, ToIntFunction<V> weigher) {
+    return new CacheSpec<>(null, maximumWeight, weigher);
+  }
+
+  CacheSpec<V> expiringWithin(Duration limit) {
+    return new CacheSpec<>(expireAfterWrite == null || expireAfterWrite.compareTo(limit) > 0 ? limit : expireAfterWrite,
+        maximumWeight, weigher);
+  }
+
+}
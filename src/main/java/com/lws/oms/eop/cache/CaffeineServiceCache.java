@@ -0,0 +1,48 @@
+package com.lws.oms.eop.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Optional;
+
+/**
+ * A {@link ServiceCache} held in this process.
+ */
+final class CaffeineServiceCache<V> implements ServiceCache<V> {
+
+  private final Cache<String, V> cache;
+
+  CaffeineServiceCache(String name, CacheSpec<V> spec, MeterRegistry registry) {
+    Caffeine<String, V> builder = Caffeine.newBuilder()
+        .maximumWeight(spec.maximumWeight())
+        .<String, V>weigher((key, value) -> spec.weigher().applyAsInt(value))
+        .recordStats();
+    if (spec.expireAfterWrite() != null) {
+      builder.expireAfterWrite(spec.expireAfterWrite());
+    }
+    this.cache = builder.build();
+    CaffeineCacheMetrics.monitor(registry, cache, name);
+  }
+
+  @Override
+  public Optional<V> getIfPresent(String key) {
+    return Optional.ofNullable(cache.getIfPresent(key));
+  }
+
+  @Override
+  public void put(String key, V value) {
+    cache.put(key, value);
+  }
+
+  @Override
+  public void invalidate(String key) {
+    cache.invalidate(key);
+  }
+
+  @Override
+  public void invalidatePrefix(String prefix) {
+    cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+  }
+
+}
@@ -0,0 +1,326 @@
+package com.lws.oms.eop.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches shared by the replicas listed in {@code cache.cluster.peers}, so an entry loaded by any of
+ * them is a hit for all of them.
+ *
+ * <p>Every key has one owner, chosen by rendezvous hashing over the peers; the owner holds the entry
+ * and the others ask it over HTTP ({@value #PATH}, values encoded as Smile). What a replica reads
+ * from or stores at another owner is kept in a near cache for at most {@code near-cache-ttl}.
+ * Invalidations are applied locally and sent to every peer, which drop both their owned and near
+ * copies, before they return. An unreachable peer is a miss, never an error: the caller loads from
+ * upstream.
+ *
+ * <p>Stores are sent asynchronously and may cross an invalidation; a value loaded just before it
+ * can still reach its owner after it. Entries that can change therefore keep short expiry times.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cache.provider", havingValue = "cluster")
+public class ClusterCacheProvider implements CacheProvider {
+
+  public static final String PATH = "/internal/cache";
+  public static final String SECRET_HEADER = "X-Cache-Secret";
+  public static final String CONTENT_TYPE = "application/x-jackson-smile";
+
+  private final MeterRegistry registry;
+  private final String self;
+  private final List<String> peers;
+  private final byte[] secret;
+  private final Duration timeout;
+  private final Duration nearCacheTtl;
+  private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+  private final HttpClient http;
+  private final Map<String, ClusterCache<?>> caches = new ConcurrentHashMap<>();
+  private final LongAdder peerErrors = new LongAdder();
+
+  public ClusterCacheProvider(
+      MeterRegistry registry,
+      @Value("${cache.cluster.self}") String self,
+      @Value("${cache.cluster.peers}") List<String> peers,
+      @Value("${cache.cluster.secret}") String secret,
+      @Value("${cache.cluster.timeout:250ms}") Duration timeout,
+      @Value("${cache.cluster.near-cache-ttl:30s}") Duration nearCacheTtl) {
+    if (self == null || self.isBlank() || secret == null || secret.isBlank()) {
+      throw new IllegalStateException(
+          "cache.cluster.self and cache.cluster.secret must be set when cache.provider is cluster");
+    }
+    this.registry = registry;
+    this.self = normalize(self);
+    this.peers = Stream.concat(peers.stream(), Stream.of(self))
+        .filter(peer -> peer != null && !peer.isBlank())
+        .map(ClusterCacheProvider::normalize)
+        .distinct()
+        .sorted()
+        .toList();
+    this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    this.timeout = timeout;
+    this.nearCacheTtl = nearCacheTtl;
+    this.http = HttpClient.newBuilder()
+        .connectTimeout(timeout)
+        .executor(Executors.newVirtualThreadPerTaskExecutor())
+        .build();
+    FunctionCounter.builder("cache.cluster.peer.errors", peerErrors, LongAdder::sum)
+        .description("Failed or timed-out requests to other cache replicas")
+        .register(registry);
+    log.info("Cluster cache on {} with peers {}", this.self, this.peers);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V> ServiceCache<V> create(String name, JavaType type, CacheSpec<V> spec) {
+    return (ServiceCache<V>) caches.computeIfAbsent(name, ignored -> new ClusterCache<>(name, type, spec));
+  }
+
+  public boolean authorized(String presented) {
+    return presented != null && MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * An entry this replica owns, encoded for a peer.
+   */
+  public Optional<byte[]> read(String cache, String key) {
+    ClusterCache<?> target = caches.get(cache);
+    return target == null ? Optional.empty() : target.owned.getIfPresent(key).map(target::encode);
+  }
+
+  /**
+   * Stores an entry a peer loaded for a key this replica owns.
+   */
+  public void write(String cache, String key, byte[] value) {
+    ClusterCache<?> target = caches.get(cache);
+    if (target != null) {
+      target.store(key, value);
+    }
+  }
+
+  /**
+   * Applies an invalidation broadcast by a peer, of one key or of every key with {@code prefix}.
+   */
+  public void evict(String cache, String key, String prefix) {
+    ClusterCache<?> target = caches.get(cache);
+    if (target != null) {
+      target.evictLocally(key, prefix);
+    }
+  }
+
+  String ownerOf(String key) {
+    long keyHash = fnv(key);
+    String owner = null;
+    long best = 0;
+    for (String peer : peers) {
+      long score = mix(fnv(peer) ^ keyHash);
+      if (owner == null || Long.compareUnsigned(score, best) > 0) {
+        owner = peer;
+        best = score;
+      }
+    }
+    return owner;
+  }
+
+  private final class ClusterCache<V> implements ServiceCache<V> {
+
+    private final String name;
+    private final JavaType type;
+    private final CaffeineServiceCache<V> owned;
+    private final CaffeineServiceCache<V> near;
+    private final LongAdder nearHits = new LongAdder();
+    private final LongAdder ownedHits = new LongAdder();
+    private final LongAdder peerHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private ClusterCache(String name, JavaType type, CacheSpec<V> spec) {
+      this.name = name;
+      this.type = type;
+      this.owned = new CaffeineServiceCache<>(name, spec, registry);
+      this.near = new CaffeineServiceCache<>(name + ".near", spec.expiringWithin(nearCacheTtl), registry);
+      counter("near", nearHits);
+      counter("owned", ownedHits);
+      counter("peer", peerHits);
+      counter("miss", misses);
+    }
+
+    @Override
+    public Optional<V> getIfPresent(String key) {
+      Optional<V> value = near.getIfPresent(key);
+      if (value.isPresent()) {
+        nearHits.increment();
+        return value;
+      }
+      String owner = ownerOf(key);
+      if (owner.equals(self)) {
+        value = owned.getIfPresent(key);
+        (value.isPresent() ? ownedHits : misses).increment();
+        return value;
+      }
+      value = fetch(owner, key);
+      value.ifPresent(found -> near.put(key, found));
+      (value.isPresent() ? peerHits : misses).increment();
+      return value;
+    }
+
+    @Override
+    public void put(String key, V value) {
+      String owner = ownerOf(key);
+      if (owner.equals(self)) {
+        owned.put(key, value);
+        return;
+      }
+      near.put(key, value);
+      send(HttpRequest.newBuilder(uri(owner, "", "key", key))
+          .header("Content-Type", CONTENT_TYPE)
+          .PUT(HttpRequest.BodyPublishers.ofByteArray(encode(value))));
+    }
+
+    @Override
+    public void invalidate(String key) {
+      evictLocally(key, null);
+      broadcast("key", key);
+    }
+
+    @Override
+    public void invalidatePrefix(String prefix) {
+      evictLocally(null, prefix);
+      broadcast("prefix", prefix);
+    }
+
+    private void evictLocally(String key, String prefix) {
+      if (key != null) {
+        owned.invalidate(key);
+        near.invalidate(key);
+      }
+      if (prefix != null) {
+        owned.invalidatePrefix(prefix);
+        near.invalidatePrefix(prefix);
+      }
+    }
+
+    private void store(String key, byte[] value) {
+      try {
+        owned.put(key, smile.readValue(value, type));
+      } catch (IOException e) {
+        log.warn("Dropping undecodable {} entry {} from a peer: {}", name, key, e.getMessage());
+      }
+    }
+
+    private Optional<V> fetch(String owner, String key) {
+      HttpRequest request = HttpRequest.newBuilder(uri(owner, "", "key", key))
+          .timeout(timeout)
+          .header(SECRET_HEADER, new String(secret, StandardCharsets.UTF_8))
+          .header("Accept", CONTENT_TYPE)
+          .GET()
+          .build();
+      try {
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() == 200) {
+          return Optional.of(smile.readValue(response.body(), type));
+        }
+        if (response.statusCode() != 404) {
+          peerErrors.increment();
+        }
+      } catch (IOException e) {
+        peerErrors.increment();
+        log.debug("Cache peer {} unavailable for {} {}: {}", owner, name, key, e.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return Optional.empty();
+    }
+
+    /**
+     * Waits for every peer (up to the timeout), so that once an invalidation returns no reachable
+     * replica still serves the old value.
+     */
+    private void broadcast(String parameter, String value) {
+      CompletableFuture.allOf(peers.stream()
+          .filter(peer -> !peer.equals(self))
+          .map(peer -> send(HttpRequest.newBuilder(uri(peer, "/invalidate", parameter, value))
+              .POST(HttpRequest.BodyPublishers.noBody())))
+          .toArray(CompletableFuture[]::new)).join();
+    }
+
+    private CompletableFuture<Void> send(HttpRequest.Builder request) {
+      HttpRequest built = request.timeout(timeout)
+          .header(SECRET_HEADER, new String(secret, StandardCharsets.UTF_8))
+          .build();
+      return http.sendAsync(built, HttpResponse.BodyHandlers.discarding())
+          .handle((response, failure) -> {
+            if (failure != null || response.statusCode() >= 300) {
+              peerErrors.increment();
+              log.debug("Cache peer request {} failed: {}", built.uri(),
+                  failure == null ? response.statusCode() : failure.getMessage());
+            }
+            return null;
+          });
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] encode(Object value) {
+      try {
+        return smile.writerFor(type).writeValueAsBytes((V) value);
+      } catch (IOException e) {
+        throw new IllegalStateException("Cannot encode " + name + " entry", e);
+      }
+    }
+
+    private URI uri(String peer, String suffix, String parameter, String value) {
+      return URI.create(peer + PATH + "/" + URLEncoder.encode(name, StandardCharsets.UTF_8) + suffix + "?"
+          + parameter + "=" + URLEncoder.encode(value, StandardCharsets.UTF_8));
+    }
+
+    private void counter(String result, LongAdder adder) {
+      FunctionCounter.builder("cache.cluster.gets", adder, LongAdder::sum)
+          .tag("cache", name)
+          .tag("result", result)
+          .description("Cluster cache lookups by where they were answered")
+          .register(registry);
+    }
+  }
+
+  private static String normalize(String peer) {
+    return peer == null ? "" : peer.trim().replaceAll("/+$", "");
+  }
+
+  private static long fnv(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  private static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+    value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+    return value ^ (value >>> 31);
+  }
+
+}
@@ -0,0 +1,160 @@
+package com.lws.oms.eop.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Contents of files at a given commit. A full commit hash names immutable content, so entries never
+ * go stale: they are kept in a {@link ServiceCache} (shared by the replicas with the cluster
+ * provider) and, if {@code file-cache.disk.enabled}, behind that in a {@link SegmentStore} at
+ * {@code file-cache.disk.path} that survives restarts, so the first campaign after a deploy reads
+ * unchanged files without going upstream. Reads at anything other than a full hash (a branch name)
+ * always go to the loader.
+ *
+ * <p>Entries are shared across callers. They are only reached with a hash the caller has just
+ * resolved from the repository's branches with its own credentials.
+ */
+@Slf4j
+@Component
+public class FileContentCache implements MeterBinder {
+
+  private static final Pattern COMMIT_HASH = Pattern.compile("[0-9a-f]{40}");
+
+  private final ServiceCache<String> cache;
+  private final SegmentStore disk;
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder diskHits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public FileContentCache(
+      CacheProvider cacheProvider,
+      @Value("${file-cache.memory.max-size:64MB}") DataSize memoryMaxSize,
+      @Value("${file-cache.disk.enabled:false}") boolean diskEnabled,
+      @Value("${file-cache.disk.path:}") String diskPath,
+      @Value("${file-cache.disk.segment-size:64MB}") DataSize segmentSize,
+      @Value("${file-cache.disk.max-size:1GB}") DataSize diskMaxSize,
+      @Value("${file-cache.disk.index-slots:262144}") int indexSlots) {
+    this.cache = cacheProvider.create("fileContent", String.class,
+        CacheSpec.weighted(memoryMaxSize.toBytes(), String::length));
+    if (diskEnabled && diskPath.isBlank()) {
+      throw new IllegalStateException("file-cache.disk.path must be set when file-cache.disk.enabled is true");
+    }
+    this.disk = diskEnabled ? openDisk(Path.of(diskPath), segmentSize, diskMaxSize, indexSlots) : null;
+  }
+
+  @PostConstruct
+  void warmUp() {
+    if (disk != null) {
+      Thread.ofPlatform().name("FileContentCacheWarmUp").daemon().start(disk::warmUp);
+    }
+  }
+
+  @PreDestroy
+  void close() throws IOException {
+    if (disk != null) {
+      disk.close();
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("file.content.reads", cacheHits, LongAdder::sum)
+        .tag("tier", "cache").description("File content reads by the tier that served them")
+        .register(registry);
+    FunctionCounter.builder("file.content.reads", diskHits, LongAdder::sum)
+        .tag("tier", "disk").description("File content reads by the tier that served them")
+        .register(registry);
+    FunctionCounter.builder("file.content.reads", misses, LongAdder::sum)
+        .tag("tier", "upstream").description("File content reads by the tier that served them")
+        .register(registry);
+    if (disk != null) {
+      Gauge.builder("file.content.disk.segments", disk, store -> store.stats().segments()).register(registry);
+      Gauge.builder("file.content.disk.keys", disk, store -> store.stats().indexedKeys()).register(registry);
+      FunctionCounter.builder("file.content.disk.evictions", disk, store -> store.stats().evictions())
+          .register(registry);
+    }
+  }
+
+  /**
+   * The content of {@code path} in {@code repository} at {@code commit}, loading it on a miss.
+   */
+  public String get(String workspace, String repository, String commit, String path, Supplier<String> loader) {
+    if (!isCommitHash(commit)) {
+      return loader.get();
+    }
+    String key = workspace + "/" + repository + "@" + commit + ":" + path;
+    Optional<String> cached = cache.getIfPresent(key);
+    if (cached.isPresent()) {
+      cacheHits.increment();
+      return cached.get();
+    }
+    Optional<String> fromDisk = disk == null ? Optional.empty() : readDisk(key);
+    if (fromDisk.isPresent()) {
+      diskHits.increment();
+      cache.put(key, fromDisk.get());
+      return fromDisk.get();
+    }
+    misses.increment();
+    String content = loader.get();
+    String stored = content == null ? "" : content;
+    cache.put(key, stored);
+    if (disk != null) {
+      writeDisk(key, stored);
+    }
+    return content;
+  }
+
+  private Optional<String> readDisk(String key) {
+    try {
+      return disk.get(key).map(value -> StandardCharsets.UTF_8.decode(value).toString());
+    } catch (RuntimeException e) {
+      log.warn("File content cache read failed for {}: {}", key, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  private void writeDisk(String key, String content) {
+    try {
+      disk.put(key, content.getBytes(StandardCharsets.UTF_8));
+    } catch (RuntimeException e) {
+      log.warn("File content cache write failed for {}: {}", key, e.getMessage());
+    }
+  }
+
+  /**
+   * Whether {@code commit} is a full commit hash, whose tree and contents can never change.
+   */
+  public static boolean isCommitHash(String commit) {
+    return commit != null && COMMIT_HASH.matcher(commit).matches();
+  }
+
+  private static SegmentStore openDisk(Path path, DataSize segmentSize, DataSize maxSize, int indexSlots) {
+    try {
+      Optional<SegmentStore> store = SegmentStore.open(path, Math.toIntExact(segmentSize.toBytes()),
+          maxSize.toBytes(), indexSlots);
+      if (store.isEmpty()) {
+        log.warn("File content cache directory {} is in use by another process; caching in memory only", path);
+      }
+      return store.orElse(null);
+    } catch (IOException e) {
+      log.warn("Cannot open file content cache in {}; caching in memory only: {}", path, e.getMessage());
+      return null;
+    }
+  }
+
+}
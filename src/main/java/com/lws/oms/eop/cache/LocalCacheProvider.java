@@ -0,0 +1,26 @@
+package com.lws.oms.eop.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches in this replica's heap only; every replica misses on its own.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.provider", havingValue = "local", matchIfMissing = true)
+public class LocalCacheProvider implements CacheProvider {
+
+  private final MeterRegistry registry;
+
+  public LocalCacheProvider(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public <V> ServiceCache<V> create(String name, JavaType type, CacheSpec<V> spec) {
+    return new CaffeineServiceCache<>(name, spec, registry);
+  }
+
+}
@@ -0,0 +1,99 @@
+package com.lws.oms.eop.cache;
+
+import com.lws.oms.eop.exception.ResourceNotFoundException;
+import com.lws.oms.eop.scheduling.CallerContext;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers for {@code cache.not-found.ttl} that a branch, file or repository did not exist, so a
+ * batch that names it again fails with the same error without a round trip to Bitbucket.
+ *
+ * <p>Entries are per caller, since a repository the caller may not read looks missing too, and keyed
+ * under their repository so that a push to it, or a branch or commit we create there, drops them.
+ */
+@Slf4j
+@Component
+public class NotFoundCache implements MeterBinder {
+
+  /**
+   * A remembered miss: a Bitbucket 404, with its request URL and body, or a
+   * {@link ResourceNotFoundException}.
+   */
+  public record Miss(String message, String url, String body) {
+
+    static Miss of(RuntimeException e) {
+      if (e instanceof FeignException feignException) {
+        return new Miss(e.getMessage(), feignException.request().url(), feignException.contentUTF8());
+      }
+      return new Miss(e.getMessage(), null, null);
+    }
+
+    RuntimeException toException() {
+      if (url == null) {
+        return new ResourceNotFoundException(message);
+      }
+      Request request = Request.create(Request.HttpMethod.GET, url, Map.of(), null, StandardCharsets.UTF_8, null);
+      byte[] content = body == null ? null : body.getBytes(StandardCharsets.UTF_8);
+      return new FeignException.NotFound(message, request, content, Map.of());
+    }
+  }
+
+  private final ServiceCache<Miss> misses;
+  private final LongAdder hits = new LongAdder();
+
+  public NotFoundCache(CacheProvider cacheProvider, @Value("${cache.not-found.ttl:60s}") Duration ttl) {
+    this.misses = cacheProvider.create("notFound", Miss.class, CacheSpec.entries(10_000, ttl));
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("cache.not-found.hits", hits, LongAdder::sum)
+        .description("Lookups answered from a remembered 404 instead of Bitbucket")
+        .register(registry);
+  }
+
+  /**
+   * The loader's result, unless {@code resource} of {@code repository} was recently found missing
+   * for this caller, in which case that error is thrown again.
+   */
+  public <T> T get(String repository, String resource, String authHeader, Supplier<T> loader) {
+    String key = prefix(repository) + resource + "#" + CallerContext.hashToken(authHeader);
+    Optional<Miss> miss = misses.getIfPresent(key);
+    if (miss.isPresent()) {
+      hits.increment();
+      log.debug("Not found (cached): {}", key);
+      throw miss.get().toException();
+    }
+    try {
+      return loader.get();
+    } catch (FeignException.NotFound | ResourceNotFoundException e) {
+      misses.put(key, Miss.of(e));
+      throw e;
+    }
+  }
+
+  /**
+   * Forgets every miss under {@code repository} ({@code workspace/repoSlug}), for all callers.
+   */
+  public void invalidateRepository(String repository) {
+    misses.invalidatePrefix(prefix(repository));
+  }
+
+  private static String prefix(String repository) {
+    return repository + "/";
+  }
+
+}
@@ -0,0 +1,127 @@
+package com.lws.oms.eop.cache;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * The file paths of one repository at one commit, held as a trie of path segments. Immutable, so
+ * it is cached by commit hash like file contents; it serializes as its sorted list of paths. A
+ * tree cut off before every directory was listed is {@linkplain #isTruncated() truncated}; only
+ * complete trees are cached, so the serialized form never needs to say so.
+ */
+public final class RepositoryTree {
+
+  /**
+   * Files found by name; with {@code truncated}, more may exist in directories never listed.
+   */
+  public record Matches(List<String> paths, boolean truncated) {
+  }
+
+  private static final class Node {
+    private final Map<String, Node> children = new TreeMap<>();
+    private boolean file;
+  }
+
+  private record Visit(Node node, String path) {
+  }
+
+  private final List<String> paths;
+  private final boolean truncated;
+  private final Node root = new Node();
+
+  @JsonCreator
+  public RepositoryTree(List<String> paths) {
+    this(paths, false);
+  }
+
+  public RepositoryTree(List<String> paths, boolean truncated) {
+    this.paths = paths.stream().sorted().toList();
+    this.truncated = truncated;
+    for (String path : this.paths) {
+      Node node = root;
+      for (String segment : segments(path)) {
+        node = node.children.computeIfAbsent(segment, ignored -> new Node());
+      }
+      node.file = true;
+    }
+  }
+
+  @JsonValue
+  public List<String> paths() {
+    return paths;
+  }
+
+  public int size() {
+    return paths.size();
+  }
+
+  public boolean isTruncated() {
+    return truncated;
+  }
+
+  public boolean contains(String path) {
+    Node node = descend(root, segments(path));
+    return node != null && node.file;
+  }
+
+  /**
+   * Paths of the files named {@code fileName} anywhere under {@code prefix} (the whole repository
+   * if blank), nearest to the prefix first. {@code fileName} may itself span directories, as in
+   * {@code module/pom.xml}.
+   */
+  public List<String> find(String fileName, String prefix) {
+    String[] name = segments(fileName);
+    Node start = descend(root, segments(prefix));
+    List<String> found = new ArrayList<>();
+    if (name.length == 0 || start == null) {
+      return found;
+    }
+    Queue<Visit> queue = new ArrayDeque<>();
+    queue.add(new Visit(start, String.join("/", segments(prefix))));
+    while (!queue.isEmpty()) {
+      Visit visit = queue.remove();
+      Node match = descend(visit.node(), name);
+      if (match != null && match.file) {
+        found.add(visit.path().isEmpty() ? String.join("/", name) : visit.path() + "/" + String.join("/", name));
+      }
+      visit.node().children.forEach((segment, child) -> {
+        if (!child.file) {
+          queue.add(new Visit(child, visit.path().isEmpty() ? segment : visit.path() + "/" + segment));
+        }
+      });
+    }
+    return found;
+  }
+
+  /**
+   * {@link #find} together with whether the tree is {@linkplain #isTruncated() truncated}.
+   */
+  public Matches match(String fileName, String prefix) {
+    return new Matches(find(fileName, prefix), truncated);
+  }
+
+  private static Node descend(Node node, String[] segments) {
+    for (String segment : segments) {
+      node = node.children.get(segment);
+      if (node == null) {
+        return null;
+      }
+    }
+    return node;
+  }
+
+  private static String[] segments(String path) {
+    if (path == null) {
+      return new String[0];
+    }
+    return Arrays.stream(path.split("/")).filter(segment -> !segment.isEmpty()).toArray(String[]::new);
+  }
+
+}
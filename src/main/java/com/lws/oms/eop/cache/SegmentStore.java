@@ -0,0 +1,422 @@
+package com.lws.oms.eop.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only store of immutable values in memory-mapped segment files, for data that must outlive
+ * the process but is cheap to lose: a value that cannot be found is simply fetched again.
+ *
+ * <p>Records ({@code magic, key length, value length, CRC32C, key, value}) are appended to the
+ * active segment; a full segment is sealed and a new one started. Lookups go through an off-heap
+ * open-addressing index of {@code (64-bit key hash, segment, offset)} slots and return the value as
+ * a read-only slice of the mapping, without copying. When the segments exceed the size budget, the
+ * least recently read sealed segment is deleted whole; values still in demand are fetched and
+ * appended again, which compacts the hot set into young segments.
+ *
+ * <p>The index is not persisted. Segments left by an earlier process are indexed by {@link #warmUp()},
+ * typically on a background thread while lookups of not-yet-indexed keys miss. A torn record at the
+ * end of a segment (crash mid-append) fails its checksum and ends that segment. One process owns a
+ * directory at a time; {@link #open} returns empty if another holds it.
+ */
+@Slf4j
+public final class SegmentStore implements Closeable {
+
+  public record Stats(long hits, long misses, long appends, long evictions, int segments, int indexedKeys) {
+  }
+
+  private static final String SUFFIX = ".seg";
+  private static final int MAGIC = 0x5345474d;
+  private static final int HEADER = 16;
+  private static final int SLOT = 16;
+  private static final double MAX_LOAD = 0.75;
+
+  private static final class Segment {
+    private final int id;
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final AtomicLong lastRead;
+    private volatile int end;
+
+    private Segment(int id, Path file, MappedByteBuffer buffer, long lastRead) {
+      this.id = id;
+      this.file = file;
+      this.buffer = buffer;
+      this.lastRead = new AtomicLong(lastRead);
+    }
+  }
+
+  private final Path directory;
+  private final int segmentSize;
+  private final long maxBytes;
+  private final FileChannel lockChannel;
+  private final FileLock lock;
+  private final List<Segment> leftover;
+
+  private final ByteBuffer index;
+  private final int slots;
+  private final StampedLock indexLock = new StampedLock();
+  private int occupied;
+
+  private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+  private final Object appendLock = new Object();
+  private Segment active;
+  private int nextId;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder appends = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private SegmentStore(Path directory, int segmentSize, long maxBytes, int indexSlots, FileChannel lockChannel,
+      FileLock lock) throws IOException {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.maxBytes = maxBytes;
+    this.lockChannel = lockChannel;
+    this.lock = lock;
+    this.slots = Integer.highestOneBit(Math.max(indexSlots, 1024) - 1) << 1;
+    this.index = ByteBuffer.allocateDirect(slots * SLOT);
+
+    try (Stream<Path> files = Files.list(directory)) {
+      leftover = files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+          .map(this::mapExisting)
+          .flatMap(Optional::stream)
+          .sorted(Comparator.comparingInt(segment -> segment.id))
+          .toList();
+    }
+    leftover.forEach(segment -> segments.put(segment.id, segment));
+    nextId = leftover.isEmpty() ? 0 : leftover.get(leftover.size() - 1).id + 1;
+  }
+
+  /**
+   * Opens the store in {@code directory}, or returns empty if another store already owns it.
+   */
+  public static Optional<SegmentStore> open(Path directory, int segmentSize, long maxBytes, int indexSlots)
+      throws IOException {
+    Files.createDirectories(directory);
+    FileChannel lockChannel = FileChannel.open(directory.resolve("LOCK"), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE);
+    FileLock lock;
+    try {
+      lock = lockChannel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      lock = null;
+    }
+    if (lock == null) {
+      lockChannel.close();
+      return Optional.empty();
+    }
+    return Optional.of(new SegmentStore(directory, segmentSize, maxBytes, indexSlots, lockChannel, lock));
+  }
+
+  /**
+   * Indexes the segments found at open, oldest first. Until it is done their values read as misses.
+   */
+  public void warmUp() {
+    long start = System.nanoTime();
+    int records = 0;
+    for (Segment segment : leftover) {
+      int position = 0;
+      while (segments.containsKey(segment.id)) {
+        int length = recordLength(segment.buffer, position);
+        if (length < 0) {
+          break;
+        }
+        ByteBuffer key = segment.buffer.slice(position + HEADER, segment.buffer.getInt(position + 4));
+        index(hash(key), segment.id, position);
+        position += length;
+        records++;
+      }
+    }
+    log.info("Indexed {} cached values from {} segment(s) in {} ms", records, leftover.size(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * The value stored under {@code key} as a read-only view of the mapped segment, if present.
+   */
+  public Optional<ByteBuffer> get(String key) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    long hash = hash(ByteBuffer.wrap(keyBytes));
+    long location = find(hash);
+    Segment segment = location < 0 ? null : segments.get((int) (location >>> 32));
+    if (segment != null) {
+      int position = (int) location;
+      ByteBuffer buffer = segment.buffer;
+      int keyLength = buffer.getInt(position + 4);
+      if (buffer.getInt(position) == MAGIC && keyLength == keyBytes.length
+          && buffer.slice(position + HEADER, keyLength).equals(ByteBuffer.wrap(keyBytes))) {
+        segment.lastRead.set(System.currentTimeMillis());
+        hits.increment();
+        return Optional.of(buffer.slice(position + HEADER + keyLength, buffer.getInt(position + 8)).asReadOnlyBuffer());
+      }
+    }
+    misses.increment();
+    return Optional.empty();
+  }
+
+  /**
+   * Appends {@code value} under {@code key}; values larger than a segment are not stored.
+   */
+  public void put(String key, byte[] value) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    int length = HEADER + keyBytes.length + value.length;
+    if (length > segmentSize) {
+      return;
+    }
+    CRC32C crc = new CRC32C();
+    crc.update(keyBytes);
+    crc.update(value);
+
+    int segmentId;
+    int position;
+    synchronized (appendLock) {
+      if (active == null || active.end + length > segmentSize) {
+        roll();
+      }
+      position = active.end;
+      MappedByteBuffer buffer = active.buffer;
+      buffer.putInt(position + 4, keyBytes.length);
+      buffer.putInt(position + 8, value.length);
+      buffer.putInt(position + 12, (int) crc.getValue());
+      buffer.put(position + HEADER, keyBytes);
+      buffer.put(position + HEADER + keyBytes.length, value);
+      // Magic last: a record is only ever seen whole.
+      buffer.putInt(position, MAGIC);
+      active.end = position + length;
+      segmentId = active.id;
+    }
+    index(hash(ByteBuffer.wrap(keyBytes)), segmentId, position);
+    appends.increment();
+  }
+
+  public Stats stats() {
+    long stamp = indexLock.readLock();
+    try {
+      return new Stats(hits.sum(), misses.sum(), appends.sum(), evictions.sum(), segments.size(), occupied);
+    } finally {
+      indexLock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (appendLock) {
+      if (active != null) {
+        active.buffer.force();
+      }
+    }
+    lock.release();
+    lockChannel.close();
+  }
+
+  private void roll() {
+    if (active != null) {
+      active.buffer.force();
+    }
+    try {
+      active = createSegment();
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot create cache segment in " + directory, e);
+    }
+    while ((long) segments.size() * segmentSize > maxBytes && evictLeastRecentlyRead()) {
+      // keep evicting until within budget
+    }
+  }
+
+  private boolean evictLeastRecentlyRead() {
+    Segment victim = segments.values().stream()
+        .filter(segment -> segment != active)
+        .min(Comparator.comparingLong(segment -> segment.lastRead.get()))
+        .orElse(null);
+    if (victim == null) {
+      return false;
+    }
+    segments.remove(victim.id);
+    evictions.increment();
+    try {
+      Files.deleteIfExists(victim.file);
+    } catch (IOException e) {
+      log.warn("Could not delete evicted cache segment {}: {}", victim.file, e.getMessage());
+    }
+    return true;
+  }
+
+  private Segment createSegment() throws IOException {
+    while (true) {
+      Path file = directory.resolve(String.format("%010d%s", nextId, SUFFIX));
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+          StandardOpenOption.WRITE)) {
+        Segment segment = new Segment(nextId++, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize),
+            System.currentTimeMillis());
+        segments.put(segment.id, segment);
+        return segment;
+      } catch (FileAlreadyExistsException e) {
+        nextId++;
+      }
+    }
+  }
+
+  private Optional<Segment> mapExisting(Path file) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      int id = Integer.parseInt(file.getFileName().toString().replace(SUFFIX, ""));
+      long size = Math.min(channel.size(), segmentSize);
+      return Optional.of(new Segment(id, file, channel.map(FileChannel.MapMode.READ_ONLY, 0, size),
+          Files.getLastModifiedTime(file).toMillis()));
+    } catch (IOException | NumberFormatException e) {
+      log.warn("Ignoring unreadable cache segment {}: {}", file, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Length of the intact record at {@code position}, or -1 at the end of the segment's data.
+   */
+  private static int recordLength(ByteBuffer buffer, int position) {
+    if (position + HEADER > buffer.limit() || buffer.getInt(position) != MAGIC) {
+      return -1;
+    }
+    int keyLength = buffer.getInt(position + 4);
+    int valueLength = buffer.getInt(position + 8);
+    if (keyLength < 0 || valueLength < 0 || (long) position + HEADER + keyLength + valueLength > buffer.limit()) {
+      return -1;
+    }
+    CRC32C crc = new CRC32C();
+    crc.update(buffer.slice(position + HEADER, keyLength + valueLength));
+    return (int) crc.getValue() == buffer.getInt(position + 12) ? HEADER + keyLength + valueLength : -1;
+  }
+
+  private long find(long hash) {
+    long stamp = indexLock.tryOptimisticRead();
+    long location = probe(hash);
+    if (!indexLock.validate(stamp)) {
+      stamp = indexLock.readLock();
+      try {
+        location = probe(hash);
+      } finally {
+        indexLock.unlockRead(stamp);
+      }
+    }
+    return location;
+  }
+
+  /**
+   * Segment id in the high and offset in the low 32 bits, or -1 if the hash is not indexed.
+   */
+  private long probe(long hash) {
+    for (int i = 0, slot = (int) hash & (slots - 1); i < slots; i++, slot = (slot + 1) & (slots - 1)) {
+      long slotHash = index.getLong(slot * SLOT);
+      if (slotHash == 0) {
+        return -1;
+      }
+      if (slotHash == hash) {
+        return ((long) index.getInt(slot * SLOT + 8) << 32) | (index.getInt(slot * SLOT + 12) & 0xffffffffL);
+      }
+    }
+    return -1;
+  }
+
+  private void index(long hash, int segmentId, int position) {
+    long stamp = indexLock.writeLock();
+    try {
+      if (occupied + 1 > slots * MAX_LOAD) {
+        rebuildIndex();
+        if (occupied + 1 > slots * MAX_LOAD) {
+          // Only the active segment is left and it alone fills the index; leave this value unindexed.
+          return;
+        }
+      }
+      int slot = (int) hash & (slots - 1);
+      while (true) {
+        long slotHash = index.getLong(slot * SLOT);
+        if (slotHash == 0 || slotHash == hash) {
+          if (slotHash == 0) {
+            occupied++;
+          }
+          index.putLong(slot * SLOT, hash);
+          index.putInt(slot * SLOT + 8, segmentId);
+          index.putInt(slot * SLOT + 12, position);
+          return;
+        }
+        slot = (slot + 1) & (slots - 1);
+      }
+    } finally {
+      indexLock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Drops slots of evicted segments; if the index is still too full, evicts until it is not.
+   * Called with the write lock held.
+   */
+  private void rebuildIndex() {
+    ByteBuffer live = ByteBuffer.allocate(slots * SLOT);
+    int liveCount = 0;
+    for (int slot = 0; slot < slots; slot++) {
+      long slotHash = index.getLong(slot * SLOT);
+      if (slotHash != 0 && segments.containsKey(index.getInt(slot * SLOT + 8))) {
+        live.putLong(slotHash).putInt(index.getInt(slot * SLOT + 8)).putInt(index.getInt(slot * SLOT + 12));
+        liveCount++;
+      }
+    }
+    if (liveCount + 1 > slots * MAX_LOAD / 2) {
+      synchronized (appendLock) {
+        evictLeastRecentlyRead();
+      }
+    }
+    for (int i = 0; i < slots * SLOT; i += 8) {
+      index.putLong(i, 0);
+    }
+    occupied = 0;
+    live.flip();
+    while (live.hasRemaining()) {
+      long slotHash = live.getLong();
+      int segmentId = live.getInt();
+      int position = live.getInt();
+      if (!segments.containsKey(segmentId)) {
+        continue;
+      }
+      int slot = (int) slotHash & (slots - 1);
+      while (index.getLong(slot * SLOT) != 0) {
+        slot = (slot + 1) & (slots - 1);
+      }
+      index.putLong(slot * SLOT, slotHash).putInt(slot * SLOT + 8, segmentId).putInt(slot * SLOT + 12, position);
+      occupied++;
+    }
+  }
+
+  /**
+   * 64-bit FNV-1a; 0 marks an empty slot, so it is remapped.
+   */
+  private static long hash(ByteBuffer key) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = key.position(); i < key.limit(); i++) {
+      hash ^= key.get(i) & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    return hash == 0 ? 1 : hash;
+  }
+
+}
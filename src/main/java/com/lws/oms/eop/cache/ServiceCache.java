@@ -0,0 +1,40 @@
+package com.lws.oms.eop.cache;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A named cache of service-level values, created by the configured {@link CacheProvider}. Keys are
+ * strings so that related entries (everything of one repository, say) can be dropped by prefix.
+ */
+public interface ServiceCache<V> {
+
+  Optional<V> getIfPresent(String key);
+
+  /**
+   * The cached value, or the loader's, which is cached unless it is null. Exceptions from the
+   * loader propagate and nothing is cached.
+   */
+  default V get(String key, Supplier<V> loader) {
+    Optional<V> cached = getIfPresent(key);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+    V value = loader.get();
+    if (value != null) {
+      put(key, value);
+    }
+    return value;
+  }
+
+  /**
+   * Stores a value. Meant for values that are correct for their key; a value that changed is
+   * {@linkplain #invalidate invalidated} first.
+   */
+  void put(String key, V value);
+
+  void invalidate(String key);
+
+  void invalidatePrefix(String prefix);
+
+}
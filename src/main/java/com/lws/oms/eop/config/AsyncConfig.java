@@ -1,8 +1,25 @@
 package com.lws.oms.eop.config;
 
+import com.lws.oms.eop.scheduling.AdmissionControl;
+import com.lws.oms.eop.scheduling.CallerContext;
+import com.lws.oms.eop.scheduling.CallerContextTaskDecorator;
+import com.lws.oms.eop.scheduling.CountingAbortPolicy;
+import com.lws.oms.eop.scheduling.FairShareQueue;
+import com.lws.oms.eop.scheduling.RequestTimings;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.core.task.support.CompositeTaskDecorator;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -10,16 +27,65 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 @Configuration
 public class AsyncConfig {
 
+  // Core and max are the same: the pool only grows past core once the bounded queue is full, which
+  // admission control never lets happen, so a larger max would never be reached.
+  private static final int POOL_SIZE = 20;
+
+  @Bean
+  public FairShareQueue fairShareQueue(
+      @Value("${scheduler.queue-capacity:100}") int queueCapacity,
+      @Value("${scheduler.interactive-weight:4}") int interactiveWeight,
+      Environment environment) {
+    Map<String, Integer> userWeights = Binder.get(environment)
+        .bind("scheduler.user-weights", Bindable.mapOf(String.class, Integer.class))
+        .orElse(Map.of());
+    return new FairShareQueue(queueCapacity, interactiveWeight, userWeights);
+  }
+
   @Bean
-  public Executor taskExecutor() {
-    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-    executor.setCorePoolSize(20);
-    executor.setMaxPoolSize(30);
-    executor.setQueueCapacity(100);
+  public AdmissionControl admissionControl(
+      @Value("${scheduler.queue-capacity:100}") int queueCapacity,
+      @Value("${scheduler.interactive-reserve:0}") int interactiveReserve,
+      @Value("${scheduler.max-tasks-per-user:2147483647}") int maxTasksPerUser,
+      @Value("${scheduler.initial-task-estimate:500ms}") Duration initialTaskEstimate) {
+    return new AdmissionControl(POOL_SIZE, queueCapacity, interactiveReserve, maxTasksPerUser, initialTaskEstimate);
+  }
+
+  @Bean
+  public CountingAbortPolicy taskRejections() {
+    return new CountingAbortPolicy();
+  }
+
+  @Bean
+  public Executor taskExecutor(FairShareQueue fairShareQueue, AdmissionControl admissionControl,
+      CountingAbortPolicy taskRejections) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor() {
+      @Override
+      protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+        return fairShareQueue;
+      }
+    };
+    TaskDecorator timing = task -> {
+      RequestTimings timings = CallerContext.current().timings();
+      long submitted = System.nanoTime();
+      return () -> {
+        long start = System.nanoTime();
+        timings.recordQueueWait(start - submitted);
+        try {
+          task.run();
+        } finally {
+          admissionControl.recordTaskDuration(System.nanoTime() - start);
+        }
+      };
+    };
+    executor.setCorePoolSize(POOL_SIZE);
+    executor.setMaxPoolSize(POOL_SIZE);
+    executor.setRejectedExecutionHandler(taskRejections);
+    executor.setTaskDecorator(new CompositeTaskDecorator(List.of(
+        new CallerContextTaskDecorator(), new ContextPropagatingTaskDecorator(), timing)));
     executor.setThreadNamePrefix("AsyncRepo-");
     executor.initialize();
     return executor;
   }
 
 }
-
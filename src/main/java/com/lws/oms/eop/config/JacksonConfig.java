@@ -0,0 +1,21 @@
+package com.lws.oms.eop.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+  /**
+   * Replaces reflective getter/constructor access with generated lambdas, so large
+   * {@code BatchResult} payloads (and decoded Bitbucket listings) serialize without reflection.
+   * Spring Boot registers every {@link Module} bean with the shared ObjectMapper.
+   */
+  @Bean
+  public Module blackbirdModule() {
+    return new BlackbirdModule();
+  }
+
+}
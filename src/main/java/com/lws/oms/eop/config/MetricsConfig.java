@@ -0,0 +1,141 @@
+package com.lws.oms.eop.config;
+
+import com.lws.oms.eop.scheduling.AdmissionControl;
+import com.lws.oms.eop.scheduling.CountingAbortPolicy;
+import com.lws.oms.eop.scheduling.FairShareQueue;
+import com.lws.oms.eop.scheduling.PriorityClass;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Meters for the scheduling and upstream components that Spring Boot does not instrument itself.
+ * Endpoint timers ({@code http.server.requests}), Feign timers ({@code http.client.requests}) and
+ * the executor pool gauges ({@code executor.*}, tagged {@code name=taskExecutor}) come from auto-configuration.
+ */
+@Configuration
+public class MetricsConfig {
+
+  @Bean
+  public MeterBinder schedulerMetrics(FairShareQueue fairShareQueue, AdmissionControl admissionControl,
+      CountingAbortPolicy taskRejections) {
+    return registry -> {
+      for (PriorityClass priority : PriorityClass.values()) {
+        Gauge.builder("scheduler.queue.tasks", fairShareQueue,
+                queue -> queue.snapshot().queuedByClass().getOrDefault(priority, 0))
+            .description("Tasks waiting in the executor queue")
+            .tag("priority", priority.name().toLowerCase())
+            .register(registry);
+      }
+      Gauge.builder("scheduler.queue.users", fairShareQueue, queue -> queue.snapshot().users().size())
+          .description("Callers with at least one task waiting")
+          .register(registry);
+      fairShareQueue.setListener(new UserQueueMeters(fairShareQueue, registry));
+      FunctionCounter.builder("executor.rejected", taskRejections, CountingAbortPolicy::rejectedCount)
+          .description("Tasks the executor refused because pool and queue were full")
+          .tag("name", "taskExecutor")
+          .register(registry);
+
+      Gauge.builder("admission.tasks.reserved", admissionControl, control -> control.snapshot().reserved())
+          .description("Task slots held by admitted batches")
+          .register(registry);
+      Gauge.builder("admission.tasks.reserved.bulk", admissionControl, control -> control.snapshot().bulkReserved())
+          .description("Task slots held by admitted bulk batches")
+          .register(registry);
+      Gauge.builder("admission.tasks.capacity", admissionControl, control -> control.snapshot().capacity())
+          .register(registry);
+      Gauge.builder("admission.task.duration.avg", admissionControl, control -> control.snapshot().avgTaskMillis())
+          .description("Moving average of executor task duration used for Retry-After")
+          .baseUnit("milliseconds")
+          .register(registry);
+      FunctionCounter.builder("admission.batches", admissionControl, control -> control.snapshot().admitted())
+          .tag("outcome", "admitted")
+          .register(registry);
+      FunctionCounter.builder("admission.batches", admissionControl, control -> control.snapshot().rejected())
+          .tag("outcome", "rejected")
+          .register(registry);
+    };
+  }
+
+  /**
+   * Queue depth and wait of each user, registered while the user has tasks queued and removed when
+   * their last task leaves, so the number of series follows the users actually waiting. The wait of
+   * every task is also recorded per priority class, which covers users too brief to be scraped.
+   */
+  private static final class UserQueueMeters implements FairShareQueue.Listener {
+
+    private final FairShareQueue queue;
+    private final MeterRegistry registry;
+    private final Map<PriorityClass, Timer> waits = new EnumMap<>(PriorityClass.class);
+    private final Map<String, List<Meter>> userMeters = new ConcurrentHashMap<>();
+
+    private UserQueueMeters(FairShareQueue queue, MeterRegistry registry) {
+      this.queue = queue;
+      this.registry = registry;
+      for (PriorityClass priority : PriorityClass.values()) {
+        waits.put(priority, Timer.builder("scheduler.queue.wait")
+            .description("Time tasks spent in the executor queue")
+            .tag("priority", priority.name().toLowerCase())
+            .register(registry));
+      }
+    }
+
+    @Override
+    public void userQueued(String userKey) {
+      userMeters.put(userKey, List.of(
+          userGauge("scheduler.queue.user.tasks", userKey, FairShareQueue.UserQueueStats::queued,
+              "Tasks of this user waiting in the executor queue"),
+          userGauge("scheduler.queue.user.wait.avg", userKey, FairShareQueue.UserQueueStats::avgWaitMillis,
+              "Average queue wait of this user's tasks since their backlog began"),
+          userGauge("scheduler.queue.user.wait.max", userKey, FairShareQueue.UserQueueStats::maxWaitMillis,
+              "Longest queue wait of this user's tasks since their backlog began")));
+    }
+
+    @Override
+    public void userDrained(String userKey) {
+      List<Meter> meters = userMeters.remove(userKey);
+      if (meters != null) {
+        meters.forEach(registry::remove);
+      }
+    }
+
+    @Override
+    public void taskWaited(String userKey, PriorityClass priority, long waitNanos) {
+      waits.get(priority).record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Gauge userGauge(String name, String userKey, ToDoubleFunction<FairShareQueue.UserQueueStats> value,
+        String description) {
+      return Gauge.builder(name, queue, q -> q.user(userKey).map(value::applyAsDouble).orElse(Double.NaN))
+          .description(description)
+          .tag("user", userKey)
+          .register(registry);
+    }
+  }
+
+  @Bean
+  public MeterBinder upstreamCircuitBreakerMetrics(CircuitBreakerRegistry upstreamCircuitBreakers) {
+    return TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(upstreamCircuitBreakers);
+  }
+
+  @Bean
+  public MeterBinder upstreamBulkheadMetrics(BulkheadRegistry upstreamBulkheads) {
+    return TaggedBulkheadMetrics.ofBulkheadRegistry(upstreamBulkheads);
+  }
+
+}
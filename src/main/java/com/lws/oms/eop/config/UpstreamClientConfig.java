@@ -0,0 +1,101 @@
+package com.lws.oms.eop.config;
+
+import com.lws.oms.eop.feign.AccountingClient;
+import com.lws.oms.eop.feign.DeadlineAwareClient;
+import com.lws.oms.eop.feign.DeadlineBoundedRetryer;
+import com.lws.oms.eop.feign.HedgingClient;
+import com.lws.oms.eop.feign.IdempotentReadErrorDecoder;
+import com.lws.oms.eop.feign.RecordingClient;
+import com.lws.oms.eop.feign.ResilientClient;
+import com.lws.oms.eop.feign.TimedClient;
+import com.lws.oms.eop.feign.UpstreamUsage;
+import com.lws.oms.eop.recording.TraceRecorder;
+import feign.Client;
+import feign.Retryer;
+import feign.codec.ErrorDecoder;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import java.time.Clock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HTTP client, retry policy and error decoding shared by every Feign client. Defined here rather than in {@link FeignConfig}, which
+ * each client loads into its own child context, so all clients share one set of registries.
+ */
+@Slf4j
+@Configuration
+public class UpstreamClientConfig {
+
+  @Bean
+  public CircuitBreakerRegistry upstreamCircuitBreakers(UpstreamConfig upstreamConfig) {
+    UpstreamConfig.CircuitBreaker settings = upstreamConfig.getCircuitBreaker();
+    CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+        .failureRateThreshold(settings.getFailureRateThreshold())
+        .slidingWindowSize(settings.getSlidingWindowSize())
+        .minimumNumberOfCalls(settings.getMinimumNumberOfCalls())
+        .waitDurationInOpenState(settings.getWaitDurationInOpenState())
+        .permittedNumberOfCallsInHalfOpenState(settings.getPermittedCallsInHalfOpenState())
+        .automaticTransitionFromOpenToHalfOpenEnabled(true)
+        .build());
+    registry.getEventPublisher().onEntryAdded(added -> added.getAddedEntry().getEventPublisher()
+        .onStateTransition(event -> log.warn("Circuit breaker for {} changed from {} to {}",
+            event.getCircuitBreakerName(),
+            event.getStateTransition().getFromState(),
+            event.getStateTransition().getToState())));
+    return registry;
+  }
+
+  @Bean
+  public BulkheadRegistry upstreamBulkheads(UpstreamConfig upstreamConfig) {
+    UpstreamConfig.Bulkhead settings = upstreamConfig.getBulkhead();
+    BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+        .maxConcurrentCalls(settings.getMaxConcurrentCalls())
+        .maxWaitDuration(settings.getMaxWait())
+        .build());
+    settings.getClients().forEach((client, limit) -> registry.bulkhead(client, BulkheadConfig.custom()
+        .maxConcurrentCalls(limit.getMaxConcurrentCalls() != null
+            ? limit.getMaxConcurrentCalls()
+            : settings.getMaxConcurrentCalls())
+        .maxWaitDuration(limit.getMaxWait() != null ? limit.getMaxWait() : settings.getMaxWait())
+        .build()));
+    return registry;
+  }
+
+  @Bean
+  public UpstreamUsage upstreamUsage(UpstreamConfig upstreamConfig) {
+    UpstreamConfig.Usage settings = upstreamConfig.getUsage();
+    return new UpstreamUsage(settings.getWindow(), settings.getBuckets(), Clock.systemUTC());
+  }
+
+  @Bean
+  public Client feignClient(UpstreamConfig upstreamConfig, CircuitBreakerRegistry upstreamCircuitBreakers,
+      BulkheadRegistry upstreamBulkheads, UpstreamUsage upstreamUsage, ObjectProvider<TraceRecorder> traceRecorder) {
+    Client transport = new Client.Default(null, null);
+    TraceRecorder recorder = traceRecorder.getIfAvailable();
+    if (recorder != null) {
+      transport = new RecordingClient(transport, recorder);
+    }
+    Client client = new ResilientClient(
+        new DeadlineAwareClient(new TimedClient(new AccountingClient(transport, upstreamUsage))),
+        upstreamCircuitBreakers, upstreamBulkheads);
+    UpstreamConfig.Hedging hedging = upstreamConfig.getHedging();
+    return hedging.isEnabled() ? new HedgingClient(client, hedging.getMinSamples()) : client;
+  }
+
+  @Bean
+  public Retryer feignRetryer(UpstreamConfig upstreamConfig) {
+    UpstreamConfig.Retry retry = upstreamConfig.getRetry();
+    return new DeadlineBoundedRetryer(retry.getMaxAttempts(), retry.getInitialBackoff(), retry.getMaxBackoff());
+  }
+
+  @Bean
+  public ErrorDecoder feignErrorDecoder() {
+    return new IdempotentReadErrorDecoder();
+  }
+
+}
@@ -0,0 +1,85 @@
+package com.lws.oms.eop.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "upstream")
+public class UpstreamConfig {
+
+  private CircuitBreaker circuitBreaker = new CircuitBreaker();
+  private Bulkhead bulkhead = new Bulkhead();
+  private Retry retry = new Retry();
+  private Hedging hedging = new Hedging();
+  private Recording recording = new Recording();
+  private Usage usage = new Usage();
+
+  @Data
+  public static class CircuitBreaker {
+    private float failureRateThreshold = 50;
+    private int slidingWindowSize = 20;
+    private int minimumNumberOfCalls = 10;
+    private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+    private int permittedCallsInHalfOpenState = 3;
+  }
+
+  @Data
+  public static class Bulkhead {
+    private int maxConcurrentCalls = 20;
+    private Duration maxWait = Duration.ZERO;
+    /**
+     * Per-client overrides keyed by Feign client name.
+     */
+    private Map<String, BulkheadLimit> clients = new HashMap<>();
+  }
+
+  @Data
+  public static class BulkheadLimit {
+    private Integer maxConcurrentCalls;
+    private Duration maxWait;
+  }
+
+  @Data
+  public static class Retry {
+    /**
+     * Total attempts for a read, including the first; writes are never retried.
+     */
+    private int maxAttempts = 3;
+    private Duration initialBackoff = Duration.ofMillis(100);
+    private Duration maxBackoff = Duration.ofSeconds(2);
+  }
+
+  @Data
+  public static class Hedging {
+    private boolean enabled = false;
+    /**
+     * Reads observed per upstream before its p95 is trusted as the hedging delay.
+     */
+    private int minSamples = 100;
+  }
+
+  @Data
+  public static class Usage {
+    /**
+     * Span of the rolling call-accounting window, kept as {@link #buckets} equal slices.
+     */
+    private Duration window = Duration.ofHours(1);
+    private int buckets = 60;
+  }
+
+  @Data
+  public static class Recording {
+    /**
+     * Staging only: writes inbound requests and upstream exchanges to {@link #path} for replay.
+     */
+    private boolean enabled = false;
+    private Path path = Path.of(System.getProperty("java.io.tmpdir"), "bitbucket-integration", "upstream-trace.jsonl");
+  }
+
+}
@@ -0,0 +1,38 @@
+package com.lws.oms.eop.config;
+
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+  private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+  public WebConfig(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder) {
+    this.objectMapperBuilder = objectMapperBuilder;
+  }
+
+  /**
+   * Spring MVC registers Smile and CBOR converters (after JSON) when the dataformats are on the
+   * classpath, so clients can opt in with {@code Accept: application/x-jackson-smile} or
+   * {@code application/cbor}. The defaults use a bare ObjectMapper; rebuild them from Boot's
+   * builder so binary responses share the JSON mapper's modules and inclusion rules.
+   */
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    for (HttpMessageConverter<?> converter : converters) {
+      if (converter instanceof MappingJackson2SmileHttpMessageConverter smileConverter) {
+        smileConverter.setObjectMapper(objectMapperBuilder.getObject().smile().build());
+      } else if (converter instanceof MappingJackson2CborHttpMessageConverter cborConverter) {
+        cborConverter.setObjectMapper(objectMapperBuilder.getObject().cbor().build());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,84 @@
+package com.lws.oms.eop.controller;
+
+import com.lws.oms.eop.feign.UpstreamUsage;
+import com.lws.oms.eop.scheduling.AdmissionControl;
+import com.lws.oms.eop.scheduling.FairShareQueue;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+  public record UpstreamHealth(
+      String name,
+      CircuitBreaker.State state,
+      float failureRate,
+      int bufferedCalls,
+      long notPermittedCalls,
+      int availableConcurrentCalls,
+      int maxAllowedConcurrentCalls) {
+  }
+
+  private final FairShareQueue fairShareQueue;
+  private final AdmissionControl admissionControl;
+  private final CircuitBreakerRegistry upstreamCircuitBreakers;
+  private final BulkheadRegistry upstreamBulkheads;
+  private final UpstreamUsage upstreamUsage;
+
+  public AdminController(FairShareQueue fairShareQueue, AdmissionControl admissionControl,
+      CircuitBreakerRegistry upstreamCircuitBreakers, BulkheadRegistry upstreamBulkheads,
+      UpstreamUsage upstreamUsage) {
+    this.fairShareQueue = fairShareQueue;
+    this.admissionControl = admissionControl;
+    this.upstreamCircuitBreakers = upstreamCircuitBreakers;
+    this.upstreamBulkheads = upstreamBulkheads;
+    this.upstreamUsage = upstreamUsage;
+  }
+
+  @GetMapping("/scheduler")
+  public ResponseEntity<FairShareQueue.Snapshot> getSchedulerStats() {
+    return ResponseEntity.ok(fairShareQueue.snapshot());
+  }
+
+  @GetMapping("/admission")
+  public ResponseEntity<AdmissionControl.Snapshot> getAdmissionStats() {
+    return ResponseEntity.ok(admissionControl.snapshot());
+  }
+
+  @GetMapping("/upstreams")
+  public ResponseEntity<List<UpstreamHealth>> getUpstreamHealth() {
+    return ResponseEntity.ok(upstreamCircuitBreakers.getAllCircuitBreakers().stream()
+        .map(circuitBreaker -> {
+          CircuitBreaker.Metrics metrics = circuitBreaker.getMetrics();
+          Bulkhead.Metrics bulkhead = upstreamBulkheads.bulkhead(circuitBreaker.getName()).getMetrics();
+          return new UpstreamHealth(
+              circuitBreaker.getName(),
+              circuitBreaker.getState(),
+              metrics.getFailureRate(),
+              metrics.getNumberOfBufferedCalls(),
+              metrics.getNumberOfNotPermittedCalls(),
+              bulkhead.getAvailableConcurrentCalls(),
+              bulkhead.getMaxAllowedConcurrentCalls());
+        })
+        .toList());
+  }
+
+  /**
+   * Upstream calls over the rolling {@code upstream.usage.window}: per client, per endpoint (average
+   * calls per request) and the heaviest users and requests.
+   */
+  @GetMapping("/upstream-usage")
+  public ResponseEntity<UpstreamUsage.Report> getUpstreamUsage(@RequestParam(defaultValue = "10") int top) {
+    return ResponseEntity.ok(upstreamUsage.report(top));
+  }
+
+}
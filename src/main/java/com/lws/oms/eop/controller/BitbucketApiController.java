@@ -3,6 +3,10 @@ package com.lws.oms.eop.controller;
 import static com.lws.oms.eop.utils.ErrorUtils.extractMeaningfulErrorMessage;
 import static com.lws.oms.eop.utils.ValidationUtil.handleValidationErrors;
 
+import com.lws.oms.eop.exception.BatchRejectedException;
+import com.lws.oms.eop.model.CommitInfo;
+import com.lws.oms.eop.model.FileInfo;
+import com.lws.oms.eop.model.RepositoryInfo;
 import com.lws.oms.eop.model.requests.CommitRequest;
 import com.lws.oms.eop.model.requests.CreateBranchRequest;
 import com.lws.oms.eop.model.requests.CreatePrRequest;
@@ -10,323 +14,558 @@ import com.lws.oms.eop.model.requests.FileContentRequest;
 import com.lws.oms.eop.model.requests.GetApplicationsRequest;
 import com.lws.oms.eop.model.requests.GetBranchesRequest;
 import com.lws.oms.eop.model.requests.GetBuildsRequest;
+import com.lws.oms.eop.model.requests.RolloutRequest;
 import com.lws.oms.eop.model.requests.UpdateDependencyVersionRequest;
+import com.lws.oms.eop.model.responses.ApplicationsResult;
+import com.lws.oms.eop.model.responses.BatchResult;
+import com.lws.oms.eop.model.responses.ErrorResponse;
+import com.lws.oms.eop.model.responses.ItemResult;
+import com.lws.oms.eop.model.responses.RolloutResult;
+import com.lws.oms.eop.scheduling.AdmissionControl;
+import com.lws.oms.eop.scheduling.CallerContext;
+import com.lws.oms.eop.scheduling.RequestDeadline;
+import com.lws.oms.eop.scheduling.RequestTimings;
 import com.lws.oms.eop.service.BitBucketIntegrationService;
 import com.lws.oms.eop.service.BitbucketApiService;
+import com.lws.oms.eop.service.RolloutService;
 import feign.FeignException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.CookieValue;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 @Slf4j
 @RestController
 @RequestMapping("/bitbucket")
 public class BitbucketApiController {
 
+  private static final Duration DEADLINE_GRACE = Duration.ofSeconds(5);
+  private static final String ROLLOUTS_ENDPOINT = "/bitbucket/rollouts";
+
   private final BitbucketApiService bitbucketApiService;
   private final BitBucketIntegrationService bitbucketIntegrationService;
-
-  public BitbucketApiController(BitbucketApiService bitbucketBranchService, BitBucketIntegrationService bitbucketIntegrationService) {
+  private final RolloutService rolloutService;
+  private final AdmissionControl admissionControl;
+  private final MeterRegistry meterRegistry;
+  private final ObservationRegistry observationRegistry;
+  private final Duration rolloutStreamTimeout;
+
+  public BitbucketApiController(BitbucketApiService bitbucketBranchService,
+      BitBucketIntegrationService bitbucketIntegrationService,
+      RolloutService rolloutService,
+      AdmissionControl admissionControl,
+      MeterRegistry meterRegistry,
+      ObservationRegistry observationRegistry,
+      @Value("${rollout.stream-timeout:10m}") Duration rolloutStreamTimeout) {
     this.bitbucketApiService = bitbucketBranchService;
     this.bitbucketIntegrationService = bitbucketIntegrationService;
+    this.rolloutService = rolloutService;
+    this.admissionControl = admissionControl;
+    this.meterRegistry = meterRegistry;
+    this.observationRegistry = observationRegistry;
+    this.rolloutStreamTimeout = rolloutStreamTimeout;
   }
 
   @PostMapping("/getBranches")
-  public ResponseEntity<Map<String, Object>> getBranches(
+  public DeferredResult<ResponseEntity<?>> getBranches(
       @CookieValue(value = "auth_token", required = false) String authToken,
       @Valid @RequestBody GetBranchesRequest request,
       BindingResult bindingResult) {
 
-    ResponseEntity<Map<String, Object>> validationResponse = handleValidationErrors(bindingResult);
+    ResponseEntity<ErrorResponse> validationResponse = handleValidationErrors(bindingResult);
     if (validationResponse != null) {
-      return validationResponse;
+      return completed(validationResponse);
     }
 
-    Map<String, Object> apiResponse = new HashMap<>();
-    try {
-      List<CompletableFuture<Map<String, Object>>> futures = request.getRepoList().stream()
-          .map(repo -> bitbucketIntegrationService.fetchBranchDataAsync(repo, "Basic " + authToken))
-          .toList();
-
-      List<Map<String, Object>> branchesData = futures.stream()
-          .map(CompletableFuture::join)
-          .collect(Collectors.toList());
-
-      apiResponse.put("branchesData", branchesData);
-      return ResponseEntity.ok(apiResponse);
-    } catch (Exception e) {
-      apiResponse.put("error", "An unexpected error occurred while processing the request: Internal Server Error");
-      log.error("Unexpected error occurred: {}", e.getMessage());
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(apiResponse);
-    }
+    AdmissionControl.Permit permit = admissionControl.acquire(request.getRepoList().size());
+    return gather(permit,
+        () -> request.getRepoList().stream()
+            .map(repo -> inRepositorySpan(repo,
+                () -> bitbucketIntegrationService.fetchBranchDataAsync(repo, "Basic " + authToken)))
+            .toList(),
+        e -> {
+          log.error("Unexpected error occurred: {}", e.getMessage());
+          return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+              .body(ErrorResponse.of("An unexpected error occurred while processing the request: Internal Server Error"));
+        });
   }
 
   @PostMapping("/createBranches")
-  public ResponseEntity<Map<String, Object>> createBranches(
+  public DeferredResult<ResponseEntity<?>> createBranches(
       @CookieValue(value = "auth_token", required = false) String authToken,
       @Valid @RequestBody CreateBranchRequest request,
       BindingResult bindingResult) {
 
-    ResponseEntity<Map<String, Object>> validationResponse = handleValidationErrors(bindingResult);
+    ResponseEntity<ErrorResponse> validationResponse = handleValidationErrors(bindingResult);
     if (validationResponse != null) {
-      return validationResponse;
+      return completed(validationResponse);
     }
 
-    Map<String, Object> response = new HashMap<>();
-    try {
-      List<CompletableFuture<Map<String, Object>>> futures = request.getRepoList().stream()
-          .map(repoInfo -> bitbucketIntegrationService.createBranchAsync(
-              repoInfo,
-              request.getBranchName(),
-              request.getStartPoint(),
-              "Basic " + authToken
-          ))
-          .toList();
-
-      List<Map<String, Object>> branchResults = futures.stream()
-          .map(CompletableFuture::join)
-          .collect(Collectors.toList());
-
-      response.put("branchResults", branchResults);
-      return ResponseEntity.ok(response);
-    } catch (Exception e) {
-      response.put("error", "An unexpected error occurred while processing the request: Internal Server Error");
-      log.error("Unexpected error occurred while creating branches: {}", e.getMessage());
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-    }
+    AdmissionControl.Permit permit = admissionControl.acquire(request.getRepoList().size());
+    return gather(permit,
+        () -> request.getRepoList().stream()
+            .map(repoInfo -> inRepositorySpan(repoInfo, () -> bitbucketIntegrationService.createBranchAsync(
+                repoInfo,
+                request.getBranchName(),
+                request.getStartPoint(),
+                "Basic " + authToken
+            )))
+            .toList(),
+        e -> {
+          log.error("Unexpected error occurred while creating branches: {}", e.getMessage());
+          return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+              .body(ErrorResponse.of("An unexpected error occurred while processing the request: Internal Server Error"));
+        });
   }
 
   @PostMapping("/getApplications")
-  public ResponseEntity<Map<String, Object>> getApplications(
+  public ResponseEntity<?> getApplications(
       @CookieValue(value = "auth_token", required = false) String authToken,
       @Valid @RequestBody GetApplicationsRequest request,
       BindingResult bindingResult) {
 
-    ResponseEntity<Map<String, Object>> validationResponse = handleValidationErrors(bindingResult);
+    ResponseEntity<ErrorResponse> validationResponse = handleValidationErrors(bindingResult);
     if (validationResponse != null) {
       return validationResponse;
     }
 
-    Map<String, Object> apiResponse = new HashMap<>();
     try {
       List<String> applications = bitbucketApiService.getApplications(request.getProjectName(), "Basic " + authToken);
-      apiResponse.put("applications", applications);
+      return ResponseEntity.ok(new ApplicationsResult(applications, null));
     } catch (FeignException e) {
-      apiResponse.put("error", extractMeaningfulErrorMessage(e));
+      return ResponseEntity.ok(new ApplicationsResult(null, extractMeaningfulErrorMessage(e)));
     } catch (Exception e) {
-      apiResponse.put("error", "Error fetching applications: Server Error");
       log.error("Unexpected error fetching applications: {}", e.getMessage(), e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(apiResponse);
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+          .body(new ApplicationsResult(null, "Error fetching applications: Server Error"));
     }
-
-    return ResponseEntity.ok(apiResponse);
   }
 
   @PostMapping("/createPullRequests")
-  public ResponseEntity<Map<String, Object>> createPullRequests(
+  public DeferredResult<ResponseEntity<?>> createPullRequests(
       @CookieValue(value = "auth_token", required = false) String authToken,
       @Valid @RequestBody CreatePrRequest request,
       BindingResult bindingResult) {
 
-    ResponseEntity<Map<String, Object>> validationResponse = handleValidationErrors(bindingResult);
+    ResponseEntity<ErrorResponse> validationResponse = handleValidationErrors(bindingResult);
     if (validationResponse != null) {
-      return validationResponse;
+      return completed(validationResponse);
     }
 
-    Map<String, Object> response = new HashMap<>();
-
-    try {
-      List<CompletableFuture<Map<String, Object>>> futures = request.getPrInfoList().stream()
-          .flatMap(prInfo -> prInfo.getRepoInfoList().stream()
-              .map(repoInfo -> bitbucketIntegrationService.createPullRequestAsync(prInfo, repoInfo, "Basic " + authToken)))
-          .toList();
-
-      List<Map<String, Object>> prResults = futures.stream()
-          .map(CompletableFuture::join)
-          .collect(Collectors.toList());
-
-      response.put("createPullRequestResults", prResults);
-      return ResponseEntity.ok(response);
-
-    } catch (Exception e) {
-      response.put("message", "An unexpected error occurred: Internal Server Error");
-      log.error("Unexpected error occurred during creating Pull requests: {}", e.getMessage());
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-    }
+    AdmissionControl.Permit permit = admissionControl.acquire(request.getPrInfoList().stream()
+        .mapToInt(prInfo -> prInfo.getRepoInfoList().size())
+        .sum());
+    return gather(permit,
+        () -> request.getPrInfoList().stream()
+            .flatMap(prInfo -> prInfo.getRepoInfoList().stream()
+                .map(repoInfo -> inRepositorySpan(repoInfo,
+                    () -> bitbucketIntegrationService.createPullRequestAsync(prInfo, repoInfo, "Basic " + authToken))))
+            .toList(),
+        e -> {
+          log.error("Unexpected error occurred during creating Pull requests: {}", e.getMessage());
+          return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+              .body(ErrorResponse.of("An unexpected error occurred: Internal Server Error"));
+        });
   }
 
   @PostMapping("/getFileContents")
-  public ResponseEntity<Map<String, Object>> getFileContents(
+  public DeferredResult<ResponseEntity<?>> getFileContents(
       @CookieValue(value = "auth_token", required = false) String authToken,
       @Valid @RequestBody FileContentRequest request,
       BindingResult bindingResult) {
 
-    ResponseEntity<Map<String, Object>> validationResponse = handleValidationErrors(bindingResult);
+    ResponseEntity<ErrorResponse> validationResponse = handleValidationErrors(bindingResult);
     if (validationResponse != null) {
-      return validationResponse;
+      return completed(validationResponse);
     }
 
-    Map<String, Object> response = new HashMap<>();
-
-    try {
-      List<CompletableFuture<Map<String, Object>>> futures = request.getFiles().stream()
-          .map(fileInfo -> bitbucketIntegrationService.getFileContentAsync(
-              fileInfo,
-              request.getBranchName(),
-              "Basic " + authToken))
-          .toList();
-
-      List<Map<String, Object>> fileContents = futures.stream()
-          .map(CompletableFuture::join)
-          .collect(Collectors.toList());
-
-      response.put("fileContents", fileContents);
-      return ResponseEntity.ok(response);
-
-    } catch (Exception e) {
-      response.put("error", "An unexpected error occurred while processing the request: Internal Server Error");
-      log.error("Unexpected error occurred while getting file contents: {}", e.getMessage(), e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-    }
+    Map<String, List<FileInfo>> filesByRepository = groupByRepository(request.getFiles(), FileInfo::getRepositoryInfo);
+    AdmissionControl.Permit permit = admissionControl.acquire(filesByRepository.size());
+    return gather(permit,
+        () -> perRepository(request.getFiles(), FileInfo::getRepositoryInfo, filesByRepository,
+            files -> bitbucketIntegrationService.getFileContentsAsync(
+                files,
+                request.getBranchName(),
+                "Basic " + authToken)),
+        e -> {
+          log.error("Unexpected error occurred while getting file contents: {}", e.getMessage(), e);
+          return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+              .body(ErrorResponse.of("An unexpected error occurred while processing the request: Internal Server Error"));
+        });
   }
 
   @PostMapping("/createCommits")
-  public ResponseEntity<Map<String, Object>> createCommit(
+  public DeferredResult<ResponseEntity<?>> createCommit(
       @CookieValue(value = "auth_token", required = false) String authToken,
       @Valid @RequestBody CommitRequest commitRequest,
       BindingResult bindingResult) {
 
-    ResponseEntity<Map<String, Object>> validationResponse = handleValidationErrors(bindingResult);
+    ResponseEntity<ErrorResponse> validationResponse = handleValidationErrors(bindingResult);
     if (validationResponse != null) {
-      return validationResponse;
+      return completed(validationResponse);
     }
 
-    Map<String, Object> response = new HashMap<>();
-    try {
-      List<CompletableFuture<Map<String, Object>>> futures = commitRequest.getCommitInfoList().stream()
-          .map(commitInfo -> bitbucketIntegrationService.createCommitAsync(commitInfo, commitRequest, "Basic " + authToken))
-          .toList();
-
-      List<Map<String, Object>> commitResponses = futures.stream()
-          .map(CompletableFuture::join)
-          .collect(Collectors.toList());
-
-      response.put("commitResults", commitResponses);
-      return ResponseEntity.ok(response);
-    } catch (Exception e) {
-      response.put("message", "An unexpected error occurred: Internal Server Error");
-      log.error("Unexpected error occurred during commit creation: {}", e.getMessage(), e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-    }
+    Map<String, List<CommitInfo>> commitsByRepository =
+        groupByRepository(commitRequest.getCommitInfoList(), CommitInfo::getRepositoryInfo);
+    AdmissionControl.Permit permit = admissionControl.acquire(commitsByRepository.size());
+    return gather(permit,
+        () -> perRepository(commitRequest.getCommitInfoList(), CommitInfo::getRepositoryInfo, commitsByRepository,
+            commitInfos -> bitbucketIntegrationService.createCommitsAsync(commitInfos, commitRequest, "Basic " + authToken)),
+        e -> {
+          log.error("Unexpected error occurred during commit creation: {}", e.getMessage(), e);
+          return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+              .body(ErrorResponse.of("An unexpected error occurred: Internal Server Error"));
+        });
   }
 
   @PostMapping("/updateDependencyVersion")
-  public ResponseEntity<Map<String, Object>> updateDependencyVersion(
+  public DeferredResult<ResponseEntity<?>> updateDependencyVersion(
       @CookieValue(value = "auth_token", required = false) String authToken,
       @Valid @RequestBody UpdateDependencyVersionRequest request,
       BindingResult bindingResult) {
 
-    ResponseEntity<Map<String, Object>> validationResponse = handleValidationErrors(bindingResult);
+    ResponseEntity<ErrorResponse> validationResponse = handleValidationErrors(bindingResult);
     if (validationResponse != null) {
-      return validationResponse;
+      return completed(validationResponse);
     }
 
-    Map<String, Object> response = new HashMap<>();
-    try {
-      List<CompletableFuture<Map<String, Object>>> futures = request.getRepoList().stream()
-          .map(repoInfo -> bitbucketIntegrationService.updateDependencyVersionAsync(repoInfo, request, "Basic " + authToken))
-          .toList();
+    AdmissionControl.Permit permit = admissionControl.acquire(request.getRepoList().size());
+    return gather(permit,
+        () -> request.getRepoList().stream()
+            .map(repoInfo -> inRepositorySpan(repoInfo,
+                () -> bitbucketIntegrationService.updateDependencyVersionAsync(repoInfo, request, "Basic " + authToken)))
+            .toList(),
+        e -> {
+          log.error("Unexpected error occurred while updating dependency version: {}", e.getMessage(), e);
+          return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+              .body(ErrorResponse.of("An unexpected error occurred while processing the request: " + e.getMessage()));
+        });
+  }
 
-      List<Map<String, Object>> updatedFiles = futures.stream()
-          .map(CompletableFuture::join)
-          .collect(Collectors.toList());
+  @PostMapping("/getCommitBuildStatuses")
+  public DeferredResult<ResponseEntity<?>> getCommitBuildStatuses(
+      @CookieValue(value = "auth_token", required = false) String authToken,
+      @Valid @RequestBody GetBuildsRequest request,
+      BindingResult bindingResult) {
 
-      response.put("updatedResults", updatedFiles);
-    } catch (Exception e) {
-      response.put("message", "An unexpected error occurred while processing the request: " + e.getMessage());
-      log.error("Unexpected error occurred while updating dependency version: {}", e.getMessage(), e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    ResponseEntity<ErrorResponse> validationResponse = handleValidationErrors(bindingResult);
+    if (validationResponse != null) {
+      return completed(validationResponse);
     }
 
-    return ResponseEntity.ok(response);
+    AdmissionControl.Permit permit = admissionControl.acquire(request.getRequestItems().size());
+    return gather(permit,
+        () -> request.getRequestItems().stream()
+            .map(item -> inRepositorySpan(item.getRepository(), () -> bitbucketIntegrationService.getCommitBuildStatusesAsync(
+                item.getRepository(), item.getCommitHash(), "Basic " + authToken)))
+            .toList(),
+        e -> {
+          log.error("Unexpected error occurred while fetching build statuses for commits: {}", e.getMessage(), e);
+          return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+              .body(ErrorResponse.of("An unexpected error occurred while fetching build statuses: " + e.getMessage()));
+        });
   }
 
-  @PostMapping("/getCommitBuildStatuses")
-  public ResponseEntity<Map<String, Object>> getCommitBuildStatuses(
+  @PostMapping("/getPullRequestBuilds")
+  public DeferredResult<ResponseEntity<?>> getPullRequestBuilds(
       @CookieValue(value = "auth_token", required = false) String authToken,
       @Valid @RequestBody GetBuildsRequest request,
       BindingResult bindingResult) {
 
-    ResponseEntity<Map<String, Object>> validationResponse = handleValidationErrors(bindingResult);
+    ResponseEntity<ErrorResponse> validationResponse = handleValidationErrors(bindingResult);
     if (validationResponse != null) {
-      return validationResponse;
+      return completed(validationResponse);
     }
 
-    Map<String, Object> response = new HashMap<>();
-    try {
-      List<CompletableFuture<Map<String, Object>>> futures = request.getRequestItems().stream()
-          .map(item -> bitbucketIntegrationService.getCommitBuildStatusesAsync(item.getRepository(), item.getCommitHash(), "Basic " + authToken))
-          .toList();
+    AdmissionControl.Permit permit = admissionControl.acquire(request.getRequestItems().size());
+    return gather(permit,
+        () -> request.getRequestItems().stream()
+            .map(item -> inRepositorySpan(item.getRepository(), () -> bitbucketIntegrationService.getPullRequestBuildStatusesAsync(
+                item,
+                "Basic " + authToken
+            )))
+            .toList(),
+        e -> {
+          log.error("Unexpected error occurred while fetching pull request build statuses: {}", e.getMessage(), e);
+          return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+              .body(ErrorResponse.of(
+                  "An unexpected error occurred while fetching pull request build statuses: " + e.getMessage()));
+        });
+  }
 
-      List<Map<String, Object>> buildStatuses = futures.stream()
-          .map(CompletableFuture::join)
-          .collect(Collectors.toList());
+  /**
+   * Edit, branch, commit and open a PR for every repository in one call. Results are streamed as
+   * newline-delimited JSON, one line per repository in completion order.
+   */
+  @PostMapping("/rollouts")
+  public ResponseEntity<?> createRollouts(
+      @CookieValue(value = "auth_token", required = false) String authToken,
+      @Valid @RequestBody RolloutRequest request,
+      BindingResult bindingResult) {
 
-      response.put("commitBuildStatuses", buildStatuses);
-      return ResponseEntity.ok(response);
+    ResponseEntity<ErrorResponse> validationResponse = handleValidationErrors(bindingResult);
+    if (validationResponse != null) {
+      return validationResponse;
+    }
 
+    recordBatchSize(ROLLOUTS_ENDPOINT, request.getRepoList().size());
+    AdmissionControl.Permit permit = admissionControl.acquire(request.getRepoList().size());
+    try {
+      return streamRollout(rolloutService.register(request), "Basic " + authToken, permit);
     } catch (Exception e) {
-      response.put("message", "An unexpected error occurred while fetching build statuses: " + e.getMessage());
-      log.error("Unexpected error occurred while fetching build statuses for commits: {}", e.getMessage(), e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+      permit.close();
+      log.error("Unexpected error occurred while starting rollouts: {}", e.getMessage(), e);
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+          .body(ErrorResponse.of("An unexpected error occurred while processing the request: Internal Server Error"));
     }
   }
 
-  @PostMapping("/getPullRequestBuilds")
-  public ResponseEntity<Map<String, Object>> getPullRequestBuilds(
+  @GetMapping("/rollouts/{rolloutId}")
+  public ResponseEntity<?> getRollout(@PathVariable String rolloutId) {
+    return rolloutService.status(rolloutId)
+        .<ResponseEntity<?>>map(ResponseEntity::ok)
+        .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+            .body(ErrorResponse.of("Rollout not found: " + rolloutId)));
+  }
+
+  /**
+   * Continue a rollout from the last completed step of each repository, e.g. after a restart.
+   */
+  @PostMapping("/rollouts/{rolloutId}/resume")
+  public ResponseEntity<?> resumeRollout(
       @CookieValue(value = "auth_token", required = false) String authToken,
-      @Valid @RequestBody GetBuildsRequest request,
-      BindingResult bindingResult) {
+      @PathVariable String rolloutId) {
 
-    ResponseEntity<Map<String, Object>> validationResponse = handleValidationErrors(bindingResult);
-    if (validationResponse != null) {
-      return validationResponse;
+    Optional<RolloutRequest> request = rolloutService.find(rolloutId);
+    if (request.isEmpty()) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ErrorResponse.of("Rollout not found: " + rolloutId));
+    }
+    AdmissionControl.Permit permit = admissionControl.acquire(request.get().getRepoList().size());
+    try {
+      return streamRollout(request.get(), "Basic " + authToken, permit);
+    } catch (Exception e) {
+      permit.close();
+      log.error("Unexpected error occurred while resuming rollout {}: {}", rolloutId, e.getMessage(), e);
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+          .body(ErrorResponse.of("An unexpected error occurred while processing the request: Internal Server Error"));
     }
+  }
+
+  /**
+   * Submits a batch and completes with its {@link BatchResult} once every item has finished, without
+   * holding the request thread in the meantime. The admission permit is released on completion;
+   * failures from submitting or from any item are mapped by {@code onFailure}.
+   *
+   * <p>Upstream calls are bounded by the request deadline, so items normally finish on time with
+   * their own "Deadline exceeded" result. The response timeout is only a backstop; when it fires,
+   * or the client disconnects, the deadline is cancelled so queued items skip their upstream calls.
+   */
+  private <T extends ItemResult> DeferredResult<ResponseEntity<?>> gather(
+      AdmissionControl.Permit permit,
+      Supplier<List<CompletableFuture<T>>> submit,
+      Function<Throwable, ResponseEntity<?>> onFailure) {
+
+    RequestDeadline deadline = CallerContext.current().deadline();
+    DeferredResult<ResponseEntity<?>> result = deadline.isUnbounded()
+        ? new DeferredResult<>()
+        : new DeferredResult<>(deadline.remainingMillis() + DEADLINE_GRACE.toMillis());
+    result.onTimeout(() -> {
+      deadline.cancel();
+      result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+          .body(ErrorResponse.of("Deadline exceeded")));
+    });
+    result.onError(ex -> deadline.cancel());
 
-    Map<String, Object> response = new HashMap<>();
     try {
-      List<CompletableFuture<Map<String, Object>>> futures = request.getRequestItems().stream()
-          .map(item -> bitbucketIntegrationService.getPullRequestBuildStatusesAsync(
-              item,
-              "Basic " + authToken
-          ))
-          .toList();
-
-      List<Map<String, Object>> buildResults = futures.stream()
-          .map(CompletableFuture::join)
-          .collect(Collectors.toList());
-
-      response.put("pullRequestBuilds", buildResults);
-      return ResponseEntity.ok(response);
+      List<CompletableFuture<T>> futures = submit.get();
+      recordBatchSize(CallerContext.current().endpoint(), futures.size());
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+          .<ResponseEntity<?>>thenApply(ignored -> ResponseEntity.ok(BatchResult.of(
+              futures.stream().map(CompletableFuture::join).toList())))
+          .exceptionally(ex -> onFailure.apply(ex instanceof CompletionException && ex.getCause() != null
+              ? ex.getCause()
+              : ex))
+          .whenComplete((response, ex) -> {
+            permit.close();
+            result.setResult(response);
+          });
     } catch (Exception e) {
-      response.put("message",
-          "An unexpected error occurred while fetching pull request build statuses: " + e.getMessage());
-      log.error("Unexpected error occurred while fetching pull request build statuses: {}", e.getMessage(), e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+      permit.close();
+      result.setResult(onFailure.apply(e));
     }
+    return result;
   }
 
-}
+  /**
+   * Items per bulk request, so pod sizing and admission limits can follow what callers actually send.
+   */
+  private void recordBatchSize(String endpoint, int items) {
+    DistributionSummary.builder("bitbucket.batch.items")
+        .description("Items carried by one bulk request")
+        .tag("endpoint", endpoint)
+        .publishPercentileHistogram()
+        .register(meterRegistry)
+        .record(items);
+  }
+
+  private static <I> Map<String, List<I>> groupByRepository(List<I> items, Function<I, RepositoryInfo> repositoryOf) {
+    return items.stream().collect(Collectors.groupingBy(
+        item -> repositoryKey(repositoryOf.apply(item)), LinkedHashMap::new, Collectors.toList()));
+  }
 
+  /**
+   * Submits one task per repository group and returns one future per item, in the items' order.
+   */
+  private <I, T> List<CompletableFuture<T>> perRepository(
+      List<I> items,
+      Function<I, RepositoryInfo> repositoryOf,
+      Map<String, List<I>> itemsByRepository,
+      Function<List<I>, CompletableFuture<List<T>>> submit) {
+
+    Map<String, CompletableFuture<List<T>>> submitted = new HashMap<>();
+    itemsByRepository.forEach((key, group) -> submitted.put(key,
+        inRepositorySpan(repositoryOf.apply(group.get(0)), () -> submit.apply(group))));
+
+    Map<String, Integer> positions = new HashMap<>();
+    List<CompletableFuture<T>> perItem = new ArrayList<>(items.size());
+    for (I item : items) {
+      String key = repositoryKey(repositoryOf.apply(item));
+      int position = positions.merge(key, 1, Integer::sum) - 1;
+      perItem.add(submitted.get(key).thenApply(results -> results.get(position)));
+    }
+    return perItem;
+  }
+
+  /**
+   * Submits one repository's work inside its own observation, so the executor task it schedules and
+   * that task's upstream calls trace as its children; time spent queued shows up as the gap before
+   * the first of them. The observation ends when the work completes, and the repository's time
+   * counts towards the request's slowest repository.
+   */
+  private <T> CompletableFuture<T> inRepositorySpan(RepositoryInfo repositoryInfo,
+      Supplier<CompletableFuture<T>> submit) {
+    String key = repositoryKey(repositoryInfo);
+    RequestTimings timings = CallerContext.current().timings();
+    long start = System.nanoTime();
+    Observation observation = Observation.createNotStarted("bitbucket.repository", observationRegistry)
+        .highCardinalityKeyValue("repository", key)
+        .start();
+    try (Observation.Scope ignored = observation.openScope()) {
+      return submit.get().whenComplete((result, ex) -> {
+        timings.recordRepository(key, System.nanoTime() - start);
+        if (ex != null) {
+          observation.error(ex);
+        }
+        observation.stop();
+      });
+    } catch (RuntimeException e) {
+      observation.error(e);
+      observation.stop();
+      throw e;
+    }
+  }
+
+  private static String repositoryKey(RepositoryInfo repositoryInfo) {
+    return repositoryInfo.getProjectName() + "/" + repositoryInfo.getRepoSlug();
+  }
+
+  private static DeferredResult<ResponseEntity<?>> completed(ResponseEntity<?> response) {
+    DeferredResult<ResponseEntity<?>> result = new DeferredResult<>();
+    result.setResult(response);
+    return result;
+  }
+
+  @ExceptionHandler(BatchRejectedException.class)
+  public ResponseEntity<ErrorResponse> handleBatchRejected(BatchRejectedException e) {
+    if (e.getRetryAfter() == null) {
+      return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(ErrorResponse.of(e.getMessage()));
+    }
+    long retryAfterSeconds = (e.getRetryAfter().toMillis() + 999) / 1000;
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+        .body(ErrorResponse.of(e.getMessage()));
+  }
+
+  /**
+   * Streams one line per repository and releases the batch's admission permit once every repository
+   * has finished.
+   */
+  private ResponseEntity<ResponseBodyEmitter> streamRollout(RolloutRequest request, String authHeader,
+      AdmissionControl.Permit permit) {
+    ResponseBodyEmitter emitter = new ResponseBodyEmitter(rolloutStreamTimeout.toMillis());
+    RequestDeadline deadline = CallerContext.current().deadline();
+    emitter.onTimeout(deadline::cancel);
+    emitter.onError(ex -> deadline.cancel());
+    CompletableFuture<?>[] futures;
+    try {
+      futures = request.getRepoList().stream()
+          .map(repoInfo -> inRepositorySpan(repoInfo, () -> rolloutService.rollout(repoInfo, request, authHeader))
+              .thenAccept(result -> sendLine(emitter, result)))
+          .toArray(CompletableFuture[]::new);
+    } catch (RuntimeException e) {
+      // The caller releases the permit; repositories already submitted skip their remaining calls.
+      deadline.cancel();
+      throw e;
+    }
+
+    CompletableFuture.allOf(futures).whenComplete((ignored, ex) -> {
+      permit.close();
+      if (ex != null) {
+        log.error("Unexpected error occurred while streaming rollout results: {}", ex.getMessage(), ex);
+        emitter.completeWithError(ex);
+      } else {
+        emitter.complete();
+      }
+    });
+
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .header("X-Rollout-Id", request.getRolloutId())
+        .body(emitter);
+  }
+
+  private void sendLine(ResponseBodyEmitter emitter, RolloutResult result) {
+    // Object and newline go out in one synchronized send so lines from concurrent repos never interleave.
+    LinkedHashSet<ResponseBodyEmitter.DataWithMediaType> line = new LinkedHashSet<>();
+    line.add(new ResponseBodyEmitter.DataWithMediaType(result, MediaType.APPLICATION_JSON));
+    line.add(new ResponseBodyEmitter.DataWithMediaType("\n", MediaType.TEXT_PLAIN));
+    try {
+      emitter.send(line);
+    } catch (IOException | IllegalStateException e) {
+      log.warn("Could not stream rollout result for repo {}: {}", result.repoSlug(), e.getMessage());
+    }
+  }
+
+}
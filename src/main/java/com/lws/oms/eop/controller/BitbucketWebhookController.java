@@ -0,0 +1,98 @@
+package com.lws.oms.eop.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lws.oms.eop.service.BitbucketApiService;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Receives Bitbucket repository webhooks (push, branch and repository changes) and drops what is
+ * cached about the repository. Requests must be signed with {@code bitbucket.webhook.secret}
+ * ({@code X-Hub-Signature: sha256=<HMAC of the body>}); without a secret configured none are accepted.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/bitbucket/webhooks")
+public class BitbucketWebhookController {
+
+  private static final String SIGNATURE_PREFIX = "sha256=";
+
+  private final BitbucketApiService bitbucketApiService;
+  private final ObjectMapper objectMapper;
+  private final String workspace;
+  private final byte[] secret;
+
+  public BitbucketWebhookController(
+      BitbucketApiService bitbucketApiService,
+      ObjectMapper objectMapper,
+      @Value("${bitbucket.workspace}") String workspace,
+      @Value("${bitbucket.webhook.secret:}") String secret) {
+    this.bitbucketApiService = bitbucketApiService;
+    this.objectMapper = objectMapper;
+    this.workspace = workspace;
+    this.secret = secret.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @PostMapping
+  public ResponseEntity<Void> repositoryEvent(
+      @RequestHeader(value = "X-Event-Key", required = false) String event,
+      @RequestHeader(value = "X-Hub-Signature", required = false) String signature,
+      @RequestBody byte[] body) {
+    if (secret.length == 0) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    if (!signedWithSecret(body, signature)) {
+      log.warn("Rejected {} webhook with a missing or invalid signature", event);
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
+    String fullName;
+    try {
+      JsonNode payload = objectMapper.readTree(body);
+      fullName = payload.path("repository").path("full_name").asText("");
+    } catch (IOException e) {
+      return ResponseEntity.badRequest().build();
+    }
+    int slash = fullName.indexOf('/');
+    if (slash < 0 || !workspace.equalsIgnoreCase(fullName.substring(0, slash))) {
+      return ResponseEntity.accepted().build();
+    }
+
+    String repoSlug = fullName.substring(slash + 1);
+    bitbucketApiService.invalidateRepository(repoSlug);
+    log.info("Invalidated caches of {} after {}", repoSlug, event);
+    return ResponseEntity.noContent().build();
+  }
+
+  private boolean signedWithSecret(byte[] body, String signature) {
+    if (signature == null || !signature.startsWith(SIGNATURE_PREFIX)) {
+      return false;
+    }
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+      byte[] expected = HexFormat.of().formatHex(mac.doFinal(body)).getBytes(StandardCharsets.US_ASCII);
+      byte[] presented = signature.substring(SIGNATURE_PREFIX.length()).toLowerCase()
+          .getBytes(StandardCharsets.US_ASCII);
+      return MessageDigest.isEqual(expected, presented);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("HmacSHA256 not available", e);
+    }
+  }
+
+}
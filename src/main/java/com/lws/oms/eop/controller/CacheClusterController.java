@@ -0,0 +1,74 @@
+package com.lws.oms.eop.controller;
+
+import com.lws.oms.eop.cache.ClusterCacheProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Replica-to-replica cache traffic of the {@link ClusterCacheProvider}. Every call must carry the
+ * shared {@code cache.cluster.secret}.
+ */
+@RestController
+@RequestMapping(ClusterCacheProvider.PATH)
+@ConditionalOnProperty(name = "cache.provider", havingValue = "cluster")
+public class CacheClusterController {
+
+  private static final MediaType SMILE = MediaType.parseMediaType(ClusterCacheProvider.CONTENT_TYPE);
+
+  private final ClusterCacheProvider clusterCacheProvider;
+
+  public CacheClusterController(ClusterCacheProvider clusterCacheProvider) {
+    this.clusterCacheProvider = clusterCacheProvider;
+  }
+
+  @GetMapping("/{cache}")
+  public ResponseEntity<byte[]> read(
+      @RequestHeader(value = ClusterCacheProvider.SECRET_HEADER, required = false) String secret,
+      @PathVariable String cache,
+      @RequestParam String key) {
+    if (!clusterCacheProvider.authorized(secret)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    return clusterCacheProvider.read(cache, key)
+        .map(value -> ResponseEntity.ok().contentType(SMILE).body(value))
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+  @PutMapping("/{cache}")
+  public ResponseEntity<Void> write(
+      @RequestHeader(value = ClusterCacheProvider.SECRET_HEADER, required = false) String secret,
+      @PathVariable String cache,
+      @RequestParam String key,
+      @RequestBody byte[] value) {
+    if (!clusterCacheProvider.authorized(secret)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    clusterCacheProvider.write(cache, key, value);
+    return ResponseEntity.noContent().build();
+  }
+
+  @PostMapping("/{cache}/invalidate")
+  public ResponseEntity<Void> invalidate(
+      @RequestHeader(value = ClusterCacheProvider.SECRET_HEADER, required = false) String secret,
+      @PathVariable String cache,
+      @RequestParam(required = false) String key,
+      @RequestParam(required = false) String prefix) {
+    if (!clusterCacheProvider.authorized(secret)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    clusterCacheProvider.evict(cache, key, prefix);
+    return ResponseEntity.noContent().build();
+  }
+
+}
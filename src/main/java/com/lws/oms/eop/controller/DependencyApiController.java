@@ -3,6 +3,7 @@ package com.lws.oms.eop.controller;
 import static com.lws.oms.eop.utils.ErrorUtils.extractMeaningfulErrorMessage;
 
 import com.lws.oms.eop.dto.DependencyApplicationMetadataDto;
+import com.lws.oms.eop.exception.UpstreamUnavailableException;
 import com.lws.oms.eop.service.DependencyService;
 import feign.FeignException;
 import java.util.List;
@@ -49,6 +50,9 @@ public class DependencyApiController {
     } catch (IllegalArgumentException e) {
       return ResponseEntity.status(HttpStatus.NOT_FOUND)
           .body("Dependency not found: " + dependencyName);
+    } catch (UpstreamUnavailableException e) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+          .body(e.getMessage());
     } catch (FeignException fe) {
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
           .body("Error calling Artifactory API: " + extractMeaningfulErrorMessage(fe));
@@ -0,0 +1,92 @@
+package com.lws.oms.eop.controller;
+
+import com.lws.oms.eop.model.responses.BatchResult;
+import com.lws.oms.eop.model.responses.TimedBatchResult;
+import com.lws.oms.eop.scheduling.CallerContext;
+import com.lws.oms.eop.scheduling.CallerContextFilter;
+import com.lws.oms.eop.scheduling.RequestTimings;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Map;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Reports where a request's time went in a {@code Server-Timing} header: the longest executor queue
+ * wait, upstream time and call count, the slowest repository and the time until the response is
+ * written. Serialization happens after the headers are sent, so it is reported as a
+ * {@code Server-Timing} trailer to clients that send {@code TE: trailers}, and in the
+ * {@code _timing} block bulk responses include when called with {@code ?timing=true}.
+ *
+ * <p>Streamed rollout responses are written outside this advice and carry no timings.
+ */
+@RestControllerAdvice(basePackageClasses = ServerTimingAdvice.class)
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+  public static final String SERVER_TIMING = "Server-Timing";
+  public static final String TIMING_PARAMETER = "timing";
+
+  @Override
+  public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+    return true;
+  }
+
+  @Override
+  public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+      Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+      ServerHttpResponse response) {
+
+    if (!(request instanceof ServletServerHttpRequest servletRequest)
+        || !(servletRequest.getServletRequest().getAttribute(CallerContextFilter.REQUEST_ATTRIBUTE)
+        instanceof CallerContext context)) {
+      return body;
+    }
+    RequestTimings timings = context.timings();
+    response.getHeaders().add(SERVER_TIMING, header(timings.report()));
+    timings.markSerializationStart();
+
+    if (response instanceof ServletServerHttpResponse servletResponse
+        && request.getHeaders().getOrEmpty("TE").stream().anyMatch(te -> te.contains("trailers"))) {
+      addSerializationTrailer(servletResponse.getServletResponse(), response, timings);
+    }
+
+    if (body instanceof BatchResult<?> batchResult
+        && AbstractJackson2HttpMessageConverter.class.isAssignableFrom(selectedConverterType)
+        && Boolean.parseBoolean(servletRequest.getServletRequest().getParameter(TIMING_PARAMETER))) {
+      return TimedBatchResult.of(batchResult, timings);
+    }
+    return body;
+  }
+
+  static String header(RequestTimings.Report report) {
+    StringBuilder header = new StringBuilder(160)
+        .append("queue;dur=").append(report.queueWaitMaxMillis()).append(";desc=\"max wait\"")
+        .append(", upstream;dur=").append(report.upstreamTotalMillis())
+        .append(";desc=\"").append(report.upstreamCalls()).append(" calls\"")
+        .append(", upstream-max;dur=").append(report.upstreamMaxMillis());
+    if (report.slowestRepository() != null) {
+      header.append(", repo;dur=").append(report.slowestRepositoryMillis())
+          .append(";desc=\"").append(report.slowestRepository().replace("\\", "\\\\").replace("\"", "\\\""))
+          .append('"');
+    }
+    return header.append(", app;dur=").append(report.totalMillis()).toString();
+  }
+
+  private static void addSerializationTrailer(HttpServletResponse servletResponse, ServerHttpResponse response,
+      RequestTimings timings) {
+    try {
+      servletResponse.setTrailerFields(() -> Map.of(SERVER_TIMING, "ser;dur=" + timings.report().serializationMillis()));
+      response.getHeaders().add("Trailer", SERVER_TIMING);
+    } catch (IllegalStateException e) {
+      // Already committed, or the connection cannot carry trailers (HTTP/1.0).
+    }
+  }
+
+}
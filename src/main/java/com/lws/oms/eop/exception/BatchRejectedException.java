@@ -0,0 +1,20 @@
+package com.lws.oms.eop.exception;
+
+import java.time.Duration;
+import lombok.Getter;
+
+/**
+ * Thrown when a batch cannot be admitted to the executor. {@code retryAfter} is null when the batch
+ * can never fit and has to be split.
+ */
+@Getter
+public class BatchRejectedException extends RuntimeException {
+
+  private final Duration retryAfter;
+
+  public BatchRejectedException(String message, Duration retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+}
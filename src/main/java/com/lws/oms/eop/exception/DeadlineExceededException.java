@@ -0,0 +1,9 @@
+package com.lws.oms.eop.exception;
+
+public class DeadlineExceededException extends CustomApiException {
+
+  public DeadlineExceededException(String message) {
+    super(message);
+  }
+
+}
@@ -0,0 +1,12 @@
+package com.lws.oms.eop.exception;
+
+/**
+ * A branch, file or repository that Bitbucket does not have, as opposed to one it failed to return.
+ */
+public class ResourceNotFoundException extends CustomApiException {
+
+  public ResourceNotFoundException(String message) {
+    super(message);
+  }
+
+}
@@ -0,0 +1,13 @@
+package com.lws.oms.eop.exception;
+
+/**
+ * An upstream call was refused locally because the upstream is unhealthy (circuit open) or its
+ * concurrency limit is exhausted; nothing was sent.
+ */
+public class UpstreamUnavailableException extends CustomApiException {
+
+  public UpstreamUnavailableException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+}
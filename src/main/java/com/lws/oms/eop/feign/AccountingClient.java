@@ -0,0 +1,32 @@
+package com.lws.oms.eop.feign;
+
+import com.lws.oms.eop.scheduling.CallerContext;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Target;
+import java.io.IOException;
+
+/**
+ * Counts every upstream attempt against the request it is made for in {@link UpstreamUsage}.
+ * Sits below the resilience layers, so calls they reject are not counted while retries and
+ * hedged attempts are: the counts are what the upstream sees, which is what its quota limits.
+ */
+public class AccountingClient implements Client {
+
+  private final Client delegate;
+  private final UpstreamUsage usage;
+
+  public AccountingClient(Client delegate, UpstreamUsage usage) {
+    this.delegate = delegate;
+    this.usage = usage;
+  }
+
+  @Override
+  public Response execute(Request request, Request.Options options) throws IOException {
+    Target<?> target = request.requestTemplate() == null ? null : request.requestTemplate().feignTarget();
+    usage.record(target == null ? "unknown" : target.name(), CallerContext.current());
+    return delegate.execute(request, options);
+  }
+
+}
@@ -30,6 +30,17 @@ public interface BitbucketFeignClient {
       @PathVariable("workspace") String workspace
   );
 
+  /**
+   * Fetch a repository, including its default branch ({@code mainbranch}).
+   * Bitbucket Cloud v2: /2.0/repositories/{workspace}/{repo_slug}
+   */
+  @GetMapping("/repositories/{workspace}/{repoSlug}")
+  Map<String, Object> getRepository(
+      @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+      @PathVariable("workspace") String workspace,
+      @PathVariable("repoSlug") String repoSlug
+  );
+
   /**
    * List branches for a repository in the configured workspace.
    * Bitbucket Cloud v2: /2.0/repositories/{workspace}/{repo_slug}/refs/branches
@@ -78,6 +89,18 @@ public interface BitbucketFeignClient {
       @RequestBody Map<String, Object> pullRequest
   );
 
+  /**
+   * List pull requests matching a filter query, e.g. by source and destination branch and state.
+   * Bitbucket Cloud v2: /2.0/repositories/{workspace}/{repo_slug}/pullrequests?q=...
+   */
+  @GetMapping("/repositories/{workspace}/{repoSlug}/pullrequests")
+  Map<String, Object> getPullRequests(
+      @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+      @PathVariable("workspace") String workspace,
+      @PathVariable("repoSlug") String repoSlug,
+      @RequestParam("q") String query
+  );
+
   /**
    * Fetch file content for a given commit in Bitbucket Cloud.
    * Bitbucket Cloud v2: /2.0/repositories/{workspace}/{repo_slug}/src/{commit}/{path}
@@ -92,6 +115,22 @@ public interface BitbucketFeignClient {
       @RequestParam(value = "page", defaultValue = "1") int page
   );
 
+  /**
+   * List one directory of a commit, one page at a time; {@code directory} is empty for the root and
+   * ends with a slash otherwise. Entries are {@code commit_file}s and {@code commit_directory}s.
+   * Bitbucket Cloud v2: /2.0/repositories/{workspace}/{repo_slug}/src/{commit}/{path}/
+   */
+  @GetMapping("/repositories/{workspace}/{repoSlug}/src/{commit}/{directory}")
+  Map<String, Object> listDirectory(
+      @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+      @PathVariable("workspace") String workspace,
+      @PathVariable("repoSlug") String repoSlug,
+      @PathVariable("commit") String commit,
+      @PathVariable("directory") String directory,
+      @RequestParam("pagelen") int pageLength,
+      @RequestParam(value = "page", required = false) String page
+  );
+
   /**
    * Create a commit by posting file content in Bitbucket Cloud.
    * Bitbucket Cloud v2: POST /2.0/repositories/{workspace}/{repo_slug}/src
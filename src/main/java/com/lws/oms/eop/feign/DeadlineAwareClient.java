@@ -0,0 +1,50 @@
+package com.lws.oms.eop.feign;
+
+import com.lws.oms.eop.exception.DeadlineExceededException;
+import com.lws.oms.eop.scheduling.CallerContext;
+import com.lws.oms.eop.scheduling.RequestDeadline;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds every upstream call by the deadline of the request it is made for. Calls made after the
+ * deadline has passed (or the client went away) fail without touching the network; a call that
+ * runs into the deadline is reported as such rather than as a generic timeout.
+ */
+public class DeadlineAwareClient implements Client {
+
+  private final Client delegate;
+
+  public DeadlineAwareClient(Client delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Response execute(Request request, Request.Options options) throws IOException {
+    RequestDeadline deadline = CallerContext.current().deadline();
+    deadline.check();
+
+    Request.Options bounded = options;
+    long remaining = deadline.remainingMillis();
+    if (remaining < options.readTimeoutMillis()) {
+      bounded = new Request.Options(
+          Math.min(options.connectTimeoutMillis(), remaining), TimeUnit.MILLISECONDS,
+          remaining, TimeUnit.MILLISECONDS,
+          options.isFollowRedirects());
+    }
+
+    try {
+      return delegate.execute(request, bounded);
+    } catch (SocketTimeoutException e) {
+      if (deadline.isExpired()) {
+        throw new DeadlineExceededException("Deadline exceeded");
+      }
+      throw e;
+    }
+  }
+
+}
@@ -0,0 +1,59 @@
+package com.lws.oms.eop.feign;
+
+import com.lws.oms.eop.scheduling.CallerContext;
+import feign.Request;
+import feign.RetryableException;
+import feign.Retryer;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries reads that failed transiently (connection errors, gateway errors) with exponential
+ * backoff and full jitter, so a batch of callers hitting the same blip does not retry in lockstep.
+ * A retry is only attempted if its backoff ends before the request deadline. Writes are never
+ * retried: a reset connection does not tell us whether the write was applied.
+ */
+public class DeadlineBoundedRetryer implements Retryer {
+
+  private final int maxAttempts;
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+  private int attempt = 1;
+
+  public DeadlineBoundedRetryer(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffMillis = initialBackoff.toMillis();
+    this.maxBackoffMillis = maxBackoff.toMillis();
+  }
+
+  @Override
+  public void continueOrPropagate(RetryableException e) {
+    if (e.method() != Request.HttpMethod.GET || attempt >= maxAttempts) {
+      throw e;
+    }
+
+    long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+    long backoff = ThreadLocalRandom.current().nextLong(ceiling + 1);
+    if (e.retryAfter() != null) {
+      backoff = Math.max(backoff, e.retryAfter() - System.currentTimeMillis());
+    }
+    if (backoff >= CallerContext.current().deadline().remainingMillis()) {
+      throw e;
+    }
+
+    try {
+      Thread.sleep(backoff);
+    } catch (InterruptedException interrupted) {
+      Thread.currentThread().interrupt();
+      throw e;
+    }
+    attempt++;
+  }
+
+  @Override
+  public Retryer clone() {
+    return new DeadlineBoundedRetryer(maxAttempts, Duration.ofMillis(initialBackoffMillis),
+        Duration.ofMillis(maxBackoffMillis));
+  }
+
+}
@@ -0,0 +1,186 @@
+package com.lws.oms.eop.feign;
+
+import com.lws.oms.eop.scheduling.CallerContext;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a second copy of a read when the first has not answered within the upstream's recent p95
+ * latency, and uses whichever answer arrives first. This trims the tail caused by the occasional
+ * stuck request at the cost of roughly 5% extra reads. Writes are passed straight through.
+ *
+ * <p>Both attempts go through the delegate, so each is subject to the upstream's circuit breaker
+ * and bulkhead; the losing attempt is interrupted, which closes its connection.
+ *
+ * <p>Only first attempts feed the latency window. Recording whichever attempt won would fill it with
+ * the fast answers hedging produces, lowering the p95 and so hedging ever earlier. A first attempt
+ * abandoned because the hedge won is recorded at the time it was abandoned, which is no less than
+ * the p95 it was hedged at, so the slow tail stays in the window.
+ */
+public class HedgingClient implements Client {
+
+  private static final ExecutorService ATTEMPTS = Executors.newThreadPerTaskExecutor(
+      Thread.ofVirtual().name("hedged-read-", 0).factory());
+
+  private final Client delegate;
+  private final int minSamples;
+  private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+  public HedgingClient(Client delegate, int minSamples) {
+    this.delegate = delegate;
+    this.minSamples = minSamples;
+  }
+
+  @Override
+  public Response execute(Request request, Request.Options options) throws IOException {
+    if (request.httpMethod() != Request.HttpMethod.GET) {
+      return delegate.execute(request, options);
+    }
+
+    LatencyWindow window = latencies.computeIfAbsent(upstreamName(request), name -> new LatencyWindow());
+    long hedgeAfterNanos = window.p95Nanos(minSamples);
+    CallerContext context = CallerContext.current();
+    if (hedgeAfterNanos <= 0 || TimeUnit.NANOSECONDS.toMillis(hedgeAfterNanos) >= context.deadline().remainingMillis()) {
+      long start = System.nanoTime();
+      Response response = delegate.execute(request, options);
+      window.record(System.nanoTime() - start);
+      return response;
+    }
+
+    long start = System.nanoTime();
+    Callable<Response> primary = context.bind(() -> {
+      Response response = delegate.execute(request, options);
+      window.record(System.nanoTime() - start);
+      return response;
+    });
+    Callable<Response> hedge = context.bind(() -> delegate.execute(request, options));
+    ExecutorCompletionService<Response> attempts = new ExecutorCompletionService<>(ATTEMPTS);
+    List<Future<Response>> started = new ArrayList<>(2);
+    Future<Response> winner = null;
+    try {
+      started.add(attempts.submit(primary));
+      Future<Response> first = attempts.poll(hedgeAfterNanos, TimeUnit.NANOSECONDS);
+      if (first == null) {
+        started.add(attempts.submit(hedge));
+        first = attempts.take();
+      }
+      try {
+        first.get();
+        winner = first;
+      } catch (ExecutionException e) {
+        if (started.size() == 1) {
+          throw unwrap(e);
+        }
+        // One attempt failed; the other may still succeed.
+        winner = attempts.take();
+      }
+      return winner.get();
+    } catch (ExecutionException e) {
+      throw unwrap(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for " + request.url(), e);
+    } finally {
+      for (Future<Response> other : started) {
+        if (other != winner && discard(other) && other == started.get(0)) {
+          window.record(System.nanoTime() - start);
+        }
+      }
+    }
+  }
+
+  /**
+   * Interrupts an attempt that is still running, returning true; one that already answered has its
+   * response closed so the connection is released.
+   */
+  private static boolean discard(Future<Response> attempt) {
+    if (attempt.cancel(true)) {
+      return true;
+    }
+    if (attempt.isCancelled()) {
+      return false;
+    }
+    try {
+      attempt.get().close();
+    } catch (ExecutionException | CancellationException ignored) {
+      // Failed or abandoned attempt: nothing to release.
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+
+  private static IOException unwrap(ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof IOException io) {
+      return io;
+    }
+    if (cause instanceof RuntimeException runtime) {
+      throw runtime;
+    }
+    if (cause instanceof CancellationException) {
+      return new IOException("Hedged read cancelled", cause);
+    }
+    return new IOException(cause);
+  }
+
+  private static String upstreamName(Request request) {
+    if (request.requestTemplate() != null && request.requestTemplate().feignTarget() != null) {
+      return request.requestTemplate().feignTarget().name();
+    }
+    return "default";
+  }
+
+  /**
+   * The most recent successful read latencies of one upstream; the p95 is recomputed every few
+   * samples rather than on every call.
+   */
+  private static final class LatencyWindow {
+
+    private static final int SIZE = 256;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final long[] samples = new long[SIZE];
+    private int count;
+    private int next;
+    private long sinceRecompute;
+    private volatile long p95Nanos;
+
+    synchronized void record(long nanos) {
+      samples[next] = nanos;
+      next = (next + 1) % SIZE;
+      count = Math.min(count + 1, SIZE);
+      if (++sinceRecompute >= RECOMPUTE_EVERY) {
+        sinceRecompute = 0;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        p95Nanos = sorted[(int) Math.ceil(count * 0.95) - 1];
+      }
+    }
+
+    long p95Nanos(int minSamples) {
+      synchronized (this) {
+        if (count < minSamples) {
+          return 0;
+        }
+      }
+      return p95Nanos;
+    }
+  }
+
+}
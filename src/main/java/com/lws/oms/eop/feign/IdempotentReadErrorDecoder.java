@@ -0,0 +1,40 @@
+package com.lws.oms.eop.feign;
+
+import feign.FeignException;
+import feign.Request;
+import feign.RetryableException;
+import feign.Response;
+import feign.codec.ErrorDecoder;
+import java.util.Set;
+
+/**
+ * Marks gateway errors on reads as retryable. Anything else, and any error on a write, is decoded
+ * exactly as before so a write that may have been applied is never replayed.
+ */
+public class IdempotentReadErrorDecoder implements ErrorDecoder {
+
+  private static final Set<Integer> TRANSIENT_STATUSES = Set.of(502, 503, 504);
+
+  private final ErrorDecoder delegate = new ErrorDecoder.Default();
+
+  @Override
+  public Exception decode(String methodKey, Response response) {
+    Exception decoded = delegate.decode(methodKey, response);
+    Request request = response.request();
+    if (decoded instanceof RetryableException
+        || !(decoded instanceof FeignException feignException)
+        || request.httpMethod() != Request.HttpMethod.GET
+        || !TRANSIENT_STATUSES.contains(response.status())) {
+      return decoded;
+    }
+    return new RetryableException(
+        response.status(),
+        feignException.getMessage(),
+        request.httpMethod(),
+        (Long) null,
+        request,
+        feignException.content(),
+        feignException.responseHeaders());
+  }
+
+}
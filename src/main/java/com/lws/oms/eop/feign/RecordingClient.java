@@ -0,0 +1,85 @@
+package com.lws.oms.eop.feign;
+
+import com.lws.oms.eop.recording.TraceRecorder;
+import com.lws.oms.eop.scheduling.CallerContext;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Target;
+import feign.Util;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Adds every upstream attempt to the {@link TraceRecorder} trace. The response body is read here
+ * and handed on buffered so it can be both recorded and decoded. Attempts that get no response
+ * (connection errors) are not recorded; the replay shows them as the retry that followed.
+ */
+public class RecordingClient implements Client {
+
+  private static final String[] RECORDED_HEADERS = {"Content-Type", "Retry-After"};
+
+  private final Client delegate;
+  private final TraceRecorder recorder;
+
+  public RecordingClient(Client delegate, TraceRecorder recorder) {
+    this.delegate = delegate;
+    this.recorder = recorder;
+  }
+
+  @Override
+  public Response execute(Request request, Request.Options options) throws IOException {
+    long start = System.nanoTime();
+    Response response = delegate.execute(request, options);
+    long duration = System.nanoTime() - start;
+
+    byte[] body = response.body() == null ? null : Util.toByteArray(response.body().asInputStream());
+    Map<String, String> headers = new LinkedHashMap<>();
+    for (String name : RECORDED_HEADERS) {
+      String value = header(response, name);
+      if (value != null) {
+        headers.put(name, value);
+      }
+    }
+    recorder.record(new TraceRecorder.TraceEntry(
+        TraceRecorder.UPSTREAM,
+        CallerContext.current().endpoint(),
+        request.httpMethod().name(),
+        TraceRecorder.scrub(relativeUri(request)),
+        request.body() == null ? null : new String(request.body(), StandardCharsets.UTF_8),
+        response.status(),
+        headers,
+        body == null ? null : new String(body, StandardCharsets.UTF_8),
+        recorder.offsetMillis(start),
+        duration / 1e6));
+
+    return response.toBuilder().body(body).build();
+  }
+
+  /**
+   * The part of the URL after the client's base URL, so a replay can serve it from any root.
+   */
+  private static String relativeUri(Request request) {
+    String url = request.url();
+    Target<?> target = request.requestTemplate() == null ? null : request.requestTemplate().feignTarget();
+    if (target != null && url.startsWith(target.url())) {
+      return url.substring(target.url().length());
+    }
+    URI uri = URI.create(url);
+    return uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+  }
+
+  private static String header(Response response, String name) {
+    for (Map.Entry<String, Collection<String>> header : response.headers().entrySet()) {
+      if (header.getKey().equalsIgnoreCase(name) && !header.getValue().isEmpty()) {
+        return header.getValue().iterator().next();
+      }
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,83 @@
+package com.lws.oms.eop.feign;
+
+import com.lws.oms.eop.exception.UpstreamUnavailableException;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guards each upstream with its own circuit breaker and bulkhead, keyed by the Feign client name.
+ * While a circuit is open, calls fail immediately instead of each waiting for its own timeout, and
+ * a slow upstream can only hold as many threads as its bulkhead allows.
+ *
+ * <p>Connection errors and 5xx responses count as failures. Anything the upstream answered
+ * deliberately (4xx) counts as success, and calls abandoned locally (deadline) are not counted.
+ */
+public class ResilientClient implements Client {
+
+  private final Client delegate;
+  private final CircuitBreakerRegistry circuitBreakers;
+  private final BulkheadRegistry bulkheads;
+
+  public ResilientClient(Client delegate, CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+    this.delegate = delegate;
+    this.circuitBreakers = circuitBreakers;
+    this.bulkheads = bulkheads;
+  }
+
+  @Override
+  public Response execute(Request request, Request.Options options) throws IOException {
+    String upstream = upstreamName(request);
+    CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(upstream);
+    Bulkhead bulkhead = bulkheads.bulkhead(upstream);
+
+    try {
+      circuitBreaker.acquirePermission();
+    } catch (CallNotPermittedException e) {
+      throw new UpstreamUnavailableException(upstream + " is unavailable; failing fast until it recovers", e);
+    }
+    try {
+      bulkhead.acquirePermission();
+    } catch (BulkheadFullException e) {
+      circuitBreaker.releasePermission();
+      throw new UpstreamUnavailableException(upstream + " is at its concurrency limit; try again shortly", e);
+    }
+
+    long start = System.nanoTime();
+    try {
+      Response response = delegate.execute(request, options);
+      long elapsed = System.nanoTime() - start;
+      if (response.status() >= 500) {
+        circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS,
+            new IOException(upstream + " responded with HTTP " + response.status()));
+      } else {
+        circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+      }
+      return response;
+    } catch (IOException e) {
+      circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+      throw e;
+    } catch (RuntimeException e) {
+      circuitBreaker.releasePermission();
+      throw e;
+    } finally {
+      bulkhead.onComplete();
+    }
+  }
+
+  private static String upstreamName(Request request) {
+    if (request.requestTemplate() != null && request.requestTemplate().feignTarget() != null) {
+      return request.requestTemplate().feignTarget().name();
+    }
+    return "default";
+  }
+
+}
@@ -0,0 +1,33 @@
+package com.lws.oms.eop.feign;
+
+import com.lws.oms.eop.scheduling.CallerContext;
+import com.lws.oms.eop.scheduling.RequestTimings;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import java.io.IOException;
+
+/**
+ * Adds each upstream call to the timings of the request it is made for. Measured per attempt, up to
+ * the response headers; retries and hedged attempts count as calls of their own.
+ */
+public class TimedClient implements Client {
+
+  private final Client delegate;
+
+  public TimedClient(Client delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Response execute(Request request, Request.Options options) throws IOException {
+    RequestTimings timings = CallerContext.current().timings();
+    long start = System.nanoTime();
+    try {
+      return delegate.execute(request, options);
+    } finally {
+      timings.recordUpstreamCall(System.nanoTime() - start);
+    }
+  }
+
+}
@@ -0,0 +1,157 @@
+package com.lws.oms.eop.feign;
+
+import com.lws.oms.eop.scheduling.CallerContext;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Upstream calls over a rolling window, attributed to the endpoint, request and user they were made
+ * for. The window is a ring of fixed time buckets; recording a call touches only the current one,
+ * and a bucket is cleared when the ring comes round to it again.
+ */
+public class UpstreamUsage {
+
+  /**
+   * @param callsByClient calls per Feign client
+   * @param endpoints     by calls, descending; requests are those that made at least one call
+   * @param topUsers      heaviest callers by calls
+   * @param topRequests   most expensive single requests
+   */
+  public record Report(
+      Duration window,
+      long calls,
+      Map<String, Long> callsByClient,
+      List<EndpointUsage> endpoints,
+      List<UserUsage> topUsers,
+      List<RequestUsage> topRequests) {
+  }
+
+  public record EndpointUsage(String endpoint, long requests, long calls, double callsPerRequest,
+      long maxCallsPerRequest) {
+  }
+
+  public record UserUsage(String userKey, long requests, long calls) {
+  }
+
+  public record RequestUsage(String requestId, String endpoint, String userKey, long calls) {
+  }
+
+  private static final class RequestTally {
+    private final String requestId;
+    private final String endpoint;
+    private final String userKey;
+    private final LongAdder calls = new LongAdder();
+
+    private RequestTally(CallerContext caller) {
+      this.requestId = caller.requestId();
+      this.endpoint = caller.endpoint();
+      this.userKey = caller.userKey();
+    }
+  }
+
+  private static final class Bucket {
+    private volatile long slot = -1;
+    private final Map<String, LongAdder> callsByClient = new ConcurrentHashMap<>();
+    private final Map<String, RequestTally> requests = new ConcurrentHashMap<>();
+  }
+
+  private final Duration window;
+  private final long bucketMillis;
+  private final Bucket[] buckets;
+  private final Clock clock;
+
+  public UpstreamUsage(Duration window, int bucketCount, Clock clock) {
+    this.window = window;
+    this.bucketMillis = Math.max(1, window.toMillis() / bucketCount);
+    this.buckets = new Bucket[bucketCount];
+    for (int i = 0; i < bucketCount; i++) {
+      buckets[i] = new Bucket();
+    }
+    this.clock = clock;
+  }
+
+  public void record(String client, CallerContext caller) {
+    Bucket bucket = current();
+    bucket.callsByClient.computeIfAbsent(client, key -> new LongAdder()).increment();
+    bucket.requests.computeIfAbsent(tallyKey(caller), key -> new RequestTally(caller)).calls.increment();
+  }
+
+  public Report report(int top) {
+    long oldest = clock.millis() / bucketMillis - buckets.length + 1;
+    Map<String, Long> callsByClient = new TreeMap<>();
+    Map<String, RequestUsage> requests = new HashMap<>();
+    for (Bucket bucket : buckets) {
+      if (bucket.slot < oldest) {
+        continue;
+      }
+      bucket.callsByClient.forEach((client, calls) -> callsByClient.merge(client, calls.sum(), Long::sum));
+      // A request spanning buckets has a tally in each.
+      bucket.requests.forEach((key, tally) -> requests.merge(key,
+          new RequestUsage(tally.requestId, tally.endpoint, tally.userKey, tally.calls.sum()),
+          (a, b) -> new RequestUsage(a.requestId(), a.endpoint(), a.userKey(), a.calls() + b.calls())));
+    }
+
+    Map<String, long[]> byEndpoint = new HashMap<>();
+    Map<String, long[]> byUser = new HashMap<>();
+    long total = 0;
+    for (RequestUsage request : requests.values()) {
+      total += request.calls();
+      long[] endpoint = byEndpoint.computeIfAbsent(request.endpoint(), key -> new long[3]);
+      endpoint[0]++;
+      endpoint[1] += request.calls();
+      endpoint[2] = Math.max(endpoint[2], request.calls());
+      long[] user = byUser.computeIfAbsent(request.userKey(), key -> new long[2]);
+      user[0]++;
+      user[1] += request.calls();
+    }
+
+    List<EndpointUsage> endpoints = new ArrayList<>(byEndpoint.size());
+    byEndpoint.forEach((endpoint, t) -> endpoints.add(
+        new EndpointUsage(endpoint, t[0], t[1], Math.round(100.0 * t[1] / t[0]) / 100.0, t[2])));
+    endpoints.sort(Comparator.comparingLong(EndpointUsage::calls).reversed());
+
+    List<UserUsage> users = new ArrayList<>(byUser.size());
+    byUser.forEach((user, t) -> users.add(new UserUsage(user, t[0], t[1])));
+    users.sort(Comparator.comparingLong(UserUsage::calls).reversed());
+
+    List<RequestUsage> topRequests = requests.values().stream()
+        .sorted(Comparator.comparingLong(RequestUsage::calls).reversed())
+        .limit(top)
+        .toList();
+
+    return new Report(window, total, callsByClient, endpoints, users.subList(0, Math.min(top, users.size())),
+        topRequests);
+  }
+
+  /**
+   * Callers may choose their own request ids, so an id alone does not identify a request: two
+   * callers, or one caller on two endpoints, sending the same id must not share a tally.
+   */
+  private static String tallyKey(CallerContext caller) {
+    return caller.userKey() + ' ' + caller.endpoint() + ' ' + caller.requestId();
+  }
+
+  private Bucket current() {
+    long slot = clock.millis() / bucketMillis;
+    Bucket bucket = buckets[(int) (slot % buckets.length)];
+    if (bucket.slot != slot) {
+      synchronized (bucket) {
+        if (bucket.slot != slot) {
+          bucket.callsByClient.clear();
+          bucket.requests.clear();
+          bucket.slot = slot;
+        }
+      }
+    }
+    return bucket;
+  }
+
+}
@@ -11,5 +11,6 @@ public class CommitInfo {
   private String searchPath;
   private String commitMessage;
   private List<String> content;
+  private String contentHash;
 
 }
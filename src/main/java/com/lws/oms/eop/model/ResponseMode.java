@@ -0,0 +1,24 @@
+package com.lws.oms.eop.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * How much of a rewritten file a response carries: the whole file, or only the edits to it.
+ */
+public enum ResponseMode {
+
+  FULL("full"),
+  DIFF("diff");
+
+  private final String value;
+
+  ResponseMode(String value) {
+    this.value = value;
+  }
+
+  @JsonValue
+  public String getValue() {
+    return value;
+  }
+
+}
@@ -0,0 +1,40 @@
+package com.lws.oms.eop.model.requests;
+
+import com.lws.oms.eop.model.RepositoryInfo;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class RolloutRequest {
+
+  /**
+   * Optional idempotency key. Re-submitting a known id continues that rollout instead of starting over.
+   */
+  private String rolloutId;
+
+  @NotEmpty(message = "Repo list cannot be empty")
+  private List<RepositoryInfo> repoList;
+
+  @NotBlank(message = "Base branch cannot be blank")
+  private String baseBranch;
+
+  @NotBlank(message = "Branch name cannot be blank")
+  private String branchName;
+
+  @NotBlank(message = "Dependency name cannot be blank")
+  private String dependency;
+
+  @NotBlank(message = "Version cannot be blank")
+  private String version;
+
+  @NotBlank(message = "Commit message cannot be blank")
+  private String commitMessage;
+
+  @NotBlank(message = "Pull request title cannot be blank")
+  private String prTitle;
+
+  private String prDescription;
+
+}
@@ -1,6 +1,7 @@
 package com.lws.oms.eop.model.requests;
 
 import com.lws.oms.eop.model.RepositoryInfo;
+import com.lws.oms.eop.model.ResponseMode;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
@@ -22,4 +23,17 @@ public class UpdateDependencyVersionRequest {
   @NotBlank(message = "Version cannot be blank")
   private String version;
 
+  private ResponseMode responseMode = ResponseMode.FULL;
+
+  /**
+   * Update every pom.xml in the repository (under the module, if one is given) instead of only the
+   * module's own.
+   */
+  private boolean allModules;
+
+  /**
+   * If set, the updated POMs are committed to the branch in one commit with this message.
+   */
+  private String commitMessage;
+
 }
@@ -0,0 +1,8 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ApplicationsResult(List<String> applications, String error) {
+}
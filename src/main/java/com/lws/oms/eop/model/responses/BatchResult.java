@@ -0,0 +1,24 @@
+package com.lws.oms.eop.model.responses;
+
+import java.util.List;
+
+/**
+ * Envelope returned by every bulk endpoint: the per-item results in request order plus counts.
+ */
+public record BatchResult<T extends ItemResult>(
+    int total,
+    int succeeded,
+    int failed,
+    List<T> results) {
+
+  public static <T extends ItemResult> BatchResult<T> of(List<T> results) {
+    int succeeded = 0;
+    for (T result : results) {
+      if (result.status() == ResultStatus.SUCCESS) {
+        succeeded++;
+      }
+    }
+    return new BatchResult<>(results.size(), succeeded, results.size() - succeeded, List.copyOf(results));
+  }
+
+}
@@ -0,0 +1,19 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import lombok.Builder;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BranchListResult(
+    String projectName,
+    String repoSlug,
+    ResultStatus status,
+    String error,
+    List<BranchSummary> branches) implements ItemResult {
+
+  public record BranchSummary(String name, String latestCommit) {
+  }
+
+}
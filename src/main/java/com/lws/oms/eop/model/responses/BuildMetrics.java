@@ -0,0 +1,45 @@
+package com.lws.oms.eop.model.responses;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-state counts of the build statuses reported for a commit.
+ */
+public record BuildMetrics(
+    int cancelled,
+    int successful,
+    int inProgress,
+    int failed,
+    int unknown) {
+
+  public static BuildMetrics fromStatuses(Map<String, Object> statusesResponse) {
+    int cancelled = 0;
+    int successful = 0;
+    int inProgress = 0;
+    int failed = 0;
+    int unknown = 0;
+
+    if (statusesResponse != null && statusesResponse.get("values") instanceof List<?> values) {
+      for (Object o : values) {
+        if (!(o instanceof Map<?, ?> status)) {
+          continue;
+        }
+        if (!(status.get("state") instanceof String state)) {
+          unknown++;
+          continue;
+        }
+        switch (state.toUpperCase()) {
+          case "SUCCESSFUL" -> successful++;
+          case "FAILED" -> failed++;
+          case "INPROGRESS" -> inProgress++;
+          case "STOPPED", "CANCELLED" -> cancelled++;
+          default -> unknown++;
+        }
+      }
+    }
+
+    return new BuildMetrics(cancelled, successful, inProgress, failed, unknown);
+  }
+
+}
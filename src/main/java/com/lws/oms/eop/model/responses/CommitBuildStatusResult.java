@@ -0,0 +1,16 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.Map;
+import lombok.Builder;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CommitBuildStatusResult(
+    String projectName,
+    String repoSlug,
+    String commitHash,
+    ResultStatus status,
+    String error,
+    Map<String, Object> buildStatuses) implements ItemResult {
+}
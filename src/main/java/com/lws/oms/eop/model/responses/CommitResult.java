@@ -0,0 +1,18 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.Map;
+import lombok.Builder;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CommitResult(
+    String projectName,
+    String repoSlug,
+    String module,
+    String searchPath,
+    String file,
+    ResultStatus status,
+    String error,
+    Map<String, Object> commitResult) implements ItemResult {
+}
@@ -0,0 +1,30 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import java.util.Map;
+import lombok.Builder;
+
+/**
+ * Result of updating a dependency in one repository. A single POM is reported in the top-level
+ * fields; with {@code allModules} every POM is reported in {@code poms}, and the top-level status
+ * is a success if any of them was updated. {@code commitResult} is set once the updated POMs have
+ * been committed.
+ */
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DependencyUpdateResult(
+    String projectName,
+    String repoSlug,
+    String module,
+    ResultStatus status,
+    String message,
+    String error,
+    String eol,
+    String contentHash,
+    List<String> pomContent,
+    List<LineEdit> edits,
+    String unifiedDiff,
+    List<PomUpdate> poms,
+    Map<String, Object> commitResult) implements ItemResult {
+}
@@ -0,0 +1,9 @@
+package com.lws.oms.eop.model.responses;
+
+public record ErrorResponse(ResultStatus status, String message) {
+
+  public static ErrorResponse of(String message) {
+    return new ErrorResponse(ResultStatus.ERROR, message);
+  }
+
+}
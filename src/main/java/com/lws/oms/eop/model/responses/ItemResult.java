@@ -0,0 +1,14 @@
+package com.lws.oms.eop.model.responses;
+
+/**
+ * Common shape of a single per-repository entry inside a {@link BatchResult}.
+ */
+public interface ItemResult {
+
+  String projectName();
+
+  String repoSlug();
+
+  ResultStatus status();
+
+}
@@ -0,0 +1,10 @@
+package com.lws.oms.eop.model.responses;
+
+import java.util.List;
+
+/**
+ * Replacement of {@code oldLines} starting at zero-based line {@code offset} with {@code newLines}.
+ * Offsets are into the original file, so a list of edits is applied from the last to the first.
+ */
+public record LineEdit(int offset, List<String> oldLines, List<String> newLines) {
+}
@@ -0,0 +1,22 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import lombok.Builder;
+
+/**
+ * Outcome of updating the dependency in one of a repository's POM files.
+ */
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PomUpdate(
+    String path,
+    ResultStatus status,
+    String message,
+    String error,
+    String eol,
+    String contentHash,
+    List<String> pomContent,
+    List<LineEdit> edits,
+    String unifiedDiff) {
+}
@@ -0,0 +1,15 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PullRequestBuildResult(
+    String projectName,
+    String repoSlug,
+    String commitHash,
+    ResultStatus status,
+    String error,
+    BuildMetrics metrics) implements ItemResult {
+}
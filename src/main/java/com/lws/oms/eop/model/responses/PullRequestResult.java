@@ -0,0 +1,16 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.Map;
+import lombok.Builder;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PullRequestResult(
+    String projectName,
+    String repoSlug,
+    ResultStatus status,
+    String error,
+    String message,
+    Map<String, Object> pullRequest) implements ItemResult {
+}
@@ -0,0 +1,22 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum ResultStatus {
+
+  SUCCESS("success"),
+  FAILURE("failure"),
+  ERROR("error");
+
+  private final String value;
+
+  ResultStatus(String value) {
+    this.value = value;
+  }
+
+  @JsonValue
+  public String getValue() {
+    return value;
+  }
+
+}
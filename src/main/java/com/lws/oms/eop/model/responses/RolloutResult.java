@@ -0,0 +1,23 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.Map;
+import lombok.Builder;
+
+/**
+ * Outcome of one repository's rollout. {@code stage} is the step that failed, or {@code done}.
+ */
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RolloutResult(
+    String rolloutId,
+    String projectName,
+    String repoSlug,
+    ResultStatus status,
+    RolloutStage stage,
+    String error,
+    String message,
+    String baseCommit,
+    String pomPath,
+    Map<String, Object> pullRequest) implements ItemResult {
+}
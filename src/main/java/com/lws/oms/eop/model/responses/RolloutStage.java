@@ -0,0 +1,27 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Steps of a per-repository dependency rollout, in execution order.
+ */
+public enum RolloutStage {
+
+  EDIT("edit"),
+  BRANCH("branch"),
+  COMMIT("commit"),
+  PULL_REQUEST("pullRequest"),
+  DONE("done");
+
+  private final String value;
+
+  RolloutStage(String value) {
+    this.value = value;
+  }
+
+  @JsonValue
+  public String getValue() {
+    return value;
+  }
+
+}
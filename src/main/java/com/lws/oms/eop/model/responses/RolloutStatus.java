@@ -0,0 +1,31 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Journaled progress of a rollout. Repositories that have not finished their edit step are absent.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RolloutStatus(
+    String rolloutId,
+    boolean finished,
+    Instant createdAt,
+    List<RepoStatus> repositories) {
+
+  /**
+   * {@code stage} is the last completed step; {@code completed} is true once nothing is left to do.
+   */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public record RepoStatus(
+      String projectName,
+      String repoSlug,
+      String module,
+      RolloutStage stage,
+      boolean completed,
+      String message,
+      Instant updatedAt) {
+  }
+
+}
@@ -0,0 +1,30 @@
+package com.lws.oms.eop.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.lws.oms.eop.scheduling.RequestTimings;
+import java.util.List;
+
+/**
+ * A {@link BatchResult} followed by a {@code _timing} block. The block is written last and computed
+ * while it is written, so its serialization time covers the results before it.
+ */
+@JsonPropertyOrder({"total", "succeeded", "failed", "results", "_timing"})
+public record TimedBatchResult(
+    int total,
+    int succeeded,
+    int failed,
+    List<?> results,
+    @JsonIgnore RequestTimings timings) {
+
+  public static TimedBatchResult of(BatchResult<?> result, RequestTimings timings) {
+    return new TimedBatchResult(result.total(), result.succeeded(), result.failed(), result.results(), timings);
+  }
+
+  @JsonProperty("_timing")
+  public RequestTimings.Report timing() {
+    return timings.report();
+  }
+
+}
@@ -0,0 +1,87 @@
+package com.lws.oms.eop.recording;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+/**
+ * Adds each inbound API request to the {@link TraceRecorder} trace once its response is complete,
+ * which for the bulk endpoints is after the async dispatch. Cookies and headers are not recorded.
+ */
+@Component
+@ConditionalOnProperty(name = "upstream.recording.enabled", havingValue = "true")
+public class RecordingFilter extends OncePerRequestFilter {
+
+  private final TraceRecorder recorder;
+
+  public RecordingFilter(TraceRecorder recorder) {
+    this.recorder = recorder;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    return path.startsWith("/actuator") || path.startsWith("/admin") || path.startsWith("/internal");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+
+    long start = System.nanoTime();
+    ContentCachingRequestWrapper cached = new ContentCachingRequestWrapper(request);
+    try {
+      filterChain.doFilter(cached, response);
+    } finally {
+      if (cached.isAsyncStarted()) {
+        cached.getAsyncContext().addListener(new AsyncListener() {
+          @Override
+          public void onComplete(AsyncEvent event) {
+            record(cached, response, start);
+          }
+
+          @Override
+          public void onTimeout(AsyncEvent event) {
+          }
+
+          @Override
+          public void onError(AsyncEvent event) {
+          }
+
+          @Override
+          public void onStartAsync(AsyncEvent event) {
+          }
+        });
+      } else {
+        record(cached, response, start);
+      }
+    }
+  }
+
+  private void record(ContentCachingRequestWrapper request, HttpServletResponse response, long start) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    String uri = request.getQueryString() == null ? path : path + "?" + request.getQueryString();
+    byte[] body = request.getContentAsByteArray();
+    recorder.record(new TraceRecorder.TraceEntry(
+        TraceRecorder.INBOUND,
+        path,
+        request.getMethod(),
+        TraceRecorder.scrub(uri),
+        body.length == 0 ? null : new String(body, StandardCharsets.UTF_8),
+        response.getStatus(),
+        null,
+        null,
+        recorder.offsetMillis(start),
+        (System.nanoTime() - start) / 1e6));
+  }
+
+}
@@ -0,0 +1,100 @@
+package com.lws.oms.eop.recording;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lws.oms.eop.config.UpstreamConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes an interaction trace for offline replay: every inbound API request and every upstream
+ * exchange made for it, with bodies and timing, one JSON object per line. Meant for staging runs;
+ * credentials never reach the trace, since headers other than content type and {@code Retry-After}
+ * are dropped and secret-looking query parameters are masked.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "upstream.recording.enabled", havingValue = "true")
+public class TraceRecorder {
+
+  public static final String INBOUND = "inbound";
+  public static final String UPSTREAM = "upstream";
+
+  /**
+   * @param type            {@link #INBOUND} or {@link #UPSTREAM}
+   * @param endpoint        API path of the inbound request the entry belongs to
+   * @param uri             path and query; for upstream calls relative to the client's base URL
+   * @param offsetMillis    start of the exchange since recording started
+   * @param durationMillis  time to the response (upstream) or to completion (inbound)
+   */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public record TraceEntry(
+      String type,
+      String endpoint,
+      String method,
+      String uri,
+      String requestBody,
+      int status,
+      Map<String, String> responseHeaders,
+      String responseBody,
+      long offsetMillis,
+      double durationMillis) {
+  }
+
+  private static final Pattern SECRET_PARAMETER =
+      Pattern.compile("(?i)([?&](?:access_token|token|api_key|key|secret|password|signature)=)[^&]*");
+
+  private final ObjectMapper objectMapper;
+  private final Path path;
+  private final long startNanos = System.nanoTime();
+
+  private BufferedWriter writer;
+
+  public TraceRecorder(ObjectMapper objectMapper, UpstreamConfig upstreamConfig) {
+    this.objectMapper = objectMapper;
+    this.path = upstreamConfig.getRecording().getPath();
+  }
+
+  @PostConstruct
+  void open() throws IOException {
+    Files.createDirectories(path.toAbsolutePath().getParent());
+    writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND);
+    log.warn("Recording upstream trace to {}; disable upstream.recording outside staging", path);
+  }
+
+  @PreDestroy
+  synchronized void close() throws IOException {
+    writer.close();
+  }
+
+  public long offsetMillis(long nanos) {
+    return (nanos - startNanos) / 1_000_000;
+  }
+
+  public synchronized void record(TraceEntry entry) {
+    try {
+      writer.write(objectMapper.writeValueAsString(entry));
+      writer.newLine();
+      writer.flush();
+    } catch (IOException e) {
+      log.warn("Failed to record {} {} to trace: {}", entry.method(), entry.uri(), e.getMessage());
+    }
+  }
+
+  public static String scrub(String uri) {
+    return SECRET_PARAMETER.matcher(uri).replaceAll("$1***");
+  }
+
+}
@@ -0,0 +1,146 @@
+package com.lws.oms.eop.scheduling;
+
+import com.lws.oms.eop.exception.BatchRejectedException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admits a batch only when all of its tasks fit in the executor (running threads plus queue), so a
+ * request is either rejected up front or runs to completion; never half submitted.
+ *
+ * <p>Every item of a batch is one executor task, so permits are counted in tasks. The upstream
+ * calls each task makes show up in the measured task duration, which drives the Retry-After
+ * estimate: the time the pool needs to work off the excess at the current average task length.
+ *
+ * <p>So that one campaign cannot take the whole pool, bulk batches leave {@code interactiveReserve}
+ * slots to interactive requests, and no user may hold more than {@code maxTasksPerUser} slots at
+ * once. A batch larger than its caller could ever be given is rejected without a Retry-After.
+ */
+public class AdmissionControl {
+
+  public record Snapshot(
+      int capacity,
+      int reserved,
+      int bulkReserved,
+      long admitted,
+      long rejected,
+      double avgTaskMillis) {
+  }
+
+  /**
+   * Reservation for an admitted batch; close it once all of the batch's tasks have finished.
+   */
+  public final class Permit implements AutoCloseable {
+    private final int tasks;
+    private final String userKey;
+    private final PriorityClass priority;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Permit(int tasks, String userKey, PriorityClass priority) {
+      this.tasks = tasks;
+      this.userKey = userKey;
+      this.priority = priority;
+    }
+
+    @Override
+    public void close() {
+      if (released.compareAndSet(false, true)) {
+        release(this);
+      }
+    }
+  }
+
+  private static final double EWMA_ALPHA = 0.2;
+  private static final Duration MIN_RETRY_AFTER = Duration.ofSeconds(1);
+  private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(5);
+
+  private final int capacity;
+  private final int bulkCapacity;
+  private final int maxTasksPerUser;
+  private final int workers;
+  private final Map<String, Integer> reservedByUser = new HashMap<>();
+  private int reserved;
+  private int bulkReserved;
+  private final AtomicLong admitted = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong avgTaskNanos;
+
+  public AdmissionControl(int workers, int queueCapacity, Duration initialTaskEstimate) {
+    this(workers, queueCapacity, 0, workers + queueCapacity, initialTaskEstimate);
+  }
+
+  public AdmissionControl(int workers, int queueCapacity, int interactiveReserve, int maxTasksPerUser,
+      Duration initialTaskEstimate) {
+    this.capacity = workers + queueCapacity;
+    this.bulkCapacity = capacity - interactiveReserve;
+    this.maxTasksPerUser = maxTasksPerUser;
+    this.workers = workers;
+    this.avgTaskNanos = new AtomicLong(initialTaskEstimate.toNanos());
+  }
+
+  /**
+   * Admits a batch of {@code tasks} for the caller of the current thread.
+   */
+  public Permit acquire(int tasks) {
+    CallerContext caller = CallerContext.current();
+    return acquire(tasks, caller.userKey(), caller.priority());
+  }
+
+  public Permit acquire(int tasks, String userKey, PriorityClass priority) {
+    int limit = Math.min(maxTasksPerUser, priority == PriorityClass.BULK ? bulkCapacity : capacity);
+    if (tasks > limit) {
+      rejected.incrementAndGet();
+      throw new BatchRejectedException(String.format(
+          "Batch of %d items exceeds the maximum of %d; split it into smaller batches", tasks, limit), null);
+    }
+    synchronized (this) {
+      int byUser = reservedByUser.getOrDefault(userKey, 0);
+      int excess = Math.max(reserved + tasks - capacity, byUser + tasks - maxTasksPerUser);
+      if (priority == PriorityClass.BULK) {
+        excess = Math.max(excess, bulkReserved + tasks - bulkCapacity);
+      }
+      if (excess > 0) {
+        rejected.incrementAndGet();
+        throw new BatchRejectedException(String.format(
+            "Server is busy: %d of %d task slots in use (%d of %d by you), batch needs %d",
+            reserved, capacity, byUser, maxTasksPerUser, tasks), retryAfter(excess));
+      }
+      reserved += tasks;
+      if (priority == PriorityClass.BULK) {
+        bulkReserved += tasks;
+      }
+      reservedByUser.put(userKey, byUser + tasks);
+    }
+    admitted.incrementAndGet();
+    return new Permit(tasks, userKey, priority);
+  }
+
+  private synchronized void release(Permit permit) {
+    reserved -= permit.tasks;
+    if (permit.priority == PriorityClass.BULK) {
+      bulkReserved -= permit.tasks;
+    }
+    reservedByUser.computeIfPresent(permit.userKey, (user, held) -> held == permit.tasks ? null : held - permit.tasks);
+  }
+
+  public void recordTaskDuration(long nanos) {
+    avgTaskNanos.getAndUpdate(avg -> (long) (avg + EWMA_ALPHA * (nanos - avg)));
+  }
+
+  public synchronized Snapshot snapshot() {
+    return new Snapshot(capacity, reserved, bulkReserved, admitted.get(), rejected.get(), avgTaskNanos.get() / 1e6);
+  }
+
+  private Duration retryAfter(int excessTasks) {
+    long waves = (excessTasks + workers - 1) / workers;
+    Duration estimate = Duration.ofNanos(waves * avgTaskNanos.get());
+    if (estimate.compareTo(MIN_RETRY_AFTER) < 0) {
+      return MIN_RETRY_AFTER;
+    }
+    return estimate.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : estimate;
+  }
+
+}
@@ -0,0 +1,77 @@
+package com.lws.oms.eop.scheduling;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.Callable;
+
+/**
+ * Who a unit of work is being done for. Set by {@link CallerContextFilter} on the request thread
+ * and carried onto executor threads by {@link CallerContextTaskDecorator}.
+ *
+ * @param requestId identifies the originating request in logs and usage reports
+ * @param userKey   short hash of the caller's token, never the token itself
+ * @param priority  scheduling class derived from the endpoint
+ * @param endpoint  request path that originated the work
+ * @param deadline  when the caller stops waiting for the work
+ * @param timings   where the request's time goes, reported back to the caller
+ */
+public record CallerContext(
+    String requestId,
+    String userKey,
+    PriorityClass priority,
+    String endpoint,
+    RequestDeadline deadline,
+    RequestTimings timings) {
+
+  public static final CallerContext SYSTEM =
+      new CallerContext("system", "system", PriorityClass.BULK, "system", RequestDeadline.NONE, RequestTimings.NONE);
+
+  private static final ThreadLocal<CallerContext> CURRENT = new ThreadLocal<>();
+
+  public static CallerContext current() {
+    CallerContext context = CURRENT.get();
+    return context != null ? context : SYSTEM;
+  }
+
+  /**
+   * Wraps {@code task} so it runs under this context on whichever thread ends up executing it.
+   */
+  public <T> Callable<T> bind(Callable<T> task) {
+    return () -> {
+      CallerContext previous = CURRENT.get();
+      CURRENT.set(this);
+      try {
+        return task.call();
+      } finally {
+        set(previous);
+      }
+    };
+  }
+
+  static CallerContext currentOrNull() {
+    return CURRENT.get();
+  }
+
+  static void set(CallerContext context) {
+    if (context == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(context);
+    }
+  }
+
+  public static String hashToken(String token) {
+    if (token == null || token.isBlank()) {
+      return "anonymous";
+    }
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest, 0, 8);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+}
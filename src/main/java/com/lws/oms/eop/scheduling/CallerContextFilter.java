@@ -0,0 +1,115 @@
+package com.lws.oms.eop.scheduling;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Establishes the {@link CallerContext} of each request: its id (the caller's or a new one, echoed
+ * in {@value #REQUEST_ID_HEADER}), who is calling, how urgent the endpoint is, and the deadline for
+ * its work, taken from the {@value #TIMEOUT_HEADER} header (milliseconds, capped at
+ * {@code deadline.max}) or the default of its priority class.
+ */
+@Component
+public class CallerContextFilter extends OncePerRequestFilter {
+
+  public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+  public static final String REQUEST_ID_HEADER = "X-Request-Id";
+  public static final String REQUEST_ATTRIBUTE = CallerContext.class.getName();
+
+  private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+  private static final Pattern REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+  private final List<String> bulkPaths;
+  private final Duration interactiveDeadline;
+  private final Duration bulkDeadline;
+  private final Duration maxDeadline;
+
+  public CallerContextFilter(
+      @Value("${scheduler.bulk-paths:/bitbucket/create*,/bitbucket/rollouts/**}") List<String> bulkPaths,
+      @Value("${deadline.interactive:1m}") Duration interactiveDeadline,
+      @Value("${deadline.bulk:10m}") Duration bulkDeadline,
+      @Value("${deadline.max:30m}") Duration maxDeadline) {
+    this.bulkPaths = bulkPaths;
+    this.interactiveDeadline = interactiveDeadline;
+    this.bulkDeadline = bulkDeadline;
+    this.maxDeadline = maxDeadline;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    PriorityClass priority = bulkPaths.stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path))
+        ? PriorityClass.BULK
+        : PriorityClass.INTERACTIVE;
+
+    CallerContext previous = CallerContext.currentOrNull();
+    String requestId = requestId(request);
+    response.setHeader(REQUEST_ID_HEADER, requestId);
+    CallerContext context = new CallerContext(requestId, CallerContext.hashToken(callerToken(request)), priority,
+        path, RequestDeadline.after(timeout(request, priority)), new RequestTimings());
+    // Async results are written on a later dispatch that this filter does not see.
+    request.setAttribute(REQUEST_ATTRIBUTE, context);
+    CallerContext.set(context);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      CallerContext.set(previous);
+    }
+  }
+
+  private Duration timeout(HttpServletRequest request, PriorityClass priority) {
+    Duration fallback = priority == PriorityClass.BULK ? bulkDeadline : interactiveDeadline;
+    String header = request.getHeader(TIMEOUT_HEADER);
+    if (header == null || header.isBlank()) {
+      return fallback;
+    }
+    try {
+      Duration requested = Duration.ofMillis(Long.parseLong(header.trim()));
+      if (requested.isNegative() || requested.isZero()) {
+        return fallback;
+      }
+      return requested.compareTo(maxDeadline) > 0 ? maxDeadline : requested;
+    } catch (NumberFormatException e) {
+      return fallback;
+    }
+  }
+
+  /**
+   * The caller's {@value #REQUEST_ID_HEADER} if it is a plausible id, otherwise a fresh one.
+   */
+  private String requestId(HttpServletRequest request) {
+    String header = request.getHeader(REQUEST_ID_HEADER);
+    if (header != null && REQUEST_ID.matcher(header).matches()) {
+      return header;
+    }
+    return HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextLong());
+  }
+
+  private String callerToken(HttpServletRequest request) {
+    if (request.getCookies() != null) {
+      for (Cookie cookie : request.getCookies()) {
+        if ("auth_token".equals(cookie.getName())) {
+          return cookie.getValue();
+        }
+      }
+    }
+    return request.getHeader(HttpHeaders.AUTHORIZATION);
+  }
+
+}
@@ -0,0 +1,25 @@
+package com.lws.oms.eop.scheduling;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Runs each task under the {@link CallerContext} of the thread that submitted it, so follow-up
+ * stages submitted from worker threads are still queued and attributed as the original caller.
+ */
+public class CallerContextTaskDecorator implements TaskDecorator {
+
+  @Override
+  public Runnable decorate(Runnable runnable) {
+    CallerContext context = CallerContext.currentOrNull();
+    return () -> {
+      CallerContext previous = CallerContext.currentOrNull();
+      CallerContext.set(context);
+      try {
+        runnable.run();
+      } finally {
+        CallerContext.set(previous);
+      }
+    };
+  }
+
+}
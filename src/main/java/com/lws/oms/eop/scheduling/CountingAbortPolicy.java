@@ -0,0 +1,25 @@
+package com.lws.oms.eop.scheduling;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rejects like {@link ThreadPoolExecutor.AbortPolicy} and counts how often it did. Admission
+ * control should keep this at zero; anything else means tasks were submitted outside a permit.
+ */
+public class CountingAbortPolicy extends ThreadPoolExecutor.AbortPolicy {
+
+  private final AtomicLong rejected = new AtomicLong();
+
+  @Override
+  public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+    rejected.incrementAndGet();
+    super.rejectedExecution(task, executor);
+  }
+
+  public long rejectedCount() {
+    return rejected.get();
+  }
+
+}
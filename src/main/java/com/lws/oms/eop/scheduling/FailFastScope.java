@@ -0,0 +1,104 @@
+package com.lws.oms.eop.scheduling;
+
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Runs the independent steps of one unit of work concurrently on virtual threads and cancels the
+ * remaining steps as soon as one fails in a way that makes the others pointless. Closing the scope
+ * waits for every step, so no step outlives the code that forked it.
+ *
+ * <p>This is the shape of {@code StructuredTaskScope.ShutdownOnFailure}, which is still a preview
+ * API on Java 21, with a predicate deciding which failures shut the scope down and a cap on how many
+ * steps run at once. Steps run under the forking thread's {@link CallerContext}, so they keep its
+ * deadline, and its observation context, so their upstream calls trace as children of the unit of
+ * work; interrupting a virtual thread blocked on a socket closes the socket.
+ */
+public final class FailFastScope implements AutoCloseable {
+
+  private static final ContextSnapshotFactory SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+  private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+      Thread.ofVirtual().name("repo-step-", 0).factory());
+  private final Queue<Future<?>> forked = new ConcurrentLinkedQueue<>();
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final Semaphore inFlight;
+  private final Predicate<Throwable> shutsDown;
+
+  public FailFastScope(int maxInFlight, Predicate<Throwable> shutsDown) {
+    this.inFlight = new Semaphore(maxInFlight);
+    this.shutsDown = shutsDown;
+  }
+
+  public <T> Future<T> fork(Callable<T> step) {
+    if (failure.get() != null) {
+      return CompletableFuture.failedFuture(new CancellationException());
+    }
+    CallerContext context = CallerContext.currentOrNull();
+    ContextSnapshot snapshot = SNAPSHOTS.captureAll();
+    Future<T> future = executor.submit(() -> {
+      CallerContext.set(context);
+      inFlight.acquire();
+      try (ContextSnapshot.Scope ignored = snapshot.setThreadLocals()) {
+        return step.call();
+      } catch (Exception e) {
+        if (shutsDown.test(e)) {
+          shutdown(e);
+        }
+        throw e;
+      } finally {
+        inFlight.release();
+        CallerContext.set(null);
+      }
+    });
+    forked.add(future);
+    // A shutdown that began after the check above may have walked forked before the add.
+    if (failure.get() != null) {
+      future.cancel(true);
+    }
+    return future;
+  }
+
+  /**
+   * Result of a step after the scope has closed. A step cancelled because a sibling failed reports
+   * that sibling's failure, since it is the reason the step did not complete.
+   */
+  public <T> T resultOf(Future<T> step) throws Exception {
+    try {
+      return step.get();
+    } catch (CancellationException e) {
+      Throwable cause = failure.get();
+      throw cause instanceof Exception exception ? exception : e;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause() instanceof CancellationException ? failure.get() : e.getCause();
+      if (cause instanceof Exception exception) {
+        throw exception;
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() {
+    executor.close();
+  }
+
+  private void shutdown(Throwable cause) {
+    if (failure.compareAndSet(null, cause)) {
+      forked.forEach(future -> future.cancel(true));
+    }
+  }
+
+}
@@ -0,0 +1,420 @@
+package com.lws.oms.eop.scheduling;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Work queue for the shared executor that hands out tasks fairly instead of first-in first-out.
+ *
+ * <p>Tasks are filed under the {@link CallerContext} of the submitting thread. Within a priority
+ * class every user with queued work gets a turn in rotation (weighted round robin): one task per
+ * turn, or as many as the user's configured weight. A user with thousands of queued tasks therefore
+ * delays a user with three by at most one turn each. Between classes, up to
+ * {@code interactiveWeight} interactive tasks are handed out for every bulk task while both are
+ * waiting, which lets reads overtake a running campaign without starving it.
+ *
+ * <p>Per-user statistics exist only while the user has tasks queued, so the queue does not grow
+ * with every caller ever seen. A {@link Listener} is told when a user's first task arrives and when
+ * their last one leaves, e.g. to keep per-user meters for exactly the users currently waiting.
+ *
+ * <p>The queue is bounded by total size; when it is full {@code offer} fails and the executor grows
+ * towards its max pool size or rejects, exactly as with the default bounded queue.
+ */
+public class FairShareQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+  /**
+   * {@code dequeued} and the wait times count from when the user's current backlog began.
+   */
+  public record UserQueueStats(
+      String userKey,
+      int weight,
+      int queued,
+      long dequeued,
+      double avgWaitMillis,
+      double maxWaitMillis) {
+  }
+
+  public record Snapshot(
+      int capacity,
+      int size,
+      Map<PriorityClass, Integer> queuedByClass,
+      List<UserQueueStats> users) {
+  }
+
+  /**
+   * Called under the queue's lock, so implementations must be quick and must not call back into
+   * the queue.
+   */
+  public interface Listener {
+
+    void userQueued(String userKey);
+
+    void userDrained(String userKey);
+
+    void taskWaited(String userKey, PriorityClass priority, long waitNanos);
+  }
+
+  private static final Listener NO_LISTENER = new Listener() {
+    @Override
+    public void userQueued(String userKey) {
+    }
+
+    @Override
+    public void userDrained(String userKey) {
+    }
+
+    @Override
+    public void taskWaited(String userKey, PriorityClass priority, long waitNanos) {
+    }
+  };
+
+  private record Entry(Runnable task, String userKey, PriorityClass priority, long enqueuedAt) {
+  }
+
+  private static final class ClassQueue {
+    private final Map<String, Deque<Entry>> byUser = new HashMap<>();
+    private final Deque<String> rotation = new ArrayDeque<>();
+    private int size;
+    // Tasks handed to the user at the head of the rotation during their current turn.
+    private int servedInTurn;
+  }
+
+  private static final class UserStats {
+    private int queued;
+    private long dequeued;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+  }
+
+  private final int capacity;
+  private final int interactiveWeight;
+  private final Map<String, Integer> userWeights;
+  private final Map<PriorityClass, ClassQueue> classes = new EnumMap<>(PriorityClass.class);
+  private final Map<String, UserStats> stats = new HashMap<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+
+  private int count;
+  private int interactiveStreak;
+  private volatile Listener listener = NO_LISTENER;
+
+  public FairShareQueue(int capacity, int interactiveWeight) {
+    this(capacity, interactiveWeight, Map.of());
+  }
+
+  /**
+   * @param userWeights tasks per turn by user key; users not listed get one
+   */
+  public FairShareQueue(int capacity, int interactiveWeight, Map<String, Integer> userWeights) {
+    if (capacity <= 0 || interactiveWeight <= 0) {
+      throw new IllegalArgumentException("capacity and interactiveWeight must be positive");
+    }
+    if (userWeights.values().stream().anyMatch(weight -> weight <= 0)) {
+      throw new IllegalArgumentException("user weights must be positive");
+    }
+    this.capacity = capacity;
+    this.interactiveWeight = interactiveWeight;
+    this.userWeights = Map.copyOf(userWeights);
+    for (PriorityClass priority : PriorityClass.values()) {
+      classes.put(priority, new ClassQueue());
+    }
+  }
+
+  @Override
+  public boolean offer(Runnable task) {
+    Objects.requireNonNull(task);
+    CallerContext context = CallerContext.current();
+    lock.lock();
+    try {
+      if (count == capacity) {
+        return false;
+      }
+      Entry entry = new Entry(task, context.userKey(), context.priority(), System.nanoTime());
+      ClassQueue queue = classes.get(entry.priority());
+      Deque<Entry> userQueue = queue.byUser.get(entry.userKey());
+      if (userQueue == null) {
+        userQueue = new ArrayDeque<>();
+        queue.byUser.put(entry.userKey(), userQueue);
+        queue.rotation.addLast(entry.userKey());
+      }
+      userQueue.addLast(entry);
+      queue.size++;
+      count++;
+      UserStats userStats = stats.get(entry.userKey());
+      if (userStats == null) {
+        userStats = new UserStats();
+        stats.put(entry.userKey(), userStats);
+        listener.userQueued(entry.userKey());
+      }
+      userStats.queued++;
+      notEmpty.signal();
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void put(Runnable task) throws InterruptedException {
+    // The executor only ever offers; blocking producers are not part of this queue's contract.
+    if (!offer(task)) {
+      throw new IllegalStateException("Queue full");
+    }
+  }
+
+  @Override
+  public boolean offer(Runnable task, long timeout, TimeUnit unit) {
+    return offer(task);
+  }
+
+  @Override
+  public Runnable poll() {
+    lock.lock();
+    try {
+      return count == 0 ? null : dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Runnable take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (count == 0) {
+        notEmpty.await();
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (count == 0) {
+        if (nanos <= 0) {
+          return null;
+        }
+        nanos = notEmpty.awaitNanos(nanos);
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Runnable peek() {
+    lock.lock();
+    try {
+      if (count == 0) {
+        return null;
+      }
+      ClassQueue queue = classes.get(nextClass());
+      return queue.byUser.get(queue.rotation.peekFirst()).peekFirst().task();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean remove(Object task) {
+    lock.lock();
+    try {
+      for (ClassQueue queue : classes.values()) {
+        for (Iterator<Map.Entry<String, Deque<Entry>>> users = queue.byUser.entrySet().iterator(); users.hasNext(); ) {
+          Map.Entry<String, Deque<Entry>> user = users.next();
+          if (user.getValue().removeIf(entry -> entry.task() == task)) {
+            if (user.getValue().isEmpty()) {
+              users.remove();
+              if (user.getKey().equals(queue.rotation.peekFirst())) {
+                queue.servedInTurn = 0;
+              }
+              queue.rotation.remove(user.getKey());
+            }
+            queue.size--;
+            count--;
+            unqueued(user.getKey());
+            return true;
+          }
+        }
+      }
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    lock.lock();
+    try {
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int remainingCapacity() {
+    lock.lock();
+    try {
+      return capacity - count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int drainTo(Collection<? super Runnable> target) {
+    return drainTo(target, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int drainTo(Collection<? super Runnable> target, int maxElements) {
+    lock.lock();
+    try {
+      int drained = 0;
+      while (count > 0 && drained < maxElements) {
+        target.add(dequeue());
+        drained++;
+      }
+      return drained;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Snapshot of the queued tasks in no particular order; removal goes through {@link #remove(Object)}.
+   */
+  @Override
+  public Iterator<Runnable> iterator() {
+    lock.lock();
+    try {
+      List<Runnable> tasks = new ArrayList<>(count);
+      for (ClassQueue queue : classes.values()) {
+        queue.byUser.values().forEach(entries -> entries.forEach(entry -> tasks.add(entry.task())));
+      }
+      return List.copyOf(tasks).iterator();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public Snapshot snapshot() {
+    lock.lock();
+    try {
+      Map<PriorityClass, Integer> queuedByClass = new LinkedHashMap<>();
+      classes.forEach((priority, queue) -> queuedByClass.put(priority, queue.size));
+      List<UserQueueStats> users = stats.entrySet().stream()
+          .map(user -> userQueueStats(user.getKey(), user.getValue()))
+          .sorted(Comparator.comparingInt(UserQueueStats::queued).reversed())
+          .toList();
+      return new Snapshot(capacity, count, queuedByClass, users);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Statistics of one user, empty if they have nothing queued.
+   */
+  public Optional<UserQueueStats> user(String userKey) {
+    lock.lock();
+    try {
+      return Optional.ofNullable(stats.get(userKey)).map(s -> userQueueStats(userKey, s));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener == null ? NO_LISTENER : listener;
+  }
+
+  private UserQueueStats userQueueStats(String userKey, UserStats s) {
+    return new UserQueueStats(
+        userKey,
+        weight(userKey),
+        s.queued,
+        s.dequeued,
+        s.dequeued == 0 ? 0 : s.totalWaitNanos / 1e6 / s.dequeued,
+        s.maxWaitNanos / 1e6);
+  }
+
+  private int weight(String userKey) {
+    return userWeights.getOrDefault(userKey, 1);
+  }
+
+  private PriorityClass nextClass() {
+    boolean interactiveWaiting = classes.get(PriorityClass.INTERACTIVE).size > 0;
+    boolean bulkWaiting = classes.get(PriorityClass.BULK).size > 0;
+    if (interactiveWaiting && (!bulkWaiting || interactiveStreak < interactiveWeight)) {
+      return PriorityClass.INTERACTIVE;
+    }
+    return PriorityClass.BULK;
+  }
+
+  private Runnable dequeue() {
+    PriorityClass priority = nextClass();
+    interactiveStreak = priority == PriorityClass.INTERACTIVE ? interactiveStreak + 1 : 0;
+
+    ClassQueue queue = classes.get(priority);
+    String userKey = queue.rotation.peekFirst();
+    Deque<Entry> userQueue = queue.byUser.get(userKey);
+    Entry entry = userQueue.pollFirst();
+    queue.servedInTurn++;
+    if (userQueue.isEmpty()) {
+      queue.byUser.remove(userKey);
+      queue.rotation.pollFirst();
+      queue.servedInTurn = 0;
+    } else if (queue.servedInTurn >= weight(userKey)) {
+      queue.rotation.addLast(queue.rotation.pollFirst());
+      queue.servedInTurn = 0;
+    }
+    queue.size--;
+    count--;
+
+    long waited = System.nanoTime() - entry.enqueuedAt();
+    UserStats s = stats.get(userKey);
+    s.dequeued++;
+    s.totalWaitNanos += waited;
+    s.maxWaitNanos = Math.max(s.maxWaitNanos, waited);
+    listener.taskWaited(userKey, priority, waited);
+    unqueued(userKey);
+    return entry.task();
+  }
+
+  /**
+   * One task of {@code userKey} left the queue; forgets the user once they have none left.
+   */
+  private void unqueued(String userKey) {
+    UserStats s = stats.get(userKey);
+    if (--s.queued == 0) {
+      stats.remove(userKey);
+      listener.userDrained(userKey);
+    }
+  }
+
+}
@@ -0,0 +1,11 @@
+package com.lws.oms.eop.scheduling;
+
+/**
+ * Scheduling class of a request: small interactive reads jump ahead of bulk write campaigns.
+ */
+public enum PriorityClass {
+
+  INTERACTIVE,
+  BULK
+
+}
@@ -0,0 +1,56 @@
+package com.lws.oms.eop.scheduling;
+
+import com.lws.oms.eop.exception.DeadlineExceededException;
+import java.time.Duration;
+
+/**
+ * Point in time after which nobody is waiting for a request's work any more, shared by all of the
+ * tasks it fans out to. Cancelling it (client gone) has the same effect as it expiring.
+ */
+public final class RequestDeadline {
+
+  public static final RequestDeadline NONE = new RequestDeadline(Long.MAX_VALUE);
+
+  private final long expiresAtNanos;
+  private volatile boolean cancelled;
+
+  private RequestDeadline(long expiresAtNanos) {
+    this.expiresAtNanos = expiresAtNanos;
+  }
+
+  public static RequestDeadline after(Duration timeout) {
+    return new RequestDeadline(System.nanoTime() + timeout.toNanos());
+  }
+
+  public boolean isUnbounded() {
+    return expiresAtNanos == Long.MAX_VALUE;
+  }
+
+  public long remainingMillis() {
+    if (isUnbounded()) {
+      return Long.MAX_VALUE;
+    }
+    return Math.max(0, (expiresAtNanos - System.nanoTime()) / 1_000_000);
+  }
+
+  public boolean isExpired() {
+    return cancelled || remainingMillis() == 0;
+  }
+
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Fails fast when the caller has gone away, so queued work does not reach Bitbucket.
+   */
+  public void check() {
+    if (cancelled) {
+      throw new DeadlineExceededException("Request cancelled");
+    }
+    if (remainingMillis() == 0) {
+      throw new DeadlineExceededException("Deadline exceeded");
+    }
+  }
+
+}
@@ -0,0 +1,91 @@
+package com.lws.oms.eop.scheduling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where the time of one request went: waiting in the executor queue, in upstream calls, per
+ * repository and in writing the response. Tasks of the request record into it concurrently from
+ * any thread; every update is a single atomic operation, and only a new slowest repository
+ * allocates, so it stays on for every request.
+ */
+public final class RequestTimings {
+
+  public record Report(
+      double queueWaitMaxMillis,
+      long upstreamCalls,
+      double upstreamTotalMillis,
+      double upstreamMaxMillis,
+      String slowestRepository,
+      double slowestRepositoryMillis,
+      Double serializationMillis,
+      double totalMillis) {
+  }
+
+  /**
+   * Shared by work that has no request to report to; what it records is never read.
+   */
+  public static final RequestTimings NONE = new RequestTimings();
+
+  private record Repository(String key, long nanos) {
+  }
+
+  private static final Repository NO_REPOSITORY = new Repository(null, 0);
+
+  private final long startNanos = System.nanoTime();
+  private final AtomicLong queueWaitMaxNanos = new AtomicLong();
+  private final LongAdder upstreamCalls = new LongAdder();
+  private final LongAdder upstreamTotalNanos = new LongAdder();
+  private final AtomicLong upstreamMaxNanos = new AtomicLong();
+  private final AtomicReference<Repository> slowestRepository = new AtomicReference<>(NO_REPOSITORY);
+  private volatile long serializationStartNanos;
+
+  public void recordQueueWait(long nanos) {
+    queueWaitMaxNanos.accumulateAndGet(nanos, Math::max);
+  }
+
+  public void recordUpstreamCall(long nanos) {
+    upstreamCalls.increment();
+    upstreamTotalNanos.add(nanos);
+    upstreamMaxNanos.accumulateAndGet(nanos, Math::max);
+  }
+
+  public void recordRepository(String key, long nanos) {
+    Repository current = slowestRepository.get();
+    while (nanos > current.nanos()) {
+      Repository candidate = new Repository(key, nanos);
+      if (slowestRepository.compareAndSet(current, candidate)) {
+        return;
+      }
+      current = slowestRepository.get();
+    }
+  }
+
+  public void markSerializationStart() {
+    serializationStartNanos = System.nanoTime();
+  }
+
+  /**
+   * Timings so far. Serialization is included only once it has started, measured up to now.
+   */
+  public Report report() {
+    long now = System.nanoTime();
+    long serializationStart = serializationStartNanos;
+    Repository slowest = slowestRepository.get();
+    return new Report(
+        millis(queueWaitMaxNanos.get()),
+        upstreamCalls.sum(),
+        millis(upstreamTotalNanos.sum()),
+        millis(upstreamMaxNanos.get()),
+        slowest.key(),
+        millis(slowest.nanos()),
+        serializationStart == 0 ? null : millis(now - serializationStart),
+        millis(now - startNanos));
+  }
+
+  private static double millis(long nanos) {
+    return Math.round(nanos / 1e4) / 100.0;
+  }
+
+}
@@ -2,19 +2,38 @@ package com.lws.oms.eop.service;
 
 import static com.lws.oms.eop.utils.ErrorUtils.extractMeaningfulErrorMessage;
 
+import com.lws.oms.eop.cache.RepositoryTree;
 import com.lws.oms.eop.exception.CustomApiException;
+import com.lws.oms.eop.exception.DeadlineExceededException;
+import com.lws.oms.eop.exception.UpstreamUnavailableException;
 import com.lws.oms.eop.model.CommitInfo;
 import com.lws.oms.eop.model.FileInfo;
 import com.lws.oms.eop.model.PrBuildRequestItem;
 import com.lws.oms.eop.model.PrInfo;
+import com.lws.oms.eop.model.ResponseMode;
 import com.lws.oms.eop.model.RepositoryInfo;
 import com.lws.oms.eop.model.requests.CommitRequest;
 import com.lws.oms.eop.model.requests.UpdateDependencyVersionRequest;
+import com.lws.oms.eop.model.responses.BranchListResult;
+import com.lws.oms.eop.model.responses.BranchListResult.BranchSummary;
+import com.lws.oms.eop.model.responses.BuildMetrics;
+import com.lws.oms.eop.model.responses.CommitBuildStatusResult;
+import com.lws.oms.eop.model.responses.CommitResult;
+import com.lws.oms.eop.model.responses.CreateBranchResult;
+import com.lws.oms.eop.model.responses.DependencyUpdateResult;
+import com.lws.oms.eop.model.responses.FileContentResult;
+import com.lws.oms.eop.model.responses.PomUpdate;
+import com.lws.oms.eop.model.responses.PullRequestBuildResult;
+import com.lws.oms.eop.model.responses.PullRequestResult;
+import com.lws.oms.eop.model.responses.ResultStatus;
+import com.lws.oms.eop.scheduling.FailFastScope;
+import com.lws.oms.eop.utils.LineDiffUtil;
 import com.lws.oms.eop.utils.UpdateDependencyUtil;
 import feign.FeignException;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
@@ -25,232 +44,266 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class BitBucketIntegrationService {
 
+  private static final int FILE_READS_IN_FLIGHT_PER_REPO = 4;
+
+  /**
+   * A POM's update as reported, with its patched content, which the report may leave out.
+   */
+  private record PomEdit(PomUpdate update, List<String> content) {
+  }
+
   private final BitbucketApiService bitbucketApiService;
 
+  private final PatchedContentStore patchedContentStore;
+
   @Async("taskExecutor")
-  public CompletableFuture<Map<String, Object>> fetchBranchDataAsync(
+  public CompletableFuture<BranchListResult> fetchBranchDataAsync(
       RepositoryInfo repositoryInfo,
       String authHeader) {
 
-    Map<String, Object> branchResponse = new HashMap<>();
-    branchResponse.put("projectName", repositoryInfo.getProjectName());
-    branchResponse.put("repository", repositoryInfo.getRepoSlug());
+    BranchListResult.BranchListResultBuilder branchResponse = BranchListResult.builder()
+        .projectName(repositoryInfo.getProjectName())
+        .repoSlug(repositoryInfo.getRepoSlug());
 
     try {
       Map<String, Object> branchData = bitbucketApiService.retrieveBranches(repositoryInfo, authHeader);
-      branchResponse.put("status", "success");
 
       List<Map<String, Object>> branches = (List<Map<String, Object>>) branchData.get("values");
-      List<Map<String, Object>> formattedBranches = new ArrayList<>();
+      List<BranchSummary> formattedBranches = new ArrayList<>();
 
       if (branches != null) {
         for (Map<String, Object> branch : branches) {
-          Map<String, Object> formattedBranch = new HashMap<>();
-          formattedBranch.put("name", branch.get("name"));
-
           Map<String, Object> target = (Map<String, Object>) branch.get("target");
-          if (target != null) {
-            formattedBranch.put("latestCommit", target.get("hash"));
-          }
-
-          formattedBranches.add(formattedBranch);
+          formattedBranches.add(new BranchSummary(
+              (String) branch.get("name"),
+              target != null ? (String) target.get("hash") : null));
         }
       }
 
-      branchResponse.put("branches", formattedBranches);
+      branchResponse.status(ResultStatus.SUCCESS).branches(formattedBranches);
     } catch (FeignException e) {
-      branchResponse.put("status", "error");
-      branchResponse.put("error", extractMeaningfulErrorMessage(e));
+      branchResponse.status(ResultStatus.ERROR).error(extractMeaningfulErrorMessage(e));
+    } catch (CustomApiException e) {
+      branchResponse.status(ResultStatus.ERROR).error(e.getMessage());
     } catch (Exception e) {
-      branchResponse.put("status", "error");
-      branchResponse.put("error", "Error fetching branches: Server Error");
+      branchResponse.status(ResultStatus.ERROR).error("Error fetching branches: Server Error");
     }
 
-    return CompletableFuture.completedFuture(branchResponse);
+    return CompletableFuture.completedFuture(branchResponse.build());
   }
 
   @Async("taskExecutor")
-  public CompletableFuture<Map<String, Object>> createBranchAsync(
+  public CompletableFuture<CreateBranchResult> createBranchAsync(
       RepositoryInfo repositoryInfo,
       String branchName,
       String startPoint,
       String authHeader) {
 
-    Map<String, Object> branchResponse = new HashMap<>();
-    branchResponse.put("projectName", repositoryInfo.getProjectName());
-    branchResponse.put("repo", repositoryInfo.getRepoSlug());
+    CreateBranchResult.CreateBranchResultBuilder branchResponse = CreateBranchResult.builder()
+        .projectName(repositoryInfo.getProjectName())
+        .repoSlug(repositoryInfo.getRepoSlug());
 
     try {
       Map<String, Object> newBranch = bitbucketApiService.createBranch(
           repositoryInfo, branchName, startPoint, authHeader);
-      branchResponse.put("status", "success");
-      branchResponse.put("newBranch", newBranch);
-      branchResponse.put("message", String.format("Successfully created branch '%s' from '%s'", branchName, startPoint));
+      branchResponse.status(ResultStatus.SUCCESS)
+          .newBranch(newBranch)
+          .message(String.format("Successfully created branch '%s' from '%s'", branchName, startPoint));
     } catch (FeignException e) {
       String errorMsg = extractMeaningfulErrorMessage(e);
-      branchResponse.put("status", "error");
-      branchResponse.put("error", errorMsg);
-      branchResponse.put("message", String.format("Failed to create branch '%s' from '%s': %s", branchName, startPoint, errorMsg));
+      branchResponse.status(ResultStatus.ERROR)
+          .error(errorMsg)
+          .message(String.format("Failed to create branch '%s' from '%s': %s", branchName, startPoint, errorMsg));
+    } catch (CustomApiException e) {
+      branchResponse.status(ResultStatus.ERROR)
+          .error(e.getMessage())
+          .message(String.format("Failed to create branch '%s' from '%s': %s", branchName, startPoint, e.getMessage()));
     } catch (Exception e) {
-      branchResponse.put("status", "error");
-      branchResponse.put("error", "Error creating branches: Server Error");
-      branchResponse.put("message", String.format("Failed to create branch '%s' from '%s': Server Error", branchName, startPoint));
+      branchResponse.status(ResultStatus.ERROR)
+          .error("Error creating branches: Server Error")
+          .message(String.format("Failed to create branch '%s' from '%s': Server Error", branchName, startPoint));
     }
 
-    return CompletableFuture.completedFuture(branchResponse);
+    return CompletableFuture.completedFuture(branchResponse.build());
   }
 
   @Async("taskExecutor")
-  public CompletableFuture<Map<String, Object>> createPullRequestAsync(
+  public CompletableFuture<PullRequestResult> createPullRequestAsync(
       PrInfo prInfo,
       RepositoryInfo repositoryInfo,
       String authHeader) {
 
-    Map<String, Object> prResponse = new HashMap<>();
-    prResponse.put("projectName", repositoryInfo.getProjectName());
-    prResponse.put("repo", repositoryInfo.getRepoSlug());
+    PullRequestResult.PullRequestResultBuilder prResponse = PullRequestResult.builder()
+        .projectName(repositoryInfo.getProjectName())
+        .repoSlug(repositoryInfo.getRepoSlug());
 
     String source = prInfo.getFromBranch();
     String target = prInfo.getToBranch();
 
     try {
       Map<String, Object> result = bitbucketApiService.createPullRequest(prInfo, repositoryInfo, authHeader);
-      prResponse.put("status", "success");
-      prResponse.put("result", result);
-      prResponse.put("message", String.format("Successfully created pull request from '%s' to '%s'", source, target));
+      prResponse.status(ResultStatus.SUCCESS)
+          .pullRequest(result)
+          .message(String.format("Successfully created pull request from '%s' to '%s'", source, target));
     } catch (FeignException e) {
       String errorMsg = extractMeaningfulErrorMessage(e);
-      prResponse.put("status", "error");
-      prResponse.put("error", errorMsg);
-      prResponse.put("message", String.format("Failed to create pull request from '%s' to '%s': %s", source, target, errorMsg));
+      prResponse.status(ResultStatus.ERROR)
+          .error(errorMsg)
+          .message(String.format("Failed to create pull request from '%s' to '%s': %s", source, target, errorMsg));
+    } catch (CustomApiException e) {
+      prResponse.status(ResultStatus.ERROR)
+          .error(e.getMessage())
+          .message(String.format("Failed to create pull request from '%s' to '%s': %s", source, target, e.getMessage()));
     } catch (Exception e) {
-      prResponse.put("status", "error");
-      prResponse.put("error", "Error creating PR: Internal Server Error");
-      prResponse.put("message", String.format("Failed to create pull request from '%s' to '%s': Internal Server Error", source, target));
+      prResponse.status(ResultStatus.ERROR)
+          .error("Error creating PR: Internal Server Error")
+          .message(String.format("Failed to create pull request from '%s' to '%s': Internal Server Error", source, target));
     }
 
-    return CompletableFuture.completedFuture(prResponse);
+    return CompletableFuture.completedFuture(prResponse.build());
   }
 
+  /**
+   * Reads several files of one repository. The branch head is resolved once (possibly from the
+   * branch head cache) and the files are read at that head in parallel; an error that dooms every
+   * read (credentials, deadline) cancels the reads still in flight and is reported for each file.
+   * Results are in the order of {@code files}.
+   */
   @Async("taskExecutor")
-  public CompletableFuture<Map<String, Object>> getFileContentAsync(
-      FileInfo fileInfo,
+  public CompletableFuture<List<FileContentResult>> getFileContentsAsync(
+      List<FileInfo> files,
       String branchName,
       String authHeader) {
 
-    Map<String, Object> fileResponse = new HashMap<>();
-    fileResponse.put("projectName", fileInfo.getRepositoryInfo().getProjectName());
-    fileResponse.put("repo", fileInfo.getRepositoryInfo().getRepoSlug());
-    fileResponse.put("file", fileInfo.getFileName());
-    fileResponse.put("module", fileInfo.getRepositoryInfo().getModuleName());
-    fileResponse.put("searchPath", fileInfo.getSearchPath());
+    RepositoryInfo repositoryInfo = files.get(0).getRepositoryInfo();
+    List<FileContentResult> results = new ArrayList<>(files.size());
 
+    String latestCommit;
     try {
-      String latestCommit = bitbucketApiService.getLatestCommit(
-          fileInfo.getRepositoryInfo(),
-          branchName,
-          authHeader
-      );
-
-      String filePath = bitbucketApiService.findFilePathByName(
-          fileInfo.getRepositoryInfo(),
-          latestCommit,
-          fileInfo.getFileName(),
-          authHeader,
-          Optional.ofNullable(fileInfo.getRepositoryInfo().getModuleName()).orElse(""),
-          Optional.ofNullable(fileInfo.getSearchPath()).orElse("")
-      );
+      latestCommit = bitbucketApiService.getBranchHead(repositoryInfo, branchName, authHeader);
+    } catch (Exception e) {
+      files.forEach(fileInfo -> results.add(fileContentError(fileContentResult(fileInfo), e)));
+      return CompletableFuture.completedFuture(results);
+    }
 
-      List<String> content = bitbucketApiService.getFileContent(
-          fileInfo.getRepositoryInfo(),
-          latestCommit,
-          filePath,
-          authHeader
-      );
+    List<Future<List<String>>> reads = new ArrayList<>(files.size());
+    try (FailFastScope scope = new FailFastScope(
+        FILE_READS_IN_FLIGHT_PER_REPO, BitBucketIntegrationService::affectsWholeRepository)) {
+      for (FileInfo fileInfo : files) {
+        reads.add(scope.fork(() -> {
+          // A file directly below its search path is found by reading it, so the read below is a
+          // cache hit; the tree at this commit is listed only for files that are not, and once.
+          String filePath = bitbucketApiService.findFilePathByName(
+              fileInfo.getRepositoryInfo(),
+              latestCommit,
+              fileInfo.getFileName(),
+              authHeader,
+              Optional.ofNullable(fileInfo.getRepositoryInfo().getModuleName()).orElse(""),
+              Optional.ofNullable(fileInfo.getSearchPath()).orElse("")
+          );
+          return bitbucketApiService.getFileContent(
+              fileInfo.getRepositoryInfo(),
+              latestCommit,
+              filePath,
+              authHeader
+          );
+        }));
+      }
 
-      fileResponse.put("status", "success");
-      fileResponse.put("content", content);
-    } catch (FeignException e) {
-      fileResponse.put("status", "error");
-      fileResponse.put("error", extractMeaningfulErrorMessage(e));
-    } catch (CustomApiException e) {
-      fileResponse.put("status", "error");
-      fileResponse.put("error", e.getMessage());
-    } catch (Exception e) {
-      fileResponse.put("status", "error");
-      fileResponse.put("error", "Error fetching file content: Internal Server Error");
+      for (int i = 0; i < files.size(); i++) {
+        FileContentResult.FileContentResultBuilder fileResponse = fileContentResult(files.get(i));
+        try {
+          results.add(fileResponse.status(ResultStatus.SUCCESS).content(scope.resultOf(reads.get(i))).build());
+        } catch (Exception e) {
+          results.add(fileContentError(fileResponse, e));
+        }
+      }
     }
 
-    return CompletableFuture.completedFuture(fileResponse);
+    return CompletableFuture.completedFuture(results);
   }
 
+  /**
+   * Commits several files to one repository's branch, each to the path below its module and search
+   * path, creating it if it does not exist yet. The head is resolved once; the commits go out one
+   * after another because each moves the branch the next one lands on, and each names the head the
+   * previous one left as its parent. After an error that would fail every remaining commit
+   * (credentials, deadline) the rest are not attempted.
+   */
   @Async("taskExecutor")
-  public CompletableFuture<Map<String, Object>> createCommitAsync(
-      CommitInfo commitInfo,
+  public CompletableFuture<List<CommitResult>> createCommitsAsync(
+      List<CommitInfo> commitInfos,
       CommitRequest commitRequest,
       String authHeader) {
 
-    Map<String, Object> commitResponse = new HashMap<>();
-    RepositoryInfo repositoryInfo = commitInfo.getRepositoryInfo();
-
-    commitResponse.put("projectName", repositoryInfo.getProjectName());
-    commitResponse.put("repo", repositoryInfo.getRepoSlug());
-    commitResponse.put("file", commitInfo.getFileName());
-    commitResponse.put("module", repositoryInfo.getModuleName());
-    commitResponse.put("searchPath", commitInfo.getSearchPath());
+    RepositoryInfo repositoryInfo = commitInfos.get(0).getRepositoryInfo();
+    List<CommitResult> results = new ArrayList<>(commitInfos.size());
 
+    Exception repositoryFailure = null;
+    String latestCommit = null;
     try {
-      String latestCommit = bitbucketApiService.getLatestCommit(
-          repositoryInfo,
-          commitRequest.getBranch(),
-          authHeader
-      );
+      latestCommit = bitbucketApiService.getLatestCommit(repositoryInfo, commitRequest.getBranch(), authHeader);
+    } catch (Exception e) {
+      repositoryFailure = e;
+    }
 
-      String filePath = bitbucketApiService.findFilePathByName(
-          repositoryInfo,
-          latestCommit,
-          commitInfo.getFileName(),
-          authHeader,
-          Optional.ofNullable(repositoryInfo.getModuleName()).orElse(""),
-          Optional.ofNullable(commitInfo.getSearchPath()).orElse("")
-      );
+    for (CommitInfo commitInfo : commitInfos) {
+      CommitResult.CommitResultBuilder commitResponse = commitResult(commitInfo);
+      if (repositoryFailure != null) {
+        results.add(commitError(commitResponse, repositoryFailure));
+        continue;
+      }
+      Map<String, Object> commitResult;
+      try {
+        String filePath = BitbucketApiService.constructFilePath(
+            commitInfo.getFileName(),
+            commitInfo.getRepositoryInfo().getModuleName(),
+            commitInfo.getSearchPath()
+        );
 
-      Map<String, Object> commitResult = bitbucketApiService.createCommit(
-          repositoryInfo,
-          filePath,
-          commitInfo.getContent(),
-          commitInfo.getCommitMessage(),
-          commitRequest.getBranch(),
-          authHeader,
-          latestCommit
-      );
+        commitResult = bitbucketApiService.createCommit(
+            commitInfo.getRepositoryInfo(),
+            filePath,
+            resolveCommitContent(commitInfo),
+            commitInfo.getCommitMessage(),
+            commitRequest.getBranch(),
+            authHeader,
+            latestCommit
+        );
 
-      commitResponse.put("status", "success");
-      commitResponse.put("commitResult", commitResult);
-    } catch (FeignException e) {
-      commitResponse.put("status", "error");
-      commitResponse.put("error", "Error committing file: " + extractMeaningfulErrorMessage(e));
-    } catch (CustomApiException e) {
-      commitResponse.put("status", "error");
-      commitResponse.put("error", "Error committing file content: " + e.getMessage());
-    } catch (Exception e) {
-      commitResponse.put("status", "error");
-      commitResponse.put("error", "Error committing file content: Internal Server Error");
+        results.add(commitResponse.status(ResultStatus.SUCCESS).commitResult(commitResult).build());
+      } catch (Exception e) {
+        results.add(commitError(commitResponse, e));
+        if (affectsWholeRepository(e)) {
+          repositoryFailure = e;
+        }
+        continue;
+      }
+      try {
+        latestCommit = committedHash(commitResult, repositoryInfo, commitRequest.getBranch(), authHeader);
+      } catch (Exception e) {
+        repositoryFailure = e;
+      }
     }
 
-    return CompletableFuture.completedFuture(commitResponse);
+    return CompletableFuture.completedFuture(results);
   }
 
+  /**
+   * Updates the dependency in the module's pom.xml or, with {@code allModules}, in every pom.xml of
+   * the repository, reading them concurrently at the branch head. With a {@code commitMessage} the
+   * updated POMs go out in one commit, and only if every POM could be read.
+   */
   @Async("taskExecutor")
-  public CompletableFuture<Map<String, Object>> updateDependencyVersionAsync(
+  public CompletableFuture<DependencyUpdateResult> updateDependencyVersionAsync(
       RepositoryInfo repoInfo,
       UpdateDependencyVersionRequest request,
       String authHeader) {
 
-    Map<String, Object> updateResponse = new HashMap<>();
-    updateResponse.put("projectName", repoInfo.getProjectName());
-    updateResponse.put("repo", repoInfo.getRepoSlug());
-    updateResponse.put("module", repoInfo.getModuleName());
+    DependencyUpdateResult.DependencyUpdateResultBuilder updateResponse = DependencyUpdateResult.builder()
+        .projectName(repoInfo.getProjectName())
+        .repoSlug(repoInfo.getRepoSlug())
+        .module(repoInfo.getModuleName());
 
     try {
       String latestCommit = bitbucketApiService.getLatestCommit(
@@ -259,60 +312,178 @@ public class BitBucketIntegrationService {
           authHeader
       );
 
-      String pomPath = bitbucketApiService.findFilePathByName(
-          repoInfo,
-          latestCommit,
-          "pom.xml",
-          authHeader,
-          repoInfo.getModuleName(),
-          ""
-      );
-
-      // Preserve original EOL style when reading pom.xml
-      var pomWithEol = bitbucketApiService.getFileContentWithEol(
-          repoInfo,
-          latestCommit,
-          pomPath,
-          authHeader
-      );
-
-      List<String> pomContent = pomWithEol.getLines();
-
-      Map<String, Object> updateResult = UpdateDependencyUtil.updateDependencyVersionInPom(
-          pomContent,
-          request.getDependency(),
-          request.getVersion()
-      );
+      List<PomEdit> edits;
+      if (request.isAllModules()) {
+        RepositoryTree.Matches found = bitbucketApiService.findFilePaths(
+            repoInfo,
+            latestCommit,
+            "pom.xml",
+            Optional.ofNullable(repoInfo.getModuleName()).orElse(""),
+            authHeader
+        );
+        if (found.truncated()) {
+          // Updating only the POMs that happened to be listed would leave the rest on the old version.
+          throw new CustomApiException("Repository " + repoInfo.getRepoSlug()
+              + " is too large to list every pom.xml; update its modules one at a time");
+        }
+        List<String> pomPaths = found.paths().stream().filter(BitBucketIntegrationService::isModulePom).toList();
+        if (pomPaths.isEmpty()) {
+          throw new CustomApiException("No pom.xml found in repository " + repoInfo.getRepoSlug());
+        }
+        edits = updatePoms(repoInfo, latestCommit, pomPaths, request, authHeader);
+        List<PomUpdate> poms = edits.stream().map(PomEdit::update).toList();
+        long updated = poms.stream().filter(pom -> pom.status() == ResultStatus.SUCCESS).count();
+        long failed = poms.stream().filter(pom -> pom.status() == ResultStatus.ERROR).count();
+        updateResponse.poms(poms);
+        if (failed > 0) {
+          updateResponse.status(ResultStatus.ERROR)
+              .error("Error updating dependency version: " + failed + " of " + poms.size()
+                  + " POM files could not be read");
+        } else {
+          updateResponse.status(updated > 0 ? ResultStatus.SUCCESS : ResultStatus.FAILURE)
+              .message("Dependency version updated in " + updated + " of " + poms.size() + " POM files.");
+        }
+      } else {
+        String pomPath = bitbucketApiService.findFilePathByName(
+            repoInfo,
+            latestCommit,
+            "pom.xml",
+            authHeader,
+            repoInfo.getModuleName(),
+            ""
+        );
+        PomEdit edit = updatePom(repoInfo, latestCommit, pomPath, request, authHeader);
+        edits = List.of(edit);
+        PomUpdate pom = edit.update();
+        updateResponse.status(pom.status())
+            .message(pom.message())
+            .eol(pom.eol())
+            .contentHash(pom.contentHash())
+            .pomContent(pom.pomContent())
+            .edits(pom.edits())
+            .unifiedDiff(pom.unifiedDiff());
+      }
 
-      updateResponse.put("status", updateResult.get("status"));
-      updateResponse.put("message", updateResult.get("message"));
-      updateResponse.put("eol", pomWithEol.getEol());
-      updateResponse.put("pomContent", pomContent);
+      boolean allRead = edits.stream().noneMatch(edit -> edit.update().status() == ResultStatus.ERROR);
+      Map<String, String> changed = new LinkedHashMap<>();
+      for (PomEdit edit : edits) {
+        if (edit.update().status() == ResultStatus.SUCCESS) {
+          changed.put(edit.update().path(), String.join(edit.update().eol(), edit.content()) + edit.update().eol());
+        }
+      }
+      boolean commit = request.getCommitMessage() != null && !request.getCommitMessage().isBlank();
+      if (commit && allRead && !changed.isEmpty()) {
+        updateResponse.commitResult(bitbucketApiService.createCommit(
+            repoInfo,
+            changed,
+            request.getCommitMessage(),
+            request.getBranchName(),
+            authHeader,
+            latestCommit
+        ));
+      }
     } catch (FeignException e) {
-      updateResponse.put("status", "error");
-      updateResponse.put("error", "Error updating dependency version: " + extractMeaningfulErrorMessage(e));
+      updateResponse.status(ResultStatus.ERROR)
+          .error("Error updating dependency version: " + extractMeaningfulErrorMessage(e));
     } catch (CustomApiException e) {
-      updateResponse.put("status", "error");
-      updateResponse.put("error", "Error updating dependency version: " + e.getMessage());
+      updateResponse.status(ResultStatus.ERROR).error("Error updating dependency version: " + e.getMessage());
     } catch (Exception e) {
       log.error("Unexpected error updating dependency version for repo {}: {}", repoInfo.getRepoSlug(), e.getMessage(), e);
-      updateResponse.put("status", "error");
-      updateResponse.put("error", "Error updating dependency version: " + e.getMessage());
+      updateResponse.status(ResultStatus.ERROR).error("Error updating dependency version: " + e.getMessage());
     }
 
-    return CompletableFuture.completedFuture(updateResponse);
+    return CompletableFuture.completedFuture(updateResponse.build());
+  }
+
+  /**
+   * Updates every POM at {@code pomPaths}, reading them concurrently. A POM that cannot be read is
+   * reported as an error; after an error that fails the whole repository the rest are not read.
+   */
+  private List<PomEdit> updatePoms(
+      RepositoryInfo repoInfo,
+      String commit,
+      List<String> pomPaths,
+      UpdateDependencyVersionRequest request,
+      String authHeader) {
+
+    List<Future<PomEdit>> reads = new ArrayList<>(pomPaths.size());
+    List<PomEdit> edits = new ArrayList<>(pomPaths.size());
+    try (FailFastScope scope = new FailFastScope(
+        FILE_READS_IN_FLIGHT_PER_REPO, BitBucketIntegrationService::affectsWholeRepository)) {
+      for (String pomPath : pomPaths) {
+        reads.add(scope.fork(() -> updatePom(repoInfo, commit, pomPath, request, authHeader)));
+      }
+      for (int i = 0; i < pomPaths.size(); i++) {
+        try {
+          edits.add(scope.resultOf(reads.get(i)));
+        } catch (Exception e) {
+          String error = e instanceof FeignException feignException
+              ? extractMeaningfulErrorMessage(feignException)
+              : e.getMessage();
+          edits.add(new PomEdit(
+              PomUpdate.builder().path(pomPaths.get(i)).status(ResultStatus.ERROR).error(error).build(), List.of()));
+        }
+      }
+    }
+    return edits;
+  }
+
+  private PomEdit updatePom(
+      RepositoryInfo repoInfo,
+      String commit,
+      String pomPath,
+      UpdateDependencyVersionRequest request,
+      String authHeader) {
+
+    // Preserve original EOL style when reading pom.xml
+    var pomWithEol = bitbucketApiService.getFileContentWithEol(
+        repoInfo,
+        commit,
+        pomPath,
+        authHeader
+    );
+
+    List<String> pomContent = pomWithEol.getLines();
+    List<String> originalContent = List.copyOf(pomContent);
+
+    // Across all modules only declared versions are bumped; a child inheriting the version from the
+    // parent's dependencyManagement keeps inheriting it instead of being pinned.
+    UpdateDependencyUtil.UpdateOutcome updateResult = UpdateDependencyUtil.updateDependencyVersionInPom(
+        pomContent,
+        request.getDependency(),
+        request.getVersion(),
+        !request.isAllModules()
+    );
+
+    PomUpdate.PomUpdateBuilder pomUpdate = PomUpdate.builder()
+        .path(pomPath)
+        .status(updateResult.status())
+        .message(updateResult.message())
+        .eol(pomWithEol.getEol());
+
+    if (updateResult.status() == ResultStatus.SUCCESS) {
+      pomUpdate.contentHash(patchedContentStore.put(pomContent, pomWithEol.getEol()));
+    }
+
+    if (request.getResponseMode() == ResponseMode.DIFF) {
+      pomUpdate.edits(LineDiffUtil.computeEdits(originalContent, pomContent))
+          .unifiedDiff(LineDiffUtil.unifiedDiff(pomPath, originalContent, pomContent));
+    } else {
+      pomUpdate.pomContent(pomContent);
+    }
+    return new PomEdit(pomUpdate.build(), pomContent);
   }
 
   @Async("taskExecutor")
-  public CompletableFuture<Map<String, Object>> getCommitBuildStatusesAsync(
+  public CompletableFuture<CommitBuildStatusResult> getCommitBuildStatusesAsync(
       RepositoryInfo repositoryInfo,
       String commitHash,
       String authHeader) {
 
-    Map<String, Object> result = new HashMap<>();
-    result.put("projectName", repositoryInfo.getProjectName());
-    result.put("repoSlug", repositoryInfo.getRepoSlug());
-    result.put("commitHash", commitHash);
+    CommitBuildStatusResult.CommitBuildStatusResultBuilder result = CommitBuildStatusResult.builder()
+        .projectName(repositoryInfo.getProjectName())
+        .repoSlug(repositoryInfo.getRepoSlug())
+        .commitHash(commitHash);
 
     try {
       Map<String, Object> buildStatuses = bitbucketApiService.getCommitBuildStatuses(
@@ -320,29 +491,25 @@ public class BitBucketIntegrationService {
           commitHash,
           authHeader
       );
-      result.put("buildStatuses", buildStatuses);
-      result.put("status", "success");
+      result.status(ResultStatus.SUCCESS).buildStatuses(buildStatuses);
     } catch (FeignException e) {
-      result.put("status", "error");
-      result.put("error", extractMeaningfulErrorMessage(e));
+      result.status(ResultStatus.ERROR).error(extractMeaningfulErrorMessage(e));
     } catch (Exception e) {
-      result.put("status", "error");
-      result.put("error", "Failed to fetch build statuses: " + e.getMessage());
+      result.status(ResultStatus.ERROR).error("Failed to fetch build statuses: " + e.getMessage());
     }
 
-    return CompletableFuture.completedFuture(result);
+    return CompletableFuture.completedFuture(result.build());
   }
 
   @Async("taskExecutor")
-  public CompletableFuture<Map<String, Object>> getPullRequestBuildStatusesAsync(
+  public CompletableFuture<PullRequestBuildResult> getPullRequestBuildStatusesAsync(
       PrBuildRequestItem requestItem,
       String authHeader) {
 
-    Map<String, Object> result = new HashMap<>();
     RepositoryInfo repositoryInfo = requestItem.getRepository();
-
-    result.put("projectName", repositoryInfo.getProjectName());
-    result.put("repoSlug", repositoryInfo.getRepoSlug());
+    PullRequestBuildResult.PullRequestBuildResultBuilder result = PullRequestBuildResult.builder()
+        .projectName(repositoryInfo.getProjectName())
+        .repoSlug(repositoryInfo.getRepoSlug());
 
     try {
       String effectiveCommitHash = requestItem.getCommitHash();
@@ -360,62 +527,105 @@ public class BitBucketIntegrationService {
           authHeader
       );
 
-      Map<String, Object> metrics = buildMetricsFromStatuses(statuses);
+      result.status(ResultStatus.SUCCESS)
+          .commitHash(effectiveCommitHash)
+          .metrics(BuildMetrics.fromStatuses(statuses));
+    } catch (Exception e) {
+      result.status(ResultStatus.ERROR).error("Failed to fetch pull request build statuses: " + e.getMessage());
+    }
 
-      Map<String, Object> buildData = new HashMap<>();
-      buildData.put(effectiveCommitHash, metrics);
+    return CompletableFuture.completedFuture(result.build());
+  }
 
-      result.put("buildData", buildData);
-      result.put("status", "success");
-    } catch (Exception e) {
-      result.put("status", "error");
-      result.put("error", "Failed to fetch pull request build statuses: " + e.getMessage());
+  private List<String> resolveCommitContent(CommitInfo commitInfo) {
+    if (commitInfo.getContent() != null) {
+      return commitInfo.getContent();
+    }
+    if (commitInfo.getContentHash() == null || commitInfo.getContentHash().isBlank()) {
+      throw new CustomApiException("Either content or contentHash must be provided");
     }
+    return patchedContentStore.get(commitInfo.getContentHash())
+        .map(PatchedContentStore.PatchedContent::lines)
+        .orElseThrow(() -> new CustomApiException(
+            "Patched content " + commitInfo.getContentHash() + " has expired; run the update again"));
+  }
 
-    return CompletableFuture.completedFuture(result);
+  private static FileContentResult.FileContentResultBuilder fileContentResult(FileInfo fileInfo) {
+    return FileContentResult.builder()
+        .projectName(fileInfo.getRepositoryInfo().getProjectName())
+        .repoSlug(fileInfo.getRepositoryInfo().getRepoSlug())
+        .file(fileInfo.getFileName())
+        .module(fileInfo.getRepositoryInfo().getModuleName())
+        .searchPath(fileInfo.getSearchPath());
   }
 
-  @SuppressWarnings("unchecked")
-  private Map<String, Object> buildMetricsFromStatuses(Map<String, Object> statusesResponse) {
-    Map<String, Object> metrics = new HashMap<>();
-    int cancelled = 0;
-    int successful = 0;
-    int inProgress = 0;
-    int failed = 0;
-    int unknown = 0;
-
-    if (statusesResponse != null) {
-      Object valuesObj = statusesResponse.get("values");
-      if (valuesObj instanceof List<?>) {
-        for (Object o : (List<?>) valuesObj) {
-          if (!(o instanceof Map<?, ?>)) {
-            continue;
-          }
-          Map<String, Object> status = (Map<String, Object>) o;
-          Object stateObj = status.get("state");
-          if (!(stateObj instanceof String)) {
-            unknown++;
-            continue;
-          }
-          String state = ((String) stateObj).toUpperCase();
-          switch (state) {
-            case "SUCCESSFUL" -> successful++;
-            case "FAILED" -> failed++;
-            case "INPROGRESS" -> inProgress++;
-            case "STOPPED", "CANCELLED" -> cancelled++;
-            default -> unknown++;
-          }
-        }
-      }
+  private static FileContentResult fileContentError(FileContentResult.FileContentResultBuilder fileResponse, Exception e) {
+    if (e instanceof FeignException feignException) {
+      return fileResponse.status(ResultStatus.ERROR).error(extractMeaningfulErrorMessage(feignException)).build();
+    } else if (e instanceof CustomApiException) {
+      return fileResponse.status(ResultStatus.ERROR).error(e.getMessage()).build();
+    }
+    return fileResponse.status(ResultStatus.ERROR).error("Error fetching file content: Internal Server Error").build();
+  }
+
+  private static CommitResult.CommitResultBuilder commitResult(CommitInfo commitInfo) {
+    return CommitResult.builder()
+        .projectName(commitInfo.getRepositoryInfo().getProjectName())
+        .repoSlug(commitInfo.getRepositoryInfo().getRepoSlug())
+        .file(commitInfo.getFileName())
+        .module(commitInfo.getRepositoryInfo().getModuleName())
+        .searchPath(commitInfo.getSearchPath());
+  }
+
+  private static CommitResult commitError(CommitResult.CommitResultBuilder commitResponse, Exception e) {
+    if (e instanceof FeignException feignException) {
+      return commitResponse.status(ResultStatus.ERROR)
+          .error("Error committing file: " + extractMeaningfulErrorMessage(feignException))
+          .build();
+    } else if (e instanceof CustomApiException) {
+      return commitResponse.status(ResultStatus.ERROR).error("Error committing file content: " + e.getMessage()).build();
     }
+    return commitResponse.status(ResultStatus.ERROR).error("Error committing file content: Internal Server Error").build();
+  }
 
-    metrics.put("cancelled", cancelled);
-    metrics.put("successful", successful);
-    metrics.put("inProgress", inProgress);
-    metrics.put("failed", failed);
-    metrics.put("unknown", unknown);
+  /**
+   * The branch head after a commit: the commit's own hash when Bitbucket returned it, otherwise the
+   * head read again (the commit dropped the cached one).
+   */
+  private String committedHash(
+      Map<String, Object> commitResult,
+      RepositoryInfo repositoryInfo,
+      String branchName,
+      String authHeader) {
+    if (commitResult != null && commitResult.get("hash") instanceof String hash) {
+      return hash;
+    }
+    return bitbucketApiService.getLatestCommit(repositoryInfo, branchName, authHeader);
+  }
+
+  /**
+   * Whether a pom.xml belongs to a module of the build rather than being a test fixture, archetype
+   * template or build output, which all live below a {@code src} or {@code target} directory.
+   */
+  private static boolean isModulePom(String path) {
+    String[] segments = path.split("/");
+    for (int i = 0; i < segments.length - 1; i++) {
+      if (segments[i].equals("src") || segments[i].equals("target")) {
+        return false;
+      }
+    }
+    return true;
+  }
 
-    return metrics;
+  /**
+   * Failures that would repeat for every other file of the same repository in this request.
+   */
+  private static boolean affectsWholeRepository(Throwable e) {
+    if (e instanceof DeadlineExceededException || e instanceof UpstreamUnavailableException) {
+      return true;
+    }
+    return e instanceof FeignException feignException
+        && (feignException.status() == 401 || feignException.status() == 403);
   }
 
 }
@@ -1,14 +1,25 @@
 package com.lws.oms.eop.service;
 
+import com.lws.oms.eop.cache.CacheProvider;
+import com.lws.oms.eop.cache.CacheSpec;
+import com.lws.oms.eop.cache.FileContentCache;
+import com.lws.oms.eop.cache.NotFoundCache;
+import com.lws.oms.eop.cache.RepositoryTree;
+import com.lws.oms.eop.cache.ServiceCache;
 import com.lws.oms.eop.exception.CustomApiException;
+import com.lws.oms.eop.exception.ResourceNotFoundException;
 import com.lws.oms.eop.feign.BitbucketFeignClient;
 import com.lws.oms.eop.feign.BitbucketUiFeignClient;
 import com.lws.oms.eop.model.PrInfo;
 import com.lws.oms.eop.model.RepositoryInfo;
+import com.lws.oms.eop.scheduling.CallerContext;
+import feign.FeignException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
@@ -26,15 +37,32 @@ public class BitbucketApiService {
 
   private final BitbucketUiFeignClient bitbucketUiFeignClient;
 
+  private final FileContentCache fileContentCache;
+
+  private final ServiceCache<String> branchHeads;
+
+  private final NotFoundCache notFoundCache;
+
+  private final RepositoryTreeIndex repositoryTreeIndex;
+
   private final String workspace;
 
   public BitbucketApiService(
       BitbucketFeignClient bitbucketFeignClient,
       BitbucketUiFeignClient bitbucketUiFeignClient,
-      @org.springframework.beans.factory.annotation.Value("${bitbucket.workspace}") String workspace
+      FileContentCache fileContentCache,
+      CacheProvider cacheProvider,
+      NotFoundCache notFoundCache,
+      RepositoryTreeIndex repositoryTreeIndex,
+      @org.springframework.beans.factory.annotation.Value("${bitbucket.workspace}") String workspace,
+      @org.springframework.beans.factory.annotation.Value("${cache.branch-heads.ttl:30s}") Duration branchHeadTtl
   ) {
     this.bitbucketFeignClient = bitbucketFeignClient;
     this.bitbucketUiFeignClient = bitbucketUiFeignClient;
+    this.fileContentCache = fileContentCache;
+    this.branchHeads = cacheProvider.create("branchHead", String.class, CacheSpec.entries(10_000, branchHeadTtl));
+    this.notFoundCache = notFoundCache;
+    this.repositoryTreeIndex = repositoryTreeIndex;
     this.workspace = workspace;
   }
 
@@ -44,10 +72,11 @@ public class BitbucketApiService {
     log.debug("GetBranches request - workspace: {}, repoSlug: {}", workspace, repository.getRepoSlug());
 
     try {
-      Map<String, Object> response = bitbucketFeignClient.getBranches(
-          authHeader,
-          workspace,
-          repository.getRepoSlug());
+      Map<String, Object> response = notFoundCache.get(repositoryKey(repository), "repository", authHeader,
+          () -> bitbucketFeignClient.getBranches(
+              authHeader,
+              workspace,
+              repository.getRepoSlug()));
       log.info("Successfully fetched branches for repository: {} in project: {}",
           repository.getRepoSlug(), repository.getProjectName());
       log.debug("GetBranches response: {}", response);
@@ -81,6 +110,7 @@ public class BitbucketApiService {
           requestBody
       );
       log.info("Successfully created branch: {} in repo: {}", branchName, repoInfo.getRepoSlug());
+      notFoundCache.invalidateRepository(repositoryKey(repoInfo));
       return response;
     } catch (Exception ex) {
       log.error("Error creating branch {} in repo {}: {}", branchName, repoInfo.getRepoSlug(), ex.getMessage(), ex);
@@ -167,42 +197,114 @@ public class BitbucketApiService {
     }
   }
 
-  public String getLatestCommit(RepositoryInfo repositoryInfo, String branchName, String authHeader) {
-    log.info("Fetching latest commit for branch: {} in repo: {} and project: {}",
-        branchName, repositoryInfo.getRepoSlug(), repositoryInfo.getProjectName());
+  /**
+   * The open pull request from {@code fromBranch} to {@code toBranch}, if there is one.
+   */
+  public Optional<Map<String, Object>> findOpenPullRequest(
+      RepositoryInfo repoInfo,
+      String fromBranch,
+      String toBranch,
+      String authHeader) {
 
+    String query = String.format("source.branch.name=\"%s\" AND destination.branch.name=\"%s\" AND state=\"OPEN\"",
+        fromBranch, toBranch);
     try {
-      Map<String, Object> response = bitbucketFeignClient.getBranches(
+      Map<String, Object> response = bitbucketFeignClient.getPullRequests(
           authHeader,
           workspace,
-          repositoryInfo.getRepoSlug()
+          repoInfo.getRepoSlug(),
+          query
       );
+      List<Map<String, Object>> values = (List<Map<String, Object>>) response.get("values");
+      return CollectionUtils.isEmpty(values) ? Optional.empty() : Optional.of(values.get(0));
+    } catch (Exception ex) {
+      log.error("Error looking up pull requests from {} to {} in repo {}: {}",
+          fromBranch, toBranch, repoInfo.getRepoSlug(), ex.getMessage(), ex);
+      throw ex;
+    }
+  }
 
-      List<Map<String, Object>> branches = (List<Map<String, Object>>) response.get("values");
-
-      if (branches == null) {
-        throw new CustomApiException("No branches found in repository");
-      }
-
-      for (Map<String, Object> branch : branches) {
-        String name = (String) branch.get("name");
-        if (branchName.equals(name)) {
-          Map<String, Object> target = (Map<String, Object>) branch.get("target");
-          if (target != null && target.get("hash") != null) {
-            String latestCommit = (String) target.get("hash");
-            log.info("Found latest commit: {}", latestCommit);
-            return latestCommit;
-          }
-        }
-      }
+  public String getLatestCommit(RepositoryInfo repositoryInfo, String branchName, String authHeader) {
+    log.info("Fetching latest commit for branch: {} in repo: {} and project: {}",
+        branchName, repositoryInfo.getRepoSlug(), repositoryInfo.getProjectName());
 
-      throw new CustomApiException("Branch not found: " + branchName);
+    try {
+      return notFoundCache.get(repositoryKey(repositoryInfo), "branch:" + branchName, authHeader,
+          () -> fetchLatestCommit(repositoryInfo, branchName, authHeader));
     } catch (Exception e) {
       log.error("Unexpected error fetching commit for branch: {}", branchName, e);
       throw e;
     }
   }
 
+  /**
+   * Name of the repository's default branch.
+   */
+  public String getDefaultBranch(RepositoryInfo repositoryInfo, String authHeader) {
+    log.info("Fetching default branch of repo: {}", repositoryInfo.getRepoSlug());
+    Map<String, Object> repository = bitbucketFeignClient.getRepository(authHeader, workspace,
+        repositoryInfo.getRepoSlug());
+    Map<String, Object> mainBranch = (Map<String, Object>) repository.get("mainbranch");
+    if (mainBranch == null || mainBranch.get("name") == null) {
+      throw new ResourceNotFoundException("Repository " + repositoryInfo.getRepoSlug() + " has no default branch");
+    }
+    return (String) mainBranch.get("name");
+  }
+
+  /**
+   * The head of {@code branchName}, or empty if the repository has no such branch.
+   */
+  public Optional<String> findLatestCommit(RepositoryInfo repositoryInfo, String branchName, String authHeader) {
+    try {
+      return Optional.of(notFoundCache.get(repositoryKey(repositoryInfo), "branch:" + branchName, authHeader,
+          () -> fetchLatestCommit(repositoryInfo, branchName, authHeader)));
+    } catch (ResourceNotFoundException e) {
+      return Optional.empty();
+    }
+  }
+
+  private String fetchLatestCommit(RepositoryInfo repositoryInfo, String branchName, String authHeader) {
+    Map<String, Object> response = bitbucketFeignClient.getBranches(
+        authHeader,
+        workspace,
+        repositoryInfo.getRepoSlug()
+    );
+
+    List<Map<String, Object>> branches = (List<Map<String, Object>>) response.get("values");
+
+    if (branches == null) {
+      throw new ResourceNotFoundException("No branches found in repository");
+    }
+
+    for (Map<String, Object> branch : branches) {
+      String name = (String) branch.get("name");
+      if (branchName.equals(name)) {
+        Map<String, Object> target = (Map<String, Object>) branch.get("target");
+        if (target != null && target.get("hash") != null) {
+          String latestCommit = (String) target.get("hash");
+          log.info("Found latest commit: {}", latestCommit);
+          branchHeads.put(branchHeadKey(repositoryInfo, branchName, authHeader), latestCommit);
+          return latestCommit;
+        }
+      }
+    }
+
+    throw new ResourceNotFoundException("Branch not found: " + branchName);
+  }
+
+  /**
+   * Drops what is cached about {@code repoSlug} (branch heads, missing branches and files) after it
+   * changed outside this service.
+   */
+  public void invalidateRepository(String repoSlug) {
+    branchHeads.invalidatePrefix(workspace + "/" + repoSlug + "/");
+    notFoundCache.invalidateRepository(workspace + "/" + repoSlug);
+  }
+
+  private String repositoryKey(RepositoryInfo repositoryInfo) {
+    return workspace + "/" + repositoryInfo.getRepoSlug();
+  }
+
   public static final class FileContentWithEol {
     private final List<String> lines;
     private final String eol;
@@ -231,14 +333,7 @@ public class BitbucketApiService {
         filePath, commit, repoInfo.getRepoSlug());
 
     try {
-      String content = bitbucketFeignClient.getFileContent(
-          authHeader,
-          workspace,
-          repoInfo.getRepoSlug(),
-          commit,
-          filePath,
-          1
-      );
+      String content = readFile(repoInfo, commit, filePath, authHeader);
 
       String eol;
       if (content != null && content.contains("\r\n")) {
@@ -274,17 +369,37 @@ public class BitbucketApiService {
       String sourceCommitId) {
 
     log.info("Creating commit for file: {} with commit message: {}", filePath, commitMessage);
+    return createCommit(repoInfo, Map.of(filePath, String.join("\n", content) + "\n"), commitMessage, branchName,
+        authHeader, sourceCommitId);
+  }
 
-    try {
-      String contentString = String.join("\n", content) + "\n";
+  /**
+   * Commits all {@code files} (path to full content) to {@code branchName} as one commit. With a
+   * {@code sourceCommitId} it is sent as the commit's parent, so Bitbucket refuses the commit (409)
+   * instead of overwriting whatever landed on the branch since that commit was read.
+   */
+  public Map<String, Object> createCommit(
+      RepositoryInfo repoInfo,
+      Map<String, String> files,
+      String commitMessage,
+      String branchName,
+      String authHeader,
+      String sourceCommitId) {
 
+    log.info("Creating commit of {} files in repo: {} with commit message: {}",
+        files.size(), repoInfo.getRepoSlug(), commitMessage);
+
+    try {
       // Bitbucket Cloud /src API requires the file path AS the form field name.
       // e.g. { "message": "...", "branch": "...", "pom.xml": "<file content>" }
       // SpringFormEncoder supports MultiValueMap natively for multipart/form-data.
       MultiValueMap<String, Object> formParts = new LinkedMultiValueMap<>();
       formParts.add("message", commitMessage);
       formParts.add("branch", branchName);
-      formParts.add(filePath, contentString);  // key = actual file path
+      if (sourceCommitId != null) {
+        formParts.add("parents", sourceCommitId);
+      }
+      files.forEach(formParts::add);  // key = actual file path
 
       return bitbucketFeignClient.createCommit(
           authHeader,
@@ -296,9 +411,19 @@ public class BitbucketApiService {
     } catch (Exception ex) {
       log.error("Unexpected error while creating commit", ex);
       throw ex;
+    } finally {
+      // Even a failed commit may have landed; the next read must not trust the old head.
+      branchHeads.invalidatePrefix(branchHeadPrefix(repoInfo, branchName));
+      notFoundCache.invalidateRepository(repositoryKey(repoInfo));
     }
   }
 
+  /**
+   * Path of the file named {@code fileName} under the module and search path at {@code commit}:
+   * the one directly below them if it exists, otherwise the nearest one further down. Only when the
+   * file is not directly below is the repository's tree listed. If the tree has no such file either,
+   * the directly-below path is returned, so reading it reports what is missing.
+   */
   public String findFilePathByName(
       RepositoryInfo repositoryInfo,
       String commit,
@@ -307,16 +432,90 @@ public class BitbucketApiService {
       String moduleName,
       String searchPath) {
 
-    String effectiveSearchPath = Stream.of(moduleName, searchPath)
-        .filter(s -> s != null && !s.isBlank())
-        .collect(Collectors.joining("/"));
+    String effectiveSearchPath = searchPath(moduleName, searchPath);
+    String filePath = constructFilePath(fileName, moduleName, searchPath);
+
+    if (fileExists(repositoryInfo, commit, filePath, authHeader)) {
+      return filePath;
+    }
+    RepositoryTree.Matches found = findFilePaths(repositoryInfo, commit, fileName, effectiveSearchPath, authHeader);
+    if (found.paths().isEmpty()) {
+      log.info("No {} under '{}' in repo {}{}; using constructed file path: {}", fileName, effectiveSearchPath,
+          repositoryInfo.getRepoSlug(), found.truncated() ? " (tree truncated)" : "", filePath);
+      return filePath;
+    }
+    log.info("Found file path: {} for file: {}", found.paths().get(0), fileName);
+    return found.paths().get(0);
+  }
 
-    String filePath = effectiveSearchPath.isEmpty()
+  /**
+   * Path of the file named {@code fileName} directly below the module and search path, whether or
+   * not it exists. Writes go here, so a new file is created where asked rather than redirected.
+   */
+  public static String constructFilePath(String fileName, String moduleName, String searchPath) {
+    String effectiveSearchPath = searchPath(moduleName, searchPath);
+    return effectiveSearchPath.isEmpty()
         ? fileName
         : effectiveSearchPath + "/" + fileName;
+  }
 
-    log.info("Using constructed file path: {} for file: {}", filePath, fileName);
-    return filePath;
+  private static String searchPath(String moduleName, String searchPath) {
+    return Stream.of(moduleName, searchPath)
+        .filter(s -> s != null && !s.isBlank())
+        .collect(Collectors.joining("/"));
+  }
+
+  /**
+   * Paths of every file named {@code fileName} under {@code prefix} at {@code commit}, nearest
+   * first, from the repository's tree index, and whether the index was truncated so that more may
+   * exist.
+   */
+  public RepositoryTree.Matches findFilePaths(
+      RepositoryInfo repositoryInfo,
+      String commit,
+      String fileName,
+      String prefix,
+      String authHeader) {
+    return getRepositoryTree(repositoryInfo, commit, authHeader).match(fileName, prefix);
+  }
+
+  /**
+   * Whether {@code filePath} exists at {@code commit}: from the tree if it is indexed already,
+   * otherwise by reading the file, which leaves it cached for the read that usually follows.
+   */
+  private boolean fileExists(RepositoryInfo repositoryInfo, String commit, String filePath, String authHeader) {
+    Optional<RepositoryTree> indexed = repositoryTreeIndex.getIfIndexed(repositoryInfo, commit);
+    if (indexed.isPresent()) {
+      return indexed.get().contains(filePath);
+    }
+    try {
+      readFile(repositoryInfo, commit, filePath, authHeader);
+      return true;
+    } catch (FeignException.NotFound | ResourceNotFoundException ex) {
+      return false;
+    }
+  }
+
+  private String readFile(RepositoryInfo repoInfo, String commit, String filePath, String authHeader) {
+    return fileContentCache.get(workspace, repoInfo.getRepoSlug(), commit, filePath,
+        () -> notFoundCache.get(repositoryKey(repoInfo), "file:" + commit + ":" + filePath, authHeader,
+            () -> bitbucketFeignClient.getFileContent(
+                authHeader,
+                workspace,
+                repoInfo.getRepoSlug(),
+                commit,
+                filePath,
+                1
+            )));
+  }
+
+  public RepositoryTree getRepositoryTree(RepositoryInfo repositoryInfo, String commit, String authHeader) {
+    try {
+      return repositoryTreeIndex.get(repositoryInfo, commit, authHeader);
+    } catch (FeignException.NotFound ex) {
+      // An unknown repository or commit has no files; reading one reports the 404 properly.
+      return new RepositoryTree(List.of());
+    }
   }
 
   public List<String> getFileContent(
@@ -353,6 +552,25 @@ public class BitbucketApiService {
     }
   }
 
+  /**
+   * The head of {@code branchName} as {@link #getLatestCommit} resolves it, possibly from cache and
+   * up to {@code cache.branch-heads.ttl} old. For reads only: content committed on top of a stale
+   * head would undo newer changes. Heads are cached per caller, so nobody is handed a commit their
+   * own credentials were not allowed to resolve.
+   */
+  public String getBranchHead(RepositoryInfo repositoryInfo, String branchName, String authHeader) {
+    return branchHeads.getIfPresent(branchHeadKey(repositoryInfo, branchName, authHeader))
+        .orElseGet(() -> getLatestCommit(repositoryInfo, branchName, authHeader));
+  }
+
+  private String branchHeadKey(RepositoryInfo repositoryInfo, String branchName, String authHeader) {
+    return branchHeadPrefix(repositoryInfo, branchName) + CallerContext.hashToken(authHeader);
+  }
+
+  private String branchHeadPrefix(RepositoryInfo repositoryInfo, String branchName) {
+    return workspace + "/" + repositoryInfo.getRepoSlug() + "/" + branchName + "#";
+  }
+
   /**
    * Resolve the latest commit hash for a given pull request.
    */
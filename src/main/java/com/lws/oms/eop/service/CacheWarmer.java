@@ -0,0 +1,274 @@
+package com.lws.oms.eop.service;
+
+import com.lws.oms.eop.config.DependencyConfig;
+import com.lws.oms.eop.config.DependencyConfig.Dependency;
+import com.lws.oms.eop.config.DependencyConfig.Project;
+import com.lws.oms.eop.model.RepositoryInfo;
+import com.lws.oms.eop.scheduling.CallerContext;
+import com.lws.oms.eop.scheduling.FairShareQueue;
+import com.lws.oms.eop.scheduling.PriorityClass;
+import com.lws.oms.eop.scheduling.RequestDeadline;
+import com.lws.oms.eop.scheduling.RequestTimings;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the caches warm for the applications in {@code dependency-config}. Every round it refreshes
+ * the dependencies' version lists and, with the service credential {@code cache.warmer.auth-header},
+ * resolves the head of each application repository's default branch (and of any extra
+ * {@code cache.warmer.branches}) and reads the application's pom.xml at that head into the file
+ * content cache. Repositories whose head has not moved since the previous round are skipped.
+ *
+ * <p>Only file contents are warmed for callers: they are cached by commit, whoever read them. The
+ * heads are cached under the warmer's own credential, like every caller's, so they only tell the
+ * warmer what changed; a user still resolves the head once with their own token, then finds the
+ * pom.xml at it in the cache.
+ *
+ * <p>Rounds run on one background thread, at most {@code cache.warmer.calls-per-second} upstream
+ * calls a second, and hold off while request work is queued on the shared executor or more than
+ * half of the Bitbucket bulkhead is in use, so the warmer only uses capacity requests leave idle.
+ */
+@Slf4j
+@Component
+public class CacheWarmer implements MeterBinder {
+
+  private record Application(RepositoryInfo repository, String pomPath) {
+  }
+
+  private final BitbucketApiService bitbucketApiService;
+  private final DependencyService dependencyService;
+  private final List<Dependency> dependencies;
+  private final FairShareQueue fairShareQueue;
+  private final Bulkhead bitbucketBulkhead;
+  private final boolean enabled;
+  private final String authHeader;
+  private final List<String> branches;
+  private final Duration interval;
+  private final Duration initialDelay;
+  private final long callGapNanos;
+  private final Map<String, String> lastHeads = new ConcurrentHashMap<>();
+  private final Map<String, String> defaultBranches = new ConcurrentHashMap<>();
+  private final LongAdder refreshed = new LongAdder();
+  private final LongAdder unchanged = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+
+  private ScheduledExecutorService scheduler;
+  private long nextCallNanos;
+
+  public CacheWarmer(
+      BitbucketApiService bitbucketApiService,
+      DependencyService dependencyService,
+      DependencyConfig dependencyConfig,
+      FairShareQueue fairShareQueue,
+      BulkheadRegistry upstreamBulkheads,
+      @Value("${cache.warmer.enabled:true}") boolean enabled,
+      @Value("${cache.warmer.auth-header:}") String authHeader,
+      @Value("${cache.warmer.branches:}") List<String> branches,
+      @Value("${cache.warmer.interval:5m}") Duration interval,
+      @Value("${cache.warmer.initial-delay:1m}") Duration initialDelay,
+      @Value("${cache.warmer.calls-per-second:2}") double callsPerSecond) {
+    this.bitbucketApiService = bitbucketApiService;
+    this.dependencyService = dependencyService;
+    this.dependencies = dependencyConfig.getDependencies() == null ? List.of() : dependencyConfig.getDependencies();
+    this.fairShareQueue = fairShareQueue;
+    this.bitbucketBulkhead = upstreamBulkheads.bulkhead("bitbucketClient");
+    this.enabled = enabled;
+    this.authHeader = authHeader;
+    this.branches = branches;
+    this.interval = interval;
+    this.initialDelay = initialDelay;
+    this.callGapNanos = (long) (TimeUnit.SECONDS.toNanos(1) / callsPerSecond);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    counter(registry, "refreshed", refreshed);
+    counter(registry, "unchanged", unchanged);
+    counter(registry, "failed", failed);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!enabled || authHeader.isBlank()) {
+      log.info("Cache warmer off: {}", enabled ? "no cache.warmer.auth-header" : "disabled");
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("CacheWarmer").daemon().factory());
+    scheduler.scheduleWithFixedDelay(this::round, initialDelay.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * One pass over every dependency and application.
+   */
+  void warm() throws InterruptedException {
+    long start = System.nanoTime();
+    for (Dependency dependency : dependencies) {
+      pace();
+      try {
+        dependencyService.refreshVersions(dependency.getName());
+      } catch (RuntimeException e) {
+        log.warn("Cache warm-up of {} versions failed: {}", dependency.getName(), e.getMessage());
+      }
+    }
+
+    Map<String, List<Application>> byRepository = applicationsByRepository();
+    int moved = 0;
+    int visited = 0;
+    for (List<Application> applications : byRepository.values()) {
+      for (String branch : branchesOf(applications.get(0).repository())) {
+        visited++;
+        if (warm(applications, branch)) {
+          moved++;
+        }
+      }
+    }
+    log.info("Cache warm-up: {} of {} repository branches refreshed in {} ms", moved, visited,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  /**
+   * The repository's default branch, looked up once and again only after it stops resolving, then
+   * the configured extra branches.
+   */
+  private List<String> branchesOf(RepositoryInfo repository) throws InterruptedException {
+    String key = repository.getProjectName() + "/" + repository.getRepoSlug();
+    String defaultBranch = defaultBranches.get(key);
+    if (defaultBranch == null) {
+      try {
+        pace();
+        defaultBranch = bitbucketApiService.getDefaultBranch(repository, authHeader);
+        defaultBranches.put(key, defaultBranch);
+      } catch (RuntimeException e) {
+        failed.increment();
+        log.warn("Cache warm-up could not find the default branch of {}: {}", repository.getRepoSlug(),
+            e.getMessage());
+        return branches;
+      }
+    }
+    List<String> all = new ArrayList<>(branches.size() + 1);
+    all.add(defaultBranch);
+    branches.stream().filter(branch -> !branch.equals(all.get(0))).forEach(all::add);
+    return all;
+  }
+
+  private boolean warm(List<Application> applications, String branch) throws InterruptedException {
+    RepositoryInfo repository = applications.get(0).repository();
+    String key = repository.getProjectName() + "/" + repository.getRepoSlug() + "/" + branch;
+    try {
+      pace();
+      String head = bitbucketApiService.getLatestCommit(repository, branch, authHeader);
+      if (head.equals(lastHeads.get(key))) {
+        unchanged.increment();
+        return false;
+      }
+      for (Application application : applications) {
+        pace();
+        bitbucketApiService.getFileContentWithEol(application.repository(), head, application.pomPath(), authHeader);
+      }
+      lastHeads.put(key, head);
+      refreshed.increment();
+      return true;
+    } catch (RuntimeException e) {
+      failed.increment();
+      // A renamed default branch no longer resolves; look it up again next round.
+      defaultBranches.remove(repository.getProjectName() + "/" + repository.getRepoSlug(), branch);
+      log.warn("Cache warm-up of {} at {} failed: {}", repository.getRepoSlug(), branch, e.getMessage());
+      return false;
+    }
+  }
+
+  private void round() {
+    CallerContext context = new CallerContext("cache-warmer", CallerContext.hashToken(authHeader),
+        PriorityClass.BULK, "cache-warmer", RequestDeadline.NONE, RequestTimings.NONE);
+    try {
+      context.bind(() -> {
+        warm();
+        return null;
+      }).call();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      // Never let a round fail: the scheduler would cancel every later one.
+      log.warn("Cache warm-up round failed", e);
+    }
+  }
+
+  /**
+   * Waits for this call's turn, and then until requests leave room for it.
+   */
+  private void pace() throws InterruptedException {
+    long wait = nextCallNanos - System.nanoTime();
+    if (wait > 0) {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+    while (busy()) {
+      TimeUnit.NANOSECONDS.sleep(Math.max(callGapNanos, TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+    nextCallNanos = System.nanoTime() + callGapNanos;
+  }
+
+  private boolean busy() {
+    Bulkhead.Metrics bulkhead = bitbucketBulkhead.getMetrics();
+    return fairShareQueue.size() > 0
+        || bulkhead.getAvailableConcurrentCalls() < bulkhead.getMaxAllowedConcurrentCalls() / 2;
+  }
+
+  private Map<String, List<Application>> applicationsByRepository() {
+    Map<String, List<Application>> byRepository = new LinkedHashMap<>();
+    for (Dependency dependency : dependencies) {
+      if (dependency.getDependentApplications() == null || dependency.getDependentApplications().getProjects() == null) {
+        continue;
+      }
+      for (Project project : dependency.getDependentApplications().getProjects()) {
+        for (String app : project.getApplications() == null ? List.<String>of() : project.getApplications()) {
+          String[] parts = app.split("/", 2);
+          RepositoryInfo repository = new RepositoryInfo();
+          repository.setProjectName(project.getName());
+          repository.setRepoSlug(parts[0]);
+          repository.setModuleName(parts.length > 1 ? parts[1] : null);
+          Application application = new Application(repository, parts.length > 1 ? parts[1] + "/pom.xml" : "pom.xml");
+          List<Application> applications = byRepository.computeIfAbsent(project.getName() + "/" + parts[0],
+              ignored -> new ArrayList<>());
+          if (applications.stream().noneMatch(known -> known.pomPath().equals(application.pomPath()))) {
+            applications.add(application);
+          }
+        }
+      }
+    }
+    return byRepository;
+  }
+
+  private static void counter(MeterRegistry registry, String result, LongAdder adder) {
+    FunctionCounter.builder("cache.warmer.repositories", adder, LongAdder::sum)
+        .tag("result", result)
+        .description("Repository branches visited by the cache warmer, by outcome")
+        .register(registry);
+  }
+
+}
@@ -1,14 +1,20 @@
 package com.lws.oms.eop.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.lws.oms.eop.cache.CacheProvider;
+import com.lws.oms.eop.cache.CacheSpec;
+import com.lws.oms.eop.cache.ServiceCache;
 import com.lws.oms.eop.config.DependencyConfig;
 import com.lws.oms.eop.config.DependencyConfig.Dependency;
 import com.lws.oms.eop.config.DependencyConfig.Project;
 import com.lws.oms.eop.dto.DependencyApplicationMetadataDto;
 import com.lws.oms.eop.feign.MavenCentralFeignClient;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -16,11 +22,16 @@ public class DependencyService {
 
   private final MavenCentralFeignClient mavenCentralFeignClient;
   private final List<Dependency> dependencies;
+  private final ServiceCache<List<Map<String, Object>>> versions;
 
   public DependencyService(MavenCentralFeignClient mavenCentralFeignClient,
-      DependencyConfig dependencyConfig) {
+      DependencyConfig dependencyConfig,
+      CacheProvider cacheProvider,
+      @Value("${cache.dependency-versions.ttl:10m}") Duration versionsTtl) {
     this.mavenCentralFeignClient = mavenCentralFeignClient;
     this.dependencies = dependencyConfig.getDependencies();
+    this.versions = cacheProvider.create("dependencyVersions", new TypeReference<>() {
+    }, CacheSpec.entries(1_000, versionsTtl));
   }
 
   public List<String> getAllDependencyNames() {
@@ -32,35 +43,7 @@ public class DependencyService {
   public DependencyApplicationMetadataDto getDependencyApplicationsWithMetadata(String dependencyName) {
     for (Dependency dependency : dependencies) {
       if (dependency.getName().equalsIgnoreCase(dependencyName)) {
-        String query = String.format("g:\"%s\" AND a:\"%s\"",
-            dependency.getGroupId(), dependency.getArtifactId());
-        Map<String, Object> metadata = mavenCentralFeignClient.searchArtifact(query, 200, "gav");
-
-        Map<String, Object> response = (Map<String, Object>) metadata.get("response");
-        List<Map<String, Object>> docs =
-            response != null ? (List<Map<String, Object>>) response.get("docs") : null;
-
-        List<Map<String, Object>> versionsList = new ArrayList<>();
-        if (docs != null) {
-          for (Map<String, Object> doc : docs) {
-            Object version = doc.get("v");
-            Object timestamp = doc.get("timestamp");
-            if (version != null && timestamp instanceof Number) {
-              String versionStr = version.toString();
-              versionsList.add(Map.of(
-                  "version", version,
-                  "name", versionStr,
-                  "lastModified", ((Number) timestamp).longValue()
-              ));
-            }
-          }
-
-          versionsList.sort((a, b) -> {
-            Long aModified = ((Number) a.get("lastModified")).longValue();
-            Long bModified = ((Number) b.get("lastModified")).longValue();
-            return Long.compare(bModified, aModified);
-          });
-        }
+        List<Map<String, Object>> versionsList = versions.get(dependency.getName(), () -> loadVersions(dependency));
 
         List<DependencyApplicationMetadataDto.ApplicationInfo> allApplications = new ArrayList<>();
         if (dependency.getDependentApplications() != null &&
@@ -101,4 +84,53 @@ public class DependencyService {
     throw new IllegalArgumentException("Dependency not found: " + dependencyName);
   }
 
+  /**
+   * Reloads the cached versions of {@code dependencyName} from Maven Central, restarting their expiry.
+   */
+  public void refreshVersions(String dependencyName) {
+    for (Dependency dependency : dependencies) {
+      if (dependency.getName().equalsIgnoreCase(dependencyName)) {
+        versions.put(dependency.getName(), loadVersions(dependency));
+        return;
+      }
+    }
+    throw new IllegalArgumentException("Dependency not found: " + dependencyName);
+  }
+
+  /**
+   * Published versions of {@code dependency} from Maven Central, newest first.
+   */
+  private List<Map<String, Object>> loadVersions(Dependency dependency) {
+    String query = String.format("g:\"%s\" AND a:\"%s\"",
+        dependency.getGroupId(), dependency.getArtifactId());
+    Map<String, Object> metadata = mavenCentralFeignClient.searchArtifact(query, 200, "gav");
+
+    Map<String, Object> response = (Map<String, Object>) metadata.get("response");
+    List<Map<String, Object>> docs =
+        response != null ? (List<Map<String, Object>>) response.get("docs") : null;
+
+    List<Map<String, Object>> versionsList = new ArrayList<>();
+    if (docs != null) {
+      for (Map<String, Object> doc : docs) {
+        Object version = doc.get("v");
+        Object timestamp = doc.get("timestamp");
+        if (version != null && timestamp instanceof Number) {
+          String versionStr = version.toString();
+          versionsList.add(Map.of(
+              "version", version,
+              "name", versionStr,
+              "lastModified", ((Number) timestamp).longValue()
+          ));
+        }
+      }
+
+      versionsList.sort((a, b) -> {
+        Long aModified = ((Number) a.get("lastModified")).longValue();
+        Long bModified = ((Number) b.get("lastModified")).longValue();
+        return Long.compare(bModified, aModified);
+      });
+    }
+    return versionsList;
+  }
+
 }
@@ -0,0 +1,71 @@
+package com.lws.oms.eop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived store of rewritten file contents keyed by their SHA-256, so a follow-up commit can
+ * reference a patched file by hash instead of uploading it again.
+ */
+@Slf4j
+@Component
+public class PatchedContentStore implements MeterBinder {
+
+  public record PatchedContent(List<String> lines, String eol) {
+  }
+
+  private final Cache<String, PatchedContent> contents;
+
+  public PatchedContentStore(
+      @Value("${patched-content.ttl:15m}") Duration ttl,
+      @Value("${patched-content.max-entries:10000}") long maxEntries) {
+    this.contents = Caffeine.newBuilder()
+        .expireAfterWrite(ttl)
+        .maximumSize(maxEntries)
+        .recordStats()
+        .build();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, contents, "patchedContent");
+  }
+
+  public String put(List<String> lines, String eol) {
+    String hash = hash(lines);
+    contents.put(hash, new PatchedContent(List.copyOf(lines), eol));
+    log.debug("Stored patched content {} ({} lines)", hash, lines.size());
+    return hash;
+  }
+
+  public Optional<PatchedContent> get(String hash) {
+    return Optional.ofNullable(contents.getIfPresent(hash));
+  }
+
+  static String hash(List<String> lines) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (String line : lines) {
+        digest.update(line.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+      }
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+}
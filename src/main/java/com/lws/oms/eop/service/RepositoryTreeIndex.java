@@ -0,0 +1,176 @@
+package com.lws.oms.eop.service;
+
+import com.lws.oms.eop.cache.CacheProvider;
+import com.lws.oms.eop.cache.CacheSpec;
+import com.lws.oms.eop.cache.FileContentCache;
+import com.lws.oms.eop.cache.RepositoryTree;
+import com.lws.oms.eop.cache.ServiceCache;
+import com.lws.oms.eop.feign.BitbucketFeignClient;
+import com.lws.oms.eop.model.RepositoryInfo;
+import com.lws.oms.eop.scheduling.FailFastScope;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * The file tree of a repository at a commit, built from Bitbucket's paged {@code src} directory
+ * listings. Directories are listed level by level, those of one level concurrently; at most
+ * {@code repository-tree.max-directories} are listed, so a huge repository is indexed only down to
+ * where the limit runs out and its tree is marked truncated. Complete trees at full commit hashes
+ * never change and are cached, bounded by their total number of paths; concurrent lookups of a
+ * tree that is not cached yet share one build.
+ */
+@Slf4j
+@Component
+public class RepositoryTreeIndex {
+
+  private static final int PAGE_LENGTH = 100;
+
+  private record Listing(List<String> files, List<String> directories) {
+  }
+
+  private final BitbucketFeignClient bitbucketFeignClient;
+  private final ServiceCache<RepositoryTree> trees;
+  private final ConcurrentMap<String, CompletableFuture<RepositoryTree>> building = new ConcurrentHashMap<>();
+  private final String workspace;
+  private final int concurrency;
+  private final int maxDirectories;
+
+  public RepositoryTreeIndex(
+      BitbucketFeignClient bitbucketFeignClient,
+      CacheProvider cacheProvider,
+      @Value("${bitbucket.workspace}") String workspace,
+      @Value("${repository-tree.concurrency:8}") int concurrency,
+      @Value("${repository-tree.max-directories:2000}") int maxDirectories,
+      @Value("${repository-tree.cache.max-paths:1000000}") long maxPaths) {
+    this.bitbucketFeignClient = bitbucketFeignClient;
+    this.trees = cacheProvider.create("repositoryTree", RepositoryTree.class,
+        CacheSpec.weighted(maxPaths, tree -> Math.max(1, tree.size())));
+    this.workspace = workspace;
+    this.concurrency = concurrency;
+    this.maxDirectories = maxDirectories;
+  }
+
+  /**
+   * The tree at {@code commit} if it is cached already, without listing anything.
+   */
+  public Optional<RepositoryTree> getIfIndexed(RepositoryInfo repositoryInfo, String commit) {
+    return FileContentCache.isCommitHash(commit) ? trees.getIfPresent(key(repositoryInfo, commit)) : Optional.empty();
+  }
+
+  public RepositoryTree get(RepositoryInfo repositoryInfo, String commit, String authHeader) {
+    if (!FileContentCache.isCommitHash(commit)) {
+      return build(repositoryInfo, commit, authHeader);
+    }
+    String key = key(repositoryInfo, commit);
+    Optional<RepositoryTree> cached = trees.getIfPresent(key);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+    CompletableFuture<RepositoryTree> build = new CompletableFuture<>();
+    CompletableFuture<RepositoryTree> running = building.putIfAbsent(key, build);
+    if (running != null) {
+      try {
+        return running.join();
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException cause ? cause : e;
+      }
+    }
+    try {
+      RepositoryTree tree = build(repositoryInfo, commit, authHeader);
+      if (!tree.isTruncated()) {
+        trees.put(key, tree);
+      }
+      build.complete(tree);
+      return tree;
+    } catch (RuntimeException e) {
+      build.completeExceptionally(e);
+      throw e;
+    } finally {
+      building.remove(key, build);
+    }
+  }
+
+  private RepositoryTree build(RepositoryInfo repositoryInfo, String commit, String authHeader) {
+    long start = System.nanoTime();
+    List<String> files = new ArrayList<>();
+    List<String> level = List.of("");
+    int listed = 0;
+    boolean truncated = false;
+    while (!level.isEmpty()) {
+      if (listed + level.size() > maxDirectories) {
+        log.warn("Indexing only {} directories of {} at {}", maxDirectories, repositoryInfo.getRepoSlug(), commit);
+        truncated = true;
+        level = level.subList(0, maxDirectories - listed);
+        if (level.isEmpty()) {
+          break;
+        }
+      }
+      listed += level.size();
+      List<String> next = new ArrayList<>();
+      for (Listing listing : list(repositoryInfo, commit, level, authHeader)) {
+        files.addAll(listing.files());
+        next.addAll(listing.directories());
+      }
+      level = next;
+    }
+    log.info("Indexed {} files in {} directories of {} at {} in {} ms", files.size(), listed,
+        repositoryInfo.getRepoSlug(), commit, (System.nanoTime() - start) / 1_000_000);
+    return new RepositoryTree(files, truncated);
+  }
+
+  private String key(RepositoryInfo repositoryInfo, String commit) {
+    return workspace + "/" + repositoryInfo.getRepoSlug() + "@" + commit;
+  }
+
+  private List<Listing> list(RepositoryInfo repositoryInfo, String commit, List<String> directories,
+      String authHeader) {
+    List<Future<Listing>> listings = new ArrayList<>(directories.size());
+    try (FailFastScope scope = new FailFastScope(concurrency, e -> true)) {
+      for (String directory : directories) {
+        listings.add(scope.fork(() -> list(repositoryInfo, commit, directory, authHeader)));
+      }
+      List<Listing> results = new ArrayList<>(listings.size());
+      for (Future<Listing> listing : listings) {
+        results.add(scope.resultOf(listing));
+      }
+      return results;
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException("Listing " + repositoryInfo.getRepoSlug() + " at " + commit + " failed", e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Listing list(RepositoryInfo repositoryInfo, String commit, String directory, String authHeader) {
+    Listing listing = new Listing(new ArrayList<>(), new ArrayList<>());
+    String page = null;
+    do {
+      Map<String, Object> response = bitbucketFeignClient.listDirectory(
+          authHeader, workspace, repositoryInfo.getRepoSlug(), commit, directory, PAGE_LENGTH, page);
+      for (Map<String, Object> entry : (List<Map<String, Object>>) response.getOrDefault("values", List.of())) {
+        String path = (String) entry.get("path");
+        if ("commit_directory".equals(entry.get("type"))) {
+          listing.directories().add(path + "/");
+        } else if ("commit_file".equals(entry.get("type"))) {
+          listing.files().add(path);
+        }
+      }
+      String next = (String) response.get("next");
+      page = next == null ? null : UriComponentsBuilder.fromUriString(next).build().getQueryParams().getFirst("page");
+    } while (page != null);
+    return listing;
+  }
+
+}
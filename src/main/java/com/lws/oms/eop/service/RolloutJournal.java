@@ -0,0 +1,349 @@
+package com.lws.oms.eop.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lws.oms.eop.model.RepositoryInfo;
+import com.lws.oms.eop.model.requests.RolloutRequest;
+import com.lws.oms.eop.model.responses.RolloutStage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Durable per-repository progress of rollouts, kept in an append-only JSON-lines file.
+ *
+ * <p>The in-memory view is updated synchronously and is what the running process reads; the file
+ * only exists to survive restarts. Appends are queued and written by a single thread that drains
+ * whatever has accumulated, writes it and fsyncs once (group commit), so callers never wait on disk.
+ * On startup the log is replayed and compacted to the latest state of jobs still worth keeping;
+ * repositories of a job still unfinished {@code maxAge} after it started are marked failed rather
+ * than resumed. Without a path the journal is kept in memory only and rollouts do not survive a
+ * restart.
+ */
+@Slf4j
+@Component
+public class RolloutJournal {
+
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public record JournalEntry(
+      String type,
+      String rolloutId,
+      RolloutRequest request,
+      RepositoryInfo repository,
+      RolloutStage stage,
+      String baseCommit,
+      String pomPath,
+      boolean terminal,
+      String message,
+      Instant at) {
+  }
+
+  public record RepoProgress(
+      RepositoryInfo repository,
+      RolloutStage stage,
+      String baseCommit,
+      String pomPath,
+      boolean terminal,
+      String message,
+      Instant updatedAt) {
+  }
+
+  public static final class RolloutJob {
+    private final RolloutRequest request;
+    private final Instant createdAt;
+    private final Map<String, RepoProgress> progress = new ConcurrentHashMap<>();
+
+    private RolloutJob(RolloutRequest request, Instant createdAt) {
+      this.request = request;
+      this.createdAt = createdAt;
+    }
+
+    public RolloutRequest getRequest() {
+      return request;
+    }
+
+    public Instant getCreatedAt() {
+      return createdAt;
+    }
+
+    public Map<String, RepoProgress> getProgress() {
+      return progress;
+    }
+
+    public boolean isFinished() {
+      return request.getRepoList().stream()
+          .map(RolloutJournal::repoKey)
+          .allMatch(key -> progress.containsKey(key) && progress.get(key).terminal());
+    }
+  }
+
+  private static final String JOB = "job";
+  private static final String STEP = "step";
+  private static final JournalEntry POISON = new JournalEntry(null, null, null, null, null, null, null, false, null, null);
+
+  private final ObjectMapper objectMapper;
+  private final Path path;
+  private final int maxBatch;
+  private final Duration retention;
+  private final Duration maxAge;
+  private final Map<String, RolloutJob> jobs = new ConcurrentHashMap<>();
+  private final BlockingQueue<JournalEntry> pending = new LinkedBlockingQueue<>();
+  private final AtomicLong queued = new AtomicLong();
+  private final Object writtenLock = new Object();
+  private long written;
+
+  private FileChannel channel;
+  private Thread writer;
+
+  @Autowired
+  public RolloutJournal(
+      ObjectMapper objectMapper,
+      @Value("${rollout.journal.enabled:false}") boolean enabled,
+      @Value("${rollout.journal.path:}") String path,
+      @Value("${rollout.journal.max-batch:512}") int maxBatch,
+      @Value("${rollout.journal.retention:7d}") Duration retention,
+      @Value("${rollout.journal.max-age:2d}") Duration maxAge) {
+    this(objectMapper, enabled ? requirePath(path) : null, maxBatch, retention, maxAge);
+  }
+
+  public RolloutJournal(ObjectMapper objectMapper, Path path, int maxBatch, Duration retention, Duration maxAge) {
+    this.objectMapper = objectMapper;
+    this.path = path;
+    this.maxBatch = maxBatch;
+    this.retention = retention;
+    this.maxAge = maxAge;
+  }
+
+  private static Path requirePath(String path) {
+    if (path.isBlank()) {
+      throw new IllegalStateException("rollout.journal.path must be set when rollout.journal.enabled is true");
+    }
+    return Path.of(path);
+  }
+
+  @PostConstruct
+  void open() throws IOException {
+    if (path == null) {
+      log.info("Rollout journal is off; rollouts will not survive a restart");
+      return;
+    }
+    Files.createDirectories(path.toAbsolutePath().getParent());
+    replay();
+    expire();
+    compact();
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    writer = Thread.ofPlatform().name("RolloutJournal").daemon().start(this::writeLoop);
+    log.info("Rollout journal {} opened with {} unfinished job(s)", path, unfinished().size());
+  }
+
+  @PreDestroy
+  void close() throws IOException, InterruptedException {
+    if (writer == null) {
+      return;
+    }
+    pending.put(POISON);
+    writer.join(Duration.ofSeconds(10));
+    channel.close();
+  }
+
+  public void recordJob(RolloutRequest request) {
+    Instant now = Instant.now();
+    if (jobs.putIfAbsent(request.getRolloutId(), new RolloutJob(request, now)) == null) {
+      enqueue(new JournalEntry(JOB, request.getRolloutId(), request, null, null, null, null, false, null, now));
+    }
+  }
+
+  public void recordStep(String rolloutId, RepositoryInfo repository, RolloutStage stage, String baseCommit,
+      String pomPath, boolean terminal, String message) {
+    Instant now = Instant.now();
+    JournalEntry entry = new JournalEntry(STEP, rolloutId, null, repository, stage, baseCommit, pomPath, terminal,
+        message, now);
+    apply(entry);
+    enqueue(entry);
+  }
+
+  public Optional<RolloutJob> find(String rolloutId) {
+    return Optional.ofNullable(jobs.get(rolloutId));
+  }
+
+  public Optional<RepoProgress> progress(String rolloutId, RepositoryInfo repository) {
+    return find(rolloutId).map(job -> job.getProgress().get(repoKey(repository)));
+  }
+
+  public Collection<RolloutJob> unfinished() {
+    return jobs.values().stream().filter(job -> !job.isFinished()).toList();
+  }
+
+  /**
+   * Waits until everything recorded before the call has been written and synced, or the timeout
+   * passes; false on timeout.
+   */
+  boolean awaitWritten(Duration timeout) throws InterruptedException {
+    long target = queued.get();
+    long deadline = System.nanoTime() + timeout.toNanos();
+    synchronized (writtenLock) {
+      while (written < target) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(writtenLock, remaining);
+      }
+    }
+    return true;
+  }
+
+  static String repoKey(RepositoryInfo repository) {
+    return repository.getProjectName() + "/" + repository.getRepoSlug()
+        + (repository.getModuleName() == null ? "" : "/" + repository.getModuleName());
+  }
+
+  private void apply(JournalEntry entry) {
+    if (JOB.equals(entry.type())) {
+      jobs.putIfAbsent(entry.rolloutId(), new RolloutJob(entry.request(), entry.at()));
+      return;
+    }
+    RolloutJob job = jobs.get(entry.rolloutId());
+    if (job != null) {
+      job.getProgress().put(repoKey(entry.repository()), new RepoProgress(entry.repository(), entry.stage(),
+          entry.baseCommit(), entry.pomPath(), entry.terminal(), entry.message(), entry.at()));
+    }
+  }
+
+  private void enqueue(JournalEntry entry) {
+    if (path == null) {
+      return;
+    }
+    queued.incrementAndGet();
+    pending.add(entry);
+  }
+
+  private void writeLoop() {
+    List<JournalEntry> batch = new ArrayList<>(maxBatch);
+    boolean running = true;
+    while (running) {
+      try {
+        batch.add(pending.take());
+        pending.drainTo(batch, maxBatch - 1);
+        running = !batch.remove(POISON);
+        if (!batch.isEmpty()) {
+          write(batch);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        running = false;
+      } catch (IOException e) {
+        log.error("Failed to persist {} rollout journal entries", batch.size(), e);
+      }
+      synchronized (writtenLock) {
+        written += batch.size();
+        writtenLock.notifyAll();
+      }
+      batch.clear();
+    }
+  }
+
+  private void write(List<JournalEntry> batch) throws IOException {
+    StringBuilder lines = new StringBuilder(batch.size() * 256);
+    for (JournalEntry entry : batch) {
+      lines.append(objectMapper.writeValueAsString(entry)).append('\n');
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    channel.force(false);
+  }
+
+  private void replay() throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+        try {
+          apply(objectMapper.readValue(line, JournalEntry.class));
+        } catch (IOException e) {
+          // A torn final line from a crash mid-write; everything before it is intact.
+          log.warn("Skipping unreadable rollout journal line: {}", e.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * Gives up on jobs that have been unfinished for longer than {@code maxAge}: their base commit
+   * and whoever asked for them have long moved on, so they are reported failed instead of resumed.
+   */
+  private void expire() {
+    Instant now = Instant.now();
+    Instant cutoff = now.minus(maxAge);
+    for (RolloutJob job : jobs.values()) {
+      if (job.isFinished() || !job.getCreatedAt().isBefore(cutoff)) {
+        continue;
+      }
+      String rolloutId = job.getRequest().getRolloutId();
+      log.warn("Rollout {} did not finish within {}; marking its remaining repositories failed", rolloutId, maxAge);
+      String message = String.format("Rollout abandoned: not finished within %s of its start", maxAge);
+      for (RepositoryInfo repository : job.getRequest().getRepoList()) {
+        RepoProgress p = job.getProgress().get(repoKey(repository));
+        if (p == null) {
+          apply(new JournalEntry(STEP, rolloutId, null, repository, RolloutStage.EDIT, null, null, true, message, now));
+        } else if (!p.terminal()) {
+          apply(new JournalEntry(STEP, rolloutId, null, repository, p.stage(), p.baseCommit(), p.pomPath(), true,
+              message, now));
+        }
+      }
+    }
+  }
+
+  private void compact() throws IOException {
+    Instant cutoff = Instant.now().minus(retention);
+    jobs.values().removeIf(job -> job.isFinished() && job.getCreatedAt().isBefore(cutoff));
+
+    Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+    StringBuilder lines = new StringBuilder();
+    for (RolloutJob job : jobs.values()) {
+      String rolloutId = job.getRequest().getRolloutId();
+      lines.append(objectMapper.writeValueAsString(
+          new JournalEntry(JOB, rolloutId, job.getRequest(), null, null, null, null, false, null, job.getCreatedAt())))
+          .append('\n');
+      for (RepoProgress p : new LinkedHashMap<>(job.getProgress()).values()) {
+        lines.append(objectMapper.writeValueAsString(new JournalEntry(STEP, rolloutId, null, p.repository(), p.stage(),
+            p.baseCommit(), p.pomPath(), p.terminal(), p.message(), p.updatedAt()))).append('\n');
+      }
+    }
+    Files.writeString(compacted, lines, StandardCharsets.UTF_8);
+    Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+}
@@ -0,0 +1,422 @@
+package com.lws.oms.eop.service;
+
+import static com.lws.oms.eop.utils.ErrorUtils.extractMeaningfulErrorMessage;
+
+import com.lws.oms.eop.exception.BatchRejectedException;
+import com.lws.oms.eop.exception.CustomApiException;
+import com.lws.oms.eop.model.PrInfo;
+import com.lws.oms.eop.model.RepositoryInfo;
+import com.lws.oms.eop.model.requests.RolloutRequest;
+import com.lws.oms.eop.model.responses.ResultStatus;
+import com.lws.oms.eop.model.responses.RolloutResult;
+import com.lws.oms.eop.model.responses.RolloutStage;
+import com.lws.oms.eop.model.responses.RolloutStatus;
+import com.lws.oms.eop.scheduling.AdmissionControl;
+import com.lws.oms.eop.scheduling.CallerContext;
+import com.lws.oms.eop.service.RolloutJournal.RepoProgress;
+import com.lws.oms.eop.utils.UpdateDependencyUtil;
+import feign.FeignException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs a dependency bump end to end for each repository: edit pom, create branch, commit, open PR.
+ * Each step is scheduled as its own task on the shared executor as soon as the previous step of the
+ * same repository finishes, so repositories progress independently and the pom never leaves the
+ * server. The base branch head is resolved once and reused by every step.
+ *
+ * <p>Completed steps are recorded in the {@link RolloutJournal}. Running a known rollout id again
+ * (after a failure or a restart) skips the steps already done for each repository. Only one run per
+ * rollout and repository is active at a time; starting it again while it runs joins that run.
+ */
+@Slf4j
+@Service
+public class RolloutService {
+
+  private final BitbucketApiService bitbucketApiService;
+  private final RolloutJournal rolloutJournal;
+  private final Executor taskExecutor;
+  private final AdmissionControl admissionControl;
+  private final String resumeAuthHeader;
+  private final int resumeBatchSize;
+  private final Map<String, CompletableFuture<RolloutResult>> running = new ConcurrentHashMap<>();
+
+  public RolloutService(
+      BitbucketApiService bitbucketApiService,
+      RolloutJournal rolloutJournal,
+      @Qualifier("taskExecutor") Executor taskExecutor,
+      AdmissionControl admissionControl,
+      @Value("${rollout.resume.auth-header:}") String resumeAuthHeader,
+      @Value("${rollout.resume.batch-size:50}") int resumeBatchSize) {
+    this.bitbucketApiService = bitbucketApiService;
+    this.rolloutJournal = rolloutJournal;
+    this.taskExecutor = taskExecutor;
+    this.admissionControl = admissionControl;
+    this.resumeAuthHeader = resumeAuthHeader;
+    this.resumeBatchSize = resumeBatchSize;
+  }
+
+  /**
+   * Assigns an id to a new rollout and journals it; a request carrying a known id resumes that rollout.
+   */
+  public RolloutRequest register(RolloutRequest request) {
+    if (request.getRolloutId() == null || request.getRolloutId().isBlank()) {
+      request.setRolloutId(UUID.randomUUID().toString());
+    }
+    Optional<RolloutJournal.RolloutJob> existing = rolloutJournal.find(request.getRolloutId());
+    if (existing.isPresent()) {
+      return existing.get().getRequest();
+    }
+    rolloutJournal.recordJob(request);
+    return request;
+  }
+
+  public Optional<RolloutRequest> find(String rolloutId) {
+    return rolloutJournal.find(rolloutId).map(RolloutJournal.RolloutJob::getRequest);
+  }
+
+  public Optional<RolloutStatus> status(String rolloutId) {
+    return rolloutJournal.find(rolloutId).map(job -> new RolloutStatus(
+        rolloutId,
+        job.isFinished(),
+        job.getCreatedAt(),
+        job.getProgress().values().stream()
+            .map(p -> new RolloutStatus.RepoStatus(
+                p.repository().getProjectName(),
+                p.repository().getRepoSlug(),
+                p.repository().getModuleName(),
+                p.stage(),
+                p.terminal(),
+                p.message(),
+                p.updatedAt()))
+            .toList()));
+  }
+
+  public CompletableFuture<RolloutResult> rollout(
+      RepositoryInfo repoInfo,
+      RolloutRequest request,
+      String authHeader) {
+
+    String key = request.getRolloutId() + ":" + RolloutJournal.repoKey(repoInfo);
+    CompletableFuture<RolloutResult> run = new CompletableFuture<>();
+    CompletableFuture<RolloutResult> active = running.putIfAbsent(key, run);
+    if (active != null) {
+      log.info("Rollout {} for repo {} is already running; joining it", request.getRolloutId(), repoInfo.getRepoSlug());
+      return active;
+    }
+    run.whenComplete((result, ex) -> running.remove(key, run));
+
+    try {
+      // Read the journal only once this run is the only one, so it sees everything earlier runs recorded.
+      RepoProgress progress = rolloutJournal.progress(request.getRolloutId(), repoInfo).orElse(null);
+      RepoRollout state = new RepoRollout(repoInfo, request, authHeader, progress);
+      if (progress != null && progress.terminal()) {
+        run.complete(state.journaledResult());
+        return run;
+      }
+
+      CompletableFuture.supplyAsync(state::edit, taskExecutor)
+          .thenApplyAsync(RepoRollout::branch, taskExecutor)
+          .thenApplyAsync(RepoRollout::commit, taskExecutor)
+          .thenApplyAsync(RepoRollout::pullRequest, taskExecutor)
+          .handle((completed, ex) -> ex == null ? completed.result() : state.failure(ex))
+          .thenAccept(run::complete);
+    } catch (RuntimeException e) {
+      run.completeExceptionally(e);
+    }
+    return run;
+  }
+
+  /**
+   * Continues rollouts interrupted by a restart when a service credential is configured. Without
+   * one they wait for a user to call the resume endpoint.
+   *
+   * <p>The repositories are resumed {@code resumeBatchSize} at a time, each batch admitted like a
+   * bulk request of the system user and started once the previous one has finished, so a large
+   * backlog never takes more of the pool than a user's batch could.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void resumeUnfinished() {
+    if (resumeAuthHeader.isBlank()) {
+      return;
+    }
+    List<Resumption> pending = new ArrayList<>();
+    for (RolloutJournal.RolloutJob job : rolloutJournal.unfinished()) {
+      RolloutRequest request = job.getRequest();
+      log.info("Resuming interrupted rollout {} for {} repositories", request.getRolloutId(),
+          request.getRepoList().size());
+      for (RepositoryInfo repoInfo : request.getRepoList()) {
+        pending.add(new Resumption(request, repoInfo));
+      }
+    }
+    resumeFrom(pending, 0);
+  }
+
+  private record Resumption(RolloutRequest request, RepositoryInfo repoInfo) {
+  }
+
+  private void resumeFrom(List<Resumption> pending, int from) {
+    if (from >= pending.size()) {
+      return;
+    }
+    List<Resumption> batch = pending.subList(from, Math.min(from + resumeBatchSize, pending.size()));
+    AdmissionControl.Permit permit;
+    try {
+      permit = admissionControl.acquire(batch.size(), CallerContext.SYSTEM.userKey(), CallerContext.SYSTEM.priority());
+    } catch (BatchRejectedException e) {
+      if (e.getRetryAfter() == null) {
+        log.error("Cannot resume {} interrupted rollout repositories: {}", pending.size() - from, e.getMessage());
+        return;
+      }
+      log.info("Resuming interrupted rollouts again in {}: {}", e.getRetryAfter(), e.getMessage());
+      CompletableFuture.runAsync(() -> resumeFrom(pending, from),
+          CompletableFuture.delayedExecutor(e.getRetryAfter().toMillis(), TimeUnit.MILLISECONDS));
+      return;
+    }
+    CompletableFuture<?>[] runs = batch.stream()
+        .map(resumption -> rollout(resumption.repoInfo(), resumption.request(), resumeAuthHeader)
+            .thenAccept(result -> log.info("Resumed rollout {} for repo {} finished with status {} at {} step",
+                result.rolloutId(), result.repoSlug(), result.status().getValue(), result.stage().getValue())))
+        .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(runs).whenComplete((ignored, ex) -> {
+      permit.close();
+      resumeFrom(pending, from + batch.size());
+    });
+  }
+
+  private final class RepoRollout {
+
+    private final RepositoryInfo repoInfo;
+    private final RolloutRequest request;
+    private final String authHeader;
+    private final RepoProgress journaled;
+
+    private RolloutStage stage = RolloutStage.EDIT;
+    private boolean skipped;
+    private boolean branchInspected;
+    private boolean branchExists;
+    private boolean commitLanded;
+    private String skipMessage;
+    private String baseCommit;
+    private String pomPath;
+    private List<String> basePom;
+    private List<String> pomContent;
+    private Map<String, Object> pullRequest;
+
+    private RepoRollout(RepositoryInfo repoInfo, RolloutRequest request, String authHeader, RepoProgress journaled) {
+      this.repoInfo = repoInfo;
+      this.request = request;
+      this.authHeader = authHeader;
+      this.journaled = journaled;
+    }
+
+    private boolean alreadyCompleted(RolloutStage step) {
+      return journaled != null && journaled.stage().compareTo(step) >= 0;
+    }
+
+    private RepoRollout edit() {
+      // A resumed rollout keeps the head it started from so every repo commits on the same base.
+      baseCommit = journaled != null && journaled.baseCommit() != null
+          ? journaled.baseCommit()
+          : bitbucketApiService.getLatestCommit(repoInfo, request.getBaseBranch(), authHeader);
+      pomPath = bitbucketApiService.findFilePathByName(
+          repoInfo, baseCommit, "pom.xml", authHeader, repoInfo.getModuleName(), "");
+      pomContent = bitbucketApiService.getFileContentWithEol(repoInfo, baseCommit, pomPath, authHeader).getLines();
+      basePom = List.copyOf(pomContent);
+
+      UpdateDependencyUtil.UpdateOutcome outcome = UpdateDependencyUtil.updateDependencyVersionInPom(
+          pomContent, request.getDependency(), request.getVersion());
+      if (outcome.status() != ResultStatus.SUCCESS) {
+        // Nothing to change in this repository; do not leave an empty branch behind.
+        skipped = true;
+        skipMessage = outcome.message();
+      }
+      if (!alreadyCompleted(RolloutStage.EDIT)) {
+        record(RolloutStage.EDIT, skipped, skipMessage);
+      }
+      return this;
+    }
+
+    private RepoRollout branch() {
+      if (skipped) {
+        return this;
+      }
+      stage = RolloutStage.BRANCH;
+      if (!alreadyCompleted(RolloutStage.BRANCH)) {
+        inspectBranch();
+        if (!branchExists) {
+          bitbucketApiService.createBranch(repoInfo, request.getBranchName(), baseCommit, authHeader);
+        }
+        record(RolloutStage.BRANCH, false, null);
+      }
+      return this;
+    }
+
+    private RepoRollout commit() {
+      if (skipped) {
+        return this;
+      }
+      stage = RolloutStage.COMMIT;
+      if (!alreadyCompleted(RolloutStage.COMMIT)) {
+        inspectBranch();
+        if (!commitLanded) {
+          bitbucketApiService.createCommit(
+              repoInfo, pomPath, pomContent, request.getCommitMessage(), request.getBranchName(), authHeader, baseCommit);
+        }
+        record(RolloutStage.COMMIT, false, null);
+      }
+      return this;
+    }
+
+    private RepoRollout pullRequest() {
+      if (skipped) {
+        return this;
+      }
+      stage = RolloutStage.PULL_REQUEST;
+      PrInfo prInfo = new PrInfo();
+      prInfo.setFromBranch(request.getBranchName());
+      prInfo.setToBranch(request.getBaseBranch());
+      prInfo.setTitle(request.getPrTitle());
+      prInfo.setDescription(request.getPrDescription());
+      // After an earlier attempt the pull request may exist already; Bitbucket refuses a second one.
+      Optional<Map<String, Object>> open = resumed()
+          ? bitbucketApiService.findOpenPullRequest(repoInfo, request.getBranchName(), request.getBaseBranch(), authHeader)
+          : Optional.empty();
+      pullRequest = open.orElseGet(() -> bitbucketApiService.createPullRequest(prInfo, repoInfo, authHeader));
+      stage = RolloutStage.DONE;
+      record(RolloutStage.DONE, true, successMessage());
+      return this;
+    }
+
+    /**
+     * Journal writes are asynchronous, so a crash can lose the record of any step that did happen,
+     * the edit step included, in which case the rollout looks new. Before creating the branch or
+     * the commit, look at the branch itself:
+     * <ul>
+     *   <li>absent: nothing was done yet;</li>
+     *   <li>at the base commit: the branch exists, the commit is still to do;</li>
+     *   <li>with the edited pom: the commit has landed;</li>
+     *   <li>with the pom as it is at the base: created from an older head, the commit goes on top of it.</li>
+     * </ul>
+     * A branch with a different pom is someone else's and is not touched.
+     */
+    private void inspectBranch() {
+      if (branchInspected) {
+        return;
+      }
+      branchInspected = true;
+      String branchHead = bitbucketApiService.findLatestCommit(repoInfo, request.getBranchName(), authHeader)
+          .orElse(null);
+      if (branchHead == null) {
+        return;
+      }
+      branchExists = true;
+      if (branchHead.equals(baseCommit)) {
+        return;
+      }
+      List<String> branchPom = bitbucketApiService.getFileContentWithEol(repoInfo, branchHead, pomPath, authHeader)
+          .getLines();
+      if (sameContent(branchPom, pomContent)) {
+        commitLanded = true;
+      } else if (sameContent(branchPom, basePom)) {
+        baseCommit = branchHead;
+      } else {
+        throw new CustomApiException(String.format(
+            "Branch '%s' already exists with a different %s", request.getBranchName(), pomPath));
+      }
+    }
+
+    /**
+     * Whether an earlier attempt may have got as far as opening the pull request.
+     */
+    private boolean resumed() {
+      return journaled != null || branchExists;
+    }
+
+    private static boolean sameContent(List<String> a, List<String> b) {
+      return withoutTrailingBlankLines(a).equals(withoutTrailingBlankLines(b));
+    }
+
+    private static List<String> withoutTrailingBlankLines(List<String> lines) {
+      int end = lines.size();
+      while (end > 0 && lines.get(end - 1).isEmpty()) {
+        end--;
+      }
+      return lines.subList(0, end);
+    }
+
+    private void record(RolloutStage completed, boolean terminal, String message) {
+      rolloutJournal.recordStep(request.getRolloutId(), repoInfo, completed, baseCommit, pomPath, terminal, message);
+    }
+
+    private String successMessage() {
+      return String.format("Opened pull request from '%s' to '%s'", request.getBranchName(), request.getBaseBranch());
+    }
+
+    private RolloutResult result() {
+      RolloutResult.RolloutResultBuilder result = baseResult();
+      if (skipped) {
+        return result.status(ResultStatus.FAILURE).message(skipMessage).build();
+      }
+      return result.status(ResultStatus.SUCCESS)
+          .pullRequest(pullRequest)
+          .message(successMessage())
+          .build();
+    }
+
+    private RolloutResult journaledResult() {
+      return RolloutResult.builder()
+          .rolloutId(request.getRolloutId())
+          .projectName(repoInfo.getProjectName())
+          .repoSlug(repoInfo.getRepoSlug())
+          .stage(journaled.stage())
+          .baseCommit(journaled.baseCommit())
+          .pomPath(journaled.pomPath())
+          .status(journaled.stage() == RolloutStage.DONE ? ResultStatus.SUCCESS : ResultStatus.FAILURE)
+          .message(journaled.message())
+          .build();
+    }
+
+    private RolloutResult failure(Throwable ex) {
+      Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+      String error;
+      if (cause instanceof FeignException feignException) {
+        error = extractMeaningfulErrorMessage(feignException);
+      } else if (cause instanceof CustomApiException) {
+        error = cause.getMessage();
+      } else {
+        log.error("Unexpected error during {} step of rollout for repo {}", stage, repoInfo.getRepoSlug(), cause);
+        error = "Internal Server Error";
+      }
+      return baseResult()
+          .status(ResultStatus.ERROR)
+          .error(String.format("Rollout failed at %s step: %s", stage.getValue(), error))
+          .build();
+    }
+
+    private RolloutResult.RolloutResultBuilder baseResult() {
+      return RolloutResult.builder()
+          .rolloutId(request.getRolloutId())
+          .projectName(repoInfo.getProjectName())
+          .repoSlug(repoInfo.getRepoSlug())
+          .stage(stage)
+          .baseCommit(baseCommit)
+          .pomPath(pomPath);
+    }
+  }
+
+}
@@ -2,6 +2,7 @@ package com.lws.oms.eop.utils;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -9,13 +10,16 @@ import org.springframework.http.HttpStatus;
 @Slf4j
 public class ErrorUtils {
 
+  /**
+   * Built once: error bodies are parsed on every failed item of a batch.
+   */
+  private static final ObjectReader ERROR_READER = new ObjectMapper().readerFor(JsonNode.class);
+
   public static String extractMeaningfulErrorMessage(FeignException ex) {
     try {
       String errorResponse = ex.contentUTF8();
       log.info("Raw error response: {}", errorResponse);
 
-      ObjectMapper objectMapper = new ObjectMapper();
-
       int jsonStart = errorResponse.indexOf("{");
       int jsonEnd = errorResponse.lastIndexOf("}");
 
@@ -24,7 +28,7 @@ public class ErrorUtils {
       }
 
       String jsonString = errorResponse.substring(jsonStart, jsonEnd + 1);
-      JsonNode errorJson = objectMapper.readTree(jsonString);
+      JsonNode errorJson = ERROR_READER.readTree(jsonString);
 
       // Bitbucket Cloud format: { "error": { "message": "...", "code": "..." } }
       if (errorJson.has("error")) {
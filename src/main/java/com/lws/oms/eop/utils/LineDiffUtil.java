@@ -0,0 +1,200 @@
+package com.lws.oms.eop.utils;
+
+import com.lws.oms.eop.model.responses.LineEdit;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LineDiffUtil {
+
+  private static final int CONTEXT_LINES = 3;
+
+  // Beyond this many changed lines the region between the common prefix and suffix is reported as
+  // one replacement; the trace kept for the backtrack grows with the square of the distance.
+  private static final int MAX_EDIT_DISTANCE = 2000;
+
+  /**
+   * Minimal edits turning {@code original} into {@code updated}, one per changed region, in order
+   * and with offsets into {@code original}. The common prefix and suffix are trimmed first, so a
+   * dependency bump costs O(n); the rest is Myers' diff, O((n + m) d) for d changed lines.
+   */
+  public static List<LineEdit> computeEdits(List<String> original, List<String> updated) {
+    int prefix = commonPrefix(original, updated);
+    if (prefix == original.size() && prefix == updated.size()) {
+      return List.of();
+    }
+    int suffix = commonSuffix(original, updated, prefix);
+    List<String> oldRegion = original.subList(prefix, original.size() - suffix);
+    List<String> newRegion = updated.subList(prefix, updated.size() - suffix);
+
+    boolean[][] changed = changedLines(oldRegion, newRegion);
+    if (changed == null) {
+      return List.of(new LineEdit(prefix, List.copyOf(oldRegion), List.copyOf(newRegion)));
+    }
+    boolean[] removed = changed[0];
+    boolean[] added = changed[1];
+    List<LineEdit> edits = new ArrayList<>();
+    int i = 0;
+    int j = 0;
+    while (i < oldRegion.size() || j < newRegion.size()) {
+      if (i < oldRegion.size() && j < newRegion.size() && !removed[i] && !added[j]) {
+        i++;
+        j++;
+        continue;
+      }
+      int oldStart = i;
+      int newStart = j;
+      while (i < oldRegion.size() && removed[i]) {
+        i++;
+      }
+      while (j < newRegion.size() && added[j]) {
+        j++;
+      }
+      edits.add(new LineEdit(prefix + oldStart,
+          List.copyOf(oldRegion.subList(oldStart, i)),
+          List.copyOf(newRegion.subList(newStart, j))));
+    }
+    return List.copyOf(edits);
+  }
+
+  /**
+   * Unified diff (three lines of context) for the edits of {@link #computeEdits}; edits whose
+   * context would overlap share a hunk.
+   */
+  public static String unifiedDiff(String path, List<String> original, List<String> updated) {
+    List<LineEdit> edits = computeEdits(original, updated);
+    if (edits.isEmpty()) {
+      return "";
+    }
+    StringBuilder diff = new StringBuilder()
+        .append("--- a/").append(path).append('\n')
+        .append("+++ b/").append(path).append('\n');
+    int shift = 0;
+    int first = 0;
+    while (first < edits.size()) {
+      int last = first;
+      while (last + 1 < edits.size() && edits.get(last + 1).offset() - end(edits.get(last)) <= 2 * CONTEXT_LINES) {
+        last++;
+      }
+      shift = appendHunk(diff, original, edits.subList(first, last + 1), shift);
+      first = last + 1;
+    }
+    return diff.toString();
+  }
+
+  /**
+   * Appends one hunk and returns the line shift between the two files after it.
+   */
+  private static int appendHunk(StringBuilder diff, List<String> original, List<LineEdit> edits, int shift) {
+    int contextStart = Math.max(0, edits.get(0).offset() - CONTEXT_LINES);
+    int contextEnd = Math.min(original.size(), end(edits.get(edits.size() - 1)) + CONTEXT_LINES);
+    int oldLength = contextEnd - contextStart;
+    int growth = 0;
+    for (LineEdit edit : edits) {
+      growth += edit.newLines().size() - edit.oldLines().size();
+    }
+    int newLength = oldLength + growth;
+
+    diff.append("@@ -").append(hunkStart(contextStart, oldLength)).append(',').append(oldLength)
+        .append(" +").append(hunkStart(contextStart + shift, newLength)).append(',').append(newLength)
+        .append(" @@\n");
+    int cursor = contextStart;
+    for (LineEdit edit : edits) {
+      appendLines(diff, ' ', original, cursor, edit.offset());
+      appendLines(diff, '-', edit.oldLines(), 0, edit.oldLines().size());
+      appendLines(diff, '+', edit.newLines(), 0, edit.newLines().size());
+      cursor = end(edit);
+    }
+    appendLines(diff, ' ', original, cursor, contextEnd);
+    return shift + growth;
+  }
+
+  private static int end(LineEdit edit) {
+    return edit.offset() + edit.oldLines().size();
+  }
+
+  /**
+   * Myers' greedy shortest edit script: which lines of {@code a} are removed and which of {@code b}
+   * are added. Null when more than {@link #MAX_EDIT_DISTANCE} lines differ.
+   */
+  private static boolean[][] changedLines(List<String> a, List<String> b) {
+    int n = a.size();
+    int m = b.size();
+    int max = Math.min(n + m, MAX_EDIT_DISTANCE);
+    // v[k + max] is the furthest x reached on diagonal k = x - y; trace.get(d) is v before step d.
+    int[] v = new int[2 * max + 2];
+    List<int[]> trace = new ArrayList<>();
+    for (int d = 0; d <= max; d++) {
+      trace.add(v.clone());
+      for (int k = -d; k <= d; k += 2) {
+        int x = k == -d || (k != d && v[k - 1 + max] < v[k + 1 + max]) ? v[k + 1 + max] : v[k - 1 + max] + 1;
+        int y = x - k;
+        while (x < n && y < m && a.get(x).equals(b.get(y))) {
+          x++;
+          y++;
+        }
+        v[k + max] = x;
+        if (x >= n && y >= m) {
+          return backtrack(trace, d, n, m, max);
+        }
+      }
+    }
+    return null;
+  }
+
+  private static boolean[][] backtrack(List<int[]> trace, int distance, int n, int m, int max) {
+    boolean[] removed = new boolean[n];
+    boolean[] added = new boolean[m];
+    int x = n;
+    int y = m;
+    for (int d = distance; d > 0; d--) {
+      int[] v = trace.get(d);
+      int k = x - y;
+      int previousK = k == -d || (k != d && v[k - 1 + max] < v[k + 1 + max]) ? k + 1 : k - 1;
+      int previousX = v[previousK + max];
+      int previousY = previousX - previousK;
+      while (x > previousX && y > previousY) {
+        x--;
+        y--;
+      }
+      if (x == previousX) {
+        added[previousY] = true;
+      } else {
+        removed[previousX] = true;
+      }
+      x = previousX;
+      y = previousY;
+    }
+    return new boolean[][] {removed, added};
+  }
+
+  private static int commonPrefix(List<String> original, List<String> updated) {
+    int limit = Math.min(original.size(), updated.size());
+    int prefix = 0;
+    while (prefix < limit && original.get(prefix).equals(updated.get(prefix))) {
+      prefix++;
+    }
+    return prefix;
+  }
+
+  private static int commonSuffix(List<String> original, List<String> updated, int prefix) {
+    int limit = Math.min(original.size(), updated.size()) - prefix;
+    int suffix = 0;
+    while (suffix < limit
+        && original.get(original.size() - 1 - suffix).equals(updated.get(updated.size() - 1 - suffix))) {
+      suffix++;
+    }
+    return suffix;
+  }
+
+  // Unified diff line numbers are one-based; an empty range points at the line before it.
+  private static int hunkStart(int zeroBasedStart, int length) {
+    return length == 0 ? zeroBasedStart : zeroBasedStart + 1;
+  }
+
+  private static void appendLines(StringBuilder diff, char marker, List<String> lines, int from, int to) {
+    for (int i = from; i < to; i++) {
+      diff.append(marker).append(lines.get(i)).append('\n');
+    }
+  }
+
+}
@@ -1,19 +1,36 @@
 package com.lws.oms.eop.utils;
 
-import java.util.HashMap;
+import com.lws.oms.eop.model.responses.ResultStatus;
 import java.util.List;
-import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class UpdateDependencyUtil {
 
-  public static Map<String, Object> updateDependencyVersionInPom(List<String> pomContent, String dependency, String newVersion) {
+  public record UpdateOutcome(ResultStatus status, String message) {
+  }
+
+  public static UpdateOutcome updateDependencyVersionInPom(List<String> pomContent, String dependency, String newVersion) {
+    return updateDependencyVersionInPom(pomContent, dependency, newVersion, true);
+  }
+
+  /**
+   * Updates the version of {@code dependency} in the first of its declarations that has one. With
+   * {@code insertMissingVersion} a declaration without a version gets one; otherwise it is skipped,
+   * because its version is managed by a parent POM, and if no declaration has a version the POM is
+   * left unchanged.
+   */
+  public static UpdateOutcome updateDependencyVersionInPom(
+      List<String> pomContent,
+      String dependency,
+      String newVersion,
+      boolean insertMissingVersion) {
     boolean insideDependencyBlock = false;
     boolean isTargetDependency = false;
     boolean versionUpdated = false;
     boolean versionAlreadySame = false;
     boolean dependencyFound = false;
+    boolean versionManaged = false;
     int dependencyEndIndex = -1;
     int artifactIdIndex = -1;
 
@@ -64,7 +81,9 @@ public class UpdateDependencyUtil {
 
       // Track the end of dependency block for inserting version if not present
       if (insideDependencyBlock && trimmedLine.startsWith("</dependency>")) {
-        if (isTargetDependency && artifactIdIndex != -1 && !versionUpdated) {
+        if (isTargetDependency && artifactIdIndex != -1 && !versionUpdated && !insertMissingVersion) {
+          versionManaged = true;
+        } else if (isTargetDependency && artifactIdIndex != -1 && !versionUpdated) {
           dependencyEndIndex = i;
           // Need to add version tag before </dependency>
           String artifactIdLine = pomContent.get(artifactIdIndex);
@@ -80,22 +99,18 @@ public class UpdateDependencyUtil {
       }
     }
 
-    Map<String, Object> response = new HashMap<>();
     if (versionAlreadySame) {
-      response.put("status", "failure");
-      response.put("message", "Dependency already has the specified version. No update needed.");
+      return new UpdateOutcome(ResultStatus.FAILURE, "Dependency already has the specified version. No update needed.");
     } else if (versionUpdated) {
-      response.put("status", "success");
-      response.put("message", "Dependency version updated successfully. Please verify it before committing.");
+      return new UpdateOutcome(ResultStatus.SUCCESS,
+          "Dependency version updated successfully. Please verify it before committing.");
     } else if (!dependencyFound) {
-      response.put("status", "failure");
-      response.put("message", "Dependency not found in POM file. Please check the file manually.");
-    } else {
-      response.put("status", "failure");
-      response.put("message", "Dependency found but could not update version.");
+      return new UpdateOutcome(ResultStatus.FAILURE, "Dependency not found in POM file. Please check the file manually.");
+    } else if (versionManaged) {
+      return new UpdateOutcome(ResultStatus.FAILURE,
+          "Dependency declares no version here; it is managed by a parent POM. No update needed.");
     }
-
-    return response;
+    return new UpdateOutcome(ResultStatus.FAILURE, "Dependency found but could not update version.");
   }
 
 }
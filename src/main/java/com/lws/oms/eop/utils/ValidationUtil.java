@@ -1,7 +1,6 @@
 package com.lws.oms.eop.utils;
 
-import java.util.HashMap;
-import java.util.Map;
+import com.lws.oms.eop.model.responses.ErrorResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -9,18 +8,15 @@ import org.springframework.validation.BindingResult;
 @Slf4j
 public class ValidationUtil {
 
-  public static ResponseEntity<Map<String, Object>> handleValidationErrors(BindingResult bindingResult) {
+  public static ResponseEntity<ErrorResponse> handleValidationErrors(BindingResult bindingResult) {
     if (bindingResult.hasErrors()) {
       StringBuilder errorMessages = new StringBuilder();
       bindingResult.getAllErrors().forEach(error -> {
         errorMessages.append(error.getDefaultMessage()).append("; ");
       });
 
-      Map<String, Object> response = new HashMap<>();
-      response.put("status", "error");
-      response.put("message", "Validation failed: " + errorMessages);
       log.error("Validation failed: {}", errorMessages);
-      return ResponseEntity.badRequest().body(response);
+      return ResponseEntity.badRequest().body(ErrorResponse.of("Validation failed: " + errorMessages));
     }
     return null;
   }
@@ -0,0 +1,163 @@
+package com.lws.oms.eop.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Three replicas in one JVM, each behind a small HTTP server that stands in for the
+ * {@code /internal/cache} controller.
+ */
+class ClusterCacheProviderTest {
+
+  private static final String SECRET = "s3cret";
+
+  private final List<HttpServer> servers = new ArrayList<>();
+  private final List<ServiceCache<List<Integer>>> replicas = new ArrayList<>();
+
+  @BeforeEach
+  void startReplicas() throws IOException {
+    for (int i = 0; i < 3; i++) {
+      servers.add(HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0));
+    }
+    List<String> peers = servers.stream().map(ClusterCacheProviderTest::url).toList();
+    for (HttpServer server : servers) {
+      ClusterCacheProvider provider = new ClusterCacheProvider(new SimpleMeterRegistry(), url(server), peers, SECRET,
+          Duration.ofSeconds(1), Duration.ofMinutes(1));
+      server.createContext(ClusterCacheProvider.PATH, exchange -> serve(provider, exchange));
+      server.start();
+      replicas.add(provider.create("versions", new TypeReference<>() {
+      }, CacheSpec.entries(100, Duration.ofMinutes(5))));
+    }
+  }
+
+  @AfterEach
+  void stopReplicas() {
+    servers.forEach(server -> server.stop(0));
+  }
+
+  @Test
+  void valueLoadedOnOneReplicaIsAHitOnAllOfThem() {
+    AtomicInteger loads = new AtomicInteger();
+    List<String> keys = IntStream.range(0, 30).mapToObj(i -> "dep-" + i).toList();
+
+    for (String key : keys) {
+      replicas.get(0).get(key, () -> List.of(loads.incrementAndGet()));
+    }
+    for (String key : keys) {
+      eventually(() -> replicas.get(1).getIfPresent(key).isPresent());
+      assertThat(replicas.get(2).get(key, () -> List.of(loads.incrementAndGet()))).hasSize(1);
+    }
+
+    assertThat(loads).hasValue(keys.size());
+  }
+
+  @Test
+  void invalidationOnOneReplicaReachesEveryNearCache() {
+    replicas.get(0).put("spring-kafka", List.of(1));
+    eventually(() -> replicas.stream().allMatch(replica -> replica.getIfPresent("spring-kafka").isPresent()));
+
+    replicas.get(1).invalidate("spring-kafka");
+
+    assertThat(replicas).allMatch(replica -> replica.getIfPresent("spring-kafka").isEmpty());
+  }
+
+  @Test
+  void prefixInvalidationDropsOnlyMatchingKeys() {
+    replicas.get(0).put("shrsu/a/main#u1", List.of(1));
+    replicas.get(0).put("shrsu/a/main#u2", List.of(2));
+    replicas.get(0).put("shrsu/b/main#u1", List.of(3));
+    eventually(() -> replicas.get(2).getIfPresent("shrsu/a/main#u2").isPresent()
+        && replicas.get(2).getIfPresent("shrsu/b/main#u1").isPresent());
+
+    replicas.get(2).invalidatePrefix("shrsu/a/main#");
+
+    assertThat(replicas).allMatch(replica -> replica.getIfPresent("shrsu/a/main#u1").isEmpty()
+        && replica.getIfPresent("shrsu/a/main#u2").isEmpty());
+    assertThat(replicas.get(1).getIfPresent("shrsu/b/main#u1")).contains(List.of(3));
+  }
+
+  @Test
+  void unreachableOwnerIsAMiss() {
+    servers.get(1).stop(0);
+    servers.get(2).stop(0);
+
+    List<Integer> value = IntStream.range(0, 20)
+        .mapToObj(i -> replicas.get(0).get("dep-" + i, () -> List.of(7)))
+        .reduce((first, second) -> second)
+        .orElseThrow();
+
+    assertThat(value).containsExactly(7);
+  }
+
+  /**
+   * Stores reach their owner asynchronously.
+   */
+  private static void eventually(BooleanSupplier condition) {
+    long giveUp = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (!condition.getAsBoolean() && System.nanoTime() < giveUp) {
+      LockSupport.parkNanos(10_000_000);
+    }
+    assertThat(condition.getAsBoolean()).isTrue();
+  }
+
+  private static void serve(ClusterCacheProvider provider, HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!provider.authorized(exchange.getRequestHeaders().getFirst(ClusterCacheProvider.SECRET_HEADER))) {
+        exchange.sendResponseHeaders(403, -1);
+        return;
+      }
+      String[] path = exchange.getRequestURI().getPath().substring(ClusterCacheProvider.PATH.length() + 1).split("/");
+      Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+      if (path.length == 2) {
+        provider.evict(path[0], query.get("key"), query.get("prefix"));
+        exchange.sendResponseHeaders(204, -1);
+      } else if ("PUT".equals(exchange.getRequestMethod())) {
+        provider.write(path[0], query.get("key"), exchange.getRequestBody().readAllBytes());
+        exchange.sendResponseHeaders(204, -1);
+      } else {
+        Optional<byte[]> value = provider.read(path[0], query.get("key"));
+        if (value.isEmpty()) {
+          exchange.sendResponseHeaders(404, -1);
+          return;
+        }
+        exchange.sendResponseHeaders(200, value.get().length);
+        exchange.getResponseBody().write(value.get());
+      }
+    }
+  }
+
+  private static Map<String, String> query(String raw) {
+    Map<String, String> parameters = new HashMap<>();
+    for (String pair : raw.split("&")) {
+      String[] parts = pair.split("=", 2);
+      parameters.put(parts[0], URLDecoder.decode(parts[1], StandardCharsets.UTF_8));
+    }
+    return parameters;
+  }
+
+  private static String url(HttpServer server) {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+}
@@ -0,0 +1,85 @@
+package com.lws.oms.eop.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lws.oms.eop.exception.ResourceNotFoundException;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+class NotFoundCacheTest {
+
+  private static final String REPOSITORY = "shrsu/blog-rest-api";
+  private static final String BODY = "{\"type\":\"error\",\"error\":{\"message\":\"No such file or directory: pom.xml\"}}";
+
+  private final NotFoundCache cache = new NotFoundCache(new LocalCacheProvider(new SimpleMeterRegistry()),
+      Duration.ofMinutes(1));
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @Test
+  void repeatedMissingFileFailsLikeTheFirstWithoutCallingUpstream() {
+    Supplier<String> missingFile = () -> {
+      calls.incrementAndGet();
+      Request request = Request.create(Request.HttpMethod.GET, "https://api.bitbucket.org/2.0/src/abc/pom.xml",
+          Map.of(), null, StandardCharsets.UTF_8, null);
+      throw new FeignException.NotFound("[404 Not Found]", request, BODY.getBytes(StandardCharsets.UTF_8), Map.of());
+    };
+
+    assertThatThrownBy(() -> cache.get(REPOSITORY, "file:abc:pom.xml", "Basic a", missingFile))
+        .isInstanceOf(FeignException.NotFound.class);
+    assertThatThrownBy(() -> cache.get(REPOSITORY, "file:abc:pom.xml", "Basic a", missingFile))
+        .isInstanceOfSatisfying(FeignException.NotFound.class, e -> {
+          assertThat(e.status()).isEqualTo(404);
+          assertThat(e.contentUTF8()).isEqualTo(BODY);
+          assertThat(e.request().url()).endsWith("/src/abc/pom.xml");
+        });
+
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  void missesAreRememberedPerCallerAndDroppedWithTheirRepository() {
+    Supplier<String> missingBranch = () -> {
+      calls.incrementAndGet();
+      throw new ResourceNotFoundException("Branch not found: feature/x");
+    };
+
+    for (int i = 0; i < 3; i++) {
+      assertThatThrownBy(() -> cache.get(REPOSITORY, "branch:feature/x", "Basic a", missingBranch))
+          .isInstanceOf(ResourceNotFoundException.class)
+          .hasMessage("Branch not found: feature/x");
+    }
+    assertThat(calls).hasValue(1);
+
+    assertThatThrownBy(() -> cache.get(REPOSITORY, "branch:feature/x", "Basic b", missingBranch));
+    assertThat(calls).hasValue(2);
+
+    cache.invalidateRepository("shrsu/blog-rest-api-2");
+    assertThatThrownBy(() -> cache.get(REPOSITORY, "branch:feature/x", "Basic a", missingBranch));
+    assertThat(calls).hasValue(2);
+
+    cache.invalidateRepository(REPOSITORY);
+    assertThat(cache.get(REPOSITORY, "branch:feature/x", "Basic a", () -> "0a1b")).isEqualTo("0a1b");
+  }
+
+  @Test
+  void otherFailuresAreNotRemembered() {
+    Supplier<String> unavailable = () -> {
+      calls.incrementAndGet();
+      throw new IllegalStateException("503");
+    };
+
+    assertThatThrownBy(() -> cache.get(REPOSITORY, "repository", "Basic a", unavailable));
+    assertThatThrownBy(() -> cache.get(REPOSITORY, "repository", "Basic a", unavailable));
+
+    assertThat(calls).hasValue(2);
+  }
+
+}
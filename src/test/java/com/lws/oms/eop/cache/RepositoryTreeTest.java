@@ -0,0 +1,49 @@
+package com.lws.oms.eop.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RepositoryTreeTest {
+
+  private final RepositoryTree tree = new RepositoryTree(List.of(
+      "pom.xml",
+      "README.md",
+      "api/pom.xml",
+      "api/src/main/resources/application.yml",
+      "core/impl/pom.xml",
+      "core/pom.xml",
+      "core/src/test/resources/pom.xml"));
+
+  @Test
+  void findsFilesByNameUnderPrefixNearestFirst() {
+    assertThat(tree.find("pom.xml", "")).containsExactly(
+        "pom.xml", "api/pom.xml", "core/pom.xml", "core/impl/pom.xml", "core/src/test/resources/pom.xml");
+    assertThat(tree.find("pom.xml", "core/")).containsExactly(
+        "core/pom.xml", "core/impl/pom.xml", "core/src/test/resources/pom.xml");
+    assertThat(tree.find("application.yml", "api")).containsExactly("api/src/main/resources/application.yml");
+  }
+
+  @Test
+  void matchesNamesSpanningDirectoriesAndNothingOutsideThePrefix() {
+    assertThat(tree.find("impl/pom.xml", null)).containsExactly("core/impl/pom.xml");
+    assertThat(tree.find("resources/application.yml", "core")).isEmpty();
+    assertThat(tree.find("pom.xml", "missing")).isEmpty();
+    // A directory is not a file, whatever its name.
+    assertThat(tree.find("src", "")).isEmpty();
+    assertThat(tree.contains("core/impl/pom.xml")).isTrue();
+    assertThat(tree.contains("core/impl")).isFalse();
+  }
+
+  @Test
+  void roundTripsAsItsPathList() throws Exception {
+    ObjectMapper json = new ObjectMapper();
+    RepositoryTree copy = json.readValue(json.writeValueAsString(tree), RepositoryTree.class);
+
+    assertThat(copy.paths()).isEqualTo(tree.paths()).hasSize(7);
+    assertThat(copy.find("pom.xml", "api")).containsExactly("api/pom.xml");
+  }
+
+}
@@ -0,0 +1,117 @@
+package com.lws.oms.eop.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SegmentStoreTest {
+
+  private static final int SEGMENT = 4096;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void returnsStoredValuesAndMissesOthers() throws IOException {
+    try (SegmentStore store = open(1 << 20)) {
+      store.put("shrsu/a@1:pom.xml", bytes("<project/>"));
+      store.put("shrsu/a@2:pom.xml", bytes(""));
+
+      assertThat(read(store, "shrsu/a@1:pom.xml")).contains("<project/>");
+      assertThat(read(store, "shrsu/a@2:pom.xml")).contains("");
+      assertThat(read(store, "shrsu/a@3:pom.xml")).isEmpty();
+      assertThat(store.stats().hits()).isEqualTo(2);
+      assertThat(store.stats().misses()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void reopenedStoreServesEarlierValuesOnceWarmedUp() throws IOException {
+    try (SegmentStore store = open(1 << 20)) {
+      store.put("shrsu/a@1:pom.xml", bytes("first"));
+      store.put("shrsu/b@1:pom.xml", bytes("second"));
+    }
+
+    try (SegmentStore store = open(1 << 20)) {
+      assertThat(read(store, "shrsu/a@1:pom.xml")).isEmpty();
+      store.warmUp();
+      assertThat(read(store, "shrsu/a@1:pom.xml")).contains("first");
+      assertThat(read(store, "shrsu/b@1:pom.xml")).contains("second");
+    }
+  }
+
+  @Test
+  void tornRecordEndsTheSegmentOnWarmUp() throws IOException {
+    String first = "shrsu/a@1:pom.xml";
+    try (SegmentStore store = open(1 << 20)) {
+      store.put(first, bytes("intact"));
+      store.put("shrsu/a@2:pom.xml", bytes("torn"));
+      store.put("shrsu/a@3:pom.xml", bytes("after"));
+    }
+    int second = 16 + first.length() + "intact".length();
+    try (FileChannel channel = FileChannel.open(directory.resolve("0000000000.seg"), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {'X'}), second + 16 + "shrsu/a@2:pom.xml".length());
+    }
+
+    try (SegmentStore store = open(1 << 20)) {
+      store.warmUp();
+      assertThat(read(store, first)).contains("intact");
+      assertThat(read(store, "shrsu/a@2:pom.xml")).isEmpty();
+      assertThat(read(store, "shrsu/a@3:pom.xml")).isEmpty();
+    }
+  }
+
+  @Test
+  void evictsTheLeastRecentlyReadSegmentWhenOverBudget() throws IOException, InterruptedException {
+    // Three records per segment.
+    byte[] value = new byte[1300];
+    try (SegmentStore store = open(3 * SEGMENT)) {
+      for (int i = 0; i < 3; i++) {
+        store.put("cold-" + i, value);
+      }
+      for (int i = 0; i < 3; i++) {
+        store.put("hot-" + i, value);
+      }
+      Thread.sleep(5);
+      assertThat(store.get("hot-0")).isPresent();
+
+      for (int i = 0; i < 6; i++) {
+        store.put("new-" + i, value);
+      }
+
+      assertThat(store.stats().evictions()).isEqualTo(1);
+      assertThat(store.get("cold-0")).isEmpty();
+      assertThat(store.get("hot-0")).isPresent();
+      assertThat(store.get("new-5")).isPresent();
+    }
+  }
+
+  @Test
+  void directoryIsOwnedByOneStore() throws IOException {
+    try (SegmentStore store = open(1 << 20)) {
+      assertThat(SegmentStore.open(directory, SEGMENT, 1 << 20, 1024)).isEmpty();
+    }
+    SegmentStore.open(directory, SEGMENT, 1 << 20, 1024).orElseThrow().close();
+  }
+
+  private SegmentStore open(long maxBytes) throws IOException {
+    return SegmentStore.open(directory, SEGMENT, maxBytes, 1024).orElseThrow();
+  }
+
+  private static Optional<String> read(SegmentStore store, String key) {
+    return store.get(key).map(value -> StandardCharsets.UTF_8.decode(value).toString());
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,143 @@
+package com.lws.oms.eop.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.lws.oms.eop.simulator.SimulatorConfig;
+import com.lws.oms.eop.simulator.UpstreamSimulator;
+import jakarta.servlet.http.Cookie;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Bulk responses in the format the client asks for, and gzip-compressed when large JSON. MockMvc
+ * bypasses the servlet container, so compression, which Tomcat applies, is checked over a real
+ * connection.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+class ContentNegotiationTest {
+
+  private static final String AUTH_TOKEN = "dGVzdDp0ZXN0";
+  private static final String REPOSITORIES = """
+      {"repoList":[
+        {"projectName":"SHRSU","repoSlug":"service-000"},
+        {"projectName":"SHRSU","repoSlug":"service-001"},
+        {"projectName":"SHRSU","repoSlug":"service-002"},
+        {"projectName":"SHRSU","repoSlug":"service-003"}]}
+      """;
+
+  private static UpstreamSimulator simulator;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @LocalServerPort
+  private int port;
+
+  @BeforeAll
+  static void startSimulator() throws IOException {
+    simulator = new UpstreamSimulator(SimulatorConfig.builder()
+        .repositories(4)
+        .branchesPerRepository(20)
+        .modulesPerRepository(0)
+        .pomLines(40)
+        .build());
+  }
+
+  @AfterAll
+  static void stopSimulator() {
+    simulator.close();
+  }
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    String journal = Files.createTempDirectory("content-negotiation-test").resolve("rollouts.jsonl").toString();
+    registry.add("bitbucket.api.base-url", simulator::baseUrl);
+    registry.add("mavencentral.api.base-url", simulator::baseUrl);
+    registry.add("rollout.journal.enabled", () -> "true");
+    registry.add("rollout.journal.path", () -> journal);
+    registry.add("file-cache.disk.enabled", () -> "false");
+  }
+
+  @Test
+  void answersInSmileWhenAskedFor() throws Exception {
+    JsonNode body = getBranches(MediaType.valueOf("application/x-jackson-smile"), new SmileMapper());
+
+    assertThat(body.get("succeeded").asInt()).isEqualTo(4);
+  }
+
+  @Test
+  void answersInCborWhenAskedFor() throws Exception {
+    JsonNode body = getBranches(MediaType.valueOf("application/cbor"), new CBORMapper());
+
+    assertThat(body.get("succeeded").asInt()).isEqualTo(4);
+  }
+
+  @Test
+  void compressesALargeJsonResponse() throws Exception {
+    HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/bitbucket/getBranches"))
+        .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+        .header("Accept", MediaType.APPLICATION_JSON_VALUE)
+        .header("Accept-Encoding", "gzip")
+        .header("Cookie", "auth_token=" + AUTH_TOKEN)
+        .timeout(Duration.ofSeconds(10))
+        .POST(HttpRequest.BodyPublishers.ofString(REPOSITORIES))
+        .build();
+
+    HttpResponse<InputStream> response = HttpClient.newHttpClient()
+        .send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+        type -> assertThat(MediaType.valueOf(type).isCompatibleWith(MediaType.APPLICATION_JSON)).isTrue());
+    assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+    try (InputStream body = new GZIPInputStream(response.body())) {
+      assertThat(new ObjectMapper().readTree(body).get("succeeded").asInt()).isEqualTo(4);
+    }
+  }
+
+  private JsonNode getBranches(MediaType accept, ObjectMapper reader) throws Exception {
+    MvcResult started = mockMvc.perform(post("/bitbucket/getBranches")
+            .cookie(new Cookie("auth_token", AUTH_TOKEN))
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(accept)
+            .content(REPOSITORIES))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    started.getAsyncResult(10_000);
+    MvcResult result = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(accept))
+        .andReturn();
+    return reader.readTree(result.getResponse().getContentAsByteArray());
+  }
+
+}
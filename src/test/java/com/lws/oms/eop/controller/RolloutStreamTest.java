@@ -0,0 +1,148 @@
+package com.lws.oms.eop.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lws.oms.eop.simulator.SimulatorConfig;
+import com.lws.oms.eop.simulator.UpstreamSimulator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * {@code POST /bitbucket/rollouts} streams one line per repository as soon as that repository is
+ * done, while the others are still running, and a repository that fails does not end the stream.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RolloutStreamTest {
+
+  private static final ObjectMapper JSON = new ObjectMapper();
+  private static final String END_OF_STREAM = "";
+
+  private static UpstreamSimulator simulator;
+
+  @LocalServerPort
+  private int port;
+
+  @BeforeAll
+  static void startSimulator() throws IOException {
+    simulator = new UpstreamSimulator(SimulatorConfig.builder()
+        .repositories(3)
+        .branchesPerRepository(1)
+        .modulesPerRepository(0)
+        .pomLines(40)
+        .build());
+  }
+
+  @AfterAll
+  static void stopSimulator() {
+    simulator.close();
+  }
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    String journal = Files.createTempDirectory("rollout-stream-test").resolve("rollouts.jsonl").toString();
+    registry.add("bitbucket.api.base-url", simulator::baseUrl);
+    registry.add("mavencentral.api.base-url", simulator::baseUrl);
+    registry.add("rollout.journal.enabled", () -> "true");
+    registry.add("rollout.journal.path", () -> journal);
+    registry.add("file-cache.disk.enabled", () -> "false");
+  }
+
+  @Test
+  void streamsEachRepositoryAsItCompletesAndKeepsStreamingAfterAFailure() throws Exception {
+    simulator.hold("service-002");
+    try {
+      BlockingQueue<String> lines = stream("""
+          {"repoList":[
+            {"projectName":"SHRSU","repoSlug":"service-000"},
+            {"projectName":"SHRSU","repoSlug":"no-such-repo"},
+            {"projectName":"SHRSU","repoSlug":"service-001"},
+            {"projectName":"SHRSU","repoSlug":"service-002"}],
+           "baseBranch":"main","branchName":"bump-spring-kafka","dependency":"spring-kafka",
+           "version":"9.9.9","commitMessage":"Bump spring-kafka","prTitle":"Bump spring-kafka"}
+          """);
+
+      // Everything but the held repository arrives while that one is still running.
+      Map<String, JsonNode> early = Stream.of(next(lines), next(lines), next(lines))
+          .collect(Collectors.toMap(line -> line.path("repoSlug").asText(), Function.identity()));
+      assertThat(early).containsOnlyKeys("service-000", "service-001", "no-such-repo");
+      assertThat(early.get("service-000").path("status").asText()).isEqualTo("success");
+      assertThat(early.get("service-000").path("stage").asText()).isEqualTo("done");
+      assertThat(early.get("service-001").path("status").asText()).isEqualTo("success");
+      assertThat(early.get("no-such-repo").path("status").asText()).isEqualTo("error");
+      assertThat(early.get("no-such-repo").path("stage").asText()).isEqualTo("edit");
+      assertThat(lines.poll(300, TimeUnit.MILLISECONDS)).isNull();
+
+      simulator.release("service-002");
+      JsonNode last = next(lines);
+      assertThat(last.path("repoSlug").asText()).isEqualTo("service-002");
+      assertThat(last.path("status").asText()).isEqualTo("success");
+      assertThat(lines.poll(10, TimeUnit.SECONDS)).isEqualTo(END_OF_STREAM);
+    } finally {
+      simulator.release("service-002");
+    }
+    assertThat(simulator.fleet().repository("service-002").branches()).containsKey("bump-spring-kafka");
+  }
+
+  /**
+   * Sends the rollout and hands back its lines as they arrive, then {@link #END_OF_STREAM}.
+   */
+  private BlockingQueue<String> stream(String body) throws Exception {
+    HttpResponse<InputStream> response = HttpClient.newHttpClient().send(
+        HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/bitbucket/rollouts"))
+            .header("Content-Type", "application/json")
+            .header("Cookie", "auth_token=dGVzdDp0ZXN0")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build(),
+        HttpResponse.BodyHandlers.ofInputStream());
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+        type -> assertThat(type).startsWith("application/x-ndjson"));
+
+    BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    Thread.ofVirtual().start(() -> {
+      try (BufferedReader reader = new BufferedReader(
+          new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+          if (!line.isBlank()) {
+            lines.add(line);
+          }
+        }
+      } catch (IOException e) {
+        lines.add("{\"readError\":\"" + e.getMessage() + "\"}");
+      }
+      lines.add(END_OF_STREAM);
+    });
+    return lines;
+  }
+
+  private static JsonNode next(BlockingQueue<String> lines) throws Exception {
+    String line = lines.poll(10, TimeUnit.SECONDS);
+    assertThat(line).as("next streamed line").isNotNull().isNotEqualTo(END_OF_STREAM);
+    return JSON.readTree(line);
+  }
+
+}
@@ -0,0 +1,135 @@
+package com.lws.oms.eop.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.lws.oms.eop.simulator.SimulatorConfig;
+import com.lws.oms.eop.simulator.UpstreamSimulator;
+import jakarta.servlet.http.Cookie;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * The {@code Server-Timing} header of a plain endpoint and of a bulk endpoint that completes
+ * asynchronously, whose header is written on the async dispatch with the fan-out's timings.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ServerTimingAdviceTest {
+
+  private static final Pattern ENTRY = Pattern.compile("([\\w-]+);dur=([\\d.]+)(?:;desc=\"([^\"]*)\")?");
+
+  private static UpstreamSimulator simulator;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @BeforeAll
+  static void startSimulator() throws IOException {
+    simulator = new UpstreamSimulator(SimulatorConfig.builder()
+        .repositories(2)
+        .branchesPerRepository(3)
+        .modulesPerRepository(0)
+        .pomLines(40)
+        .build());
+  }
+
+  @AfterAll
+  static void stopSimulator() {
+    simulator.close();
+  }
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    String journal = Files.createTempDirectory("server-timing-test").resolve("rollouts.jsonl").toString();
+    registry.add("bitbucket.api.base-url", simulator::baseUrl);
+    registry.add("mavencentral.api.base-url", simulator::baseUrl);
+    registry.add("rollout.journal.enabled", () -> "true");
+    registry.add("rollout.journal.path", () -> journal);
+    registry.add("file-cache.disk.enabled", () -> "false");
+  }
+
+  @Test
+  void synchronousResponseReportsNoUpstreamWork() throws Exception {
+    MvcResult result = mockMvc.perform(get("/admin/scheduler"))
+        .andExpect(status().isOk())
+        .andReturn();
+
+    Map<String, String[]> entries = entries(result.getResponse().getHeader(ServerTimingAdvice.SERVER_TIMING));
+    assertThat(entries).containsOnlyKeys("queue", "upstream", "upstream-max", "app");
+    assertThat(entries.get("queue")[1]).isEqualTo("max wait");
+    assertThat(entries.get("upstream")).containsExactly("0.0", "0 calls");
+    assertThat(Double.parseDouble(entries.get("app")[0])).isGreaterThanOrEqualTo(0);
+  }
+
+  @Test
+  void asynchronousResponseReportsTheFanOut() throws Exception {
+    simulator.hold("service-001");
+    CompletableFuture.delayedExecutor(1, TimeUnit.SECONDS).execute(() -> simulator.release("service-001"));
+
+    MvcResult started = mockMvc.perform(post("/bitbucket/getBranches")
+            .param(ServerTimingAdvice.TIMING_PARAMETER, "true")
+            .cookie(new Cookie("auth_token", "dGVzdDp0ZXN0"))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                {"repoList":[
+                  {"projectName":"SHRSU","repoSlug":"service-000"},
+                  {"projectName":"SHRSU","repoSlug":"service-001"}]}
+                """))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    started.getAsyncResult(10_000);
+    MvcResult result = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.succeeded").value(2))
+        .andExpect(jsonPath("$._timing.upstreamCalls").isNumber())
+        .andExpect(jsonPath("$._timing.serializationMillis").isNumber())
+        .andReturn();
+
+    Map<String, String[]> entries = entries(result.getResponse().getHeader(ServerTimingAdvice.SERVER_TIMING));
+    assertThat(entries).containsOnlyKeys("queue", "upstream", "upstream-max", "repo", "app");
+    assertThat(entries.get("upstream")[1]).matches("[1-9]\\d* calls");
+    assertThat(Double.parseDouble(entries.get("upstream-max")[0])).isPositive();
+    assertThat(entries.get("repo")[1]).isEqualTo("SHRSU/service-001");
+    double slowestRepository = Double.parseDouble(entries.get("repo")[0]);
+    assertThat(slowestRepository).isGreaterThanOrEqualTo(Double.parseDouble(entries.get("upstream-max")[0]));
+    assertThat(Double.parseDouble(entries.get("app")[0])).isGreaterThanOrEqualTo(slowestRepository);
+  }
+
+  /**
+   * Header entries by name, each as its duration and description.
+   */
+  private static Map<String, String[]> entries(String header) {
+    assertThat(header).isNotNull();
+    Map<String, String[]> entries = new LinkedHashMap<>();
+    for (String entry : header.split(", ")) {
+      Matcher matcher = ENTRY.matcher(entry);
+      assertThat(matcher.matches()).as("entry %s", entry).isTrue();
+      entries.put(matcher.group(1), new String[] {matcher.group(2), matcher.group(3)});
+    }
+    return entries;
+  }
+
+}
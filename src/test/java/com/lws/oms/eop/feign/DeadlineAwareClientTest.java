@@ -0,0 +1,94 @@
+package com.lws.oms.eop.feign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lws.oms.eop.exception.DeadlineExceededException;
+import com.lws.oms.eop.scheduling.CallerContext;
+import com.lws.oms.eop.scheduling.PriorityClass;
+import com.lws.oms.eop.scheduling.RequestDeadline;
+import com.lws.oms.eop.scheduling.RequestTimings;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class DeadlineAwareClientTest {
+
+  private static final Request.Options DEFAULTS =
+      new Request.Options(10, TimeUnit.SECONDS, 60, TimeUnit.SECONDS, true);
+
+  private final List<Request.Options> upstreamCalls = new ArrayList<>();
+  private final DeadlineAwareClient client = new DeadlineAwareClient((request, options) -> {
+    upstreamCalls.add(options);
+    return Response.builder().status(200).request(request).headers(Map.of()).build();
+  });
+
+  @Test
+  void callsPastTheDeadlineFailWithoutReachingUpstream() {
+    assertThatThrownBy(() -> execute(client, RequestDeadline.after(Duration.ZERO)))
+        .isInstanceOf(DeadlineExceededException.class);
+
+    RequestDeadline cancelled = RequestDeadline.after(Duration.ofMinutes(1));
+    cancelled.cancel();
+    assertThatThrownBy(() -> execute(client, cancelled))
+        .isInstanceOf(DeadlineExceededException.class);
+
+    assertThat(upstreamCalls).isEmpty();
+  }
+
+  @Test
+  void clampsTheTimeoutsToWhatIsLeftOfTheDeadline() throws Exception {
+    execute(client, RequestDeadline.after(Duration.ofSeconds(2)));
+
+    assertThat(upstreamCalls).singleElement().satisfies(options -> {
+      assertThat(options.readTimeoutMillis()).isPositive().isLessThanOrEqualTo(2_000);
+      assertThat(options.connectTimeoutMillis()).isPositive().isLessThanOrEqualTo(2_000);
+      assertThat(options.isFollowRedirects()).isTrue();
+    });
+  }
+
+  @Test
+  void leavesTheOptionsAloneWhenTheDeadlineIsFurtherOff() throws Exception {
+    execute(client, RequestDeadline.NONE);
+    execute(client, RequestDeadline.after(Duration.ofMinutes(5)));
+
+    assertThat(upstreamCalls).containsExactly(DEFAULTS, DEFAULTS);
+  }
+
+  @Test
+  void reportsATimeoutThatRanIntoTheDeadlineAsSuch() {
+    Client timingOut = (request, options) -> {
+      try {
+        Thread.sleep(options.readTimeoutMillis() == DEFAULTS.readTimeoutMillis() ? 0 : options.readTimeoutMillis() + 10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      throw new SocketTimeoutException("Read timed out");
+    };
+
+    assertThatThrownBy(() -> execute(new DeadlineAwareClient(timingOut), RequestDeadline.after(Duration.ofMillis(50))))
+        .isInstanceOf(DeadlineExceededException.class);
+    assertThatThrownBy(() -> execute(new DeadlineAwareClient(timingOut), RequestDeadline.NONE))
+        .isInstanceOf(SocketTimeoutException.class);
+  }
+
+  private static Response execute(Client client, RequestDeadline deadline) throws Exception {
+    CallerContext context =
+        new CallerContext("test", "user", PriorityClass.INTERACTIVE, "/test", deadline, RequestTimings.NONE);
+    return context.bind(() -> client.execute(request(), DEFAULTS)).call();
+  }
+
+  private static Request request() {
+    return Request.create(Request.HttpMethod.GET, "http://localhost/x", Map.of(), null, StandardCharsets.UTF_8,
+        null);
+  }
+
+}
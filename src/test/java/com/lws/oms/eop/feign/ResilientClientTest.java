@@ -0,0 +1,73 @@
+package com.lws.oms.eop.feign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lws.oms.eop.exception.UpstreamUnavailableException;
+import feign.Client;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Target;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ResilientClientTest {
+
+  private final AtomicInteger upstreamCalls = new AtomicInteger();
+  private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+      .slidingWindowSize(4)
+      .minimumNumberOfCalls(4)
+      .failureRateThreshold(50)
+      .waitDurationInOpenState(Duration.ofMinutes(1))
+      .build());
+
+  @Test
+  void serverErrorsOpenTheCircuitAndLaterCallsFailWithoutReachingUpstream() throws Exception {
+    Client failing = (request, options) -> {
+      upstreamCalls.incrementAndGet();
+      return Response.builder().status(503).request(request).headers(Map.of()).build();
+    };
+    ResilientClient client = new ResilientClient(failing, circuitBreakers, BulkheadRegistry.ofDefaults());
+
+    for (int i = 0; i < 4; i++) {
+      assertThat(client.execute(request("bitbucketClient"), new Request.Options()).status()).isEqualTo(503);
+    }
+
+    assertThat(circuitBreakers.circuitBreaker("bitbucketClient").getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThatThrownBy(() -> client.execute(request("bitbucketClient"), new Request.Options()))
+        .isInstanceOf(UpstreamUnavailableException.class);
+    assertThat(upstreamCalls).hasValue(4);
+
+    // Other upstreams are isolated from the open circuit.
+    client.execute(request("mavenCentralClient"), new Request.Options());
+    assertThat(upstreamCalls).hasValue(5);
+  }
+
+  @Test
+  void clientErrorsDoNotCountAsFailures() throws Exception {
+    Client notFound = (request, options) -> Response.builder().status(404).request(request).headers(Map.of()).build();
+    ResilientClient client = new ResilientClient(notFound, circuitBreakers, BulkheadRegistry.ofDefaults());
+
+    for (int i = 0; i < 8; i++) {
+      client.execute(request("bitbucketClient"), new Request.Options());
+    }
+
+    assertThat(circuitBreakers.circuitBreaker("bitbucketClient").getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  private static Request request(String clientName) {
+    RequestTemplate template = new RequestTemplate();
+    template.feignTarget(new Target.HardCodedTarget<>(Object.class, clientName, "http://localhost"));
+    return Request.create(Request.HttpMethod.GET, "http://localhost/x", Map.of(), null, StandardCharsets.UTF_8,
+        template);
+  }
+
+}
@@ -0,0 +1,126 @@
+package com.lws.oms.eop.feign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Feign;
+import feign.FeignException;
+import feign.RequestLine;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the retry and hedging policies against a local stub that injects the faults seen from
+ * Bitbucket: a burst of 503s, and the occasional request that hangs.
+ */
+class UpstreamRetryTest {
+
+  interface Upstream {
+    @RequestLine("GET /flaky")
+    String flakyRead();
+
+    @RequestLine("POST /flaky-write")
+    String flakyWrite();
+
+    @RequestLine("GET /sometimes-slow")
+    String sometimesSlowRead();
+  }
+
+  private final AtomicInteger flakyReads = new AtomicInteger();
+  private final AtomicInteger flakyWrites = new AtomicInteger();
+  private final AtomicInteger slowReads = new AtomicInteger();
+  private HttpServer server;
+  private String baseUrl;
+
+  @BeforeEach
+  void startStub() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.createContext("/flaky", exchange -> respond(exchange, flakyReads.incrementAndGet() <= 2 ? 503 : 200));
+    server.createContext("/flaky-write", exchange -> {
+      flakyWrites.incrementAndGet();
+      respond(exchange, 503);
+    });
+    server.createContext("/sometimes-slow", exchange -> {
+      if (slowReads.incrementAndGet() == 101) {
+        sleep(Duration.ofSeconds(3));
+      }
+      respond(exchange, 200);
+    });
+    server.start();
+    baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  @AfterEach
+  void stopStub() {
+    server.stop(0);
+  }
+
+  @Test
+  void transientGatewayErrorsOnReadsAreRetried() {
+    Upstream upstream = upstream(new Client.Default(null, null));
+
+    assertThat(upstream.flakyRead()).isEqualTo("ok");
+    assertThat(flakyReads).hasValue(3);
+  }
+
+  @Test
+  void writesAreNeverRetried() {
+    Upstream upstream = upstream(new Client.Default(null, null));
+
+    assertThatThrownBy(upstream::flakyWrite)
+        .isInstanceOfSatisfying(FeignException.class, e -> assertThat(e.status()).isEqualTo(503));
+    assertThat(flakyWrites).hasValue(1);
+  }
+
+  @Test
+  void hedgedReadAnswersWhileTheFirstAttemptHangs() {
+    Upstream upstream = upstream(new HedgingClient(new Client.Default(null, null), 100));
+    for (int i = 0; i < 100; i++) {
+      upstream.sometimesSlowRead();
+    }
+
+    long start = System.nanoTime();
+    assertThat(upstream.sometimesSlowRead()).isEqualTo("ok");
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    assertThat(slowReads).hasValue(102);
+  }
+
+  private Upstream upstream(Client client) {
+    return Feign.builder()
+        .client(client)
+        .retryer(new DeadlineBoundedRetryer(3, Duration.ofMillis(1), Duration.ofMillis(5)))
+        .errorDecoder(new IdempotentReadErrorDecoder())
+        .target(Upstream.class, baseUrl);
+  }
+
+  private static void respond(HttpExchange exchange, int status) throws IOException {
+    byte[] body = (status == 200 ? "ok" : "{\"error\":{\"message\":\"upstream unavailable\"}}")
+        .getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static void sleep(Duration duration) {
+    try {
+      Thread.sleep(duration);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
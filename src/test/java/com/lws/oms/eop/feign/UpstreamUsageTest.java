@@ -0,0 +1,122 @@
+package com.lws.oms.eop.feign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lws.oms.eop.scheduling.CallerContext;
+import com.lws.oms.eop.scheduling.PriorityClass;
+import com.lws.oms.eop.scheduling.RequestDeadline;
+import com.lws.oms.eop.scheduling.RequestTimings;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import org.junit.jupiter.api.Test;
+
+class UpstreamUsageTest {
+
+  private final MutableClock clock = new MutableClock();
+  private final UpstreamUsage usage = new UpstreamUsage(Duration.ofMinutes(60), 60, clock);
+
+  @Test
+  void attributesCallsToEndpointsUsersAndRequests() {
+    calls("bitbucketClient", caller("r1", "alice", "/bitbucket/createCommits"), 7);
+    calls("bitbucketClient", caller("r2", "bob", "/bitbucket/createCommits"), 2);
+    calls("bitbucketUiClient", caller("r3", "bob", "/bitbucket/getPullRequestBuilds"), 4);
+
+    UpstreamUsage.Report report = usage.report(2);
+
+    assertThat(report.calls()).isEqualTo(13);
+    assertThat(report.callsByClient()).containsEntry("bitbucketClient", 9L).containsEntry("bitbucketUiClient", 4L);
+    assertThat(report.endpoints()).containsExactly(
+        new UpstreamUsage.EndpointUsage("/bitbucket/createCommits", 2, 9, 4.5, 7),
+        new UpstreamUsage.EndpointUsage("/bitbucket/getPullRequestBuilds", 1, 4, 4.0, 4));
+    assertThat(report.topUsers()).extracting(UpstreamUsage.UserUsage::userKey).containsExactly("alice", "bob");
+    assertThat(report.topUsers().get(1).calls()).isEqualTo(6);
+    assertThat(report.topRequests()).extracting(UpstreamUsage.RequestUsage::requestId).containsExactly("r1", "r3");
+  }
+
+  @Test
+  void requestSpanningBucketsIsCountedOnce() {
+    CallerContext caller = caller("r1", "alice", "/bitbucket/getFileContents");
+    calls("bitbucketClient", caller, 3);
+    clock.advance(Duration.ofMinutes(1));
+    calls("bitbucketClient", caller, 2);
+
+    UpstreamUsage.Report report = usage.report(10);
+
+    assertThat(report.endpoints()).containsExactly(
+        new UpstreamUsage.EndpointUsage("/bitbucket/getFileContents", 1, 5, 5.0, 5));
+  }
+
+  @Test
+  void callersReusingARequestIdKeepSeparateTallies() {
+    calls("bitbucketClient", caller("same-id", "alice", "/bitbucket/createCommits"), 7);
+    calls("bitbucketClient", caller("same-id", "bob", "/bitbucket/createCommits"), 2);
+    calls("bitbucketClient", caller("same-id", "bob", "/bitbucket/getBranches"), 1);
+
+    UpstreamUsage.Report report = usage.report(10);
+
+    assertThat(report.endpoints()).containsExactly(
+        new UpstreamUsage.EndpointUsage("/bitbucket/createCommits", 2, 9, 4.5, 7),
+        new UpstreamUsage.EndpointUsage("/bitbucket/getBranches", 1, 1, 1.0, 1));
+    assertThat(report.topUsers()).containsExactly(
+        new UpstreamUsage.UserUsage("alice", 1, 7),
+        new UpstreamUsage.UserUsage("bob", 2, 3));
+    assertThat(report.topRequests()).containsExactly(
+        new UpstreamUsage.RequestUsage("same-id", "/bitbucket/createCommits", "alice", 7),
+        new UpstreamUsage.RequestUsage("same-id", "/bitbucket/createCommits", "bob", 2),
+        new UpstreamUsage.RequestUsage("same-id", "/bitbucket/getBranches", "bob", 1));
+  }
+
+  @Test
+  void callsOlderThanTheWindowDropOut() {
+    calls("bitbucketClient", caller("old", "alice", "/bitbucket/getBranches"), 5);
+    clock.advance(Duration.ofMinutes(30));
+    calls("bitbucketClient", caller("new", "bob", "/bitbucket/getBranches"), 1);
+
+    assertThat(usage.report(10).calls()).isEqualTo(6);
+
+    clock.advance(Duration.ofMinutes(31));
+    calls("bitbucketClient", caller("newer", "bob", "/bitbucket/getBranches"), 1);
+
+    UpstreamUsage.Report report = usage.report(10);
+    assertThat(report.calls()).isEqualTo(2);
+    assertThat(report.topRequests()).extracting(UpstreamUsage.RequestUsage::requestId)
+        .containsExactlyInAnyOrder("new", "newer");
+  }
+
+  private void calls(String client, CallerContext caller, int count) {
+    for (int i = 0; i < count; i++) {
+      usage.record(client, caller);
+    }
+  }
+
+  private static CallerContext caller(String requestId, String user, String endpoint) {
+    return new CallerContext(requestId, user, PriorityClass.INTERACTIVE, endpoint, RequestDeadline.NONE,
+        RequestTimings.NONE);
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant now = Instant.parse("2025-01-01T10:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneId.of("UTC");
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+
+}
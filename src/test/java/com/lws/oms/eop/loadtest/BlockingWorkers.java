@@ -0,0 +1,52 @@
+package com.lws.oms.eop.loadtest;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+/**
+ * Puts the bulk endpoints back into blocking mode for comparison: while {@link #enabled}, the
+ * Tomcat worker that started an async request waits until its result is set, as it did when the
+ * controller joined the fan-out on the worker. The async dispatch that writes the response still
+ * happens once the worker is released.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+class BlockingWorkers {
+
+  static volatile boolean enabled;
+
+  @Bean
+  FilterRegistrationBean<Filter> blockingWorkersFilter() {
+    FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>(BlockingWorkers::holdWorker);
+    registration.setDispatcherTypes(DispatcherType.REQUEST);
+    return registration;
+  }
+
+  private static void holdWorker(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    chain.doFilter(request, response);
+    if (!enabled || !request.isAsyncStarted()) {
+      return;
+    }
+    // Waiting for completion would deadlock: Tomcat only dispatches once this thread returns.
+    WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager((HttpServletRequest) request);
+    try {
+      while (!asyncManager.hasConcurrentResult()) {
+        Thread.sleep(1);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
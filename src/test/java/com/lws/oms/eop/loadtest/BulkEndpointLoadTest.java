@@ -0,0 +1,108 @@
+package com.lws.oms.eop.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lws.oms.eop.simulator.LatencyModel;
+import com.lws.oms.eop.simulator.SimulatorConfig;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Throughput and latency of the bulk endpoints against a realistic Bitbucket, a failing one and a
+ * rate-limited one. Tomcat gets only {@value #WORKER_THREADS} workers to show that bulk requests do
+ * not hold one while their repositories are fetched.
+ */
+@Import(BlockingWorkers.class)
+@TestPropertySource(properties = "server.tomcat.threads.max=" + BulkEndpointLoadTest.WORKER_THREADS)
+class BulkEndpointLoadTest extends LoadTestSupport {
+
+  static final int WORKER_THREADS = 8;
+
+  private static final LatencyModel BITBUCKET = LatencyModel.logNormal(Duration.ofMillis(25), Duration.ofMillis(250));
+
+  @Test
+  void branchListing() throws Exception {
+    ScenarioResult result = run(new Scenario("branches", "/bitbucket/getBranches", 16,
+        FLEET.toBuilder().latency(BITBUCKET).build(), branches(10)));
+
+    assertThat(result.errorResponses()).isZero();
+    assertThat(result.failedItems()).isZero();
+  }
+
+  @Test
+  void fileContents() throws Exception {
+    ScenarioResult result = run(new Scenario("file-contents", "/bitbucket/getFileContents", 16,
+        FLEET.toBuilder().latency(BITBUCKET).build(), fileContents(5)));
+
+    assertThat(result.errorResponses()).isZero();
+    assertThat(result.failedItems()).isZero();
+  }
+
+  @Test
+  void commits() throws Exception {
+    ScenarioResult result = run(new Scenario("commits", "/bitbucket/createCommits", 8,
+        FLEET.toBuilder().latency(BITBUCKET).build(), commits(4)));
+
+    assertThat(result.errorResponses()).isZero();
+  }
+
+  /**
+   * Gateway errors on reads are retried within the deadline; few items should fail.
+   */
+  @Test
+  void buildStatusesWithGatewayErrors() throws Exception {
+    ScenarioResult result = run(new Scenario("build-statuses-5pct-503", "/bitbucket/getCommitBuildStatuses", 16,
+        FLEET.toBuilder().latency(BITBUCKET).serverErrorRate(0.05).serverErrorStatuses(List.of(502, 503)).build(),
+        commitStatuses(10)));
+
+    assertThat(result.errorResponses()).isZero();
+    assertThat(result.upstream().responsesByStatus()).containsKey(503);
+  }
+
+  @Test
+  void branchListingUnderRateLimit() throws Exception {
+    ScenarioResult result = run(new Scenario("branches-rate-limited-200rps", "/bitbucket/getBranches", 16,
+        FLEET.toBuilder().latency(BITBUCKET).rateLimitPerSecond(200).build(), branches(10)));
+
+    assertThat(result.errorResponses()).isZero();
+  }
+
+  /**
+   * The same slow-tail profile {@link HedgedReadsLoadTest} runs with hedging on, for comparison.
+   */
+  @Test
+  void branchListingWithSlowTail() throws Exception {
+    run(new Scenario(HedgedReadsLoadTest.SLOW_TAIL, "/bitbucket/getBranches", 16,
+        FLEET.toBuilder().latency(HedgedReadsLoadTest.SLOW_TAIL_LATENCY).build(), branches(1)));
+  }
+
+  /**
+   * The same load with each worker held until its repositories answered ({@link BlockingWorkers})
+   * and without: blocking caps the requests waiting on Bitbucket at the worker count, while with
+   * the fan-out running off the worker more of them are in flight than there are workers.
+   */
+  @Test
+  void bulkRequestsInFlightExceedWorkerThreadsOnlyWhenNotBlocking() throws Exception {
+    SimulatorConfig upstream = FLEET.toBuilder().latency(LatencyModel.fixed(Duration.ofMillis(250))).build();
+    ScenarioResult blocking;
+    BlockingWorkers.enabled = true;
+    try {
+      blocking = run(new Scenario("in-flight-vs-workers-blocking", "/bitbucket/getBranches", 128, upstream,
+          branches(1)));
+    } finally {
+      BlockingWorkers.enabled = false;
+    }
+    ScenarioResult async = run(new Scenario("in-flight-vs-workers-async", "/bitbucket/getBranches", 128, upstream,
+        branches(1)));
+
+    assertThat(blocking.errorResponses()).isZero();
+    assertThat(async.errorResponses()).isZero();
+    assertThat(blocking.upstream().peakInFlight()).isLessThanOrEqualTo(WORKER_THREADS);
+    assertThat(async.upstream().peakInFlight()).isGreaterThan(WORKER_THREADS);
+    assertThat(async.perSecond()).isGreaterThan(blocking.perSecond() * 1.5);
+  }
+
+}
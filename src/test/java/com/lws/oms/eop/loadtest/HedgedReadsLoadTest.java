@@ -0,0 +1,29 @@
+package com.lws.oms.eop.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lws.oms.eop.simulator.LatencyModel;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Single-repository branch listings against a Bitbucket whose p99 is forty times its median, with
+ * hedged reads on. Compare with the same scenario in {@link BulkEndpointLoadTest}, where hedging is off.
+ */
+@TestPropertySource(properties = "upstream.hedging.enabled=true")
+class HedgedReadsLoadTest extends LoadTestSupport {
+
+  static final String SLOW_TAIL = "branches-slow-tail";
+  static final LatencyModel SLOW_TAIL_LATENCY = LatencyModel.logNormal(Duration.ofMillis(25), Duration.ofSeconds(1));
+
+  @Test
+  void hedgingCutsTheTail() throws Exception {
+    ScenarioResult result = run(new Scenario(SLOW_TAIL, "/bitbucket/getBranches", 16,
+        FLEET.toBuilder().latency(SLOW_TAIL_LATENCY).build(), branches(1)));
+
+    assertThat(result.errorResponses()).isZero();
+    assertThat(result.p99Millis()).isLessThan(1000);
+  }
+
+}
@@ -0,0 +1,237 @@
+package com.lws.oms.eop.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lws.oms.eop.simulator.Fleet;
+import com.lws.oms.eop.simulator.SimulatorConfig;
+import com.lws.oms.eop.simulator.UpstreamSimulator;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Drives the bulk endpoints of a running application against an {@link UpstreamSimulator} with a
+ * fixed number of closed-loop clients, and reports throughput and latency percentiles per scenario
+ * to stdout and {@code target/load-tests/report.txt}.
+ *
+ * <p>Tagged {@code load} and left out of the default build; run with {@code mvn -Pload-tests test}.
+ * {@code -Dload.duration=30s} and {@code -Dload.warmup=5s} lengthen each measurement.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "logging.level.com.lws.oms.eop=OFF",
+    "management.tracing.sampling.probability=0"
+})
+abstract class LoadTestSupport {
+
+  protected static final SimulatorConfig FLEET = SimulatorConfig.builder()
+      .repositories(200)
+      .branchesPerRepository(25)
+      .modulesPerRepository(2)
+      .pomLines(400)
+      .build();
+
+  protected record Scenario(String name, String endpoint, int clients, SimulatorConfig upstream,
+      Supplier<String> body) {
+  }
+
+  protected record ScenarioResult(String name, int clients, long requests, double seconds, double perSecond,
+      double p50Millis, double p99Millis, double maxMillis, long errorResponses, long failedItems,
+      UpstreamSimulator.Stats upstream) {
+  }
+
+  private static final Duration WARMUP = Duration.parse("PT" + System.getProperty("load.warmup", "2s"));
+  private static final Duration DURATION = Duration.parse("PT" + System.getProperty("load.duration", "10s"));
+  private static final Path REPORT = Path.of("target", "load-tests", "report.txt");
+  private static final ObjectMapper JSON = new ObjectMapper();
+
+  protected static UpstreamSimulator simulator;
+
+  private final HttpClient client = HttpClient.newBuilder()
+      .executor(Executors.newVirtualThreadPerTaskExecutor())
+      .version(HttpClient.Version.HTTP_1_1)
+      .build();
+
+  @LocalServerPort
+  private int port;
+
+  @BeforeAll
+  static void startSimulator() throws IOException {
+    simulator = new UpstreamSimulator(FLEET);
+  }
+
+  @AfterAll
+  static void stopSimulator() {
+    simulator.close();
+  }
+
+  @DynamicPropertySource
+  static void upstreams(DynamicPropertyRegistry registry) throws IOException {
+    String journal = Files.createTempDirectory("load-test").resolve("rollouts.jsonl").toString();
+    registry.add("bitbucket.api.base-url", simulator::baseUrl);
+    registry.add("mavencentral.api.base-url", simulator::baseUrl);
+    registry.add("rollout.journal.enabled", () -> "true");
+    registry.add("rollout.journal.path", () -> journal);
+    registry.add("file-cache.disk.enabled", () -> "false");
+  }
+
+  protected ScenarioResult run(Scenario scenario) throws Exception {
+    simulator.configure(scenario.upstream());
+    drive(scenario, WARMUP);
+    simulator.resetStats();
+    ScenarioResult result = drive(scenario, DURATION);
+    report(getClass().getSimpleName(), result);
+    return result;
+  }
+
+  private ScenarioResult drive(Scenario scenario, Duration duration) throws Exception {
+    URI uri = URI.create("http://127.0.0.1:" + port + scenario.endpoint());
+    LongAdder errorResponses = new LongAdder();
+    LongAdder failedItems = new LongAdder();
+    long start = System.nanoTime();
+    long end = start + duration.toNanos();
+
+    List<Future<long[]>> clients = new ArrayList<>(scenario.clients());
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < scenario.clients(); i++) {
+        clients.add(executor.submit(() -> {
+          long[] latencies = new long[1024];
+          int count = 0;
+          while (System.nanoTime() < end) {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .header("Cookie", "auth_token=bG9hZDp0ZXN0")
+                .POST(HttpRequest.BodyPublishers.ofString(scenario.body().get()))
+                .build();
+            long sent = System.nanoTime();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (count == latencies.length) {
+              latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - sent;
+            if (response.statusCode() != 200) {
+              errorResponses.increment();
+            } else {
+              JsonNode failed = JSON.readTree(response.body()).path("failed");
+              failedItems.add(failed.asLong());
+            }
+          }
+          return Arrays.copyOf(latencies, count);
+        }));
+      }
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    long[] all = new long[0];
+    for (Future<long[]> latencies : clients) {
+      long[] more = latencies.get();
+      int at = all.length;
+      all = Arrays.copyOf(all, at + more.length);
+      System.arraycopy(more, 0, all, at, more.length);
+    }
+    Arrays.sort(all);
+    return new ScenarioResult(scenario.name(), scenario.clients(), all.length, seconds, all.length / seconds,
+        percentile(all, 0.50), percentile(all, 0.99), all.length == 0 ? 0 : all[all.length - 1] / 1e6,
+        errorResponses.sum(), failedItems.sum(), simulator.stats());
+  }
+
+  private static double percentile(long[] sorted, double quantile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(quantile * sorted.length) - 1;
+    return sorted[Math.max(0, index)] / 1e6;
+  }
+
+  private static synchronized void report(String suite, ScenarioResult result) throws IOException {
+    String line = String.format(
+        "%-22s %-28s clients=%-4d requests=%-6d rps=%-8.1f p50=%-8.1f p99=%-8.1f max=%-8.1f "
+            + "non200=%-4d failedItems=%-5d upstreamCalls=%-6d upstreamPeakInFlight=%-4d upstreamStatuses=%s",
+        suite, result.name(), result.clients(), result.requests(), result.perSecond(), result.p50Millis(),
+        result.p99Millis(), result.maxMillis(), result.errorResponses(), result.failedItems(),
+        result.upstream().calls(), result.upstream().peakInFlight(), result.upstream().responsesByStatus());
+    System.out.println(line);
+    Files.createDirectories(REPORT.getParent());
+    Files.writeString(REPORT, Instant.now() + " " + line + System.lineSeparator(), StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  protected static Supplier<String> branches(int repositories) {
+    return () -> "{\"repoList\":" + repositoryList(repositories) + "}";
+  }
+
+  protected static Supplier<String> fileContents(int repositories) {
+    return () -> {
+      List<String> files = new ArrayList<>();
+      for (String slug : randomSlugs(repositories)) {
+        files.add("{\"repositoryInfo\":" + repository(slug) + ",\"fileName\":\"pom.xml\"}");
+        files.add("{\"repositoryInfo\":" + repository(slug) + ",\"fileName\":\"pom.xml\",\"searchPath\":\"module-0\"}");
+      }
+      return "{\"branchName\":\"main\",\"files\":[" + String.join(",", files) + "]}";
+    };
+  }
+
+  protected static Supplier<String> commitStatuses(int repositories) {
+    return () -> {
+      List<String> items = new ArrayList<>();
+      for (String slug : randomSlugs(repositories)) {
+        String head = simulator.fleet().repository(slug).head(Fleet.MAIN);
+        items.add("{\"repository\":" + repository(slug) + ",\"commitHash\":\"" + head + "\"}");
+      }
+      return "{\"requestItems\":[" + String.join(",", items) + "]}";
+    };
+  }
+
+  protected static Supplier<String> commits(int repositories) {
+    return () -> {
+      List<String> items = new ArrayList<>();
+      for (String slug : randomSlugs(repositories)) {
+        items.add("{\"repositoryInfo\":" + repository(slug) + ",\"fileName\":\"pom.xml\","
+            + "\"commitMessage\":\"Load test\",\"content\":[\"<project/>\"]}");
+      }
+      return "{\"branch\":\"feature/JIRA-1\",\"commitInfoList\":[" + String.join(",", items) + "]}";
+    };
+  }
+
+  private static String repositoryList(int repositories) {
+    return "[" + String.join(",", randomSlugs(repositories).stream().map(LoadTestSupport::repository).toList()) + "]";
+  }
+
+  private static List<String> randomSlugs(int count) {
+    int first = ThreadLocalRandom.current().nextInt(FLEET.getRepositories());
+    List<String> slugs = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      slugs.add(Fleet.slug((first + i) % FLEET.getRepositories()));
+    }
+    return slugs;
+  }
+
+  private static String repository(String slug) {
+    return "{\"projectName\":\"SHRSU\",\"repoSlug\":\"" + slug + "\"}";
+  }
+
+}
@@ -0,0 +1,161 @@
+package com.lws.oms.eop.replay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lws.oms.eop.simulator.Fleet;
+import com.lws.oms.eop.simulator.LatencyModel;
+import com.lws.oms.eop.simulator.SimulatorConfig;
+import com.lws.oms.eop.simulator.UpstreamSimulator;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Records the trace {@link TraceReplayRegressionTest} replays, against the {@link UpstreamSimulator}
+ * standing in for staging: three rounds of every bulk endpoint plus {@code /dependencies}, starting
+ * from empty caches. Only runs when asked to, since it overwrites the committed trace:
+ * <pre>
+ * mvn test -Dtest=BulkEndpointTraceRecording -Dreplay.record=true
+ * mvn test -Dtest=TraceReplayRegressionTest -Dreplay.update-baseline=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "replay.record", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "logging.level.com.lws.oms.eop=WARN",
+    "upstream.recording.enabled=true"
+})
+class BulkEndpointTraceRecording {
+
+  private static final Path TRACE_SOURCE = Path.of("src/test/resources/replay/bulk-endpoints.trace.jsonl");
+  private static final List<String> SLUGS = List.of("service-000", "service-001", "service-002", "service-003");
+  private static final String AUTH = "auth_token=cmVwbGF5OnJlcGxheQ==";
+
+  private static UpstreamSimulator simulator;
+
+  private final HttpClient client = HttpClient.newHttpClient();
+
+  @LocalServerPort
+  private int port;
+
+  @BeforeAll
+  static void startSimulator() throws IOException {
+    simulator = new UpstreamSimulator(SimulatorConfig.builder()
+        .repositories(SLUGS.size())
+        .branchesPerRepository(3)
+        .modulesPerRepository(1)
+        .pomLines(40)
+        .latency(LatencyModel.logNormal(Duration.ofMillis(35), Duration.ofMillis(150)))
+        .build());
+    for (String slug : List.of("service-000", "service-003")) {
+      simulator.fleet().openPullRequest(simulator.fleet().repository(slug), "feature/JIRA-1", Fleet.MAIN);
+    }
+  }
+
+  @AfterAll
+  static void stopSimulator() {
+    simulator.close();
+  }
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    String journal = Files.createTempDirectory("trace-recording").resolve("rollouts.jsonl").toString();
+    Files.deleteIfExists(TRACE_SOURCE);
+    registry.add("bitbucket.api.base-url", simulator::baseUrl);
+    registry.add("mavencentral.api.base-url", simulator::baseUrl);
+    registry.add("rollout.journal.enabled", () -> "true");
+    registry.add("rollout.journal.path", () -> journal);
+    registry.add("file-cache.disk.enabled", () -> "false");
+    registry.add("upstream.recording.path", () -> TRACE_SOURCE.toAbsolutePath().toString());
+  }
+
+  @Test
+  void recordThreeRounds() throws Exception {
+    for (int round = 0; round < 3; round++) {
+      send("POST", "/bitbucket/getBranches", "{\"repoList\":" + repositories(SLUGS) + "}");
+      send("POST", "/bitbucket/getApplications", "{\"projectName\":\"SHRSU\"}");
+      send("POST", "/bitbucket/getFileContents", fileContents());
+      send("POST", "/bitbucket/createCommits", commits(round));
+      send("POST", "/bitbucket/getCommitBuildStatuses", commitStatuses("service-000", "service-002"));
+      send("POST", "/bitbucket/getPullRequestBuilds", """
+          {"requestItems":[
+            {"repository":{"projectName":"SHRSU","repoSlug":"service-000"},"prId":1},
+            {"repository":{"projectName":"SHRSU","repoSlug":"service-003"},"prId":1}]}""");
+      send("POST", "/bitbucket/updateDependencyVersion", "{\"repoList\":"
+          + repositories(List.of("service-002", "service-003"))
+          + ",\"branchName\":\"feature/JIRA-2\",\"dependency\":\"spring-kafka\",\"version\":\"1." + (round + 1)
+          + ".0\"}");
+      send("GET", "/dependencies/spring-kafka", null);
+    }
+  }
+
+  private void send(String method, String path, String body) throws Exception {
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+        .header("Cookie", AUTH);
+    if (body == null) {
+      request.method(method, HttpRequest.BodyPublishers.noBody());
+    } else {
+      request.header("Content-Type", "application/json").method(method, HttpRequest.BodyPublishers.ofString(body));
+    }
+    HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    assertThat(response.statusCode()).as(path + ": " + response.body()).isEqualTo(200);
+    Thread.sleep(100);
+  }
+
+  private static String repositories(List<String> slugs) {
+    return slugs.stream()
+        .map(BulkEndpointTraceRecording::repository)
+        .collect(Collectors.joining(",", "[", "]"));
+  }
+
+  private static String repository(String slug) {
+    return "{\"projectName\":\"SHRSU\",\"repoSlug\":\"" + slug + "\"}";
+  }
+
+  private static String fileContents() {
+    StringBuilder files = new StringBuilder();
+    for (String slug : SLUGS) {
+      files.append(files.isEmpty() ? "" : ",")
+          .append("{\"repositoryInfo\":").append(repository(slug)).append(",\"fileName\":\"pom.xml\"},")
+          .append("{\"repositoryInfo\":").append(repository(slug))
+          .append(",\"fileName\":\"pom.xml\",\"searchPath\":\"module-0\"}");
+    }
+    return "{\"branchName\":\"main\",\"files\":[" + files + "]}";
+  }
+
+  private static String commits(int round) {
+    return "{\"branch\":\"feature/JIRA-1\",\"commitInfoList\":["
+        + "{\"repositoryInfo\":" + repository("service-000") + ",\"fileName\":\"pom.xml\",\"commitMessage\":\"Bump "
+        + round + "\",\"content\":[\"<project>" + round + "</project>\"]},"
+        + "{\"repositoryInfo\":" + repository("service-000")
+        + ",\"fileName\":\"pom.xml\",\"searchPath\":\"module-0\",\"commitMessage\":\"Bump " + round
+        + "\",\"content\":[\"<project>m" + round + "</project>\"]},"
+        + "{\"repositoryInfo\":" + repository("service-001") + ",\"fileName\":\"pom.xml\",\"commitMessage\":\"Bump "
+        + round + "\",\"content\":[\"<project>" + round + "</project>\"]}]}";
+  }
+
+  private static String commitStatuses(String... slugs) {
+    StringBuilder items = new StringBuilder();
+    for (String slug : slugs) {
+      items.append(items.isEmpty() ? "" : ",")
+          .append("{\"repository\":").append(repository(slug))
+          .append(",\"commitHash\":\"").append(simulator.fleet().repository(slug).head(Fleet.MAIN)).append("\"}");
+    }
+    return "{\"requestItems\":[" + items + "]}";
+  }
+
+}
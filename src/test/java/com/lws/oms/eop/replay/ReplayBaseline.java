@@ -0,0 +1,68 @@
+package com.lws.oms.eop.replay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What a replay of a trace cost per endpoint, as stored next to the trace and as measured now.
+ *
+ * @param speed     replay speed-up the latencies were measured at
+ * @param endpoints per API endpoint, keyed by path
+ */
+record ReplayBaseline(double speed, Map<String, Endpoint> endpoints) {
+
+  /**
+   * @param upstreamCallsPerRequest counted on a replay against empty caches
+   * @param p50Millis               measured on a replay once the service is warm
+   */
+  record Endpoint(int requests, double upstreamCallsPerRequest, double p50Millis) {
+  }
+
+  /**
+   * Latency may grow by this factor plus {@link #LATENCY_SLACK_MILLIS} before it counts as a regression.
+   */
+  static final double LATENCY_TOLERANCE = 1.5;
+  static final double LATENCY_SLACK_MILLIS = 50;
+
+  /**
+   * The upstream calls of this replay with the latencies of {@code warm}, a later replay of the
+   * same trace.
+   */
+  ReplayBaseline withLatenciesOf(ReplayBaseline warm) {
+    Map<String, Endpoint> combined = new TreeMap<>();
+    endpoints.forEach((path, cold) -> {
+      Endpoint latency = warm.endpoints().get(path);
+      combined.put(path, new Endpoint(cold.requests(), cold.upstreamCallsPerRequest(),
+          latency != null ? latency.p50Millis() : cold.p50Millis()));
+    });
+    return new ReplayBaseline(speed, combined);
+  }
+
+  /**
+   * Ways {@code measured} is worse than this baseline. Any extra upstream call per request is a
+   * regression; latency only when measured at the same speed, beyond the tolerance.
+   */
+  List<String> regressionsIn(ReplayBaseline measured) {
+    List<String> regressions = new ArrayList<>();
+    endpoints.forEach((path, expected) -> {
+      Endpoint actual = measured.endpoints().get(path);
+      if (actual == null) {
+        regressions.add(path + ": not replayed");
+        return;
+      }
+      if (actual.upstreamCallsPerRequest() > expected.upstreamCallsPerRequest() + 1e-9) {
+        regressions.add(String.format("%s: upstream calls per request rose from %.2f to %.2f",
+            path, expected.upstreamCallsPerRequest(), actual.upstreamCallsPerRequest()));
+      }
+      if (measured.speed() == speed
+          && actual.p50Millis() > expected.p50Millis() * LATENCY_TOLERANCE + LATENCY_SLACK_MILLIS) {
+        regressions.add(String.format("%s: p50 latency rose from %.1f ms to %.1f ms",
+            path, expected.p50Millis(), actual.p50Millis()));
+      }
+    });
+    return regressions;
+  }
+
+}
@@ -0,0 +1,116 @@
+package com.lws.oms.eop.replay;
+
+import com.lws.oms.eop.recording.TraceRecorder.TraceEntry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays the upstreams of a recorded trace. Each method and URI answers with its recorded responses
+ * in recorded order, after the recorded latency divided by the speed-up; once they run out the last
+ * one repeats, so a change that calls more often still gets answers and shows up in the counts.
+ * Calls are attributed to the endpoint of the recording they were answered from.
+ */
+class ReplayServer implements AutoCloseable {
+
+  private record Responses(List<TraceEntry> entries, AtomicInteger next) {
+  }
+
+  private final Map<String, Responses> responses = new HashMap<>();
+  private final double speed;
+  private final HttpServer server;
+  private final Map<String, LongAdder> callsByEndpoint = new ConcurrentHashMap<>();
+  private final List<String> unmatched = new CopyOnWriteArrayList<>();
+
+  ReplayServer(List<TraceEntry> upstream, double speed) throws IOException {
+    this.speed = speed;
+    for (TraceEntry entry : upstream) {
+      responses.computeIfAbsent(key(entry.method(), entry.uri()), key -> new Responses(new ArrayList<>(), new AtomicInteger()))
+          .entries().add(entry);
+    }
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  String baseUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  Map<String, Long> callsByEndpoint() {
+    Map<String, Long> calls = new TreeMap<>();
+    callsByEndpoint.forEach((endpoint, count) -> calls.put(endpoint, count.sum()));
+    return calls;
+  }
+
+  List<String> unmatched() {
+    return List.copyOf(unmatched);
+  }
+
+  /**
+   * Starts the recorded responses over and forgets the calls served so far.
+   */
+  void reset() {
+    responses.values().forEach(recorded -> recorded.next().set(0));
+    callsByEndpoint.clear();
+    unmatched.clear();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      exchange.getRequestBody().readAllBytes();
+      String query = exchange.getRequestURI().getRawQuery();
+      String uri = exchange.getRequestURI().getRawPath() + (query == null ? "" : "?" + query);
+      Responses recorded = responses.get(key(exchange.getRequestMethod(), uri));
+      if (recorded == null) {
+        unmatched.add(key(exchange.getRequestMethod(), uri));
+        send(exchange, 404, Map.of("Content-Type", "application/json"),
+            "{\"type\":\"error\",\"error\":{\"message\":\"Not in the recorded trace\"}}");
+        return;
+      }
+      List<TraceEntry> entries = recorded.entries();
+      TraceEntry entry = entries.get(Math.min(recorded.next().getAndIncrement(), entries.size() - 1));
+      callsByEndpoint.computeIfAbsent(entry.endpoint(), key -> new LongAdder()).increment();
+      Thread.sleep((long) (entry.durationMillis() / speed));
+      send(exchange, entry.status(), entry.responseHeaders(), entry.responseBody());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void send(HttpExchange exchange, int status, Map<String, String> headers, String body)
+      throws IOException {
+    byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+    if (headers != null) {
+      headers.forEach(exchange.getResponseHeaders()::add);
+    }
+    exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static String key(String method, String uri) {
+    return method + " " + uri;
+  }
+
+}
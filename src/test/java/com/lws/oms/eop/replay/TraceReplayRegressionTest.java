@@ -0,0 +1,174 @@
+package com.lws.oms.eop.replay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lws.oms.eop.recording.TraceRecorder;
+import com.lws.oms.eop.recording.TraceRecorder.TraceEntry;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Replays a recorded trace of the bulk endpoints (see {@code upstream.recording}) against the
+ * service and fails if an endpoint now makes more upstream calls per request, or got markedly
+ * slower, than the stored baseline. Inbound requests are sent at their recorded offsets and
+ * upstream answers take their recorded time, both divided by {@code -Dreplay.speed}. The trace is
+ * played twice: upstream calls are counted on the first pass, against empty caches, and latency is
+ * measured on the second, once class loading and JIT are out of the way.
+ *
+ * <p>After an intended change, re-record the trace on staging or refresh the baseline with
+ * {@code -Dreplay.update-baseline=true}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "logging.level.com.lws.oms.eop=WARN")
+class TraceReplayRegressionTest {
+
+  private static final String TRACE = "/replay/bulk-endpoints.trace.jsonl";
+  private static final String BASELINE = "/replay/bulk-endpoints.baseline.json";
+  private static final Path BASELINE_SOURCE = Path.of("src/test/resources" + BASELINE);
+  private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+  private static List<TraceEntry> inbound;
+  private static ReplayServer upstream;
+  private static ReplayBaseline baseline;
+  private static double speed;
+
+  @LocalServerPort
+  private int port;
+
+  @BeforeAll
+  static void startReplay() throws IOException {
+    List<TraceEntry> trace = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource(TRACE), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isBlank()) {
+          trace.add(JSON.readValue(line, TraceEntry.class));
+        }
+      }
+    }
+    try (InputStream in = resource(BASELINE)) {
+      baseline = JSON.readValue(in, ReplayBaseline.class);
+    }
+    speed = Double.parseDouble(System.getProperty("replay.speed", String.valueOf(baseline.speed())));
+    inbound = trace.stream().filter(entry -> TraceRecorder.INBOUND.equals(entry.type())).toList();
+    upstream = new ReplayServer(
+        trace.stream().filter(entry -> TraceRecorder.UPSTREAM.equals(entry.type())).toList(), speed);
+  }
+
+  @AfterAll
+  static void stopReplay() {
+    upstream.close();
+  }
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    String journal = Files.createTempDirectory("replay-test").resolve("rollouts.jsonl").toString();
+    registry.add("bitbucket.api.base-url", upstream::baseUrl);
+    registry.add("mavencentral.api.base-url", upstream::baseUrl);
+    registry.add("rollout.journal.enabled", () -> "true");
+    registry.add("rollout.journal.path", () -> journal);
+    registry.add("file-cache.disk.enabled", () -> "false");
+  }
+
+  @Test
+  void replayStaysWithinBaseline() throws Exception {
+    ReplayBaseline cold = replay();
+    List<String> unmatched = new ArrayList<>(upstream.unmatched());
+    upstream.reset();
+    ReplayBaseline warm = replay();
+    unmatched.addAll(upstream.unmatched());
+    ReplayBaseline measured = cold.withLatenciesOf(warm);
+
+    if (Boolean.getBoolean("replay.update-baseline")) {
+      JSON.writeValue(BASELINE_SOURCE.toFile(), measured);
+      return;
+    }
+    assertThat(unmatched).as("upstream calls not in the recorded trace").isEmpty();
+    assertThat(baseline.regressionsIn(measured)).isEmpty();
+  }
+
+  @Test
+  void extraUpstreamCallsAreRegressions() {
+    ReplayBaseline before = new ReplayBaseline(1.0, Map.of(
+        "/bitbucket/createCommits", new ReplayBaseline.Endpoint(3, 5.0, 120)));
+    ReplayBaseline branchListingPerFile = new ReplayBaseline(1.0, Map.of(
+        "/bitbucket/createCommits", new ReplayBaseline.Endpoint(3, 8.0, 130)));
+
+    assertThat(before.regressionsIn(branchListingPerFile))
+        .containsExactly("/bitbucket/createCommits: upstream calls per request rose from 5.00 to 8.00");
+  }
+
+  private ReplayBaseline replay() throws Exception {
+    HttpClient client = HttpClient.newHttpClient();
+    Map<String, List<Double>> latencies = new ConcurrentHashMap<>();
+    long firstOffset = inbound.get(0).offsetMillis();
+    long start = System.nanoTime();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (TraceEntry entry : inbound) {
+        long due = start + TimeUnit.MILLISECONDS.toNanos((long) ((entry.offsetMillis() - firstOffset) / speed));
+        executor.submit(() -> {
+          Thread.sleep(Math.max(0, (due - System.nanoTime()) / 1_000_000));
+          HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + entry.uri()))
+              .header("Cookie", "auth_token=cmVwbGF5OnJlcGxheQ==");
+          if (entry.requestBody() == null) {
+            request.method(entry.method(), HttpRequest.BodyPublishers.noBody());
+          } else {
+            request.header("Content-Type", "application/json")
+                .method(entry.method(), HttpRequest.BodyPublishers.ofString(entry.requestBody()));
+          }
+          long sent = System.nanoTime();
+          HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+          assertThat(response.statusCode()).as(entry.uri()).isEqualTo(entry.status());
+          latencies.computeIfAbsent(entry.endpoint(), key -> new CopyOnWriteArrayList<>())
+              .add((System.nanoTime() - sent) / 1e6);
+          return null;
+        });
+      }
+    }
+
+    Map<String, Long> calls = upstream.callsByEndpoint();
+    Map<String, ReplayBaseline.Endpoint> endpoints = new TreeMap<>();
+    latencies.forEach((endpoint, samples) -> {
+      List<Double> sorted = new ArrayList<>(samples);
+      Collections.sort(sorted);
+      endpoints.put(endpoint, new ReplayBaseline.Endpoint(
+          sorted.size(),
+          (double) calls.getOrDefault(endpoint, 0L) / sorted.size(),
+          Math.round(sorted.get((sorted.size() - 1) / 2) * 10) / 10.0));
+    });
+    return new ReplayBaseline(speed, endpoints);
+  }
+
+  private static InputStream resource(String name) {
+    return TraceReplayRegressionTest.class.getResourceAsStream(name);
+  }
+
+}
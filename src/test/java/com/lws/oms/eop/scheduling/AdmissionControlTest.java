@@ -0,0 +1,62 @@
+package com.lws.oms.eop.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lws.oms.eop.exception.BatchRejectedException;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class AdmissionControlTest {
+
+  private final AdmissionControl admissionControl = new AdmissionControl(2, 8, Duration.ofSeconds(2));
+
+  @Test
+  void rejectsBatchThatDoesNotFitUntilCapacityIsReleased() {
+    AdmissionControl.Permit permit = admissionControl.acquire(8);
+
+    assertThatThrownBy(() -> admissionControl.acquire(5))
+        .isInstanceOfSatisfying(BatchRejectedException.class,
+            e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(4)));
+
+    permit.close();
+    permit.close();
+    assertThat(admissionControl.acquire(5)).isNotNull();
+    assertThat(admissionControl.snapshot().reserved()).isEqualTo(5);
+    assertThat(admissionControl.snapshot().rejected()).isEqualTo(1);
+  }
+
+  @Test
+  void interactiveRequestIsAdmittedWhileAnotherUsersBulkBatchHoldsThePool() {
+    AdmissionControl fair = new AdmissionControl(2, 8, 3, 10, Duration.ofSeconds(2));
+    fair.acquire(7, "alice", PriorityClass.BULK);
+
+    assertThatThrownBy(() -> fair.acquire(1, "carol", PriorityClass.BULK))
+        .isInstanceOf(BatchRejectedException.class);
+    assertThat(fair.acquire(3, "bob", PriorityClass.INTERACTIVE)).isNotNull();
+    assertThat(fair.snapshot().reserved()).isEqualTo(10);
+    assertThat(fair.snapshot().bulkReserved()).isEqualTo(7);
+  }
+
+  @Test
+  void oneUserCannotHoldMoreThanTheirShare() {
+    AdmissionControl fair = new AdmissionControl(2, 8, 0, 6, Duration.ofSeconds(2));
+    AdmissionControl.Permit first = fair.acquire(4, "alice", PriorityClass.INTERACTIVE);
+
+    assertThatThrownBy(() -> fair.acquire(3, "alice", PriorityClass.INTERACTIVE))
+        .isInstanceOfSatisfying(BatchRejectedException.class, e -> assertThat(e.getRetryAfter()).isNotNull());
+    assertThat(fair.acquire(3, "bob", PriorityClass.INTERACTIVE)).isNotNull();
+    assertThatThrownBy(() -> fair.acquire(7, "bob", PriorityClass.INTERACTIVE))
+        .isInstanceOfSatisfying(BatchRejectedException.class, e -> assertThat(e.getRetryAfter()).isNull());
+
+    first.close();
+    assertThat(fair.acquire(3, "alice", PriorityClass.INTERACTIVE)).isNotNull();
+  }
+
+  @Test
+  void batchLargerThanCapacityCannotBeRetried() {
+    assertThatThrownBy(() -> admissionControl.acquire(11))
+        .isInstanceOfSatisfying(BatchRejectedException.class, e -> assertThat(e.getRetryAfter()).isNull());
+  }
+
+}
@@ -0,0 +1,98 @@
+package com.lws.oms.eop.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class FailFastScopeTest {
+
+  @Test
+  void failureThatShutsDownCancelsBlockedSiblings() throws Exception {
+    CountDownLatch neverReleased = new CountDownLatch(1);
+    Future<String> slow;
+    Future<String> done;
+
+    try (FailFastScope scope = new FailFastScope(4, e -> e instanceof IllegalStateException)) {
+      done = scope.fork(() -> "ok");
+      slow = scope.fork(() -> {
+        neverReleased.await();
+        return "late";
+      });
+      scope.fork(() -> {
+        throw new IllegalStateException("credentials rejected");
+      });
+    }
+
+    assertThat(done.get()).isEqualTo("ok");
+    assertThat(slow.isCancelled()).isTrue();
+  }
+
+  @Test
+  void siblingCancelledByFailureReportsThatFailure() {
+    FailFastScope scope = new FailFastScope(4, e -> e instanceof IllegalStateException);
+    Future<String> blocked = scope.fork(() -> {
+      Thread.sleep(60_000);
+      return "late";
+    });
+    scope.fork(() -> {
+      throw new IllegalStateException("credentials rejected");
+    });
+    scope.close();
+
+    assertThatThrownBy(() -> scope.resultOf(blocked))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("credentials rejected");
+  }
+
+  /**
+   * Steps forked while a sibling's failure is shutting the scope down are cancelled as well: a
+   * missed one would block forever and hang {@code close()}.
+   */
+  @Test
+  void stepsForkedDuringShutdownAreCancelled() {
+    assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+      for (int round = 0; round < 200; round++) {
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        CountDownLatch forking = new CountDownLatch(1);
+        try (FailFastScope scope = new FailFastScope(1_000, e -> e instanceof IllegalStateException)) {
+          Thread forker = Thread.ofPlatform().start(() -> {
+            forking.countDown();
+            for (int i = 0; i < 200; i++) {
+              scope.fork(() -> {
+                neverReleased.await();
+                return "late";
+              });
+            }
+          });
+          forking.await();
+          scope.fork(() -> {
+            throw new IllegalStateException("credentials rejected");
+          });
+          forker.join();
+        }
+      }
+    });
+  }
+
+  @Test
+  void itemSpecificFailureLeavesSiblingsRunning() throws Exception {
+    FailFastScope scope = new FailFastScope(4, e -> e instanceof IllegalStateException);
+    Future<String> missing = scope.fork(() -> {
+      throw new IllegalArgumentException("not found");
+    });
+    Future<String> found = scope.fork(() -> {
+      Thread.sleep(50);
+      return "content";
+    });
+    scope.close();
+
+    assertThat(scope.resultOf(found)).isEqualTo("content");
+    assertThatThrownBy(() -> scope.resultOf(missing)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+}
@@ -0,0 +1,116 @@
+package com.lws.oms.eop.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class FairShareQueueTest {
+
+  private final FairShareQueue queue = new FairShareQueue(100, 4);
+  private final List<String> ran = new ArrayList<>();
+
+  @AfterEach
+  void clearContext() {
+    CallerContext.set(null);
+  }
+
+  @Test
+  void usersInTheSameClassTakeTurns() {
+    submit("campaign", PriorityClass.INTERACTIVE, 5);
+    submit("small", PriorityClass.INTERACTIVE, 2);
+
+    drain();
+
+    assertThat(ran).containsExactly("campaign", "small", "campaign", "small", "campaign", "campaign", "campaign");
+  }
+
+  @Test
+  void interactiveWorkOvertakesBulkWithoutStarvingIt() {
+    submit("campaign", PriorityClass.BULK, 3);
+    submit("reader", PriorityClass.INTERACTIVE, 6);
+
+    drain();
+
+    assertThat(ran).containsExactly(
+        "reader", "reader", "reader", "reader", "campaign", "reader", "reader", "campaign", "campaign");
+    assertThat(queue.snapshot().users()).allSatisfy(user -> assertThat(user.queued()).isZero());
+  }
+
+  @Test
+  void weightedUsersTakeLongerTurns() {
+    FairShareQueue weighted = new FairShareQueue(100, 4, Map.of("release-bot", 3));
+    submit(weighted, "release-bot", PriorityClass.INTERACTIVE, 5);
+    submit(weighted, "small", PriorityClass.INTERACTIVE, 3);
+
+    drain(weighted);
+
+    assertThat(ran).containsExactly(
+        "release-bot", "release-bot", "release-bot", "small", "release-bot", "release-bot", "small", "small");
+  }
+
+  @Test
+  void forgetsUsersOnceTheirLastTaskLeaves() {
+    List<String> events = new ArrayList<>();
+    queue.setListener(new FairShareQueue.Listener() {
+      @Override
+      public void userQueued(String userKey) {
+        events.add("queued " + userKey);
+      }
+
+      @Override
+      public void userDrained(String userKey) {
+        events.add("drained " + userKey);
+      }
+
+      @Override
+      public void taskWaited(String userKey, PriorityClass priority, long waitNanos) {
+        events.add("ran " + userKey);
+      }
+    });
+    submit("campaign", PriorityClass.BULK, 2);
+    submit("reader", PriorityClass.INTERACTIVE, 1);
+    assertThat(queue.user("campaign")).hasValueSatisfying(user -> assertThat(user.queued()).isEqualTo(2));
+
+    drain();
+
+    assertThat(events).containsExactly(
+        "queued campaign", "queued reader", "ran reader", "drained reader", "ran campaign", "ran campaign",
+        "drained campaign");
+    assertThat(queue.snapshot().users()).isEmpty();
+    assertThat(queue.user("campaign")).isEmpty();
+  }
+
+  @Test
+  void offerFailsWhenFull() {
+    FairShareQueue small = new FairShareQueue(1, 1);
+    assertThat(small.offer(() -> { })).isTrue();
+    assertThat(small.offer(() -> { })).isFalse();
+  }
+
+  private void submit(String user, PriorityClass priority, int tasks) {
+    submit(queue, user, priority, tasks);
+  }
+
+  private void submit(FairShareQueue target, String user, PriorityClass priority, int tasks) {
+    CallerContext.set(new CallerContext("test", user, priority, "/test", RequestDeadline.NONE, RequestTimings.NONE));
+    for (int i = 0; i < tasks; i++) {
+      target.offer(() -> ran.add(user));
+    }
+  }
+
+  private void drain() {
+    drain(queue);
+  }
+
+  private void drain(FairShareQueue source) {
+    Runnable task;
+    while ((task = source.poll()) != null) {
+      task.run();
+    }
+  }
+
+}
@@ -0,0 +1,53 @@
+package com.lws.oms.eop.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lws.oms.eop.exception.DeadlineExceededException;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class RequestDeadlineTest {
+
+  @Test
+  void noDeadlineNeverExpires() {
+    assertThat(RequestDeadline.NONE.isUnbounded()).isTrue();
+    assertThat(RequestDeadline.NONE.remainingMillis()).isEqualTo(Long.MAX_VALUE);
+    assertThat(RequestDeadline.NONE.isExpired()).isFalse();
+    assertThatCode(RequestDeadline.NONE::check).doesNotThrowAnyException();
+  }
+
+  @Test
+  void countsDownTheRemainingBudget() {
+    RequestDeadline deadline = RequestDeadline.after(Duration.ofMinutes(1));
+
+    assertThat(deadline.isUnbounded()).isFalse();
+    assertThat(deadline.remainingMillis()).isBetween(59_000L, 60_000L);
+    assertThat(deadline.isExpired()).isFalse();
+    assertThatCode(deadline::check).doesNotThrowAnyException();
+  }
+
+  @Test
+  void passedDeadlineFailsTheCheck() {
+    RequestDeadline deadline = RequestDeadline.after(Duration.ZERO);
+
+    assertThat(deadline.remainingMillis()).isZero();
+    assertThat(deadline.isExpired()).isTrue();
+    assertThatThrownBy(deadline::check)
+        .isInstanceOf(DeadlineExceededException.class)
+        .hasMessage("Deadline exceeded");
+  }
+
+  @Test
+  void cancellingExpiresTheDeadlineAtOnce() {
+    RequestDeadline deadline = RequestDeadline.after(Duration.ofMinutes(1));
+    deadline.cancel();
+
+    assertThat(deadline.isExpired()).isTrue();
+    assertThatThrownBy(deadline::check)
+        .isInstanceOf(DeadlineExceededException.class)
+        .hasMessage("Request cancelled");
+  }
+
+}
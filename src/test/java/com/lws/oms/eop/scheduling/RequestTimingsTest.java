@@ -0,0 +1,34 @@
+package com.lws.oms.eop.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class RequestTimingsTest {
+
+  @Test
+  void aggregatesConcurrentRecordsWithoutLosingTheSlowest() {
+    RequestTimings timings = new RequestTimings();
+
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      IntStream.rangeClosed(1, 1000).forEach(i -> executor.execute(() -> {
+        timings.recordUpstreamCall(1_000_000);
+        timings.recordQueueWait(i * 1_000L);
+        timings.recordRepository("SHRSU/repo-" + i, i * 1_000_000L);
+      }));
+    }
+
+    RequestTimings.Report report = timings.report();
+    assertThat(report.upstreamCalls()).isEqualTo(1000);
+    assertThat(report.upstreamTotalMillis()).isEqualTo(1000.0);
+    assertThat(report.upstreamMaxMillis()).isEqualTo(1.0);
+    assertThat(report.queueWaitMaxMillis()).isEqualTo(1.0);
+    assertThat(report.slowestRepository()).isEqualTo("SHRSU/repo-1000");
+    assertThat(report.slowestRepositoryMillis()).isEqualTo(1000.0);
+    assertThat(report.serializationMillis()).isNull();
+  }
+
+}
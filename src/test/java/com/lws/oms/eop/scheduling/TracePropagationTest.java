@@ -0,0 +1,136 @@
+package com.lws.oms.eop.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * A traced request fans out onto executor threads; the Bitbucket calls made there must carry the
+ * caller's trace, and the per-repository spans must reach an OTLP collector. One local server plays
+ * both Bitbucket and the collector.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(metrics = false)
+class TracePropagationTest {
+
+  private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+  private static final List<String> upstreamTraceparents = new CopyOnWriteArrayList<>();
+  private static final List<byte[]> exportedSpans = new CopyOnWriteArrayList<>();
+  private static HttpServer server;
+
+  @LocalServerPort
+  private int port;
+
+  @BeforeAll
+  static void startStub() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.createContext("/repositories", exchange -> {
+      upstreamTraceparents.add(String.valueOf(exchange.getRequestHeaders().getFirst("traceparent")));
+      respond(exchange, "application/json", "{\"values\":[]}");
+    });
+    server.createContext("/v1/traces", exchange -> {
+      exportedSpans.add(exchange.getRequestBody().readAllBytes());
+      respond(exchange, "application/x-protobuf", "");
+    });
+    server.start();
+  }
+
+  @AfterAll
+  static void stopStub() {
+    server.stop(0);
+  }
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    String stub = "http://127.0.0.1:" + server.getAddress().getPort();
+    String journal = Files.createTempDirectory("trace-test").resolve("rollouts.jsonl").toString();
+    registry.add("bitbucket.api.base-url", () -> stub);
+    registry.add("management.otlp.tracing.endpoint", () -> stub + "/v1/traces");
+    registry.add("management.tracing.sampling.probability", () -> "1.0");
+    registry.add("rollout.journal.enabled", () -> "true");
+    registry.add("rollout.journal.path", () -> journal);
+    registry.add("file-cache.disk.enabled", () -> "false");
+  }
+
+  @Test
+  void traceFollowsRepositoryTasksIntoUpstreamCallsAndExport() throws Exception {
+    HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+            .uri(URI.create("http://127.0.0.1:" + port + "/bitbucket/getBranches"))
+            .header("Content-Type", "application/json")
+            .header("Cookie", "auth_token=dGVzdA==")
+            .header("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-01")
+            .POST(HttpRequest.BodyPublishers.ofString("""
+                {"repoList":[
+                  {"projectName":"SHRSU","repoSlug":"blog-rest-api"},
+                  {"projectName":"SHRSU","repoSlug":"expense-tracker-api"}]}"""))
+            .build(),
+        HttpResponse.BodyHandlers.ofString());
+
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(upstreamTraceparents).hasSize(2).allMatch(header -> header.startsWith("00-" + TRACE_ID + "-"));
+
+    byte[] traceId = HexFormat.of().parseHex(TRACE_ID);
+    byte[] repositorySpan = "bitbucket.repository".getBytes(StandardCharsets.UTF_8);
+    long giveUp = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+    while (!exported(traceId, repositorySpan) && System.nanoTime() < giveUp) {
+      Thread.sleep(200);
+    }
+    assertThat(exported(traceId, repositorySpan)).isTrue();
+  }
+
+  private static boolean exported(byte[] traceId, byte[] spanName) {
+    ByteArrayOutputStream all = new ByteArrayOutputStream();
+    exportedSpans.forEach(all::writeBytes);
+    byte[] payload = all.toByteArray();
+    return contains(payload, traceId) && contains(payload, spanName);
+  }
+
+  private static boolean contains(byte[] haystack, byte[] needle) {
+    outer:
+    for (int i = 0; i <= haystack.length - needle.length; i++) {
+      for (int j = 0; j < needle.length; j++) {
+        if (haystack[i + j] != needle[j]) {
+          continue outer;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private static void respond(HttpExchange exchange, String contentType, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", contentType);
+    exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+}
@@ -0,0 +1,159 @@
+package com.lws.oms.eop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.lws.oms.eop.model.RepositoryInfo;
+import com.lws.oms.eop.model.requests.UpdateDependencyVersionRequest;
+import com.lws.oms.eop.model.responses.DependencyUpdateResult;
+import com.lws.oms.eop.model.responses.PomUpdate;
+import com.lws.oms.eop.model.responses.ResultStatus;
+import com.lws.oms.eop.simulator.Fleet;
+import com.lws.oms.eop.simulator.SimulatorConfig;
+import com.lws.oms.eop.simulator.UpstreamSimulator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Updating a dependency in every POM of a repository at once: only the POMs of the build's modules
+ * are touched, only where they declare the version themselves, and all of them in one commit.
+ */
+@SpringBootTest
+class AllModulesUpdateTest {
+
+  private static final String AUTH = "Basic YWxsOm1vZHVsZXM=";
+
+  private static UpstreamSimulator simulator;
+
+  @Autowired
+  private BitBucketIntegrationService bitBucketIntegrationService;
+
+  @BeforeAll
+  static void startSimulator() throws IOException {
+    simulator = new UpstreamSimulator(SimulatorConfig.builder()
+        .repositories(2)
+        .branchesPerRepository(1)
+        .modulesPerRepository(2)
+        .pomLines(40)
+        .build());
+  }
+
+  @AfterAll
+  static void stopSimulator() {
+    simulator.close();
+  }
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    String journal = Files.createTempDirectory("all-modules-test").resolve("rollouts.jsonl").toString();
+    registry.add("bitbucket.api.base-url", simulator::baseUrl);
+    registry.add("mavencentral.api.base-url", simulator::baseUrl);
+    registry.add("rollout.journal.enabled", () -> "true");
+    registry.add("rollout.journal.path", () -> journal);
+    registry.add("file-cache.disk.enabled", () -> "false");
+  }
+
+  @BeforeEach
+  void resetStats() {
+    simulator.resetStats();
+  }
+
+  @Test
+  void updatesEveryModulePomWithOneCommitAndSkipsFixtures() throws Exception {
+    Fleet.Repository repository = simulator.fleet().repository(Fleet.slug(0));
+    simulator.fleet().createBranch(repository, "bump/kafka", repository.head(Fleet.MAIN));
+    simulator.fleet().commit(repository, "bump/kafka", Map.of(
+        "module-0/src/test/resources/fixture/pom.xml", "<project/>\n",
+        "src/main/resources/archetype-resources/pom.xml", "<project/>\n",
+        "module-0/target/classes/pom.xml", "<project/>\n"));
+    simulator.resetStats();
+
+    DependencyUpdateResult result = update(repository, "bump/kafka");
+
+    assertThat(result.status()).isEqualTo(ResultStatus.SUCCESS);
+    assertThat(result.poms()).extracting(PomUpdate::path)
+        .containsExactly("pom.xml", "module-0/pom.xml", "module-1/pom.xml");
+    assertThat(result.poms()).extracting(PomUpdate::status).containsOnly(ResultStatus.SUCCESS);
+    String head = repository.head("bump/kafka");
+    assertThat(result.commitResult()).containsEntry("hash", head);
+    for (String path : List.of(Fleet.POM, "module-0/" + Fleet.POM, "module-1/" + Fleet.POM)) {
+      assertThat(repository.file(head, path)).contains("<version>3.2.1</version>");
+    }
+    assertThat(simulator.stats().callsByRoute()).containsEntry("POST src", 1L);
+  }
+
+  @Test
+  void leavesVersionsManagedByTheParentToTheParent() throws Exception {
+    Fleet.Repository repository = simulator.fleet().repository(Fleet.slug(1));
+    simulator.fleet().createBranch(repository, "bump/managed", repository.head(Fleet.MAIN));
+    String child = """
+        <project>
+            <parent>
+                <artifactId>parent</artifactId>
+            </parent>
+            <dependencies>
+                <dependency>
+                    <groupId>org.springframework.kafka</groupId>
+                    <artifactId>spring-kafka</artifactId>
+                </dependency>
+            </dependencies>
+        </project>
+        """;
+    simulator.fleet().commit(repository, "bump/managed", Map.of(
+        Fleet.POM, """
+            <project>
+                <dependencyManagement>
+                    <dependencies>
+                        <dependency>
+                            <groupId>org.springframework.kafka</groupId>
+                            <artifactId>spring-kafka</artifactId>
+                            <version>1.0.0</version>
+                        </dependency>
+                    </dependencies>
+                </dependencyManagement>
+            </project>
+            """,
+        "module-0/" + Fleet.POM, child,
+        "module-1/" + Fleet.POM, child));
+    simulator.resetStats();
+
+    DependencyUpdateResult result = update(repository, "bump/managed");
+
+    assertThat(result.status()).isEqualTo(ResultStatus.SUCCESS);
+    assertThat(result.poms()).extracting(PomUpdate::path, PomUpdate::status).containsExactly(
+        tuple(Fleet.POM, ResultStatus.SUCCESS),
+        tuple("module-0/" + Fleet.POM, ResultStatus.FAILURE),
+        tuple("module-1/" + Fleet.POM, ResultStatus.FAILURE));
+    String head = repository.head("bump/managed");
+    assertThat(repository.file(head, Fleet.POM)).contains("<version>3.2.1</version>");
+    assertThat(repository.file(head, "module-0/" + Fleet.POM)).isEqualTo(child);
+    assertThat(repository.file(head, "module-1/" + Fleet.POM)).isEqualTo(child);
+    assertThat(simulator.stats().callsByRoute()).containsEntry("POST src", 1L);
+  }
+
+  private DependencyUpdateResult update(Fleet.Repository repository, String branch) throws Exception {
+    RepositoryInfo repoInfo = new RepositoryInfo();
+    repoInfo.setProjectName("SHRSU");
+    repoInfo.setRepoSlug(repository.slug());
+    UpdateDependencyVersionRequest request = new UpdateDependencyVersionRequest();
+    request.setRepoList(List.of(repoInfo));
+    request.setBranchName(branch);
+    request.setDependency("spring-kafka");
+    request.setVersion("3.2.1");
+    request.setAllModules(true);
+    request.setCommitMessage("Bump spring-kafka");
+    return bitBucketIntegrationService.updateDependencyVersionAsync(repoInfo, request, AUTH).get(10, TimeUnit.SECONDS);
+  }
+
+}
@@ -0,0 +1,118 @@
+package com.lws.oms.eop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lws.oms.eop.model.FileInfo;
+import com.lws.oms.eop.model.RepositoryInfo;
+import com.lws.oms.eop.model.responses.FileContentResult;
+import com.lws.oms.eop.model.responses.ResultStatus;
+import com.lws.oms.eop.simulator.Fleet;
+import com.lws.oms.eop.simulator.SimulatorConfig;
+import com.lws.oms.eop.simulator.UpstreamSimulator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Warm-up rounds against the simulator: the first reads every dependent application's pom at its
+ * repository's default branch, later ones only those of repositories whose head moved, and users
+ * then resolve the head with their own token and are served the poms from cache.
+ */
+@SpringBootTest
+class CacheWarmerTest {
+
+  private static UpstreamSimulator simulator;
+
+  @Autowired
+  private CacheWarmer cacheWarmer;
+
+  @Autowired
+  private BitbucketApiService bitbucketApiService;
+
+  @Autowired
+  private BitBucketIntegrationService bitBucketIntegrationService;
+
+  @BeforeAll
+  static void startSimulator() throws IOException {
+    simulator = new UpstreamSimulator(SimulatorConfig.builder()
+        .repositories(3)
+        .branchesPerRepository(1)
+        .modulesPerRepository(1)
+        .pomLines(40)
+        .build());
+  }
+
+  @AfterAll
+  static void stopSimulator() {
+    simulator.close();
+  }
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    String journal = Files.createTempDirectory("warmer-test").resolve("rollouts.jsonl").toString();
+    registry.add("bitbucket.api.base-url", simulator::baseUrl);
+    registry.add("mavencentral.api.base-url", simulator::baseUrl);
+    registry.add("rollout.journal.enabled", () -> "true");
+    registry.add("rollout.journal.path", () -> journal);
+    registry.add("file-cache.disk.enabled", () -> "false");
+    registry.add("dependency-config.dependencies[0].name", () -> "service-999");
+    registry.add("dependency-config.dependencies[0].group-id", () -> "com.lws.oms");
+    registry.add("dependency-config.dependencies[0].artifact-id", () -> "service-999");
+    registry.add("dependency-config.dependencies[0].dependent-applications.projects[0].name", () -> "OMS");
+    registry.add("dependency-config.dependencies[0].dependent-applications.projects[0].applications",
+        () -> "service-000,service-001,service-001/module-0");
+    registry.add("cache.warmer.auth-header", () -> "Bearer warmer");
+    registry.add("cache.warmer.initial-delay", () -> "1h");
+    registry.add("cache.warmer.calls-per-second", () -> "1000");
+  }
+
+  @Test
+  void refreshesOnlyMovedRepositoriesAndServesUsersFromCache() throws Exception {
+    simulator.resetStats();
+    cacheWarmer.warm();
+    assertThat(simulator.stats().callsByRoute())
+        .containsEntry("GET repository", 2L)
+        .containsEntry("GET refs/branches", 2L)
+        .containsEntry("GET src", 3L)
+        .containsEntry("GET solrsearch", 1L);
+
+    Fleet.Repository moved = simulator.fleet().repository("service-001");
+    String head = simulator.fleet().commit(moved, Fleet.MAIN, Map.of(Fleet.POM, "<project/>\n"));
+    simulator.resetStats();
+    cacheWarmer.warm();
+    assertThat(simulator.stats().callsByRoute())
+        .doesNotContainKey("GET repository")
+        .containsEntry("GET refs/branches", 2L)
+        .containsEntry("GET src", 2L);
+
+    // A user's read of the pom at the branch: their own head lookup, then the warmed content.
+    simulator.resetStats();
+    RepositoryInfo repository = new RepositoryInfo();
+    repository.setProjectName("OMS");
+    repository.setRepoSlug("service-001");
+    FileInfo fileInfo = new FileInfo();
+    fileInfo.setRepositoryInfo(repository);
+    fileInfo.setFileName(Fleet.POM);
+    List<FileContentResult> results = bitBucketIntegrationService
+        .getFileContentsAsync(List.of(fileInfo), Fleet.MAIN, "Bearer user").get(10, TimeUnit.SECONDS);
+
+    assertThat(results).singleElement().satisfies(result -> {
+      assertThat(result.status()).isEqualTo(ResultStatus.SUCCESS);
+      assertThat(result.content()).startsWith("<project/>");
+    });
+    assertThat(bitbucketApiService.getBranchHead(repository, Fleet.MAIN, "Bearer user")).isEqualTo(head);
+    assertThat(simulator.stats().callsByRoute())
+        .containsEntry("GET refs/branches", 1L)
+        .doesNotContainKey("GET src");
+  }
+
+}
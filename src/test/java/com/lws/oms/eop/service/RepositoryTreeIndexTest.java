@@ -0,0 +1,173 @@
+package com.lws.oms.eop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lws.oms.eop.cache.CacheProvider;
+import com.lws.oms.eop.cache.RepositoryTree;
+import com.lws.oms.eop.feign.BitbucketFeignClient;
+import com.lws.oms.eop.model.CommitInfo;
+import com.lws.oms.eop.model.RepositoryInfo;
+import com.lws.oms.eop.model.requests.CommitRequest;
+import com.lws.oms.eop.model.responses.CommitResult;
+import com.lws.oms.eop.model.responses.ResultStatus;
+import com.lws.oms.eop.simulator.Fleet;
+import com.lws.oms.eop.simulator.SimulatorConfig;
+import com.lws.oms.eop.simulator.UpstreamSimulator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * File paths to read are checked directly below the module and search path first, and otherwise
+ * found by searching the repository's tree at the commit, listed from the simulator once per
+ * commit. File paths to write are never searched for.
+ */
+@SpringBootTest
+class RepositoryTreeIndexTest {
+
+  private static UpstreamSimulator simulator;
+
+  @Autowired
+  private BitbucketApiService bitbucketApiService;
+
+  @Autowired
+  private BitBucketIntegrationService bitBucketIntegrationService;
+
+  @Autowired
+  private BitbucketFeignClient bitbucketFeignClient;
+
+  @Autowired
+  private CacheProvider cacheProvider;
+
+  @BeforeAll
+  static void startSimulator() throws IOException {
+    simulator = new UpstreamSimulator(SimulatorConfig.builder()
+        .repositories(1)
+        .branchesPerRepository(1)
+        .modulesPerRepository(3)
+        .pomLines(20)
+        .build());
+  }
+
+  @AfterAll
+  static void stopSimulator() {
+    simulator.close();
+  }
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    String journal = Files.createTempDirectory("tree-test").resolve("rollouts.jsonl").toString();
+    registry.add("bitbucket.api.base-url", simulator::baseUrl);
+    registry.add("rollout.journal.enabled", () -> "true");
+    registry.add("rollout.journal.path", () -> journal);
+    registry.add("file-cache.disk.enabled", () -> "false");
+  }
+
+  @Test
+  void findsFilesInTheTreeAtTheCommitAndListsItOnce() {
+    Fleet.Repository repository = simulator.fleet().repository(Fleet.slug(0));
+    String head = simulator.fleet().commit(repository, Fleet.MAIN, Map.of("module-1/web/pom.xml", "<project/>\n"));
+    RepositoryInfo repositoryInfo = new RepositoryInfo();
+    repositoryInfo.setProjectName("SHRSU");
+    repositoryInfo.setRepoSlug(repository.slug());
+    simulator.resetStats();
+
+    assertThat(bitbucketApiService.findFilePaths(repositoryInfo, head, Fleet.POM, "", "Bearer a"))
+        .isEqualTo(new RepositoryTree.Matches(List.of(
+            "pom.xml", "module-0/pom.xml", "module-1/pom.xml", "module-2/pom.xml", "module-1/web/pom.xml"), false));
+    // Root, the three modules and module-1/web.
+    assertThat(simulator.stats().callsByRoute()).containsEntry("GET src", 5L);
+
+    assertThat(bitbucketApiService.findFilePathByName(repositoryInfo, head, Fleet.POM, "Bearer b", "module-1", ""))
+        .isEqualTo("module-1/pom.xml");
+    assertThat(bitbucketApiService.findFilePathByName(repositoryInfo, head, Fleet.POM, "Bearer b", "module-1", "web"))
+        .isEqualTo("module-1/web/pom.xml");
+    assertThat(bitbucketApiService.findFilePathByName(repositoryInfo, head, "web/pom.xml", "Bearer b", "", ""))
+        .isEqualTo("module-1/web/pom.xml");
+    // Not in the tree: the constructed path, so that reading it reports the file as missing.
+    assertThat(bitbucketApiService.findFilePathByName(repositoryInfo, head, "build.gradle", "Bearer b", "module-2", ""))
+        .isEqualTo("module-2/build.gradle");
+    assertThat(simulator.stats().callsByRoute()).containsEntry("GET src", 5L);
+  }
+
+  @Test
+  void fileDirectlyBelowTheSearchPathIsReadWithoutListingTheTree() {
+    Fleet.Repository repository = simulator.fleet().repository(Fleet.slug(0));
+    simulator.fleet().createBranch(repository, "web", repository.head(Fleet.MAIN));
+    String head = simulator.fleet().commit(repository, "web", Map.of("module-2/web/pom.xml", "<project/>\n"));
+    RepositoryInfo repositoryInfo = repositoryInfo(repository);
+    simulator.resetStats();
+
+    assertThat(bitbucketApiService.findFilePathByName(repositoryInfo, head, Fleet.POM, "Bearer a", "module-2", ""))
+        .isEqualTo("module-2/pom.xml");
+    assertThat(bitbucketApiService.getFileContent(repositoryInfo, head, "module-2/pom.xml", "Bearer a")).isNotEmpty();
+    // One read of the file, which the lookup left cached for the read after it.
+    assertThat(simulator.stats().callsByRoute()).containsEntry("GET src", 1L);
+
+    // Not directly below: a failed read, then the root and the four module directories.
+    assertThat(bitbucketApiService.findFilePathByName(repositoryInfo, head, "web/pom.xml", "Bearer a", "", ""))
+        .isEqualTo("module-2/web/pom.xml");
+    assertThat(simulator.stats().callsByRoute()).containsEntry("GET src", 1L + 1 + 5);
+  }
+
+  @Test
+  void treeCutOffAtMaxDirectoriesIsTruncatedAndNotCached() {
+    Fleet.Repository repository = simulator.fleet().repository(Fleet.slug(0));
+    String head = simulator.fleet().commit(repository, Fleet.MAIN, Map.of("README.md", "truncated\n"));
+    RepositoryInfo repositoryInfo = repositoryInfo(repository);
+    RepositoryTreeIndex index = new RepositoryTreeIndex(bitbucketFeignClient, cacheProvider, "shrsu", 8, 2, 1000);
+    simulator.resetStats();
+
+    RepositoryTree tree = index.get(repositoryInfo, head, "Bearer a");
+
+    // The root and one of the module directories.
+    assertThat(tree.isTruncated()).isTrue();
+    assertThat(tree.match(Fleet.POM, "").truncated()).isTrue();
+    assertThat(simulator.stats().callsByRoute()).containsEntry("GET src", 2L);
+    assertThat(index.getIfIndexed(repositoryInfo, head)).isEmpty();
+    index.get(repositoryInfo, head, "Bearer a");
+    assertThat(simulator.stats().callsByRoute()).containsEntry("GET src", 4L);
+  }
+
+  @Test
+  void commitToAMissingFileCreatesItInsteadOfWritingToOneFurtherDown() throws Exception {
+    Fleet.Repository repository = simulator.fleet().repository(Fleet.slug(0));
+    simulator.fleet().createBranch(repository, "docs", repository.head(Fleet.MAIN));
+    simulator.fleet().commit(repository, "docs", Map.of("docs/CHANGELOG.md", "# Docs\n"));
+    CommitInfo commitInfo = new CommitInfo();
+    commitInfo.setRepositoryInfo(repositoryInfo(repository));
+    commitInfo.setFileName("CHANGELOG.md");
+    commitInfo.setCommitMessage("Add changelog");
+    commitInfo.setContent(List.of("# Changelog"));
+    CommitRequest commitRequest = new CommitRequest();
+    commitRequest.setBranch("docs");
+    commitRequest.setCommitInfoList(List.of(commitInfo));
+    simulator.resetStats();
+
+    List<CommitResult> results = bitBucketIntegrationService
+        .createCommitsAsync(List.of(commitInfo), commitRequest, "Bearer a").get(10, TimeUnit.SECONDS);
+
+    assertThat(results).extracting(CommitResult::status).containsExactly(ResultStatus.SUCCESS);
+    String head = repository.head("docs");
+    assertThat(repository.file(head, "CHANGELOG.md")).isEqualTo("# Changelog\n");
+    assertThat(repository.file(head, "docs/CHANGELOG.md")).isEqualTo("# Docs\n");
+    assertThat(simulator.stats().callsByRoute()).doesNotContainKey("GET src");
+  }
+
+  private static RepositoryInfo repositoryInfo(Fleet.Repository repository) {
+    RepositoryInfo repositoryInfo = new RepositoryInfo();
+    repositoryInfo.setProjectName("SHRSU");
+    repositoryInfo.setRepoSlug(repository.slug());
+    return repositoryInfo;
+  }
+
+}
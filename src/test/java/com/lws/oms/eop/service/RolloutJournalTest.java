@@ -0,0 +1,166 @@
+package com.lws.oms.eop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lws.oms.eop.model.RepositoryInfo;
+import com.lws.oms.eop.model.requests.RolloutRequest;
+import com.lws.oms.eop.model.responses.RolloutStage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Replaying the journal after a restart, including one whose last records never reached the disk
+ * or were cut off mid-write.
+ */
+class RolloutJournalTest {
+
+  private static final ObjectMapper JSON = Jackson2ObjectMapperBuilder.json().build();
+  private static final RepositoryInfo FIRST = repository("service-000");
+  private static final RepositoryInfo SECOND = repository("service-001");
+
+  @TempDir
+  private Path directory;
+
+  private RolloutJournal journal;
+
+  @AfterEach
+  void closeJournal() throws Exception {
+    if (journal != null) {
+      journal.close();
+    }
+  }
+
+  @Test
+  void restoresJobsAndTheLatestStepOfEachRepository() throws Exception {
+    Path path = directory.resolve("rollouts.jsonl");
+    RolloutJournal before = open(path);
+    before.recordJob(request("r1"));
+    before.recordStep("r1", FIRST, RolloutStage.EDIT, "base", "pom.xml", false, null);
+    before.recordStep("r1", FIRST, RolloutStage.BRANCH, "base", "pom.xml", false, null);
+    before.recordStep("r1", SECOND, RolloutStage.EDIT, "base", "pom.xml", true, "Nothing to change");
+    assertThat(before.awaitWritten(Duration.ofSeconds(5))).isTrue();
+    before.close();
+
+    journal = open(path);
+    RolloutJournal.RolloutJob job = journal.find("r1").orElseThrow();
+    assertThat(job.getRequest().getBranchName()).isEqualTo("bump");
+    assertThat(journal.progress("r1", FIRST).orElseThrow().stage()).isEqualTo(RolloutStage.BRANCH);
+    assertThat(journal.progress("r1", SECOND).orElseThrow().terminal()).isTrue();
+    assertThat(journal.unfinished()).extracting(j -> j.getRequest().getRolloutId()).containsExactly("r1");
+  }
+
+  @Test
+  void recoversFromLostTrailingRecordsAndATornLine() throws Exception {
+    Path path = directory.resolve("rollouts.jsonl");
+    RolloutJournal before = open(path);
+    before.recordJob(request("r1"));
+    before.recordStep("r1", FIRST, RolloutStage.EDIT, "base", "pom.xml", false, null);
+    before.recordStep("r1", FIRST, RolloutStage.BRANCH, "base", "pom.xml", false, null);
+    before.recordStep("r1", FIRST, RolloutStage.COMMIT, "base", "pom.xml", false, null);
+    assertThat(before.awaitWritten(Duration.ofSeconds(5))).isTrue();
+    before.close();
+
+    // The crash lost the commit record and cut the next append off halfway.
+    List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+    String lost = lines.remove(lines.size() - 1);
+    Files.write(path, lines, StandardCharsets.UTF_8);
+    Files.writeString(path, lost.substring(0, lost.length() / 2), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+    journal = open(path);
+    assertThat(journal.progress("r1", FIRST).orElseThrow().stage()).isEqualTo(RolloutStage.BRANCH);
+    assertThat(Files.readAllLines(path, StandardCharsets.UTF_8)).hasSize(2);
+
+    // The compacted file takes new appends and replays them.
+    journal.recordStep("r1", FIRST, RolloutStage.COMMIT, "base", "pom.xml", false, null);
+    assertThat(journal.awaitWritten(Duration.ofSeconds(5))).isTrue();
+    journal.close();
+    journal = open(path);
+    assertThat(journal.progress("r1", FIRST).orElseThrow().stage()).isEqualTo(RolloutStage.COMMIT);
+  }
+
+  @Test
+  void dropsFinishedJobsPastRetentionWhenCompacting() throws Exception {
+    Path path = directory.resolve("rollouts.jsonl");
+    RolloutJournal before = open(path);
+    before.recordJob(request("finished"));
+    before.recordStep("finished", FIRST, RolloutStage.DONE, "base", "pom.xml", true, null);
+    before.recordStep("finished", SECOND, RolloutStage.DONE, "base", "pom.xml", true, null);
+    before.recordJob(request("unfinished"));
+    assertThat(before.awaitWritten(Duration.ofSeconds(5))).isTrue();
+    before.close();
+
+    journal = new RolloutJournal(JSON, path, 512, Duration.ZERO, Duration.ofDays(2));
+    journal.open();
+    assertThat(journal.find("finished")).isEmpty();
+    assertThat(journal.find("unfinished")).isPresent();
+  }
+
+  @Test
+  void failsRepositoriesOfJobsUnfinishedPastTheirMaximumAge() throws Exception {
+    Path path = directory.resolve("rollouts.jsonl");
+    RolloutJournal before = open(path);
+    before.recordJob(request("stale"));
+    before.recordStep("stale", FIRST, RolloutStage.BRANCH, "base", "pom.xml", false, null);
+    assertThat(before.awaitWritten(Duration.ofSeconds(5))).isTrue();
+    before.close();
+
+    journal = new RolloutJournal(JSON, path, 512, Duration.ofDays(7), Duration.ZERO);
+    journal.open();
+    assertThat(journal.unfinished()).isEmpty();
+    RolloutJournal.RepoProgress first = journal.progress("stale", FIRST).orElseThrow();
+    assertThat(first.stage()).isEqualTo(RolloutStage.BRANCH);
+    assertThat(first.terminal()).isTrue();
+    assertThat(first.message()).startsWith("Rollout abandoned");
+    assertThat(journal.progress("stale", SECOND).orElseThrow().terminal()).isTrue();
+
+    // Written out by the compaction, so it stays failed across the next restart.
+    journal.close();
+    journal = open(path);
+    assertThat(journal.unfinished()).isEmpty();
+  }
+
+  @Test
+  void requiresAPathWhenEnabled() {
+    assertThatThrownBy(() -> new RolloutJournal(JSON, true, "", 512, Duration.ofDays(7), Duration.ofDays(2)))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("rollout.journal.path");
+  }
+
+  private static RolloutJournal open(Path path) throws IOException {
+    RolloutJournal journal = new RolloutJournal(JSON, path, 512, Duration.ofDays(7), Duration.ofDays(2));
+    journal.open();
+    return journal;
+  }
+
+  private static RolloutRequest request(String rolloutId) {
+    RolloutRequest request = new RolloutRequest();
+    request.setRolloutId(rolloutId);
+    request.setRepoList(List.of(FIRST, SECOND));
+    request.setBaseBranch("main");
+    request.setBranchName("bump");
+    request.setDependency("spring-kafka");
+    request.setVersion("9.9.9");
+    request.setCommitMessage("Bump spring-kafka");
+    request.setPrTitle("Bump spring-kafka");
+    return request;
+  }
+
+  private static RepositoryInfo repository(String slug) {
+    RepositoryInfo repository = new RepositoryInfo();
+    repository.setProjectName("SHRSU");
+    repository.setRepoSlug(slug);
+    return repository;
+  }
+
+}
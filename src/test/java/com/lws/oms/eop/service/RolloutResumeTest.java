@@ -0,0 +1,272 @@
+package com.lws.oms.eop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lws.oms.eop.model.RepositoryInfo;
+import com.lws.oms.eop.model.requests.RolloutRequest;
+import com.lws.oms.eop.model.responses.ResultStatus;
+import com.lws.oms.eop.model.responses.RolloutResult;
+import com.lws.oms.eop.model.responses.RolloutStage;
+import com.lws.oms.eop.scheduling.AdmissionControl;
+import com.lws.oms.eop.simulator.Fleet;
+import com.lws.oms.eop.simulator.SimulatorConfig;
+import com.lws.oms.eop.simulator.UpstreamSimulator;
+import com.lws.oms.eop.utils.UpdateDependencyUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Resuming a rollout after a crash that did some steps upstream but lost their journal records,
+ * one scenario per step: every step already done is recognised from the repository and not done
+ * again, so a resume never fails on, or duplicates, what the earlier attempt left behind. A backlog
+ * resumed on startup goes through admission control a batch at a time.
+ */
+@SpringBootTest
+class RolloutResumeTest {
+
+  private static final String AUTH = "Basic cmVzdW1lOnRlc3Q=";
+  private static final String DEPENDENCY = "spring-kafka";
+  private static final String VERSION = "9.9.9";
+
+  private static UpstreamSimulator simulator;
+
+  @Autowired
+  private RolloutService rolloutService;
+
+  @Autowired
+  private RolloutJournal rolloutJournal;
+
+  @Autowired
+  private BitbucketApiService bitbucketApiService;
+
+  @Autowired
+  @Qualifier("taskExecutor")
+  private Executor taskExecutor;
+
+  @Autowired
+  private AdmissionControl admissionControl;
+
+  @BeforeAll
+  static void startSimulator() throws IOException {
+    simulator = new UpstreamSimulator(SimulatorConfig.builder()
+        .repositories(9)
+        .branchesPerRepository(1)
+        .modulesPerRepository(0)
+        .pomLines(40)
+        .build());
+  }
+
+  @AfterAll
+  static void stopSimulator() {
+    simulator.close();
+  }
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    String journal = Files.createTempDirectory("rollout-resume-test").resolve("rollouts.jsonl").toString();
+    registry.add("bitbucket.api.base-url", simulator::baseUrl);
+    registry.add("mavencentral.api.base-url", simulator::baseUrl);
+    registry.add("rollout.journal.enabled", () -> "true");
+    registry.add("rollout.journal.path", () -> journal);
+    registry.add("file-cache.disk.enabled", () -> "false");
+  }
+
+  @Test
+  void adoptsTheBranchWhenEvenTheEditWasNotJournaled() throws Exception {
+    Fleet.Repository repository = simulator.fleet().repository("service-000");
+    RolloutRequest request = register("lost-edit", repository);
+    simulator.fleet().createBranch(repository, request.getBranchName(), repository.head(Fleet.MAIN));
+
+    RolloutResult result = resume(request, repository);
+
+    assertThat(result.status()).isEqualTo(ResultStatus.SUCCESS);
+    assertThat(calls("POST refs/branches")).isZero();
+    assertThat(calls("POST src")).isEqualTo(1);
+    assertThat(calls("POST pullrequests")).isEqualTo(1);
+    assertThat(pomOn(repository, request.getBranchName())).contains("<version>" + VERSION + "</version>");
+  }
+
+  @Test
+  void continuesABranchCreatedFromAnOlderHead() throws Exception {
+    Fleet.Repository repository = simulator.fleet().repository("service-001");
+    RolloutRequest request = register("older-head", repository);
+    simulator.fleet().createBranch(repository, request.getBranchName(), repository.head(Fleet.MAIN));
+    simulator.fleet().commit(repository, Fleet.MAIN, Map.of("README.md", "moved on\n"));
+
+    RolloutResult result = resume(request, repository);
+
+    assertThat(result.status()).isEqualTo(ResultStatus.SUCCESS);
+    assertThat(calls("POST refs/branches")).isZero();
+    assertThat(calls("POST src")).isEqualTo(1);
+    assertThat(pomOn(repository, request.getBranchName())).contains("<version>" + VERSION + "</version>");
+  }
+
+  @Test
+  void skipsTheCommitWhenItLandedBeforeTheBranchWasJournaled() throws Exception {
+    Fleet.Repository repository = simulator.fleet().repository("service-002");
+    RolloutRequest request = register("lost-branch", repository);
+    String base = repository.head(Fleet.MAIN);
+    journal(request, repository, RolloutStage.EDIT, base);
+    landCommit(repository, request.getBranchName(), base);
+
+    RolloutResult result = resume(request, repository);
+
+    assertThat(result.status()).isEqualTo(ResultStatus.SUCCESS);
+    assertThat(calls("POST refs/branches")).isZero();
+    assertThat(calls("POST src")).isZero();
+    assertThat(calls("POST pullrequests")).isEqualTo(1);
+  }
+
+  @Test
+  void skipsTheCommitWhenItLandedButWasNotJournaled() throws Exception {
+    Fleet.Repository repository = simulator.fleet().repository("service-003");
+    RolloutRequest request = register("lost-commit", repository);
+    String base = repository.head(Fleet.MAIN);
+    journal(request, repository, RolloutStage.BRANCH, base);
+    landCommit(repository, request.getBranchName(), base);
+
+    RolloutResult result = resume(request, repository);
+
+    assertThat(result.status()).isEqualTo(ResultStatus.SUCCESS);
+    assertThat(calls("POST src")).isZero();
+    assertThat(calls("POST pullrequests")).isEqualTo(1);
+    assertThat(repository.pullRequests(request.getBranchName(), Fleet.MAIN)).hasSize(1);
+  }
+
+  @Test
+  void reusesThePullRequestWhenDoneWasNotJournaled() throws Exception {
+    Fleet.Repository repository = simulator.fleet().repository("service-004");
+    RolloutRequest request = register("lost-done", repository);
+    String base = repository.head(Fleet.MAIN);
+    journal(request, repository, RolloutStage.COMMIT, base);
+    landCommit(repository, request.getBranchName(), base);
+    int existing = simulator.fleet().openPullRequest(repository, request.getBranchName(), Fleet.MAIN);
+
+    RolloutResult result = resume(request, repository);
+
+    assertThat(result.status()).isEqualTo(ResultStatus.SUCCESS);
+    assertThat(result.pullRequest()).containsEntry("id", existing);
+    assertThat(calls("POST src")).isZero();
+    assertThat(calls("POST pullrequests")).isZero();
+    assertThat(repository.pullRequests(request.getBranchName(), Fleet.MAIN)).hasSize(1);
+  }
+
+  @Test
+  void concurrentRunsOfTheSameRepositoryJoinOneAnother() throws Exception {
+    Fleet.Repository repository = simulator.fleet().repository("service-005");
+    RolloutRequest request = register("concurrent", repository);
+    RepositoryInfo repoInfo = request.getRepoList().get(0);
+    simulator.resetStats();
+
+    simulator.hold(repository.slug());
+    CompletableFuture<RolloutResult> first;
+    CompletableFuture<RolloutResult> second;
+    try {
+      first = rolloutService.rollout(repoInfo, request, AUTH);
+      second = rolloutService.rollout(repoInfo, request, AUTH);
+    } finally {
+      simulator.release(repository.slug());
+    }
+
+    assertThat(second).isSameAs(first);
+    assertThat(first.get(10, TimeUnit.SECONDS).status()).isEqualTo(ResultStatus.SUCCESS);
+    assertThat(calls("POST refs/branches")).isEqualTo(1);
+    assertThat(calls("POST pullrequests")).isEqualTo(1);
+
+    // Once finished, running it again is answered from the journal.
+    simulator.resetStats();
+    RolloutResult again = rolloutService.rollout(repoInfo, request, AUTH).get(10, TimeUnit.SECONDS);
+    assertThat(again.stage()).isEqualTo(RolloutStage.DONE);
+    assertThat(simulator.stats().calls()).isZero();
+  }
+
+  @Test
+  void resumesABacklogInAdmittedBatches() throws Exception {
+    List<Fleet.Repository> repositories = List.of(simulator.fleet().repository("service-006"),
+        simulator.fleet().repository("service-007"), simulator.fleet().repository("service-008"));
+    register("backlog", repositories.toArray(Fleet.Repository[]::new));
+    RolloutService restarted = new RolloutService(bitbucketApiService, rolloutJournal, taskExecutor, admissionControl,
+        AUTH, 2);
+
+    repositories.forEach(repository -> simulator.hold(repository.slug()));
+    try {
+      restarted.resumeUnfinished();
+      assertThat(admissionControl.snapshot().reserved()).isEqualTo(2);
+    } finally {
+      repositories.forEach(repository -> simulator.release(repository.slug()));
+    }
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!rolloutJournal.find("backlog").orElseThrow().isFinished() && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+    assertThat(rolloutJournal.find("backlog").orElseThrow().isFinished()).isTrue();
+    for (Fleet.Repository repository : repositories) {
+      assertThat(pomOn(repository, "bump/backlog")).contains("<version>" + VERSION + "</version>");
+    }
+  }
+
+  private RolloutRequest register(String rolloutId, Fleet.Repository... repositories) {
+    List<RepositoryInfo> repoList = new ArrayList<>();
+    for (Fleet.Repository repository : repositories) {
+      RepositoryInfo repoInfo = new RepositoryInfo();
+      repoInfo.setProjectName("SHRSU");
+      repoInfo.setRepoSlug(repository.slug());
+      repoList.add(repoInfo);
+    }
+    RolloutRequest request = new RolloutRequest();
+    request.setRolloutId(rolloutId);
+    request.setRepoList(repoList);
+    request.setBaseBranch(Fleet.MAIN);
+    request.setBranchName("bump/" + rolloutId);
+    request.setDependency(DEPENDENCY);
+    request.setVersion(VERSION);
+    request.setCommitMessage("Bump " + DEPENDENCY);
+    request.setPrTitle("Bump " + DEPENDENCY);
+    return rolloutService.register(request);
+  }
+
+  private void journal(RolloutRequest request, Fleet.Repository repository, RolloutStage stage, String base) {
+    rolloutJournal.recordStep(request.getRolloutId(), request.getRepoList().get(0), stage, base, Fleet.POM, false,
+        null);
+  }
+
+  /**
+   * What the earlier attempt did before the crash: branch from {@code base} and commit the edit.
+   */
+  private static void landCommit(Fleet.Repository repository, String branch, String base) {
+    List<String> lines = new ArrayList<>(Arrays.asList(repository.file(base, Fleet.POM).split("\n", -1)));
+    UpdateDependencyUtil.updateDependencyVersionInPom(lines, DEPENDENCY, VERSION);
+    simulator.fleet().createBranch(repository, branch, base);
+    simulator.fleet().commit(repository, branch, Map.of(Fleet.POM, String.join("\n", lines)));
+  }
+
+  private RolloutResult resume(RolloutRequest request, Fleet.Repository repository) throws Exception {
+    simulator.resetStats();
+    return rolloutService.rollout(request.getRepoList().get(0), request, AUTH).get(10, TimeUnit.SECONDS);
+  }
+
+  private static String pomOn(Fleet.Repository repository, String branch) {
+    return repository.file(repository.head(branch), Fleet.POM);
+  }
+
+  private static long calls(String route) {
+    return simulator.stats().callsByRoute().getOrDefault(route, 0L);
+  }
+
+}
@@ -0,0 +1,218 @@
+package com.lws.oms.eop.simulator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Synthetic repositories behind the simulator. Every commit keeps its own file snapshot, so reads
+ * at an old commit keep returning what was there; writes move the branch head like Bitbucket does.
+ */
+public class Fleet {
+
+  public static final String MAIN = "main";
+  public static final String POM = "pom.xml";
+
+  private static final String[] BUILD_STATES = {"SUCCESSFUL", "SUCCESSFUL", "SUCCESSFUL", "INPROGRESS", "FAILED"};
+
+  public record PullRequest(int id, String source, String destination, String head) {
+  }
+
+  public static final class Repository {
+    private final String slug;
+    private final Map<String, String> branches = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> snapshots = new ConcurrentHashMap<>();
+    private final Map<Integer, PullRequest> pullRequests = new ConcurrentHashMap<>();
+    private final AtomicInteger nextPullRequest = new AtomicInteger(1);
+
+    private Repository(String slug) {
+      this.slug = slug;
+    }
+
+    public String slug() {
+      return slug;
+    }
+
+    public Map<String, String> branches() {
+      return branches;
+    }
+
+    public String head(String branch) {
+      return branches.get(branch);
+    }
+
+    public String file(String commit, String path) {
+      Map<String, String> snapshot = snapshots.get(commit);
+      return snapshot == null ? null : snapshot.get(path);
+    }
+
+    /**
+     * Every file path at {@code commit}, sorted; null if the commit is unknown.
+     */
+    public List<String> paths(String commit) {
+      Map<String, String> snapshot = snapshots.get(commit);
+      return snapshot == null ? null : snapshot.keySet().stream().sorted().toList();
+    }
+
+    public int pullRequestCount() {
+      return pullRequests.size();
+    }
+
+    /**
+     * Pull requests from {@code source} to {@code destination}, oldest first.
+     */
+    public List<PullRequest> pullRequests(String source, String destination) {
+      return pullRequests.values().stream()
+          .filter(pr -> pr.source().equals(source) && pr.destination().equals(destination))
+          .sorted(Comparator.comparingInt(PullRequest::id))
+          .toList();
+    }
+  }
+
+  private final Map<String, Repository> repositories = new LinkedHashMap<>();
+  // Unseeded: commit hashes must not repeat across runs, or a persisted file cache would serve stale content.
+  private final Random random = new Random();
+
+  public Fleet(SimulatorConfig config) {
+    for (int r = 0; r < config.getRepositories(); r++) {
+      Repository repository = new Repository(slug(r));
+      Map<String, String> files = new HashMap<>();
+      files.put(POM, pom(repository.slug, config));
+      for (int m = 0; m < config.getModulesPerRepository(); m++) {
+        files.put("module-" + m + "/" + POM, pom(repository.slug + "-module-" + m, config));
+      }
+      String root = newCommit(repository, files);
+      repository.branches.put(MAIN, root);
+      for (int b = 1; b < config.getBranchesPerRepository(); b++) {
+        repository.branches.put("feature/JIRA-" + b, root);
+      }
+      if (config.getBranchesPerRepository() > 1) {
+        int id = repository.nextPullRequest.getAndIncrement();
+        repository.pullRequests.put(id, new PullRequest(id, "feature/JIRA-1", MAIN, root));
+      }
+      repositories.put(repository.slug, repository);
+    }
+  }
+
+  public static String slug(int index) {
+    return String.format("service-%03d", index);
+  }
+
+  public List<String> slugs() {
+    return List.copyOf(repositories.keySet());
+  }
+
+  public Repository repository(String slug) {
+    return repositories.get(slug);
+  }
+
+  /**
+   * Creates a branch at {@code commit}; false if it already exists or the commit is unknown.
+   */
+  public boolean createBranch(Repository repository, String branch, String commit) {
+    return repository.snapshots.containsKey(commit) && repository.branches.putIfAbsent(branch, commit) == null;
+  }
+
+  /**
+   * Commits {@code changes} on top of the branch head and moves the head; null if the branch is unknown.
+   */
+  public String commit(Repository repository, String branch, Map<String, String> changes) {
+    synchronized (repository) {
+      String parent = repository.branches.get(branch);
+      if (parent == null) {
+        return null;
+      }
+      Map<String, String> files = new HashMap<>(repository.snapshots.get(parent));
+      files.putAll(changes);
+      String commit = newCommit(repository, files);
+      repository.branches.put(branch, commit);
+      return commit;
+    }
+  }
+
+  /**
+   * Opens a pull request; -1 if the source branch is unknown, -2 if one between the two branches
+   * is already open, as Bitbucket refuses duplicates.
+   */
+  public int openPullRequest(Repository repository, String sourceBranch, String destinationBranch) {
+    synchronized (repository) {
+      String head = repository.branches.get(sourceBranch);
+      if (head == null) {
+        return -1;
+      }
+      if (!repository.pullRequests(sourceBranch, destinationBranch).isEmpty()) {
+        return -2;
+      }
+      int id = repository.nextPullRequest.getAndIncrement();
+      repository.pullRequests.put(id, new PullRequest(id, sourceBranch, destinationBranch, head));
+      return id;
+    }
+  }
+
+  public String pullRequestHead(Repository repository, int id) {
+    PullRequest pullRequest = repository.pullRequests.get(id);
+    return pullRequest == null ? null : pullRequest.head();
+  }
+
+  /**
+   * Build state of a commit; stable per commit so repeated polls agree.
+   */
+  public static String buildState(String commit) {
+    return BUILD_STATES[Math.floorMod(commit.hashCode(), BUILD_STATES.length)];
+  }
+
+  private String newCommit(Repository repository, Map<String, String> files) {
+    byte[] hash = new byte[20];
+    synchronized (random) {
+      random.nextBytes(hash);
+    }
+    String commit = HexFormat.of().formatHex(hash);
+    repository.snapshots.put(commit, Map.copyOf(files));
+    return commit;
+  }
+
+  /**
+   * A POM of roughly {@code pomLines} lines declaring every configured dependency among filler ones.
+   */
+  static String pom(String artifactId, SimulatorConfig config) {
+    List<String> lines = new ArrayList<>(config.getPomLines() + 16);
+    lines.add("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+    lines.add("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">");
+    lines.add("    <modelVersion>4.0.0</modelVersion>");
+    lines.add("    <groupId>com.example</groupId>");
+    lines.add("    <artifactId>" + artifactId + "</artifactId>");
+    lines.add("    <version>1.0.0</version>");
+    lines.add("    <dependencies>");
+    int filler = 0;
+    int fillerCount = Math.max(0, (config.getPomLines() - 9) / 5 - config.getDependencies().size());
+    int spread = Math.max(1, fillerCount / Math.max(1, config.getDependencies().size()));
+    for (String dependency : config.getDependencies()) {
+      for (int i = 0; i < spread && filler < fillerCount; i++) {
+        dependency(lines, "lib-" + filler++, "1." + filler + ".0");
+      }
+      dependency(lines, dependency, "1.0.0");
+    }
+    while (filler < fillerCount) {
+      dependency(lines, "lib-" + filler++, "1." + filler + ".0");
+    }
+    lines.add("    </dependencies>");
+    lines.add("</project>");
+    return String.join("\n", lines) + "\n";
+  }
+
+  private static void dependency(List<String> lines, String artifactId, String version) {
+    lines.add("        <dependency>");
+    lines.add("            <groupId>com.example</groupId>");
+    lines.add("            <artifactId>" + artifactId + "</artifactId>");
+    lines.add("            <version>" + version + "</version>");
+    lines.add("        </dependency>");
+  }
+
+}
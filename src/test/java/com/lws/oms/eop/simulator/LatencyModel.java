@@ -0,0 +1,41 @@
+package com.lws.oms.eop.simulator;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How long the simulator takes to answer a call.
+ */
+@FunctionalInterface
+public interface LatencyModel {
+
+  /**
+   * z-score of the 99th percentile of a standard normal distribution.
+   */
+  double Z_99 = 2.326;
+
+  LatencyModel NONE = () -> Duration.ZERO;
+
+  Duration sample();
+
+  static LatencyModel fixed(Duration latency) {
+    return () -> latency;
+  }
+
+  static LatencyModel uniform(Duration min, Duration max) {
+    long minNanos = min.toNanos();
+    long maxNanos = max.toNanos();
+    return () -> Duration.ofNanos(ThreadLocalRandom.current().nextLong(minNanos, maxNanos + 1));
+  }
+
+  /**
+   * Log-normal latency, the usual shape of a remote API: most calls near the median and a long
+   * tail reaching {@code p99} for one call in a hundred.
+   */
+  static LatencyModel logNormal(Duration median, Duration p99) {
+    double mu = Math.log(median.toNanos());
+    double sigma = Math.log((double) p99.toNanos() / median.toNanos()) / Z_99;
+    return () -> Duration.ofNanos((long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+  }
+
+}
@@ -0,0 +1,62 @@
+package com.lws.oms.eop.simulator;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Size of the synthetic fleet and how badly the simulated upstreams behave.
+ */
+@Value
+@Builder(toBuilder = true)
+public class SimulatorConfig {
+
+  @Builder.Default
+  String workspace = "shrsu";
+
+  @Builder.Default
+  int repositories = 20;
+
+  @Builder.Default
+  int branchesPerRepository = 10;
+
+  /**
+   * Nested module POMs per repository, at {@code module-<i>/pom.xml}, besides the root POM.
+   */
+  @Builder.Default
+  int modulesPerRepository = 2;
+
+  @Builder.Default
+  int pomLines = 400;
+
+  /**
+   * Dependencies every generated POM declares, and versions Maven Central reports for them.
+   */
+  @Builder.Default
+  List<String> dependencies = List.of("spring-kafka", "tomcat-embed-core", "mongodb-jdbc");
+
+  @Builder.Default
+  LatencyModel latency = LatencyModel.NONE;
+
+  /**
+   * Share of calls answered with one of {@link #serverErrorStatuses}, picked at random.
+   */
+  @Builder.Default
+  double serverErrorRate = 0;
+
+  @Builder.Default
+  List<Integer> serverErrorStatuses = List.of(500, 502, 503);
+
+  /**
+   * Share of calls answered with a 429 regardless of the rate limit.
+   */
+  @Builder.Default
+  double throttleRate = 0;
+
+  /**
+   * Calls per second across all endpoints before answering 429; 0 means unlimited.
+   */
+  @Builder.Default
+  int rateLimitPerSecond = 0;
+
+}
@@ -0,0 +1,516 @@
+package com.lws.oms.eop.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for Bitbucket Cloud and Maven Central, serving exactly the endpoints the Feign
+ * clients call over a synthetic {@link Fleet}. Point both {@code bitbucket.api.base-url} and
+ * {@code mavencentral.api.base-url} at {@link #baseUrl()}.
+ *
+ * <p>Every call first passes the rate limit and random throttling (429 with {@code Retry-After}),
+ * then waits for a latency sample, then may fail with a random 5xx. The fault profile can be
+ * swapped between scenarios with {@link #configure}; the fleet keeps its state.
+ */
+public class UpstreamSimulator implements AutoCloseable {
+
+  public record Stats(long calls, Map<String, Long> callsByRoute, Map<Integer, Long> responsesByStatus,
+      int peakInFlight) {
+  }
+
+  private static final ObjectMapper JSON = new ObjectMapper();
+  private static final Pattern ARTIFACT = Pattern.compile("a:\"([^\"]+)\"");
+  private static final Pattern SOURCE_BRANCH = Pattern.compile("source\\.branch\\.name=\"([^\"]+)\"");
+  private static final Pattern DESTINATION_BRANCH = Pattern.compile("destination\\.branch\\.name=\"([^\"]+)\"");
+  private static final int REPOSITORY_PAGE_SIZE = 50;
+
+  private final Fleet fleet;
+  private final HttpServer server;
+  private volatile SimulatorConfig config;
+  private volatile TokenBucket rateLimit;
+
+  private final Map<String, LongAdder> callsByRoute = new ConcurrentHashMap<>();
+  private final Map<Integer, LongAdder> responsesByStatus = new ConcurrentHashMap<>();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger peakInFlight = new AtomicInteger();
+  private final Map<String, CountDownLatch> held = new ConcurrentHashMap<>();
+
+  public UpstreamSimulator(SimulatorConfig config) throws IOException {
+    this.fleet = new Fleet(config);
+    configure(config);
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  /**
+   * Replaces latency, error rates and rate limit; the fleet and its state are kept.
+   */
+  public void configure(SimulatorConfig config) {
+    this.config = config;
+    this.rateLimit = config.getRateLimitPerSecond() > 0 ? new TokenBucket(config.getRateLimitPerSecond()) : null;
+  }
+
+  public String baseUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  public Fleet fleet() {
+    return fleet;
+  }
+
+  public Stats stats() {
+    Map<String, Long> routes = new TreeMap<>();
+    callsByRoute.forEach((route, count) -> routes.put(route, count.sum()));
+    Map<Integer, Long> statuses = new TreeMap<>();
+    responsesByStatus.forEach((status, count) -> statuses.put(status, count.sum()));
+    return new Stats(routes.values().stream().mapToLong(Long::longValue).sum(), routes, statuses, peakInFlight.get());
+  }
+
+  /**
+   * Makes calls for {@code slug} wait, after being counted, until {@link #release} is called.
+   */
+  public void hold(String slug) {
+    held.putIfAbsent(slug, new CountDownLatch(1));
+  }
+
+  public void release(String slug) {
+    CountDownLatch latch = held.remove(slug);
+    if (latch != null) {
+      latch.countDown();
+    }
+  }
+
+  public void resetStats() {
+    callsByRoute.clear();
+    responsesByStatus.clear();
+    peakInFlight.set(inFlight.get());
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    try {
+      SimulatorConfig current = config;
+      TokenBucket limit = rateLimit;
+      if ((limit != null && !limit.tryAcquire()) || chance(current.getThrottleRate())) {
+        exchange.getResponseHeaders().add("Retry-After", "1");
+        count("throttled");
+        respond(exchange, 429, Map.of("type", "error", "error", Map.of("message", "Rate limit for this resource has been exceeded")));
+        return;
+      }
+      pause(current.getLatency().sample());
+      if (chance(current.getServerErrorRate())) {
+        count("failed");
+        List<Integer> statuses = current.getServerErrorStatuses();
+        int status = statuses.get(ThreadLocalRandom.current().nextInt(statuses.size()));
+        respond(exchange, status, Map.of("type", "error", "error", Map.of("message", "Something went wrong")));
+        return;
+      }
+      route(exchange);
+    } catch (RuntimeException e) {
+      respond(exchange, 500, Map.of("type", "error", "error", Map.of("message", String.valueOf(e.getMessage()))));
+    } finally {
+      inFlight.decrementAndGet();
+      exchange.close();
+    }
+  }
+
+  private void route(HttpExchange exchange) throws IOException {
+    String method = exchange.getRequestMethod();
+    String[] path = Arrays.stream(exchange.getRequestURI().getRawPath().split("/"))
+        .filter(segment -> !segment.isEmpty())
+        .toArray(String[]::new);
+    Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+
+    if (path.length == 2 && path[0].equals("workspaces") && method.equals("GET")) {
+      count("GET workspace");
+      respond(exchange, 200, Map.of("type", "workspace", "slug", decode(path[1])));
+      return;
+    }
+    if (path.length == 2 && path[0].equals("solrsearch") && path[1].equals("select")) {
+      count("GET solrsearch");
+      respond(exchange, 200, search(query.getOrDefault("q", ""), Integer.parseInt(query.getOrDefault("rows", "200"))));
+      return;
+    }
+    if (path.length < 2 || !path[0].equals("repositories")) {
+      count("unknown");
+      notFound(exchange, "Unknown resource " + exchange.getRequestURI().getPath());
+      return;
+    }
+    if (path.length == 2 && method.equals("GET")) {
+      count("GET repositories");
+      respond(exchange, 200, repositories(Integer.parseInt(query.getOrDefault("page", "1"))));
+      return;
+    }
+
+    Fleet.Repository repository = fleet.repository(decode(path[2]));
+    String route = method + " " + resource(path);
+    count(route);
+    if (repository == null) {
+      notFound(exchange, "Repository " + decode(path[2]) + " not found");
+      return;
+    }
+    awaitRelease(repository.slug());
+
+    switch (route) {
+      case "GET repository" -> respond(exchange, 200, Map.of("type", "repository", "slug", repository.slug(),
+          "mainbranch", Map.of("type", "branch", "name", Fleet.MAIN)));
+      case "GET refs/branches" -> respond(exchange, 200, branches(repository));
+      case "POST refs/branches" -> createBranch(exchange, repository);
+      case "GET src" -> {
+        String commit = path.length > 4 ? path[4] : "";
+        String filePath = decode(String.join("/", Arrays.copyOfRange(path, Math.min(5, path.length), path.length)));
+        String content = repository.file(commit, filePath);
+        Map<String, Object> listing = content == null ? directory(exchange, repository, commit, filePath, query) : null;
+        if (content != null) {
+          respondText(exchange, content);
+        } else if (listing != null) {
+          respond(exchange, 200, listing);
+        } else {
+          notFound(exchange, "No such file or directory: " + filePath);
+        }
+      }
+      case "POST src" -> commit(exchange, repository);
+      case "GET pullrequests" -> respond(exchange, 200, pullRequests(repository, query.getOrDefault("q", "")));
+      case "POST pullrequests" -> createPullRequest(exchange, repository);
+      case "GET commit/statuses" -> respond(exchange, 200, statuses(path[4]));
+      case "GET pullrequests/commits" -> {
+        String head = fleet.pullRequestHead(repository, Integer.parseInt(path[4]));
+        if (head == null) {
+          notFound(exchange, "Pull request " + path[4] + " not found");
+        } else {
+          respond(exchange, 200, Map.of("values", List.of(Map.of("type", "commit", "hash", head))));
+        }
+      }
+      default -> notFound(exchange, "Unknown resource " + exchange.getRequestURI().getPath());
+    }
+  }
+
+  /**
+   * Route name without identifiers: {@code repository}, {@code refs/branches}, {@code src}...
+   */
+  private static String resource(String[] path) {
+    if (path.length <= 3) {
+      return "repository";
+    }
+    return switch (path[3]) {
+      case "refs" -> path.length == 5 ? "refs/" + path[4] : "refs";
+      case "src" -> "src";
+      default -> path.length == 6 ? path[3] + "/" + path[5] : path[3];
+    };
+  }
+
+  private Map<String, Object> repositories(int page) {
+    List<String> slugs = fleet.slugs();
+    int from = Math.min((page - 1) * REPOSITORY_PAGE_SIZE, slugs.size());
+    int to = Math.min(from + REPOSITORY_PAGE_SIZE, slugs.size());
+    List<Map<String, Object>> values = new ArrayList<>(to - from);
+    for (String slug : slugs.subList(from, to)) {
+      values.add(Map.of("type", "repository", "name", slug, "slug", slug,
+          "full_name", config.getWorkspace() + "/" + slug));
+    }
+    Map<String, Object> body = new HashMap<>();
+    body.put("values", values);
+    body.put("page", page);
+    body.put("pagelen", REPOSITORY_PAGE_SIZE);
+    body.put("isLastPage", to >= slugs.size());
+    if (to < slugs.size()) {
+      body.put("nextPageStart", page + 1);
+    }
+    return body;
+  }
+
+  /**
+   * One page of the entries directly in {@code directory} at {@code commit}, paged by
+   * {@code pagelen} and {@code page} as Bitbucket does; null if there is no such directory.
+   */
+  private Map<String, Object> directory(HttpExchange exchange, Fleet.Repository repository, String commit,
+      String directory, Map<String, String> query) {
+    List<String> paths = repository.paths(commit);
+    if (paths == null) {
+      return null;
+    }
+    String prefix = directory.isEmpty() ? "" : directory + "/";
+    Map<String, String> entries = new TreeMap<>();
+    for (String path : paths) {
+      if (path.startsWith(prefix)) {
+        int slash = path.indexOf('/', prefix.length());
+        entries.put(slash < 0 ? path : path.substring(0, slash), slash < 0 ? "commit_file" : "commit_directory");
+      }
+    }
+    if (entries.isEmpty()) {
+      return null;
+    }
+    int pageLength = Integer.parseInt(query.getOrDefault("pagelen", "10"));
+    int page = Integer.parseInt(query.getOrDefault("page", "1"));
+    List<Map<String, Object>> values = entries.entrySet().stream()
+        .skip((long) (page - 1) * pageLength)
+        .limit(pageLength)
+        .map(entry -> Map.<String, Object>of("type", entry.getValue(), "path", entry.getKey()))
+        .toList();
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("pagelen", pageLength);
+    body.put("page", page);
+    body.put("values", values);
+    if ((long) page * pageLength < entries.size()) {
+      body.put("next", baseUrl() + exchange.getRequestURI().getRawPath() + "?pagelen=" + pageLength + "&page=" + (page + 1));
+    }
+    return body;
+  }
+
+  private Map<String, Object> branches(Fleet.Repository repository) {
+    List<Map<String, Object>> values = new ArrayList<>();
+    new TreeMap<>(repository.branches()).forEach((name, hash) -> values.add(branch(name, hash)));
+    return Map.of("values", values, "pagelen", values.size(), "page", 1, "size", values.size());
+  }
+
+  private static Map<String, Object> branch(String name, String hash) {
+    return Map.of("type", "branch", "name", name, "target", Map.of("type", "commit", "hash", hash));
+  }
+
+  private void createBranch(HttpExchange exchange, Fleet.Repository repository) throws IOException {
+    Map<?, ?> body = JSON.readValue(exchange.getRequestBody(), Map.class);
+    String name = (String) body.get("name");
+    Object target = body.get("target");
+    String hash = target instanceof Map<?, ?> map ? (String) map.get("hash") : null;
+    // The service sends the start point as given, which may be a branch name.
+    String commit = repository.head(String.valueOf(hash)) != null ? repository.head(hash) : hash;
+    if (name == null || commit == null || !fleet.createBranch(repository, name, commit)) {
+      respond(exchange, 400, Map.of("type", "error", "error", Map.of("message", "BRANCH_ALREADY_EXISTS or bad target")));
+      return;
+    }
+    respond(exchange, 201, branch(name, commit));
+  }
+
+  private void commit(HttpExchange exchange, Fleet.Repository repository) throws IOException {
+    Map<String, String> parts = multipart(exchange);
+    String branch = parts.remove("branch");
+    parts.remove("message");
+    parts.remove("author");
+    String parent = parts.remove("parents");
+    String commit = null;
+    boolean moved;
+    synchronized (repository) {
+      // As Bitbucket does, a commit naming its parent only lands while that is still the branch tip.
+      String head = branch == null ? null : repository.head(branch);
+      moved = parent != null && head != null && !parent.equals(head);
+      if (!moved && branch != null) {
+        commit = fleet.commit(repository, branch, parts);
+      }
+    }
+    if (moved) {
+      respond(exchange, 409, Map.of("type", "error", "error", Map.of("message",
+          "Commit not created: " + parent + " is no longer the tip of " + branch)));
+      return;
+    }
+    if (commit == null) {
+      notFound(exchange, "Branch " + branch + " not found");
+      return;
+    }
+    respond(exchange, 201, Map.of("type", "commit", "hash", commit));
+  }
+
+  private void createPullRequest(HttpExchange exchange, Fleet.Repository repository) throws IOException {
+    Map<?, ?> body = JSON.readValue(exchange.getRequestBody(), Map.class);
+    String source = (String) ((Map<?, ?>) ((Map<?, ?>) body.get("source")).get("branch")).get("name");
+    String destination = (String) ((Map<?, ?>) ((Map<?, ?>) body.get("destination")).get("branch")).get("name");
+    int id = fleet.openPullRequest(repository, source, destination);
+    if (id < 0) {
+      String message = id == -1 ? "Source branch not found"
+          : "There is already an open pull request from " + source + " to " + destination;
+      respond(exchange, 400, Map.of("type", "error", "error", Map.of("message", message)));
+      return;
+    }
+    respond(exchange, 201, pullRequest(new Fleet.PullRequest(id, source, destination, null),
+        String.valueOf(body.get("title"))));
+  }
+
+  /**
+   * Pull requests filtered by the {@code source.branch.name} and {@code destination.branch.name}
+   * terms of a Bitbucket query; every simulated pull request is open.
+   */
+  private static Map<String, Object> pullRequests(Fleet.Repository repository, String query) {
+    Matcher source = SOURCE_BRANCH.matcher(query);
+    Matcher destination = DESTINATION_BRANCH.matcher(query);
+    List<Map<String, Object>> values = source.find() && destination.find()
+        ? repository.pullRequests(source.group(1), destination.group(1)).stream()
+            .map(pr -> pullRequest(pr, "Pull request " + pr.id()))
+            .toList()
+        : List.of();
+    return Map.of("values", values, "pagelen", 50, "page", 1, "size", values.size());
+  }
+
+  private static Map<String, Object> pullRequest(Fleet.PullRequest pr, String title) {
+    return Map.of("type", "pullrequest", "id", pr.id(), "title", title, "state", "OPEN",
+        "source", Map.of("branch", Map.of("name", pr.source())),
+        "destination", Map.of("branch", Map.of("name", pr.destination())));
+  }
+
+  private static Map<String, Object> statuses(String commit) {
+    return Map.of("values", List.of(Map.of("type", "build", "key", "ci", "name", "CI",
+        "state", Fleet.buildState(commit), "commit", Map.of("hash", commit))));
+  }
+
+  private static Map<String, Object> search(String query, int rows) {
+    Matcher artifact = ARTIFACT.matcher(query);
+    String artifactId = artifact.find() ? artifact.group(1) : "unknown";
+    List<Map<String, Object>> docs = new ArrayList<>();
+    long now = System.currentTimeMillis();
+    for (int minor = 0; minor < Math.min(rows, 12); minor++) {
+      docs.add(Map.of("id", "com.example:" + artifactId + ":1." + minor + ".0", "g", "com.example", "a", artifactId,
+          "v", "1." + minor + ".0", "timestamp", now - (12 - minor) * Duration.ofDays(30).toMillis()));
+    }
+    return Map.of("response", Map.of("numFound", docs.size(), "start", 0, "docs", docs));
+  }
+
+  /**
+   * Minimal multipart/form-data reader: field name to UTF-8 value.
+   */
+  private static Map<String, String> multipart(HttpExchange exchange) throws IOException {
+    String contentType = String.valueOf(exchange.getRequestHeaders().getFirst("Content-Type"));
+    int at = contentType.indexOf("boundary=");
+    Map<String, String> fields = new HashMap<>();
+    if (at < 0) {
+      return fields;
+    }
+    String boundary = "--" + contentType.substring(at + "boundary=".length()).replace("\"", "").split(";")[0];
+    String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1);
+    for (String part : body.split(Pattern.quote(boundary))) {
+      int headersEnd = part.indexOf("\r\n\r\n");
+      int name = part.indexOf("name=\"");
+      if (headersEnd < 0 || name < 0 || name > headersEnd) {
+        continue;
+      }
+      String field = part.substring(name + 6, part.indexOf('"', name + 6));
+      String value = part.substring(headersEnd + 4);
+      if (value.endsWith("\r\n")) {
+        value = value.substring(0, value.length() - 2);
+      }
+      fields.put(field, new String(value.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8));
+    }
+    return fields;
+  }
+
+  private static Map<String, String> query(String rawQuery) {
+    Map<String, String> params = new HashMap<>();
+    if (rawQuery != null) {
+      for (String pair : rawQuery.split("&")) {
+        int eq = pair.indexOf('=');
+        params.put(decode(eq < 0 ? pair : pair.substring(0, eq)), eq < 0 ? "" : decode(pair.substring(eq + 1)));
+      }
+    }
+    return params;
+  }
+
+  private static String decode(String value) {
+    return URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8);
+  }
+
+  private void count(String route) {
+    callsByRoute.computeIfAbsent(route, key -> new LongAdder()).increment();
+  }
+
+  private static boolean chance(double rate) {
+    return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+  }
+
+  private void awaitRelease(String slug) {
+    CountDownLatch latch = held.get(slug);
+    if (latch == null) {
+      return;
+    }
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void pause(Duration latency) {
+    if (latency.isZero() || latency.isNegative()) {
+      return;
+    }
+    try {
+      Thread.sleep(latency);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void notFound(HttpExchange exchange, String message) throws IOException {
+    respond(exchange, 404, Map.of("type", "error", "error", Map.of("message", message)));
+  }
+
+  private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+    send(exchange, status, "application/json", JSON.writeValueAsBytes(body));
+  }
+
+  private void respondText(HttpExchange exchange, String body) throws IOException {
+    send(exchange, 200, "text/plain; charset=utf-8", body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void send(HttpExchange exchange, int status, String contentType, byte[] bytes) throws IOException {
+    responsesByStatus.computeIfAbsent(status, key -> new LongAdder()).increment();
+    exchange.getResponseHeaders().add("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Refills {@code perSecond} tokens a second, bursting up to one second's worth.
+   */
+  private static final class TokenBucket {
+    private final double perNano;
+    private final double capacity;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    private TokenBucket(int perSecond) {
+      this.perNano = perSecond / 1e9;
+      this.capacity = perSecond;
+      this.tokens = perSecond;
+    }
+
+    synchronized boolean tryAcquire() {
+      long now = System.nanoTime();
+      tokens = Math.min(capacity, tokens + (now - refilledAt) * perNano);
+      refilledAt = now;
+      if (tokens < 1) {
+        return false;
+      }
+      tokens--;
+      return true;
+    }
+  }
+
+}
@@ -0,0 +1,178 @@
+package com.lws.oms.eop.simulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * The simulator must answer every call the Feign clients make the way Bitbucket would, or the load
+ * tests measure nothing. Walks the bulk endpoints through a branch-edit-build cycle against it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UpstreamSimulatorTest {
+
+  private static final SimulatorConfig HEALTHY = SimulatorConfig.builder()
+      .repositories(3)
+      .branchesPerRepository(3)
+      .modulesPerRepository(1)
+      .pomLines(60)
+      .build();
+
+  private static final ObjectMapper JSON = new ObjectMapper();
+  private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+  private static UpstreamSimulator simulator;
+
+  @LocalServerPort
+  private int port;
+
+  @BeforeAll
+  static void startSimulator() throws IOException {
+    simulator = new UpstreamSimulator(HEALTHY);
+  }
+
+  @AfterAll
+  static void stopSimulator() {
+    simulator.close();
+  }
+
+  @AfterEach
+  void restoreProfile() {
+    simulator.configure(HEALTHY);
+    simulator.resetStats();
+  }
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    String journal = Files.createTempDirectory("simulator-test").resolve("rollouts.jsonl").toString();
+    registry.add("bitbucket.api.base-url", simulator::baseUrl);
+    registry.add("mavencentral.api.base-url", simulator::baseUrl);
+    registry.add("rollout.journal.enabled", () -> "true");
+    registry.add("rollout.journal.path", () -> journal);
+    registry.add("file-cache.disk.enabled", () -> "false");
+  }
+
+  @Test
+  void servesBranchFileCommitAndBuildCycle() throws Exception {
+    List<String> slugs = simulator.fleet().slugs();
+    String repos = repositories(slugs);
+
+    JsonNode branches = post("/bitbucket/getBranches", "{\"repoList\":" + repos + "}");
+    assertThat(branches.path("succeeded").asInt()).isEqualTo(3);
+    assertThat(branches.path("results").get(0).path("branches")).hasSize(3);
+
+    JsonNode created = post("/bitbucket/createBranches",
+        "{\"repoList\":" + repos + ",\"branchName\":\"release/1\",\"startPoint\":\"main\"}");
+    assertThat(created.path("succeeded").asInt()).isEqualTo(3);
+
+    List<String> files = new ArrayList<>();
+    for (String slug : slugs) {
+      files.add("{\"repositoryInfo\":" + repository(slug) + ",\"fileName\":\"pom.xml\"}");
+      files.add("{\"repositoryInfo\":" + repository(slug) + ",\"fileName\":\"pom.xml\",\"searchPath\":\"module-0\"}");
+    }
+    JsonNode contents = post("/bitbucket/getFileContents",
+        "{\"branchName\":\"release/1\",\"files\":[" + String.join(",", files) + "]}");
+    assertThat(contents.path("succeeded").asInt()).isEqualTo(6);
+
+    String slug = slugs.get(0);
+    JsonNode committed = post("/bitbucket/createCommits", "{\"branch\":\"release/1\",\"commitInfoList\":[{"
+        + "\"repositoryInfo\":" + repository(slug) + ",\"fileName\":\"pom.xml\",\"commitMessage\":\"Bump\","
+        + "\"content\":[\"<project/>\"]}]}");
+    assertThat(committed.path("succeeded").asInt()).isEqualTo(1);
+    Fleet.Repository repository = simulator.fleet().repository(slug);
+    String head = repository.head("release/1");
+    assertThat(repository.file(head, Fleet.POM)).isEqualTo("<project/>\n");
+    assertThat(head).isNotEqualTo(repository.head(Fleet.MAIN));
+
+    JsonNode statuses = post("/bitbucket/getCommitBuildStatuses",
+        "{\"requestItems\":[{\"repository\":" + repository(slug) + ",\"commitHash\":\"" + head + "\"}]}");
+    assertThat(statuses.path("succeeded").asInt()).isEqualTo(1);
+
+    JsonNode pullRequestBuilds = post("/bitbucket/getPullRequestBuilds",
+        "{\"requestItems\":[{\"repository\":" + repository(slug) + ",\"prId\":1}]}");
+    assertThat(pullRequestBuilds.path("succeeded").asInt()).isEqualTo(1);
+  }
+
+  @Test
+  void commitsToOneBranchEachNameThePreviousAsParent() throws Exception {
+    String slug = simulator.fleet().slugs().get(2);
+    Fleet.Repository repository = simulator.fleet().repository(slug);
+    simulator.fleet().createBranch(repository, "release/2", repository.head(Fleet.MAIN));
+
+    // The simulator refuses a commit whose parent is no longer the branch tip, as Bitbucket does.
+    JsonNode committed = post("/bitbucket/createCommits", "{\"branch\":\"release/2\",\"commitInfoList\":["
+        + "{\"repositoryInfo\":" + repository(slug) + ",\"fileName\":\"pom.xml\",\"commitMessage\":\"Bump\","
+        + "\"content\":[\"<project>root</project>\"]},"
+        + "{\"repositoryInfo\":" + repository(slug) + ",\"fileName\":\"pom.xml\",\"searchPath\":\"module-0\","
+        + "\"commitMessage\":\"Bump\",\"content\":[\"<project>module</project>\"]}]}");
+
+    assertThat(committed.path("succeeded").asInt()).isEqualTo(2);
+    String head = repository.head("release/2");
+    assertThat(repository.file(head, Fleet.POM)).isEqualTo("<project>root</project>\n");
+    assertThat(repository.file(head, "module-0/" + Fleet.POM)).isEqualTo("<project>module</project>\n");
+  }
+
+  @Test
+  void injectedGatewayErrorsAreRetriedThenReported() throws Exception {
+    simulator.configure(HEALTHY.toBuilder().serverErrorRate(1.0).serverErrorStatuses(List.of(503)).build());
+
+    JsonNode branches = post("/bitbucket/getBranches",
+        "{\"repoList\":" + repositories(simulator.fleet().slugs().subList(0, 1)) + "}");
+
+    assertThat(branches.path("failed").asInt()).isEqualTo(1);
+    assertThat(simulator.stats().callsByRoute()).containsEntry("failed", 3L);
+  }
+
+  @Test
+  void rateLimitAnswersTooManyRequestsWithRetryAfter() throws Exception {
+    simulator.configure(HEALTHY.toBuilder().rateLimitPerSecond(5).build());
+
+    List<HttpResponse<Void>> responses = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      responses.add(CLIENT.send(HttpRequest.newBuilder(URI.create(simulator.baseUrl() + "/workspaces/shrsu")).build(),
+          HttpResponse.BodyHandlers.discarding()));
+    }
+
+    assertThat(responses).filteredOn(response -> response.statusCode() == 429)
+        .isNotEmpty()
+        .allMatch(response -> response.headers().firstValue("Retry-After").isPresent());
+  }
+
+  private JsonNode post(String path, String body) throws Exception {
+    HttpResponse<String> response = CLIENT.send(HttpRequest.newBuilder()
+            .uri(URI.create("http://127.0.0.1:" + port + path))
+            .header("Content-Type", "application/json")
+            .header("Cookie", "auth_token=dGVzdA==")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build(),
+        HttpResponse.BodyHandlers.ofString());
+    assertThat(response.statusCode()).as(response.body()).isEqualTo(200);
+    return JSON.readTree(response.body());
+  }
+
+  private static String repositories(List<String> slugs) {
+    return "[" + String.join(",", slugs.stream().map(UpstreamSimulatorTest::repository).toList()) + "]";
+  }
+
+  private static String repository(String slug) {
+    return "{\"projectName\":\"SHRSU\",\"repoSlug\":\"" + slug + "\"}";
+  }
+
+}
@@ -0,0 +1,127 @@
+package com.lws.oms.eop.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lws.oms.eop.model.responses.LineEdit;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LineDiffUtilTest {
+
+  private static final List<String> POM = List.of(
+      "<project>",
+      "  <dependencies>",
+      "    <dependency>",
+      "      <groupId>org.springframework.kafka</groupId>",
+      "      <artifactId>spring-kafka</artifactId>",
+      "      <version>3.1.0</version>",
+      "    </dependency>",
+      "  </dependencies>",
+      "</project>");
+
+  @Test
+  void versionBumpProducesSingleLineEditAndHunk() {
+    List<String> updated = new ArrayList<>(POM);
+    UpdateDependencyUtil.updateDependencyVersionInPom(updated, "spring-kafka", "3.2.0");
+
+    assertThat(LineDiffUtil.computeEdits(POM, updated)).containsExactly(new LineEdit(
+        5, List.of("      <version>3.1.0</version>"), List.of("      <version>3.2.0</version>")));
+
+    assertThat(LineDiffUtil.unifiedDiff("pom.xml", POM, updated)).isEqualTo("""
+        --- a/pom.xml
+        +++ b/pom.xml
+        @@ -3,7 +3,7 @@
+             <dependency>
+               <groupId>org.springframework.kafka</groupId>
+               <artifactId>spring-kafka</artifactId>
+        -      <version>3.1.0</version>
+        +      <version>3.2.0</version>
+             </dependency>
+           </dependencies>
+         </project>
+        """);
+  }
+
+  @Test
+  void insertedVersionLineIsReportedAsPureAddition() {
+    List<String> original = new ArrayList<>(POM);
+    original.remove(5);
+    List<String> updated = new ArrayList<>(original);
+    UpdateDependencyUtil.updateDependencyVersionInPom(updated, "spring-kafka", "3.2.0");
+
+    assertThat(LineDiffUtil.computeEdits(original, updated)).containsExactly(
+        new LineEdit(5, List.of(), List.of("          <version>3.2.0</version>")));
+    assertThat(LineDiffUtil.unifiedDiff("pom.xml", original, updated)).contains("@@ -3,6 +3,7 @@");
+  }
+
+  @Test
+  void separatedEditsAreReportedSeparatelyWithAHunkEach() {
+    List<String> original = new ArrayList<>(POM);
+    original.addAll(5, List.of(
+        "      <version>3.1.0</version>",
+        "    </dependency>",
+        "    <dependency>",
+        "      <groupId>org.apache.kafka</groupId>",
+        "      <artifactId>kafka-clients</artifactId>",
+        "      <scope>runtime</scope>",
+        "      <optional>false</optional>",
+        "      <classifier>test</classifier>"));
+    original.remove(13);
+    original.add(13, "      <version>3.6.0</version>");
+    List<String> updated = new ArrayList<>(original);
+    updated.set(5, "      <version>3.2.0</version>");
+    updated.add(14, "      <type>jar</type>");
+
+    assertThat(LineDiffUtil.computeEdits(original, updated)).containsExactly(
+        new LineEdit(5, List.of("      <version>3.1.0</version>"), List.of("      <version>3.2.0</version>")),
+        new LineEdit(14, List.of(), List.of("      <type>jar</type>")));
+
+    assertThat(LineDiffUtil.unifiedDiff("pom.xml", original, updated)).isEqualTo("""
+        --- a/pom.xml
+        +++ b/pom.xml
+        @@ -3,7 +3,7 @@
+             <dependency>
+               <groupId>org.springframework.kafka</groupId>
+               <artifactId>spring-kafka</artifactId>
+        -      <version>3.1.0</version>
+        +      <version>3.2.0</version>
+             </dependency>
+             <dependency>
+               <groupId>org.apache.kafka</groupId>
+        @@ -12,6 +12,7 @@
+               <optional>false</optional>
+               <classifier>test</classifier>
+               <version>3.6.0</version>
+        +      <type>jar</type>
+             </dependency>
+           </dependencies>
+         </project>
+        """);
+  }
+
+  @Test
+  void editsWhoseContextOverlapsShareAHunk() {
+    List<String> updated = new ArrayList<>(POM);
+    updated.set(1, "  <dependencies><!-- managed -->");
+    updated.set(5, "      <version>3.2.0</version>");
+
+    assertThat(LineDiffUtil.computeEdits(POM, updated)).extracting(LineEdit::offset).containsExactly(1, 5);
+    assertThat(LineDiffUtil.unifiedDiff("pom.xml", POM, updated)).startsWith("""
+        --- a/pom.xml
+        +++ b/pom.xml
+        @@ -1,9 +1,9 @@
+         <project>
+        -  <dependencies>
+        +  <dependencies><!-- managed -->
+             <dependency>
+        """);
+  }
+
+  @Test
+  void identicalContentHasNoEdits() {
+    assertThat(LineDiffUtil.computeEdits(POM, POM)).isEmpty();
+    assertThat(LineDiffUtil.unifiedDiff("pom.xml", POM, POM)).isEmpty();
+  }
+
+}